@@ -214,6 +214,19 @@ public interface IApplication extends IOpenShiftResource {
 	 * @throws OpenShiftException
 	 */
 	public Collection<IGearGroup> getGearGroups() throws OpenShiftException;
+
+	/**
+	 * Returns the gears (ids, states and ssh urls) of this application. Only
+	 * the gears of the gear groups are parsed, their cartridges are skipped.
+	 * The collection is never cached, so each call will trigger a request to
+	 * the OpenShift Broker.
+	 * 
+	 * @return the gears of all gear groups of this application
+	 * @throws OpenShiftException
+	 * 
+	 * @see #getGearGroups()
+	 */
+	public Collection<IGear> getGears() throws OpenShiftException;
 	
 	/**
 	 * Returns the timestamp at which this app was created.
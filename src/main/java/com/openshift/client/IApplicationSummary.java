@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.Date;
+
+/**
+ * The plain values of an application, without its links, cartridges or
+ * aliases. Summaries are much cheaper to list than applications but can't
+ * be operated on, get the application by name for that.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IDomain#getApplicationSummaries()
+ * @see IDomain#getApplicationByName(String)
+ */
+public interface IApplicationSummary {
+
+	/**
+	 * Returns the name of the application.
+	 * 
+	 * @return the name
+	 */
+	public String getName();
+
+	/**
+	 * Returns the uuid of the application.
+	 * 
+	 * @return the uuid
+	 */
+	public String getUUID();
+
+	/**
+	 * Returns the name of the standalone cartridge of the application (ex.
+	 * jbossas-7).
+	 * 
+	 * @return the cartridge name
+	 */
+	public String getCartridgeName();
+
+	/**
+	 * Returns the name of the domain of the application.
+	 * 
+	 * @return the domain name
+	 */
+	public String getDomainId();
+
+	/**
+	 * Returns the url at which the application may be reached at.
+	 * 
+	 * @return the url of the application
+	 */
+	public String getApplicationUrl();
+
+	public ApplicationScale getApplicationScale();
+
+	public IGearProfile getGearProfile();
+
+	/**
+	 * Returns the timestamp at which the application was created.
+	 * 
+	 * @return the creation time
+	 */
+	public Date getCreationTime();
+
+}
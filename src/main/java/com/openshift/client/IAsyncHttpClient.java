@@ -0,0 +1,59 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import com.openshift.internal.client.httpclient.EncodingException;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+
+/**
+ * A http client that executes requests without blocking the calling thread.
+ * 
+ * @author Andre Dietisheim
+ */
+public interface IAsyncHttpClient extends IStreamingHttpClient {
+
+	/**
+	 * Requests the given url asynchronously. The returned future (and the
+	 * given callback) hold the result of the handler once the response was
+	 * received. Errors are reported as
+	 * {@link com.openshift.internal.client.httpclient.HttpClientException} or
+	 * {@link java.net.SocketTimeoutException}.
+	 * 
+	 * @param httpMethod
+	 *            the http method to use
+	 * @param url
+	 *            the url to request
+	 * @param mediaType
+	 *            the media type to encode the parameters with
+	 * @param timeout
+	 *            the read timeout
+	 * @param headers
+	 *            additional request headers
+	 * @param handler
+	 *            the handler that processes the response body
+	 * @param callback
+	 *            the callback to notify once the request completed, may be
+	 *            <code>null</code>
+	 * @param parameters
+	 *            the parameters to send
+	 * @return the future result of the handler
+	 * @throws EncodingException
+	 */
+	public <T> Future<T> requestAsync(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			Map<String, String> headers, IHttpResponseHandler<T> handler, IRequestCallback<T> callback,
+			Parameter... parameters) throws EncodingException;
+
+}
@@ -184,6 +184,20 @@ public interface IDomain extends IOpenShiftResource {
 			throws OpenShiftException;
 	
 	public List<IApplication> getApplications() throws OpenShiftException;
+
+	/**
+	 * Returns the summaries of the applications in this domain. Only the
+	 * plain values of the applications are requested and parsed, their links,
+	 * cartridges and aliases are skipped. Listing summaries is therefore much
+	 * cheaper than listing applications in large domains. The summaries are
+	 * not cached, each call triggers a request to the OpenShift Broker.
+	 * 
+	 * @return the summaries of the applications in this domain
+	 * @throws OpenShiftException
+	 * 
+	 * @see #getApplicationByName(String)
+	 */
+	public List<IApplicationSummary> getApplicationSummaries() throws OpenShiftException;
 	
 	/**
 	 * Returns the list of cartridges that can be used to create a new application.
@@ -0,0 +1,43 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Processes the body of a http response while it is read from the connection.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IStreamingHttpClient
+ */
+public interface IHttpResponseHandler<T> {
+
+	/**
+	 * Processes the given response body. The stream is only valid while this
+	 * method executes, the client closes it (or releases the connection) once
+	 * it returns. Error responses are not passed to the handler but reported
+	 * as {@link com.openshift.internal.client.httpclient.HttpClientException}.
+	 * 
+	 * @param statusCode
+	 *            the http status code of the response
+	 * @param headers
+	 *            the response headers, names are case insensitive
+	 * @param response
+	 *            the response body
+	 * @return the result of the processing
+	 * @throws IOException
+	 */
+	public T handle(int statusCode, Map<String, String> headers, InputStream response) throws IOException;
+
+}
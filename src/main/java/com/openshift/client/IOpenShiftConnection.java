@@ -73,7 +73,8 @@ public interface IOpenShiftConnection {
 	public void setEnableSSLCertChecks(boolean doSSLChecks);
 
 	/**
-	 * Sets flag for using an HTTP proxy
+	 * Sets flag for using an HTTP proxy. The proxy applies to this connection
+	 * only, the system properties of the vm are not touched.
 	 * 
 	 * @param proxySet
 	 */
@@ -90,8 +91,10 @@ public interface IOpenShiftConnection {
 	 * Sets the HTTP proxy port
 	 * 
 	 * @param proxyPort
+	 * @throws OpenShiftException
+	 *             if the port is not a number between 0 and 65535
 	 */
-	public void setProxyPort(String proxyPort);
+	public void setProxyPort(String proxyPort) throws OpenShiftException;
 
 	/**
 	 * Returns the executor service instance that's available in this
@@ -0,0 +1,38 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * Gets notified once an asynchronous request completed.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IAsyncHttpClient
+ */
+public interface IRequestCallback<T> {
+
+	/**
+	 * Called with the result of a request that succeeded.
+	 * 
+	 * @param result
+	 *            the result of the request
+	 */
+	public void completed(T result);
+
+	/**
+	 * Called if a request failed or was cancelled.
+	 * 
+	 * @param e
+	 *            the error that occurred
+	 */
+	public void failed(Throwable e);
+
+}
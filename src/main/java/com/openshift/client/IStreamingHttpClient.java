@@ -0,0 +1,57 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+
+import com.openshift.internal.client.httpclient.EncodingException;
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+
+/**
+ * A http client that hands out the response body as a stream instead of
+ * reading it into a string first.
+ * 
+ * @author Andre Dietisheim
+ */
+public interface IStreamingHttpClient extends IHttpClient {
+
+	/**
+	 * Requests the given url and passes the response body to the given
+	 * handler while it is read from the connection.
+	 * 
+	 * @param httpMethod
+	 *            the http method to use
+	 * @param url
+	 *            the url to request
+	 * @param mediaType
+	 *            the media type to encode the parameters with
+	 * @param timeout
+	 *            the read timeout
+	 * @param headers
+	 *            additional request headers (ex. If-None-Match)
+	 * @param handler
+	 *            the handler that processes the response body
+	 * @param parameters
+	 *            the parameters to send
+	 * @return the result of the handler
+	 * @throws HttpClientException
+	 * @throws SocketTimeoutException
+	 * @throws EncodingException
+	 */
+	public <T> T request(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			Map<String, String> headers, IHttpResponseHandler<T> handler, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException;
+
+}
@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * Thrown if a request was aborted (or not sent) because its
+ * {@link RequestContext} was cancelled.
+ * 
+ * @author Andre Dietisheim
+ */
+public class OpenShiftCancelledException extends OpenShiftEndpointException {
+
+	private static final long serialVersionUID = 1L;
+
+	public OpenShiftCancelledException(String url, Throwable cause, String message, Object... arguments) {
+		super(url, cause, null, message, arguments);
+	}
+}
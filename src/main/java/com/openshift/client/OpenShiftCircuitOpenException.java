@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * Thrown without contacting the server if recent requests to it failed (or
+ * were slow) so often that the circuit breaker of the connection opened.
+ * Requests are let through again once the breaker allows a trial.
+ * 
+ * @author Andre Dietisheim
+ */
+public class OpenShiftCircuitOpenException extends OpenShiftEndpointException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfter;
+
+	public OpenShiftCircuitOpenException(String url, long retryAfter, String message, Object... arguments) {
+		super(url, null, null, message, arguments);
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Returns the time in milliseconds after which the circuit breaker lets a
+	 * trial request through.
+	 */
+	public long getRetryAfter() {
+		return retryAfter;
+	}
+}
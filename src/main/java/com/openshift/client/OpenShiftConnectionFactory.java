@@ -12,12 +12,16 @@ package com.openshift.client;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.Proxy;
+import java.net.URL;
 
 import com.openshift.client.configuration.IOpenShiftConfiguration;
 import com.openshift.client.configuration.OpenShiftConfiguration;
 import com.openshift.internal.client.AbstractOpenShiftConnectionFactory;
 import com.openshift.internal.client.IRestService;
 import com.openshift.internal.client.RestService;
+import com.openshift.internal.client.httpclient.PooledHttpClient;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClient;
 import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
 import com.openshift.internal.client.httpclient.request.JsonMediaType;
 import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
@@ -32,6 +36,73 @@ import com.openshift.internal.client.utils.Assert;
  */
 public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFactory {
 
+	private int warmUpConnections;
+	private long dnsCacheTtl;
+	private Proxy proxy;
+	private UrlConnectionHttpClient transport;
+
+	/**
+	 * Sets the number of connections that are opened (and handshaked) to the
+	 * server in parallel before the first request is sent. Connections are
+	 * then pooled. Useful for short-lived processes that would otherwise
+	 * spend most of their time setting up connections.
+	 * 
+	 * @param connections
+	 *            the number of connections to open, 0 for no warm-up
+	 * @return this factory
+	 */
+	public OpenShiftConnectionFactory setWarmUpConnections(int connections) {
+		this.warmUpConnections = connections;
+		return this;
+	}
+
+	/**
+	 * Sets the time that connections keep the addresses that the server
+	 * resolved to, regardless of the vm-wide dns cache settings. Connections
+	 * are then pooled.
+	 * 
+	 * @param ttl
+	 *            the time in milliseconds, 0 to use the dns cache of the vm
+	 * @return this factory
+	 */
+	public OpenShiftConnectionFactory setDnsCacheTtl(long ttl) {
+		this.dnsCacheTtl = ttl;
+		return this;
+	}
+
+	/**
+	 * Sets the proxy that the connections of this factory go through.
+	 * Connections of other factories (or with other proxies) in the same vm
+	 * are not affected.
+	 * 
+	 * @param proxy
+	 *            the proxy, <code>null</code> for the settings of the vm
+	 * @return this factory
+	 */
+	public OpenShiftConnectionFactory setProxy(Proxy proxy) {
+		this.proxy = proxy;
+		return this;
+	}
+
+	/**
+	 * Sets the client that all connections of this factory send their
+	 * requests with. Connections then are sessions of their user on this
+	 * client and share its connection pool, tls sessions and statistics.
+	 * Pooling, dns cache and proxy of the factory are ignored, the ones of
+	 * the given client apply.
+	 * 
+	 * @param transport
+	 *            the (pooled) client without credentials to share,
+	 *            <code>null</code> for a new client per connection
+	 * @return this factory
+	 * 
+	 * @see UrlConnectionHttpClient#createSession(String, String)
+	 */
+	public OpenShiftConnectionFactory setTransport(UrlConnectionHttpClient transport) {
+		this.transport = transport;
+		return this;
+	}
+
 	/**
 	 * Establish a connection with the clientId along with user's password.
 	 * User's login and Server URL are retrieved from the local configuration
@@ -130,14 +201,26 @@ public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFacto
 		Assert.notNull(serverUrl);
 
 		try {
-			IHttpClient httpClient =
-					new UrlConnectionHttpClientBuilder().setCredentials(username, password, authKey, authIV).client();
-			return getConnection(clientId, username, password, serverUrl, httpClient);
+			return getConnection(clientId, username, password, serverUrl,
+					createHttpClient(username, password, authKey, authIV));
 		} catch (IOException e) {
 			throw new OpenShiftException(e, "Failed to establish connection for user ''{0}}''", username);
 		}
 	}
 
+	private IHttpClient createHttpClient(String username, String password, String authKey, String authIV) {
+		UrlConnectionHttpClient transport = this.transport;
+		if (transport != null) {
+			return transport.createSession(username, password, authKey, authIV);
+		}
+		return new UrlConnectionHttpClientBuilder()
+				.setCredentials(username, password, authKey, authIV)
+				.setConnectionPooling(warmUpConnections > 0)
+				.setDnsCacheTtl(dnsCacheTtl)
+				.setProxy(proxy)
+				.client();
+	}
+
 	protected IOpenShiftConnection getConnection(final String clientId, final String username, final String password,
 			final String serverUrl, IHttpClient httpClient) throws OpenShiftException, IOException {
 		Assert.notNull(clientId);
@@ -146,6 +229,15 @@ public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFacto
 
 		IRestService service = new RestService(serverUrl, clientId, new JsonMediaType(),
 				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), httpClient);
+		warmUp(service.getPlatformUrl(), httpClient);
 		return getConnection(service, username, password);
 	}
+
+	private void warmUp(String serverUrl, IHttpClient httpClient) throws IOException {
+		if (warmUpConnections <= 0
+				|| !(httpClient instanceof PooledHttpClient)) {
+			return;
+		}
+		((PooledHttpClient) httpClient).warmUp(new URL(serverUrl), warmUpConnections);
+	}
 }
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A deadline and a cancellation signal that span all the requests that an
+ * operation sends to the server. A context is attached to the calling thread
+ * and all requests that this thread sends while it's attached get (at most)
+ * the time that's left until the deadline. Requests fail once the deadline
+ * passed or once the context was cancelled. Cancelling closes the
+ * connections of the requests that are in flight.
+ * 
+ * <pre>
+ * RequestContext context = new RequestContext(30, TimeUnit.SECONDS);
+ * RequestContext previous = context.attach();
+ * try {
+ * 	IApplication application = domain.createApplication(...);
+ * 	application.waitForAccessible(10 * 1000);
+ * } finally {
+ * 	context.detach(previous);
+ * }
+ * </pre>
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see OpenShiftCancelledException
+ * @see OpenShiftTimeoutException
+ */
+public class RequestContext {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RequestContext.class);
+
+	public static final long NO_DEADLINE = 0;
+
+	private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<RequestContext>();
+
+	/** the deadline in nanoseconds (see {@link System#nanoTime()}) */
+	private final long deadline;
+	private volatile boolean cancelled;
+	private final Set<Closeable> inFlight = new LinkedHashSet<Closeable>();
+
+	/**
+	 * Creates a context without a deadline that may be cancelled.
+	 */
+	public RequestContext() {
+		this(NO_DEADLINE, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param timeout
+	 *            the time that the requests may take in total,
+	 *            {@link #NO_DEADLINE} for no deadline
+	 * @param unit
+	 *            the unit of the given timeout
+	 */
+	public RequestContext(long timeout, TimeUnit unit) {
+		if (timeout > 0) {
+			this.deadline = System.nanoTime() + unit.toNanos(timeout);
+		} else {
+			this.deadline = NO_DEADLINE;
+		}
+	}
+
+	/**
+	 * Returns the context that's attached to the calling thread,
+	 * <code>null</code> if there's none.
+	 */
+	public static RequestContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Attaches this context to the calling thread.
+	 * 
+	 * @return the context that was attached before, pass it to
+	 *         {@link #detach(RequestContext)}
+	 */
+	public RequestContext attach() {
+		RequestContext previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+
+	/**
+	 * Detaches this context from the calling thread and restores the given
+	 * context.
+	 * 
+	 * @param previous
+	 *            the context that {@link #attach()} returned
+	 */
+	public void detach(RequestContext previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Returns a callable that runs the given one with this context attached.
+	 * Use it to hand the context to other threads.
+	 */
+	public <V> Callable<V> wrap(final Callable<V> callable) {
+		return new Callable<V>() {
+
+			@Override
+			public V call() throws Exception {
+				RequestContext previous = attach();
+				try {
+					return callable.call();
+				} finally {
+					detach(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Cancels all requests of this context: the ones that are in flight are
+	 * aborted (their connections get closed), further ones fail right away.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+		Closeable[] closeables = null;
+		synchronized (inFlight) {
+			closeables = inFlight.toArray(new Closeable[inFlight.size()]);
+			inFlight.clear();
+		}
+		for (Closeable closeable : closeables) {
+			close(closeable);
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns <code>true</code> if the deadline passed.
+	 */
+	public boolean isExpired() {
+		return deadline != NO_DEADLINE
+				&& deadline - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * Returns <code>true</code> if no further requests may be sent, because
+	 * this context was cancelled or its deadline passed.
+	 */
+	public boolean isDone() {
+		return isCancelled()
+				|| isExpired();
+	}
+
+	/**
+	 * Returns the time (in milliseconds) that's left until the deadline,
+	 * {@link Long#MAX_VALUE} if there's no deadline.
+	 */
+	public long getRemaining() {
+		if (deadline == NO_DEADLINE) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+	}
+
+	/**
+	 * Returns the given timeout (in milliseconds) if it ends before the
+	 * deadline, the time that's left until the deadline otherwise. Never
+	 * returns 0 (no timeout) for a context that has a deadline.
+	 */
+	public int getTimeout(int timeout) {
+		long remaining = getRemaining();
+		if (remaining == Long.MAX_VALUE) {
+			return timeout;
+		}
+		remaining = Math.max(1, remaining);
+		if (timeout > 0
+				&& timeout < remaining) {
+			return timeout;
+		}
+		return (int) Math.min(Integer.MAX_VALUE, remaining);
+	}
+
+	/**
+	 * Registers a request that's in flight. The given closeable aborts it if
+	 * this context is cancelled. It's closed right away if this context was
+	 * cancelled already.
+	 * 
+	 * @param request
+	 *            closes the connection of the request
+	 * @see #unregister(Closeable)
+	 */
+	public void register(Closeable request) {
+		synchronized (inFlight) {
+			if (!cancelled) {
+				inFlight.add(request);
+				return;
+			}
+		}
+		close(request);
+	}
+
+	/**
+	 * Unregisters a request that completed.
+	 * 
+	 * @see #register(Closeable)
+	 */
+	public void unregister(Closeable request) {
+		synchronized (inFlight) {
+			inFlight.remove(request);
+		}
+	}
+
+	private void close(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			LOGGER.debug("Could not abort request: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RequestContext ["
+				+ "remaining=" + getRemaining() + ", "
+				+ "cancelled=" + cancelled
+				+ "]";
+	}
+}
@@ -10,6 +10,8 @@
  ******************************************************************************/
 package com.openshift.internal.client;
 
+import java.net.InetSocketAddress;
+import java.net.Proxy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -32,16 +34,15 @@ import com.openshift.internal.client.response.UserResourceDTO;
 import com.openshift.internal.client.utils.Assert;
 import com.openshift.internal.client.utils.CollectionUtils;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
+import com.openshift.internal.client.utils.StringUtils;
 
 /**
  * @author Andre Dietisheim
  * @author Xavier Coulon
  */
 public class APIResource extends AbstractOpenShiftResource implements IOpenShiftConnection {
-	
-	private static final String SYSPROPERTY_PROXY_PORT = "proxyPort";
-	private static final String SYSPROPERTY_PROXY_HOST = "proxyHost";
-	private static final String SYSPROPERTY_PROXY_SET = "proxySet";
+
+	private static final int MAX_PORT = 0xFFFF;
 
 	private final String login;
 	private final String password;
@@ -52,6 +53,10 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	private final List<IStandaloneCartridge> standaloneCartridgeNames = new ArrayList<IStandaloneCartridge>();
 	private final List<IEmbeddableCartridge> embeddedCartridgeNames = new ArrayList<IEmbeddableCartridge>();
 	private final ExecutorService executorService;
+	// the vm honored host and port without the flag
+	private boolean proxySet = true;
+	private String proxyHost;
+	private int proxyPort = -1;
 	
 	protected APIResource(final String login, final String password, final IRestService service,
 			final Map<String, Link> links) {
@@ -77,22 +82,51 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 		this.doSSLChecks = doSSLChecks;
 	}
 
-	public void setProxySet(boolean proxySet) {
-		if (proxySet) {
-			System.setProperty(SYSPROPERTY_PROXY_SET, "true");
-		} else {
-			System.setProperty(SYSPROPERTY_PROXY_SET, "false");
-		}
+	public synchronized void setProxySet(boolean proxySet) {
+		this.proxySet = proxySet;
+		updateProxy();
 	}
 
-	public void setProxyHost(String proxyHost) {
-		System.setProperty(SYSPROPERTY_PROXY_HOST, proxyHost);
+	public synchronized void setProxyHost(String proxyHost) {
+		this.proxyHost = proxyHost;
+		updateProxy();
 	}
 
-	public void setProxyPort(String proxyPort) {
+	public synchronized void setProxyPort(String proxyPort) throws OpenShiftException {
 		Assert.notNull(proxyPort);
 
-		System.setProperty(SYSPROPERTY_PROXY_PORT, proxyPort);
+		this.proxyPort = toPort(proxyPort);
+		updateProxy();
+	}
+
+	private int toPort(String proxyPort) throws OpenShiftException {
+		try {
+			int port = Integer.parseInt(proxyPort.trim());
+			if (port < 0
+					|| port > MAX_PORT) {
+				throw new OpenShiftException("Invalid proxy port \"{0}\", must be between 0 and {1}", proxyPort,
+						String.valueOf(MAX_PORT));
+			}
+			return port;
+		} catch (NumberFormatException e) {
+			throw new OpenShiftException(e, "Invalid proxy port \"{0}\", not a number", proxyPort);
+		}
+	}
+
+	/**
+	 * Sets the proxy on the service of this connection (and not on the vm) so
+	 * that connections to other servers or with other proxies are not
+	 * affected.
+	 */
+	private void updateProxy() {
+		if (!proxySet
+				|| StringUtils.isEmpty(proxyHost)
+				|| proxyPort < 0) {
+			getService().setProxy(null);
+		} else {
+			getService().setProxy(
+					new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(proxyHost, proxyPort)));
+		}
 	}
 
 	public IUser getUser() throws OpenShiftException {
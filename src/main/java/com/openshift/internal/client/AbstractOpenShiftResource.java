@@ -30,6 +30,7 @@ import com.openshift.internal.client.httpclient.request.ParameterValueArray;
 import com.openshift.internal.client.httpclient.request.ParameterValueMap;
 import com.openshift.internal.client.httpclient.request.StringParameter;
 import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.ResponseProjection;
 import com.openshift.internal.client.response.RestResponse;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
 import com.openshift.internal.client.utils.IOpenShiftParameterConstants;
@@ -130,6 +131,12 @@ public abstract class AbstractOpenShiftResource implements IOpenShiftResource {
 		return links != null;
 	}
 
+	/**
+	 * A request to the link of the given name. It's sent within the
+	 * {@link com.openshift.client.RequestContext} that's attached to the
+	 * calling thread (if any): the context bounds its timeout and may cancel
+	 * it.
+	 */
 	protected class ServiceRequest {
 
 		protected final String linkName;
@@ -163,6 +170,15 @@ public abstract class AbstractOpenShiftResource implements IOpenShiftResource {
 			return getData(getService().request(getLink(linkName), timeout, urlParameter, mediaType,  parameters));
 		}
 
+		/**
+		 * Executes this request and only parses the properties of the
+		 * response that the given projection includes.
+		 */
+		protected <DTO> DTO execute(final ResponseProjection projection, List<Parameter> urlParameter,
+				final Parameter... parameters) throws OpenShiftException {
+			return getData(getService().request(getLink(linkName), projection, urlParameter, parameters));
+		}
+
 		protected <DTO> DTO getData(RestResponse response) {
 			// in some cases, there is not response body, just a return code to
 			// indicate that the operation was successful (e.g.: delete domain)
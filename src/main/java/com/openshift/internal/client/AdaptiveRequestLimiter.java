@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.internal.client.httpclient.HttpClientException;
+
+/**
+ * A request limiter whose concurrency limit follows the latency of the
+ * server: it compares the latency of each request to the (long term) average
+ * latency. The limit grows while they're on par and shrinks as soon as the
+ * requests take longer, which means that requests queue up in the server.
+ * Timeouts and server errors shrink the limit multiplicatively. The limit
+ * grows only while it's used so that it stays close to what the server can
+ * take.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see RestService#setRequestLimiter(RequestLimiter)
+ */
+public class AdaptiveRequestLimiter extends RequestLimiter {
+
+	private static final int DEFAULT_INITIAL_LIMIT = 4;
+	private static final int DEFAULT_MIN_LIMIT = 1;
+	private static final int DEFAULT_MAX_LIMIT = 64;
+	private static final double DEFAULT_TOLERANCE = 1.5;
+	private static final double DEFAULT_SMOOTHING = 0.2;
+	private static final double DEFAULT_BACKOFF_RATIO = 0.9;
+	private static final int DEFAULT_RTT_WINDOW = 100;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private double tolerance = DEFAULT_TOLERANCE;
+	private double smoothing = DEFAULT_SMOOTHING;
+	private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+	private int rttWindow = DEFAULT_RTT_WINDOW;
+
+	/** fair, permits are handed out in arrival order */
+	private final ReentrantLock lock = new ReentrantLock(true);
+	private final Condition available = lock.newCondition();
+	private double limit;
+	private int inFlight;
+	private long averageRtt;
+	private long minRtt;
+	private long lastRtt;
+	private long increases;
+	private long decreases;
+
+	public AdaptiveRequestLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+	}
+
+	/**
+	 * @param initialLimit
+	 *            the requests that may be in flight at the same time before
+	 *            any latency was measured
+	 * @param minLimit
+	 *            the lower bound for the limit
+	 * @param maxLimit
+	 *            the upper bound for the limit
+	 */
+	public AdaptiveRequestLimiter(int initialLimit, int minLimit, int maxLimit) {
+		super(UNLIMITED, 1, UNLIMITED);
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+	}
+
+	/**
+	 * Sets the factor that the latency of a request may exceed the average
+	 * latency by before the limit shrinks.
+	 */
+	public AdaptiveRequestLimiter setTolerance(double tolerance) {
+		this.tolerance = Math.max(1, tolerance);
+		return this;
+	}
+
+	/**
+	 * Sets how fast the limit moves towards its new value (0 - 1).
+	 */
+	public AdaptiveRequestLimiter setSmoothing(double smoothing) {
+		this.smoothing = Math.min(1, Math.max(0, smoothing));
+		return this;
+	}
+
+	/**
+	 * Sets the ratio that the limit is multiplied with on timeouts and server
+	 * errors (0 - 1).
+	 */
+	public AdaptiveRequestLimiter setBackoffRatio(double backoffRatio) {
+		this.backoffRatio = Math.min(1, Math.max(0, backoffRatio));
+		return this;
+	}
+
+	/**
+	 * Sets the number of requests that the average latency is (roughly)
+	 * computed over.
+	 */
+	public AdaptiveRequestLimiter setRttWindow(int rttWindow) {
+		this.rttWindow = Math.max(1, rttWindow);
+		return this;
+	}
+
+	@Override
+	protected boolean tryAcquirePermit() throws InterruptedException {
+		lock.lock();
+		try {
+			if (lock.hasWaiters(available)
+					|| inFlight >= getLimit()) {
+				return false;
+			}
+			inFlight++;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected void acquireInFlight() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (inFlight >= getLimit()) {
+				available.await();
+			}
+			inFlight++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected void releaseInFlight(long latency, Exception failure) {
+		lock.lock();
+		try {
+			int previousLimit = getLimit();
+			// in flight before this request completed
+			int utilized = inFlight;
+			inFlight = Math.max(0, inFlight - 1);
+			if (isOverload(failure)) {
+				this.limit = Math.max(minLimit, limit * backoffRatio);
+			} else if (failure == null
+					&& latency > 0) {
+				update(latency, utilized);
+			}
+			if (getLimit() > previousLimit) {
+				available.signalAll();
+			} else {
+				available.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Moves the limit by the ratio of the average latency to the given
+	 * latency. Grows it by (the square root of the limit) while they're on
+	 * par.
+	 */
+	private void update(long rtt, int utilized) {
+		this.lastRtt = rtt;
+		if (minRtt == 0
+				|| rtt < minRtt) {
+			this.minRtt = rtt;
+		}
+		if (averageRtt == 0) {
+			this.averageRtt = rtt;
+		} else {
+			this.averageRtt += (rtt - averageRtt) / rttWindow;
+		}
+		double gradient = Math.max(0.5, Math.min(1, tolerance * averageRtt / rtt));
+		if (gradient >= 1
+				&& utilized * 2 < limit) {
+			// dont grow a limit that's not used
+			return;
+		}
+		double newLimit = limit * gradient + (gradient < 1 ? 0 : Math.sqrt(limit));
+		newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+		newLimit = Math.min(maxLimit, Math.max(minLimit, newLimit));
+		if (newLimit > limit) {
+			increases++;
+		} else if (newLimit < limit) {
+			decreases++;
+		}
+		this.limit = newLimit;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given failure indicates that the server
+	 * is overloaded: a timeout or a server error (5xx).
+	 */
+	protected boolean isOverload(Exception e) {
+		return e instanceof SocketTimeoutException
+				|| (e instanceof HttpClientException
+				&& ((HttpClientException) e).getStatusCode() >= IHttpClient.STATUS_INTERNAL_SERVER_ERROR);
+	}
+
+	/**
+	 * Returns the number of requests that may currently be in flight at the
+	 * same time.
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the upper bound for the limit.
+	 */
+	@Override
+	public int getMaxInFlight() {
+		return maxLimit;
+	}
+
+	@Override
+	protected int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public AdaptiveRequestLimiterStatistics getAdaptiveStatistics() {
+		lock.lock();
+		try {
+			return new AdaptiveRequestLimiterStatistics((int) limit, inFlight, toMillis(minRtt),
+					toMillis(averageRtt), toMillis(lastRtt), increases, decreases);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
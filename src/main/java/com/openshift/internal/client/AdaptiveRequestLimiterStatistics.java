@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+/**
+ * A snapshot of the concurrency limit of an {@link AdaptiveRequestLimiter}
+ * and of the latencies that it was derived from.
+ *
+ * @author Andre Dietisheim
+ */
+public class AdaptiveRequestLimiterStatistics {
+
+	private final int limit;
+	private final int inFlight;
+	private final long minRtt;
+	private final long averageRtt;
+	private final long lastRtt;
+	private final long increases;
+	private final long decreases;
+
+	AdaptiveRequestLimiterStatistics(int limit, int inFlight, long minRtt, long averageRtt, long lastRtt,
+			long increases, long decreases) {
+		this.limit = limit;
+		this.inFlight = inFlight;
+		this.minRtt = minRtt;
+		this.averageRtt = averageRtt;
+		this.lastRtt = lastRtt;
+		this.increases = increases;
+		this.decreases = decreases;
+	}
+
+	/**
+	 * Returns the number of requests that may be in flight at the same time.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns the number of requests that are in flight.
+	 */
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Returns the lowest latency (in milliseconds) that was measured.
+	 */
+	public long getMinRtt() {
+		return minRtt;
+	}
+
+	/**
+	 * Returns the (long term) average latency in milliseconds.
+	 */
+	public long getAverageRtt() {
+		return averageRtt;
+	}
+
+	/**
+	 * Returns the latency (in milliseconds) of the last successful request.
+	 */
+	public long getLastRtt() {
+		return lastRtt;
+	}
+
+	/**
+	 * Returns how many times the limit was raised.
+	 */
+	public long getIncreases() {
+		return increases;
+	}
+
+	/**
+	 * Returns how many times the limit was lowered.
+	 */
+	public long getDecreases() {
+		return decreases;
+	}
+
+	@Override
+	public String toString() {
+		return "AdaptiveRequestLimiterStatistics ["
+				+ "limit=" + limit + ", "
+				+ "inFlight=" + inFlight + ", "
+				+ "minRtt=" + minRtt + ", "
+				+ "averageRtt=" + averageRtt + ", "
+				+ "lastRtt=" + lastRtt + ", "
+				+ "increases=" + increases + ", "
+				+ "decreases=" + decreases
+				+ "]";
+	}
+}
@@ -38,16 +38,19 @@ import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.openshift.client.ApplicationScale;
+import com.openshift.client.GearState;
 import com.openshift.client.IApplication;
 import com.openshift.client.IApplicationPortForwarding;
 import com.openshift.client.IDomain;
 import com.openshift.client.IEnvironmentVariable;
+import com.openshift.client.IGear;
 import com.openshift.client.IGearGroup;
 import com.openshift.client.IGearProfile;
 import com.openshift.client.IOpenShiftConnection;
 import com.openshift.client.Messages;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftSSHOperationException;
+import com.openshift.client.RequestContext;
 import com.openshift.client.cartridge.ICartridge;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
 import com.openshift.client.cartridge.IEmbeddedCartridge;
@@ -55,12 +58,15 @@ import com.openshift.client.cartridge.IStandaloneCartridge;
 import com.openshift.client.cartridge.StandaloneCartridge;
 import com.openshift.client.utils.HostUtils;
 import com.openshift.client.utils.RFC822DateUtils;
+import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.StringParameter;
 import com.openshift.internal.client.response.ApplicationResourceDTO;
 import com.openshift.internal.client.response.CartridgeResourceDTO;
 import com.openshift.internal.client.response.EnvironmentVariableResourceDTO;
 import com.openshift.internal.client.response.GearGroupResourceDTO;
+import com.openshift.internal.client.response.GearResourceDTO;
 import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.ResponseProjection;
 import com.openshift.internal.client.ssh.ApplicationPortForwarding;
 import com.openshift.internal.client.utils.Assert;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
@@ -500,6 +506,18 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 		return gearGroups;
 	}
 
+	@Override
+	public Collection<IGear> getGears() throws OpenShiftException {
+		List<IGear> gears = new ArrayList<IGear>();
+		Collection<GearGroupResourceDTO> dtos = new GetGearsRequest().execute();
+		for (GearGroupResourceDTO dto : dtos) {
+			for (GearResourceDTO gearDTO : dto.getGears()) {
+				gears.add(new Gear(gearDTO.getUuid(), GearState.safeValueOf(gearDTO.getState()), gearDTO.getSshUrl()));
+			}
+		}
+		return gears;
+	}
+
 	private Collection<IGearGroup> loadGearGroups() throws OpenShiftException {
 		List<IGearGroup> gearGroups = new ArrayList<IGearGroup>();
 		Collection<GearGroupResourceDTO> dtos = new GetGearGroupsRequest().execute(); 
@@ -520,12 +538,17 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 
 	public Future<Boolean> waitForAccessibleAsync(final long timeout) throws OpenShiftException {
 		IOpenShiftConnection connection = getConnection();
-		return connection.getExecutorService().submit(new Callable<Boolean>() {
+		Callable<Boolean> wait = new Callable<Boolean>() {
 
 			public Boolean call() throws Exception {
 				return waitForAccessible(timeout);
 			}
-		});
+		};
+		RequestContext context = RequestContext.current();
+		if (context != null) {
+			wait = context.wrap(wait);
+		}
+		return connection.getExecutorService().submit(wait);
 	}
 	
 	protected IOpenShiftConnection getConnection() {
@@ -533,9 +556,11 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	}
 
 	private boolean waitForResolved(long timeout, long startTime) throws OpenShiftException, InterruptedException {
+		RequestContext context = RequestContext.current();
 		try {
 			while (!canResolv(applicationUrl)
-					&& !isTimeouted(timeout, startTime)) {
+					&& !isTimeouted(timeout, startTime)
+					&& !isDone(context)) {
 				Thread.sleep(APPLICATION_WAIT_RETRY_DELAY);
 			}
 			return canResolv(applicationUrl);
@@ -554,6 +579,11 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 		return !(System.currentTimeMillis() < (startTime + timeout));
 	}
 
+	private boolean isDone(RequestContext context) {
+		return context != null
+				&& context.isDone();
+	}
+
 	@Override
 	public void refresh() throws OpenShiftException {
 		refreshEmbeddedCartridges();
@@ -1101,6 +1131,17 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 		}
 	}
 	
+	private class GetGearsRequest extends ServiceRequest {
+
+		private GetGearsRequest() {
+			super(LINK_GET_GEAR_GROUPS);
+		}
+
+		protected <DTO> DTO execute() throws OpenShiftException {
+			return super.execute(ResponseProjection.GEARS, Collections.<Parameter> emptyList());
+		}
+	}
+
 	private class ListEnvironmentVariablesRequest extends ServiceRequest {
 		protected ListEnvironmentVariablesRequest() {
 			super(LINK_LIST_ENVIRONMENT_VARIABLES);
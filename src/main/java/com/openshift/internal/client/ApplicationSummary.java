@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.Date;
+
+import com.openshift.client.ApplicationScale;
+import com.openshift.client.IApplicationSummary;
+import com.openshift.client.IGearProfile;
+import com.openshift.client.utils.RFC822DateUtils;
+import com.openshift.internal.client.response.ApplicationResourceDTO;
+
+/**
+ * The summary of an application, created off a response that was restricted
+ * to the plain values of the applications.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see com.openshift.internal.client.response.ResponseProjection#APPLICATION_SUMMARY
+ */
+public class ApplicationSummary implements IApplicationSummary {
+
+	private final String name;
+	private final String uuid;
+	private final String cartridgeName;
+	private final String domainId;
+	private final String applicationUrl;
+	private final ApplicationScale scale;
+	private final IGearProfile gearProfile;
+	private final Date creationTime;
+
+	protected ApplicationSummary(ApplicationResourceDTO dto) {
+		this.name = dto.getName();
+		this.uuid = dto.getUuid();
+		this.cartridgeName = dto.getFramework();
+		this.domainId = dto.getDomainId();
+		this.applicationUrl = dto.getApplicationUrl();
+		this.scale = dto.getApplicationScale();
+		this.gearProfile = dto.getGearProfile();
+		this.creationTime = RFC822DateUtils.safeGetDate(dto.getCreationTime());
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getUUID() {
+		return uuid;
+	}
+
+	public String getCartridgeName() {
+		return cartridgeName;
+	}
+
+	public String getDomainId() {
+		return domainId;
+	}
+
+	public String getApplicationUrl() {
+		return applicationUrl;
+	}
+
+	public ApplicationScale getApplicationScale() {
+		return scale;
+	}
+
+	public IGearProfile getGearProfile() {
+		return gearProfile;
+	}
+
+	public Date getCreationTime() {
+		return creationTime;
+	}
+
+	@Override
+	public String toString() {
+		return "ApplicationSummary ["
+				+ "name=" + name
+				+ ", uuid=" + uuid
+				+ ", cartridgeName=" + cartridgeName
+				+ ", domainId=" + domainId
+				+ "]";
+	}
+}
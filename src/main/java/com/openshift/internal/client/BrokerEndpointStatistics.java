@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+/**
+ * A snapshot of the health of a broker that {@link RestService} routes
+ * requests to.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see BrokerEndpoints#getStatistics()
+ */
+public class BrokerEndpointStatistics {
+
+	private final String url;
+	private final boolean healthy;
+	private final double latency;
+	private final double errorRate;
+	private final long requests;
+	private final long failures;
+	private final long failovers;
+
+	BrokerEndpointStatistics(String url, boolean healthy, double latency, double errorRate, long requests,
+			long failures, long failovers) {
+		this.url = url;
+		this.healthy = healthy;
+		this.latency = latency;
+		this.errorRate = errorRate;
+		this.requests = requests;
+		this.failures = failures;
+		this.failovers = failovers;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Returns <code>true</code> if requests may be routed to the broker.
+	 */
+	public boolean isHealthy() {
+		return healthy;
+	}
+
+	/**
+	 * Returns the average latency in milliseconds of the successful requests.
+	 */
+	public double getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Returns the average ratio (0 - 1) of failed requests.
+	 */
+	public double getErrorRate() {
+		return errorRate;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Returns the number of requests that could not connect to the broker and
+	 * were sent to an other one.
+	 */
+	public long getFailovers() {
+		return failovers;
+	}
+
+	@Override
+	public String toString() {
+		return "BrokerEndpointStatistics ["
+				+ "url=" + url + ", "
+				+ "healthy=" + healthy + ", "
+				+ "latency=" + latency + ", "
+				+ "errorRate=" + errorRate + ", "
+				+ "requests=" + requests + ", "
+				+ "failures=" + failures + ", "
+				+ "failovers=" + failovers
+				+ "]";
+	}
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.net.ConnectException;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.OpenShiftCancelledException;
+import com.openshift.client.OpenShiftCircuitOpenException;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.httpclient.EncodingException;
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.utils.UrlUtils;
+
+/**
+ * Several brokers (ex. nodes behind different host names) that
+ * {@link RestService} may send its requests to. The latency and the error
+ * rate of each broker are tracked as exponentially weighted moving averages
+ * and each request goes to the healthy broker with the best (lowest) score.
+ * A broker is unhealthy while its error rate is above a threshold, it's
+ * tried again once the retry interval passed since its last failure.
+ * Requests that could not connect to a broker fail over to the next best
+ * one.
+ * <p>
+ * Only urls that point to one of the brokers are routed, requests to other
+ * hosts are sent as is. The server that the service loads the api from must
+ * thus be one of the brokers.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see RestService#setEndpoints(BrokerEndpoints)
+ */
+public class BrokerEndpoints {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BrokerEndpoints.class);
+
+	public static final double DEFAULT_SMOOTHING = 0.3;
+	public static final double DEFAULT_ERROR_RATE_THRESHOLD = 0.5;
+	public static final double DEFAULT_ERROR_PENALTY = 10;
+	public static final long DEFAULT_RETRY_INTERVAL = 30 * 1000;
+
+	private final List<Endpoint> endpoints;
+	private double smoothing = DEFAULT_SMOOTHING;
+	private double errorRateThreshold = DEFAULT_ERROR_RATE_THRESHOLD;
+	private double errorPenalty = DEFAULT_ERROR_PENALTY;
+	private long retryInterval = DEFAULT_RETRY_INTERVAL;
+
+	/**
+	 * @param servers
+	 *            the brokers (ex. https://broker1.example.com) in order of
+	 *            preference
+	 */
+	public BrokerEndpoints(String... servers) {
+		if (servers == null
+				|| servers.length == 0) {
+			throw new OpenShiftException("No broker endpoints given");
+		}
+		List<Endpoint> endpoints = new ArrayList<Endpoint>();
+		for (String server : servers) {
+			endpoints.add(new Endpoint(createUrl(server)));
+		}
+		this.endpoints = Collections.unmodifiableList(endpoints);
+	}
+
+	private URL createUrl(String server) {
+		try {
+			return new URL(UrlUtils.ensureStartsWithHttps(server));
+		} catch (MalformedURLException e) {
+			throw new OpenShiftException(e, "Invalid broker endpoint {0}", server);
+		}
+	}
+
+	/**
+	 * Sets the weight (0 - 1) that the latest request has in the latency and
+	 * error averages. Higher values react faster, lower ones are smoother.
+	 */
+	public BrokerEndpoints setSmoothing(double smoothing) {
+		this.smoothing = smoothing;
+		return this;
+	}
+
+	/**
+	 * Sets the error rate (ex. 0.5) above which a broker is unhealthy.
+	 */
+	public BrokerEndpoints setErrorRateThreshold(double threshold) {
+		this.errorRateThreshold = threshold;
+		return this;
+	}
+
+	/**
+	 * Sets how much errors worsen the score of a broker: the latency is
+	 * multiplied with (1 + error rate * penalty).
+	 */
+	public BrokerEndpoints setErrorPenalty(double errorPenalty) {
+		this.errorPenalty = errorPenalty;
+		return this;
+	}
+
+	/**
+	 * Sets the time in milliseconds after its last failure that an unhealthy
+	 * broker is tried again.
+	 */
+	public BrokerEndpoints setRetryInterval(long retryInterval) {
+		this.retryInterval = retryInterval;
+		return this;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given url points to one of the brokers.
+	 */
+	boolean contains(URL url) {
+		return getEndpoint(url) != null;
+	}
+
+	Endpoint getEndpoint(URL url) {
+		for (Endpoint endpoint : endpoints) {
+			if (endpoint.matches(url)) {
+				return endpoint;
+			}
+		}
+		return null;
+	}
+
+	int size() {
+		return endpoints.size();
+	}
+
+	/**
+	 * Returns the broker that the next request shall go to: the healthy one
+	 * with the lowest score, brokers that were not requested yet come first.
+	 * Returns the one that failed the longest time ago if none is healthy.
+	 * 
+	 * @param excluded
+	 *            the brokers that shall not be selected (ex. the ones the
+	 *            request failed on already)
+	 * @return the broker or <code>null</code> if all are excluded
+	 */
+	synchronized Endpoint select(Collection<Endpoint> excluded) {
+		long now = currentTimeMillis();
+		Endpoint best = null;
+		Endpoint leastRecentlyFailed = null;
+		for (Endpoint endpoint : endpoints) {
+			if (excluded.contains(endpoint)) {
+				continue;
+			}
+			if (!isHealthy(endpoint, now)) {
+				if (leastRecentlyFailed == null
+						|| endpoint.lastFailure < leastRecentlyFailed.lastFailure) {
+					leastRecentlyFailed = endpoint;
+				}
+			} else if (best == null
+					|| getScore(endpoint) < getScore(best)) {
+				best = endpoint;
+			}
+		}
+		if (best == null) {
+			return leastRecentlyFailed;
+		}
+		return best;
+	}
+
+	private boolean isHealthy(Endpoint endpoint, long now) {
+		return endpoint.errorRate < errorRateThreshold
+				|| now - endpoint.lastFailure >= retryInterval;
+	}
+
+	private double getScore(Endpoint endpoint) {
+		if (endpoint.requests == 0) {
+			return 0;
+		}
+		return endpoint.latency * (1 + endpoint.errorRate * errorPenalty);
+	}
+
+	/**
+	 * Reports the latency (in nanoseconds) and the outcome of a request to the
+	 * given broker. Requests that the caller cancelled or that the circuit
+	 * breaker rejected are not reported, they tell nothing about the broker.
+	 */
+	synchronized void release(Endpoint endpoint, long latency, Exception failure) {
+		if (failure instanceof OpenShiftCancelledException
+				|| failure instanceof OpenShiftCircuitOpenException) {
+			return;
+		}
+		boolean failed = isFailure(failure);
+		endpoint.requests++;
+		if (failed) {
+			endpoint.failures++;
+			endpoint.lastFailure = currentTimeMillis();
+		}
+		if (isConnectFailure(failure)) {
+			// down, no use to wait for the average to catch up
+			endpoint.errorRate = 1;
+		} else {
+			endpoint.errorRate = average(endpoint.errorRate, failed ? 1 : 0, endpoint.requests);
+		}
+		if (!failed) {
+			endpoint.latency = average(endpoint.latency, latency, endpoint.requests - endpoint.failures);
+		}
+	}
+
+	synchronized void failedOver(Endpoint endpoint) {
+		endpoint.failovers++;
+		LOGGER.warn("Could not connect to broker {}, failing over", endpoint.getUrl());
+	}
+
+	private double average(double average, double value, long samples) {
+		if (samples <= 1) {
+			return value;
+		}
+		return average + smoothing * (value - average);
+	}
+
+	/**
+	 * Returns <code>true</code> if the given failure is due to the broker (as
+	 * opposed to the request).
+	 */
+	protected boolean isFailure(Exception e) {
+		return e != null
+				&& !isClientError(e)
+				&& !(e instanceof EncodingException);
+	}
+
+	private boolean isClientError(Exception e) {
+		return e instanceof HttpClientException
+				&& ((HttpClientException) e).isClientError();
+	}
+
+	/**
+	 * Returns <code>true</code> if the given failure happened before the
+	 * request reached the broker, so that it is safe to send it to an other
+	 * broker regardless of its method.
+	 */
+	protected boolean isConnectFailure(Exception e) {
+		if (!(e instanceof HttpClientException)) {
+			return false;
+		}
+		for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConnectException
+					|| cause instanceof UnknownHostException
+					|| cause instanceof NoRouteToHostException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public synchronized List<BrokerEndpointStatistics> getStatistics() {
+		long now = currentTimeMillis();
+		List<BrokerEndpointStatistics> statistics = new ArrayList<BrokerEndpointStatistics>();
+		for (Endpoint endpoint : endpoints) {
+			statistics.add(new BrokerEndpointStatistics(endpoint.getUrl().toString(), isHealthy(endpoint, now),
+					endpoint.latency / 1000000, endpoint.errorRate, endpoint.requests, endpoint.failures,
+					endpoint.failovers));
+		}
+		return statistics;
+	}
+
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * A broker and its averages.
+	 */
+	static class Endpoint {
+
+		private final URL url;
+		private final int port;
+		private double latency;
+		private double errorRate;
+		private long requests;
+		private long failures;
+		private long failovers;
+		private long lastFailure;
+
+		private Endpoint(URL url) {
+			this.url = url;
+			this.port = getPort(url);
+		}
+
+		URL getUrl() {
+			return url;
+		}
+
+		private boolean matches(URL url) {
+			return this.url.getProtocol().equalsIgnoreCase(url.getProtocol())
+					&& this.url.getHost().equalsIgnoreCase(url.getHost())
+					&& port == getPort(url);
+		}
+
+		/**
+		 * Returns the given url (that points to one of the brokers) pointing
+		 * to this broker.
+		 */
+		URL rewrite(URL url) throws OpenShiftException {
+			if (matches(url)) {
+				return url;
+			}
+			try {
+				return new URL(this.url.getProtocol(), this.url.getHost(), this.url.getPort(), url.getFile());
+			} catch (MalformedURLException e) {
+				throw new OpenShiftException(e, "Could not route {0} to broker {1}", url, this.url);
+			}
+		}
+
+		private static int getPort(URL url) {
+			if (url.getPort() == -1) {
+				return url.getDefaultPort();
+			}
+			return url.getPort();
+		}
+
+		@Override
+		public String toString() {
+			return url.toString();
+		}
+	}
+}
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.OpenShiftCancelledException;
+import com.openshift.client.OpenShiftCircuitOpenException;
+import com.openshift.internal.client.httpclient.EncodingException;
+import com.openshift.internal.client.httpclient.HttpClientException;
+
+/**
+ * Stops {@link RestService} from sending requests to a broker that is
+ * unhealthy. The breaker is <em>closed</em> (lets requests through) as long
+ * as the requests within a sliding window of recent requests mostly succeed.
+ * It <em>opens</em> once the ratio of failed (any error but a client error)
+ * or slow requests exceeds a threshold: requests then fail fast
+ * with an {@link OpenShiftCircuitOpenException} instead of tying up threads
+ * in read timeouts. After the open duration it is <em>half-open</em> and lets
+ * a few trial requests through: it closes if they succeed and opens again if
+ * any of them fails.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see RestService#setCircuitBreaker(CircuitBreaker)
+ */
+public class CircuitBreaker {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	public static final int DEFAULT_WINDOW_SIZE = 20;
+	public static final int DEFAULT_MINIMUM_REQUESTS = 10;
+	public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+	public static final long DEFAULT_SLOW_REQUEST_THRESHOLD = 10 * 1000;
+	public static final double DEFAULT_SLOW_RATE_THRESHOLD = 0.8;
+	public static final long DEFAULT_OPEN_DURATION = 30 * 1000;
+	public static final int DEFAULT_HALF_OPEN_REQUESTS = 3;
+
+	private int minimumRequests = DEFAULT_MINIMUM_REQUESTS;
+	private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+	private long slowRequestThreshold = DEFAULT_SLOW_REQUEST_THRESHOLD;
+	private double slowRateThreshold = DEFAULT_SLOW_RATE_THRESHOLD;
+	private long openDuration = DEFAULT_OPEN_DURATION;
+	private int halfOpenRequests = DEFAULT_HALF_OPEN_REQUESTS;
+
+	private final boolean[] failed;
+	private final boolean[] slow;
+	private int next;
+	private int recorded;
+
+	private State state = State.CLOSED;
+	private long openedAt;
+	private int trialPermits;
+	private int trialSuccesses;
+	private long rejected;
+	private long opened;
+
+	public CircuitBreaker() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param windowSize
+	 *            the number of recent requests that the failure and slow
+	 *            rates are computed over
+	 */
+	public CircuitBreaker(int windowSize) {
+		this.failed = new boolean[windowSize];
+		this.slow = new boolean[windowSize];
+	}
+
+	/**
+	 * Sets the number of requests that the window must hold before the
+	 * breaker may open.
+	 */
+	public CircuitBreaker setMinimumRequests(int minimumRequests) {
+		this.minimumRequests = minimumRequests;
+		return this;
+	}
+
+	/**
+	 * Sets the ratio of failed requests (ex. 0.5 for half of them) at which
+	 * the breaker opens.
+	 */
+	public CircuitBreaker setFailureRateThreshold(double threshold) {
+		this.failureRateThreshold = threshold;
+		return this;
+	}
+
+	/**
+	 * Sets the time in milliseconds after which a request is considered slow
+	 * and the ratio of slow requests at which the breaker opens.
+	 */
+	public CircuitBreaker setSlowRequestThreshold(long duration, double rateThreshold) {
+		this.slowRequestThreshold = duration;
+		this.slowRateThreshold = rateThreshold;
+		return this;
+	}
+
+	/**
+	 * Sets the time in milliseconds that the breaker stays open before it
+	 * lets trial requests through.
+	 */
+	public CircuitBreaker setOpenDuration(long openDuration) {
+		this.openDuration = openDuration;
+		return this;
+	}
+
+	/**
+	 * Sets the number of trial requests that must succeed for the half-open
+	 * breaker to close.
+	 */
+	public CircuitBreaker setHalfOpenRequests(int halfOpenRequests) {
+		this.halfOpenRequests = halfOpenRequests;
+		return this;
+	}
+
+	/**
+	 * Asks for permission to send a request to the given url.
+	 * 
+	 * @param url
+	 *            the url to request
+	 * @return the time the request starts at, to be passed to
+	 *         {@link #release(long, Exception)}
+	 * @throws OpenShiftCircuitOpenException
+	 *             if the breaker is open
+	 */
+	synchronized long acquire(String url) throws OpenShiftCircuitOpenException {
+		long now = currentTimeMillis();
+		if (state == State.OPEN) {
+			long retryAfter = openedAt + openDuration - now;
+			if (retryAfter > 0) {
+				rejected++;
+				throw new OpenShiftCircuitOpenException(url, retryAfter,
+						"Could not request {0}, the server failed too often recently. Retry in {1} ms.",
+						url, retryAfter);
+			}
+			setState(State.HALF_OPEN);
+			this.trialPermits = halfOpenRequests;
+			this.trialSuccesses = 0;
+		}
+		if (state == State.HALF_OPEN) {
+			if (trialPermits <= 0) {
+				rejected++;
+				throw new OpenShiftCircuitOpenException(url, 0,
+						"Could not request {0}, waiting for trial requests to the server to complete.", url);
+			}
+			trialPermits--;
+		}
+		return now;
+	}
+
+	/**
+	 * Records the outcome of a request that was permitted by
+	 * {@link #acquire(String)}.
+	 * 
+	 * @param start
+	 *            the time the request started at
+	 * @param e
+	 *            the error that the request failed with, <code>null</code> if
+	 *            it succeeded
+	 */
+	synchronized void release(long start, Exception e) {
+		boolean isFailed = e != null
+				&& isFailure(e);
+		boolean isSlow = currentTimeMillis() - start >= slowRequestThreshold;
+		switch (state) {
+		case HALF_OPEN:
+			if (isFailed
+					|| isSlow) {
+				open();
+			} else if (++trialSuccesses >= halfOpenRequests) {
+				close();
+			}
+			break;
+		case CLOSED:
+			record(isFailed, isSlow);
+			if (recorded >= minimumRequests
+					&& (getRate(failed) >= failureRateThreshold
+					|| getRate(slow) >= slowRateThreshold)) {
+				open();
+			}
+			break;
+		default:
+			// started before the breaker opened
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given error may tell that the server
+	 * is unhealthy. Any error does except for client errors (4xx responses,
+	 * requests that could not be encoded) and requests that the caller
+	 * cancelled.
+	 */
+	protected boolean isFailure(Exception e) {
+		return !isClientError(e)
+				&& !(e instanceof EncodingException)
+				&& !(e instanceof OpenShiftCancelledException);
+	}
+
+	private boolean isClientError(Exception e) {
+		return e instanceof HttpClientException
+				&& ((HttpClientException) e).isClientError();
+	}
+
+	private void record(boolean isFailed, boolean isSlow) {
+		failed[next] = isFailed;
+		slow[next] = isSlow;
+		this.next = (next + 1) % failed.length;
+		if (recorded < failed.length) {
+			recorded++;
+		}
+	}
+
+	private double getRate(boolean[] outcomes) {
+		if (recorded == 0) {
+			return 0;
+		}
+		int count = 0;
+		for (int i = 0; i < recorded; i++) {
+			if (outcomes[i]) {
+				count++;
+			}
+		}
+		return (double) count / recorded;
+	}
+
+	private void open() {
+		setState(State.OPEN);
+		this.openedAt = currentTimeMillis();
+		this.opened++;
+	}
+
+	private void close() {
+		setState(State.CLOSED);
+		this.next = 0;
+		this.recorded = 0;
+	}
+
+	private void setState(State state) {
+		LOGGER.info("Circuit breaker changes from {} to {}", this.state, state);
+		this.state = state;
+	}
+
+	/**
+	 * Returns the current state. An open breaker reports
+	 * {@link State#HALF_OPEN} only once a request asked for permission after
+	 * the open duration expired.
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	public synchronized CircuitBreakerStatistics getStatistics() {
+		return new CircuitBreakerStatistics(state, recorded, getRate(failed), getRate(slow), opened, rejected);
+	}
+
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+}
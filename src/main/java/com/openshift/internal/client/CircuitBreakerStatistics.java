@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import com.openshift.internal.client.CircuitBreaker.State;
+
+/**
+ * A snapshot of the state of a {@link CircuitBreaker}.
+ *
+ * @author Andre Dietisheim
+ */
+public class CircuitBreakerStatistics {
+
+	private final State state;
+	private final int requests;
+	private final double failureRate;
+	private final double slowRate;
+	private final long opened;
+	private final long rejected;
+
+	CircuitBreakerStatistics(State state, int requests, double failureRate, double slowRate, long opened,
+			long rejected) {
+		this.state = state;
+		this.requests = requests;
+		this.failureRate = failureRate;
+		this.slowRate = slowRate;
+		this.opened = opened;
+		this.rejected = rejected;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * Returns the number of requests in the sliding window.
+	 */
+	public int getRequests() {
+		return requests;
+	}
+
+	/**
+	 * Returns the ratio of failed requests in the sliding window.
+	 */
+	public double getFailureRate() {
+		return failureRate;
+	}
+
+	/**
+	 * Returns the ratio of slow requests in the sliding window.
+	 */
+	public double getSlowRate() {
+		return slowRate;
+	}
+
+	/**
+	 * Returns how many times the breaker opened.
+	 */
+	public long getOpened() {
+		return opened;
+	}
+
+	/**
+	 * Returns the number of requests that were rejected while the breaker was
+	 * open.
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	@Override
+	public String toString() {
+		return "CircuitBreakerStatistics ["
+				+ "state=" + state + ", "
+				+ "requests=" + requests + ", "
+				+ "failureRate=" + failureRate + ", "
+				+ "slowRate=" + slowRate + ", "
+				+ "opened=" + opened + ", "
+				+ "rejected=" + rejected
+				+ "]";
+	}
+}
@@ -12,12 +12,14 @@ package com.openshift.internal.client;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 
 import com.openshift.client.ApplicationScale;
 import com.openshift.client.IApplication;
+import com.openshift.client.IApplicationSummary;
 import com.openshift.client.IDomain;
 import com.openshift.client.IGearProfile;
 import com.openshift.client.IHttpClient;
@@ -27,11 +29,13 @@ import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftRequestException;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
 import com.openshift.client.cartridge.IStandaloneCartridge;
+import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.StringParameter;
 import com.openshift.internal.client.response.ApplicationResourceDTO;
 import com.openshift.internal.client.response.DomainResourceDTO;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.response.LinkParameter;
+import com.openshift.internal.client.response.ResponseProjection;
 import com.openshift.internal.client.utils.Assert;
 import com.openshift.internal.client.utils.CollectionUtils;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
@@ -86,8 +90,7 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 		DomainResourceDTO domainDTO = new UpdateDomainRequest().execute(id);
 		this.id = domainDTO.getId();
 		this.suffix = domainDTO.getSuffix();
-		this.getLinks().clear();
-		this.getLinks().putAll(domainDTO.getLinks());
+		setLinks(domainDTO.getLinks());
 	}
 
 	@Override
@@ -261,6 +264,16 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 		return CollectionUtils.toUnmodifiableCopy(getOrLoadApplications());
 	}
 
+	@Override
+	public List<IApplicationSummary> getApplicationSummaries() throws OpenShiftException {
+		List<IApplicationSummary> summaries = new ArrayList<IApplicationSummary>();
+		List<ApplicationResourceDTO> applicationDTOs = new ListApplicationSummariesRequest().execute();
+		for (ApplicationResourceDTO dto : applicationDTOs) {
+			summaries.add(new ApplicationSummary(dto));
+		}
+		return summaries;
+	}
+
 	protected List<IApplication> getOrLoadApplications() throws OpenShiftException {
 		if (applications == null) {
 			this.applications = loadApplications();
@@ -447,6 +460,18 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 		}
 	}
 
+	private class ListApplicationSummariesRequest extends ServiceRequest {
+
+		private ListApplicationSummariesRequest() throws OpenShiftException {
+			super(LINK_LIST_APPLICATIONS);
+		}
+
+		protected <DTO> DTO execute() throws OpenShiftException {
+			// no ?include=cartridges, they'd be skipped anyways
+			return super.execute(ResponseProjection.APPLICATION_SUMMARY, Collections.<Parameter> emptyList());
+		}
+	}
+
 	private class CreateApplicationRequest extends ServiceRequest {
 
 		private CreateApplicationRequest() throws OpenShiftException {
@@ -82,8 +82,7 @@ public class EnvironmentVariableResource extends AbstractOpenShiftResource imple
 	private void updateEnvironmentVariable(EnvironmentVariableResourceDTO dto) {
 		this.name = dto.getName();
 		this.value = dto.getValue();
-		this.getLinks().clear();
-		this.getLinks().putAll(dto.getLinks());
+		setLinks(dto.getLinks());
 	}
 
 	@Override
@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.RequestContext;
+
+/**
+ * Hedges (idempotent) GET requests that {@link RestService} sends: if a
+ * response did not arrive within the given percentile of the latencies that
+ * were measured so far, a second, identical request is sent. The first
+ * response wins, the other request is cancelled and its response discarded.
+ * Each request runs in a request context of its own (that's cancelled along
+ * with the one of the caller) so that cancelling it closes its connection.
+ * <p>
+ * The first request is sent in the calling thread, only the hedges are sent
+ * on a (bounded) pool of threads.
+ * <p>
+ * A budget limits the hedged requests to a ratio of the requests so that
+ * hedging cannot double the load on a server that is slow already: each
+ * request deposits the ratio, each hedged request withdraws 1.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see RestService#setHedgingPolicy(HedgingPolicy)
+ */
+public class HedgingPolicy {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HedgingPolicy.class);
+
+	public static final double DEFAULT_PERCENTILE = 0.95;
+	public static final long DEFAULT_MIN_DELAY = 10;
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+	public static final int DEFAULT_MIN_SAMPLES = 20;
+	public static final double DEFAULT_BUDGET_RATIO = 0.1;
+	public static final int DEFAULT_BUDGET_BURST = 10;
+	public static final int DEFAULT_THREADS = 4;
+
+	private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+	private final ScheduledExecutorService executor;
+	private double percentile = DEFAULT_PERCENTILE;
+	private long minDelay = DEFAULT_MIN_DELAY;
+	private int minSamples = DEFAULT_MIN_SAMPLES;
+	private double budgetRatio = DEFAULT_BUDGET_RATIO;
+	private int budgetBurst = DEFAULT_BUDGET_BURST;
+
+	/** the latencies (in milliseconds) of the last responses */
+	private long[] latencies;
+	private int samples;
+	private int next;
+
+	private double budget = DEFAULT_BUDGET_BURST;
+	private long requests;
+	private long hedges;
+	private long hedgeWins;
+	private long budgetExhausted;
+
+	public HedgingPolicy() {
+		this(null);
+	}
+
+	/**
+	 * @param executor
+	 *            the executor to send the hedges on, a pool of
+	 *            {@link #DEFAULT_THREADS} (daemon) threads is created if
+	 *            <code>null</code>
+	 */
+	public HedgingPolicy(ScheduledExecutorService executor) {
+		if (executor == null) {
+			executor = createExecutor("openshift-hedging-" + INSTANCES.incrementAndGet() + "-");
+		}
+		this.executor = executor;
+		this.latencies = new long[DEFAULT_WINDOW_SIZE];
+	}
+
+	private ScheduledExecutorService createExecutor(final String threadName) {
+		return Executors.newScheduledThreadPool(DEFAULT_THREADS, new ThreadFactory() {
+
+			private final AtomicInteger threads = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, threadName + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Sets the percentile (0 - 1) of the measured latencies that a response
+	 * may take before the request is hedged.
+	 */
+	public HedgingPolicy setPercentile(double percentile) {
+		this.percentile = Math.min(1, Math.max(0, percentile));
+		return this;
+	}
+
+	/**
+	 * Sets the time (in milliseconds) that a request is given at least before
+	 * it is hedged.
+	 */
+	public HedgingPolicy setMinDelay(long minDelay) {
+		this.minDelay = minDelay;
+		return this;
+	}
+
+	/**
+	 * Sets the number of latencies that are kept to compute the percentile
+	 * of and the number that need to be measured before requests are hedged.
+	 */
+	public synchronized HedgingPolicy setWindow(int windowSize, int minSamples) {
+		this.latencies = new long[Math.max(1, windowSize)];
+		this.samples = 0;
+		this.next = 0;
+		this.minSamples = Math.min(latencies.length, minSamples);
+		return this;
+	}
+
+	/**
+	 * Sets the hedging budget.
+	 * 
+	 * @param ratio
+	 *            the hedged requests allowed per request in the long run (ex.
+	 *            0.1 for 1 hedged request in 10 requests)
+	 * @param burst
+	 *            the hedged requests that may be sent at once, also the budget
+	 *            that is available initially
+	 */
+	public synchronized HedgingPolicy setBudget(double ratio, int burst) {
+		this.budgetRatio = ratio;
+		this.budgetBurst = burst;
+		this.budget = Math.min(budget, burst);
+		return this;
+	}
+
+	/**
+	 * Executes the given request and hedges it if it does not respond in
+	 * time. Returns the result of the request that responded first. Only
+	 * fails if all requests failed.
+	 * 
+	 * @param request
+	 *            the request to execute
+	 * @return the result of the first request that succeeded
+	 * @throws ExecutionException
+	 *             the error of the request that failed last
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while it waited
+	 */
+	<T> T execute(Callable<T> request) throws ExecutionException, InterruptedException {
+		return execute(request, request);
+	}
+
+	/**
+	 * Executes the given request and sends the given hedge if it does not
+	 * respond in time. Returns the result of the request that responded
+	 * first. Only fails if both failed.
+	 * 
+	 * @param request
+	 *            the request to execute
+	 * @param hedge
+	 *            the (identical) request to send if the first one does not
+	 *            respond in time
+	 * @return the result of the first request that succeeded
+	 * @throws ExecutionException
+	 *             the error of the request that failed last
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while it waited
+	 */
+	<T> T execute(Callable<T> request, Callable<T> hedge) throws ExecutionException, InterruptedException {
+		long delay = onRequest();
+		RequestContext context = RequestContext.current();
+		long start = System.nanoTime();
+		Attempt<T> primary = new Attempt<T>(request, context, null);
+		if (delay < 0) {
+			primary.run();
+			return onCompleted(primary, start);
+		}
+		Attempt<T> secondary = new Attempt<T>(hedge, context, primary);
+		Hedge<T> trigger = new Hedge<T>(primary, secondary, delay);
+		ScheduledFuture<?> scheduled = executor.schedule(trigger, delay, TimeUnit.MILLISECONDS);
+		try {
+			primary.run();
+			if (primary.isCancelled()) {
+				// the hedge responded first and interrupted this thread
+				Thread.interrupted();
+				return onCompleted(secondary, start);
+			}
+			if (primary.isFailed()
+					&& !trigger.preempt()
+					&& awaitHedge(secondary)) {
+				// the hedge may still succeed
+				return onCompleted(secondary, start);
+			}
+			return onCompleted(primary, start);
+		} finally {
+			scheduled.cancel(false);
+			secondary.cancel(true);
+		}
+	}
+
+	/**
+	 * Waits for the given hedge to complete, returns <code>false</code> if it
+	 * was not sent.
+	 */
+	private <T> boolean awaitHedge(Attempt<T> hedge) throws InterruptedException {
+		try {
+			hedge.get();
+		} catch (CancellationException e) {
+			return false;
+		} catch (ExecutionException e) {
+			// failed last
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the result of the given attempt and records the latency. It's
+	 * measured from the start of the first request even if the hedge
+	 * responded first: the hedge only started once the first request was
+	 * slow, the time it took on its own would drag the percentile down.
+	 */
+	private <T> T onCompleted(Attempt<T> attempt, long start) throws ExecutionException, InterruptedException {
+		T result = attempt.get();
+		synchronized (this) {
+			if (attempt.isHedge()) {
+				hedgeWins++;
+			}
+			addLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+		return result;
+	}
+
+	/**
+	 * Notifies this policy of a new request. Deposits into the hedging budget
+	 * and returns the time (in milliseconds) to wait for a response before
+	 * hedging, -1 if the request shall not be hedged.
+	 */
+	private synchronized long onRequest() {
+		requests++;
+		this.budget = Math.min(budgetBurst, budget + budgetRatio);
+		return getDelay();
+	}
+
+	private synchronized boolean acquireBudget() {
+		if (budget < 1) {
+			budgetExhausted++;
+			return false;
+		}
+		budget--;
+		hedges++;
+		return true;
+	}
+
+	private void addLatency(long latency) {
+		latencies[next] = latency;
+		this.next = (next + 1) % latencies.length;
+		this.samples = Math.min(latencies.length, samples + 1);
+	}
+
+	/**
+	 * Returns the time (in milliseconds) to wait for a response before the
+	 * request is hedged, -1 if not enough latencies were measured yet.
+	 */
+	protected synchronized long getDelay() {
+		if (samples < minSamples
+				|| samples == 0) {
+			return -1;
+		}
+		long[] sorted = Arrays.copyOf(latencies, samples);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile * samples) - 1;
+		return Math.max(minDelay, sorted[Math.max(0, index)]);
+	}
+
+	/**
+	 * Stops the threads that requests are sent on.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	public synchronized HedgingStatistics getStatistics() {
+		return new HedgingStatistics(requests, hedges, hedgeWins, budgetExhausted, getDelay());
+	}
+
+	/**
+	 * Sends the given hedge unless the first request completed in the
+	 * meantime or the budget is exhausted. Cancels the hedge if it's not sent
+	 * so that nobody waits for it.
+	 */
+	private class Hedge<T> implements Runnable {
+
+		private final Attempt<T> primary;
+		private final Attempt<T> secondary;
+		private final long delay;
+		/** whether it was decided if the hedge is sent */
+		private final AtomicBoolean decided = new AtomicBoolean();
+
+		private Hedge(Attempt<T> primary, Attempt<T> secondary, long delay) {
+			this.primary = primary;
+			this.secondary = secondary;
+			this.delay = delay;
+		}
+
+		@Override
+		public void run() {
+			if (!decided.compareAndSet(false, true)) {
+				return;
+			}
+			if (primary.isDone()
+					|| !acquireBudget()) {
+				secondary.cancel(false);
+				return;
+			}
+			LOGGER.debug("No response within {}ms, hedging request", delay);
+			secondary.run();
+		}
+
+		/**
+		 * Prevents the hedge from being sent, returns <code>false</code> if
+		 * it was decided already.
+		 */
+		private boolean preempt() {
+			return decided.compareAndSet(false, true);
+		}
+	}
+
+	/**
+	 * A request that runs in a context of its own that has the deadline of
+	 * the context of the caller and that's cancelled along with it.
+	 * Cancelling the attempt cancels its context and thus closes its
+	 * connection. A hedge that succeeds cancels the request it hedged.
+	 */
+	private static class Attempt<T> extends FutureTask<T> {
+
+		private final RequestContext parent;
+		private final RequestContext context;
+		private final Attempt<T> hedged;
+		private final Closeable cancellation;
+
+		/**
+		 * @param request
+		 *            the request to execute
+		 * @param parent
+		 *            the context of the caller, <code>null</code> if none
+		 * @param hedged
+		 *            the request that this one hedges, <code>null</code> if
+		 *            it's not a hedge
+		 */
+		private Attempt(Callable<T> request, RequestContext parent, Attempt<T> hedged) {
+			super(request);
+			this.parent = parent;
+			this.context = createContext(parent);
+			this.hedged = hedged;
+			this.cancellation = new Closeable() {
+
+				@Override
+				public void close() throws IOException {
+					context.cancel();
+				}
+			};
+		}
+
+		private static RequestContext createContext(RequestContext parent) {
+			if (parent == null
+					|| parent.getRemaining() == Long.MAX_VALUE) {
+				return new RequestContext();
+			}
+			return new RequestContext(Math.max(1, parent.getRemaining()), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public void run() {
+			if (parent != null) {
+				// cancels this attempt right away if the parent was cancelled
+				parent.register(cancellation);
+			}
+			RequestContext previous = context.attach();
+			try {
+				super.run();
+			} finally {
+				context.detach(previous);
+				if (parent != null) {
+					parent.unregister(cancellation);
+				}
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			// a request that's blocked in i/o ignores interrupts
+			context.cancel();
+			return cancelled;
+		}
+
+		@Override
+		protected void done() {
+			if (isHedge()
+					&& !isCancelled()
+					&& !isFailed()) {
+				// responded first
+				hedged.cancel(true);
+			}
+		}
+
+		private boolean isFailed() {
+			try {
+				get();
+				return false;
+			} catch (CancellationException e) {
+				return true;
+			} catch (ExecutionException e) {
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return true;
+			}
+		}
+
+		private boolean isHedge() {
+			return hedged != null;
+		}
+	}
+}
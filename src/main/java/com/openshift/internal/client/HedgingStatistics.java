@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+/**
+ * A snapshot of the requests that a {@link HedgingPolicy} hedged and of how
+ * often the hedged requests won.
+ *
+ * @author Andre Dietisheim
+ */
+public class HedgingStatistics {
+
+	private final long requests;
+	private final long hedges;
+	private final long hedgeWins;
+	private final long budgetExhausted;
+	private final long delay;
+
+	HedgingStatistics(long requests, long hedges, long hedgeWins, long budgetExhausted, long delay) {
+		this.requests = requests;
+		this.hedges = hedges;
+		this.hedgeWins = hedgeWins;
+		this.budgetExhausted = budgetExhausted;
+		this.delay = delay;
+	}
+
+	/**
+	 * Returns the number of requests that were executed.
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	/**
+	 * Returns the number of requests that were hedged.
+	 */
+	public long getHedges() {
+		return hedges;
+	}
+
+	/**
+	 * Returns the number of hedged requests that responded before the
+	 * request that they hedged.
+	 */
+	public long getHedgeWins() {
+		return hedgeWins;
+	}
+
+	/**
+	 * Returns the number of requests that were not hedged because the budget
+	 * was exhausted.
+	 */
+	public long getBudgetExhausted() {
+		return budgetExhausted;
+	}
+
+	/**
+	 * Returns the time (in milliseconds) that requests currently get before
+	 * they are hedged, -1 if they're not hedged (yet).
+	 */
+	public long getDelay() {
+		return delay;
+	}
+
+	/**
+	 * Returns the ratio of requests that were hedged.
+	 */
+	public double getHedgeRate() {
+		if (requests == 0) {
+			return 0;
+		}
+		return (double) hedges / requests;
+	}
+
+	/**
+	 * Returns the ratio of hedged requests that won.
+	 */
+	public double getWinRate() {
+		if (hedges == 0) {
+			return 0;
+		}
+		return (double) hedgeWins / hedges;
+	}
+
+	@Override
+	public String toString() {
+		return "HedgingStatistics ["
+				+ "requests=" + requests + ", "
+				+ "hedges=" + hedges + ", "
+				+ "hedgeWins=" + hedgeWins + ", "
+				+ "budgetExhausted=" + budgetExhausted + ", "
+				+ "delay=" + delay
+				+ "]";
+	}
+}
@@ -10,13 +10,18 @@
  ******************************************************************************/
 package com.openshift.internal.client;
 
+import java.net.Proxy;
 import java.util.List;
+import java.util.concurrent.Future;
 
+import com.openshift.client.IAsyncHttpClient;
 import com.openshift.client.IHttpClient;
+import com.openshift.client.IRequestCallback;
 import com.openshift.client.OpenShiftException;
 import com.openshift.internal.client.httpclient.request.IMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.ResponseProjection;
 import com.openshift.internal.client.response.RestResponse;
 
 /**
@@ -67,6 +72,55 @@ public interface IRestService {
 	public RestResponse request(Link link, int timeout, List<Parameter> urlParameters, IMediaType mediaType, Parameter... parameters)
 			throws OpenShiftException;
 
+	/**
+	 * Requests the given link and only parses the properties of the response
+	 * that the given projection includes. The others are skipped without
+	 * being materialized.
+	 * 
+	 * @param link
+	 *            the link to use
+	 * @param projection
+	 *            the properties to parse, <code>null</code> for all of them
+	 * @param urlParameters
+	 *            the parameters to add to the url
+	 * @param parameters
+	 *            the parameters to send
+	 * @return the rest response
+	 * @throws OpenShiftException
+	 * 
+	 * @see ResponseProjection
+	 */
+	public RestResponse request(Link link, ResponseProjection projection, List<Parameter> urlParameters,
+			Parameter... parameters) throws OpenShiftException;
+
+	public Future<RestResponse> requestAsync(Link link, IRequestCallback<RestResponse> callback,
+			Parameter... parameters);
+
+	/**
+	 * Requests the given link without blocking the calling thread (if the
+	 * http client supports it, see {@link IAsyncHttpClient}). The returned
+	 * future holds the response once it was received. Errors are reported as
+	 * {@link OpenShiftException} (wrapped in an
+	 * {@link java.util.concurrent.ExecutionException}).
+	 * 
+	 * @param link
+	 *            the link to use
+	 * @param timeout
+	 *            the read timeout
+	 * @param urlParameters
+	 *            the parameters to add to the url
+	 * @param mediaType
+	 *            the media type to encode the parameters with
+	 * @param callback
+	 *            the callback to notify once the request completed, may be
+	 *            <code>null</code>
+	 * @param parameters
+	 *            the parameters to send
+	 * @return the future response
+	 */
+	public Future<RestResponse> requestAsync(Link link, int timeout, List<Parameter> urlParameters,
+			IMediaType mediaType, IRequestCallback<RestResponse> callback, Parameter... parameters);
+
 	/**
 	 * Returns the url for the OpenShift service, the endpoint which this rest
 	 * service class is talking to.
@@ -82,4 +136,13 @@ public interface IRestService {
 	 */
 	public String getPlatformUrl();
 
+	/**
+	 * Sets the proxy that requests of this service go through. Other services
+	 * (and connections) in the same vm are not affected.
+	 * 
+	 * @param proxy
+	 *            the proxy, <code>null</code> for the settings of the vm
+	 */
+	public void setProxy(Proxy proxy);
+
 }
\ No newline at end of file
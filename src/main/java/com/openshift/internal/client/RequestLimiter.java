@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.openshift.client.OpenShiftException;
+
+/**
+ * Limits the requests that {@link RestService} sends to a server: a token
+ * bucket limits their rate (while allowing short bursts) and a semaphore
+ * limits the requests that are in flight at the same time. Callers that
+ * exceed a limit block until they may proceed. They're served in the order
+ * they arrived in.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see RestService#setRequestLimiter(RequestLimiter)
+ * @see RestService#setRequestLimiter(String, RequestLimiter)
+ */
+public class RequestLimiter {
+
+	/** no limit */
+	public static final int UNLIMITED = 0;
+
+	private final double permitsPerSecond;
+	private final int burst;
+	private final long interval;
+	private final Semaphore inFlight;
+	private final int maxInFlight;
+
+	/** fair, reservations are handed out in arrival order */
+	private final ReentrantLock lock = new ReentrantLock(true);
+	private double tokens;
+	private long lastRefill;
+
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final AtomicInteger maxWaiting = new AtomicInteger();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong delayedRequests = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+	private final AtomicLong maxWaitTime = new AtomicLong();
+
+	/**
+	 * @param permitsPerSecond
+	 *            the requests per second that are allowed in the long run,
+	 *            {@link #UNLIMITED} for no rate limit
+	 * @param burst
+	 *            the requests that may be sent at once (without waiting)
+	 *            after a period of inactivity
+	 * @param maxInFlight
+	 *            the requests that may be in flight at the same time,
+	 *            {@link #UNLIMITED} for no concurrency limit
+	 */
+	public RequestLimiter(double permitsPerSecond, int burst, int maxInFlight) {
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = Math.max(1, burst);
+		this.interval = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+		this.tokens = this.burst;
+		this.lastRefill = System.nanoTime();
+		this.maxInFlight = maxInFlight;
+		this.inFlight = maxInFlight > 0 ? new Semaphore(maxInFlight, true) : null;
+	}
+
+	/**
+	 * Returns a limiter that limits the rate of requests only.
+	 */
+	public static RequestLimiter rate(double permitsPerSecond, int burst) {
+		return new RequestLimiter(permitsPerSecond, burst, UNLIMITED);
+	}
+
+	/**
+	 * Returns a limiter that limits the requests in flight only.
+	 */
+	public static RequestLimiter concurrency(int maxInFlight) {
+		return new RequestLimiter(UNLIMITED, 1, maxInFlight);
+	}
+
+	/**
+	 * Blocks until a request may be sent. Each successful call has to be
+	 * followed by a call to {@link #release(long, Exception)} once the request
+	 * completed.
+	 * 
+	 * @throws OpenShiftException
+	 *             if the calling thread was interrupted while it waited
+	 */
+	void acquire() throws OpenShiftException {
+		requests.incrementAndGet();
+		long start = System.nanoTime();
+		long delay = reserve(start);
+		if (delay <= 0
+				&& tryAcquireInFlight()) {
+			return;
+		}
+		int queued = waiting.incrementAndGet();
+		updateMax(maxWaiting, queued);
+		try {
+			if (delay > 0) {
+				TimeUnit.NANOSECONDS.sleep(delay);
+			}
+			acquireInFlight();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while waiting for the request limit");
+		} finally {
+			waiting.decrementAndGet();
+		}
+		long waitTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		delayedRequests.incrementAndGet();
+		totalWaitTime.addAndGet(waitTime);
+		updateMax(maxWaitTime, waitTime);
+	}
+
+	private boolean tryAcquireInFlight() throws OpenShiftException {
+		try {
+			return tryAcquirePermit();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while waiting for the request limit");
+		}
+	}
+
+	/**
+	 * Takes a permit to send a request if one is available right away and
+	 * no other caller is waiting for one.
+	 * 
+	 * @return <code>true</code> if a permit was taken
+	 */
+	protected boolean tryAcquirePermit() throws InterruptedException {
+		if (inFlight == null) {
+			return true;
+		}
+		// dont use #tryAcquire(), it barges in ahead of waiting callers
+		return inFlight.tryAcquire(0, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Blocks until a permit to send a request is available.
+	 */
+	protected void acquireInFlight() throws InterruptedException {
+		if (inFlight != null) {
+			inFlight.acquire();
+		}
+	}
+
+	/**
+	 * Takes a token from the bucket and returns the time (in nanoseconds) to
+	 * wait for it. The bucket goes into debt if it's empty so that later
+	 * callers wait for the callers before them.
+	 */
+	private long reserve(long now) {
+		if (interval <= 0) {
+			return 0;
+		}
+		lock.lock();
+		try {
+			this.tokens = Math.min(burst, tokens + (double) (now - lastRefill) / interval);
+			this.lastRefill = now;
+			this.tokens -= 1;
+			if (tokens >= 0) {
+				return 0;
+			}
+			return (long) (-tokens * interval);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Marks a request that was permitted by {@link #acquire()} as completed.
+	 * 
+	 * @param latency
+	 *            the time (in nanoseconds) that the request took, 0 if it was
+	 *            not sent
+	 * @param failure
+	 *            the exception that the request failed with, <code>null</code>
+	 *            if it succeeded
+	 */
+	void release(long latency, Exception failure) {
+		releaseInFlight(latency, failure);
+	}
+
+	/**
+	 * Returns the permit that the given request held.
+	 * 
+	 * @see #release(long, Exception)
+	 */
+	protected void releaseInFlight(long latency, Exception failure) {
+		if (inFlight != null) {
+			inFlight.release();
+		}
+	}
+
+	/**
+	 * Returns the number of requests that are currently in flight.
+	 */
+	protected int getInFlight() {
+		if (inFlight == null) {
+			return 0;
+		}
+		return maxInFlight - inFlight.availablePermits();
+	}
+
+	private void updateMax(AtomicInteger max, int value) {
+		int current = 0;
+		while (value > (current = max.get())
+				&& !max.compareAndSet(current, value)) {
+			// retry
+		}
+	}
+
+	private void updateMax(AtomicLong max, long value) {
+		long current = 0;
+		while (value > (current = max.get())
+				&& !max.compareAndSet(current, value)) {
+			// retry
+		}
+	}
+
+	public double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public RequestLimiterStatistics getStatistics() {
+		return new RequestLimiterStatistics(requests.get(), delayedRequests.get(), waiting.get(),
+				maxWaiting.get(), getInFlight(), totalWaitTime.get(),
+				maxWaitTime.get());
+	}
+}
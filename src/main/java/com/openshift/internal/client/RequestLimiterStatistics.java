@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+/**
+ * A snapshot of the requests that a {@link RequestLimiter} let through and of
+ * the callers that it made wait.
+ *
+ * @author Andre Dietisheim
+ */
+public class RequestLimiterStatistics {
+
+	private final long requests;
+	private final long delayedRequests;
+	private final int queueDepth;
+	private final int maxQueueDepth;
+	private final int inFlight;
+	private final long totalWaitTime;
+	private final long maxWaitTime;
+
+	RequestLimiterStatistics(long requests, long delayedRequests, int queueDepth, int maxQueueDepth,
+			int inFlight, long totalWaitTime, long maxWaitTime) {
+		this.requests = requests;
+		this.delayedRequests = delayedRequests;
+		this.queueDepth = queueDepth;
+		this.maxQueueDepth = maxQueueDepth;
+		this.inFlight = inFlight;
+		this.totalWaitTime = totalWaitTime;
+		this.maxWaitTime = maxWaitTime;
+	}
+
+	/**
+	 * Returns the number of requests that asked for permission.
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	/**
+	 * Returns the number of requests that had to wait.
+	 */
+	public long getDelayedRequests() {
+		return delayedRequests;
+	}
+
+	/**
+	 * Returns the number of callers that are currently waiting.
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * Returns the largest number of callers that waited at the same time.
+	 */
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * Returns the number of requests that are currently in flight. Returns
+	 * <code>0</code> if the limiter does not limit concurrency.
+	 */
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Returns the time in milliseconds that callers waited in total.
+	 */
+	public long getTotalWaitTime() {
+		return totalWaitTime;
+	}
+
+	/**
+	 * Returns the longest time in milliseconds that a caller waited.
+	 */
+	public long getMaxWaitTime() {
+		return maxWaitTime;
+	}
+
+	/**
+	 * Returns the average time in milliseconds that delayed callers waited.
+	 */
+	public double getAverageWaitTime() {
+		if (delayedRequests == 0) {
+			return 0;
+		}
+		return (double) totalWaitTime / delayedRequests;
+	}
+
+	@Override
+	public String toString() {
+		return "RequestLimiterStatistics ["
+				+ "requests=" + requests + ", "
+				+ "delayedRequests=" + delayedRequests + ", "
+				+ "queueDepth=" + queueDepth + ", "
+				+ "maxQueueDepth=" + maxQueueDepth + ", "
+				+ "inFlight=" + inFlight + ", "
+				+ "totalWaitTime=" + totalWaitTime + ", "
+				+ "maxWaitTime=" + maxWaitTime
+				+ "]";
+	}
+}
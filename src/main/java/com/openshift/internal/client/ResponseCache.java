@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.internal.client.response.RestResponse;
+import com.openshift.internal.client.utils.StringUtils;
+
+/**
+ * A bounded (least recently used) cache of parsed responses and the validators
+ * (ETag, Last-Modified) that the server sent with them. Allows
+ * {@link RestService} to issue conditional GET requests and to reuse the
+ * parsed response if the server answers with 304 (Not Modified).
+ * Modifying a resource drops the cached responses for it and for the
+ * resources below it, regardless of their query.
+ * 
+ * @author Andre Dietisheim
+ */
+public class ResponseCache {
+
+	public static final int DEFAULT_MAX_ENTRIES = 100;
+
+	private final int maxEntries;
+	private final Map<String, Entry> entries;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public ResponseCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            the maximum number of responses to keep. The least recently
+	 *            used responses are evicted once it is exceeded.
+	 */
+	public ResponseCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				if (size() <= ResponseCache.this.maxEntries) {
+					return false;
+				}
+				evictions++;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached response for the given url and protocol version.
+	 * Returns <code>null</code> if there's none.
+	 */
+	public synchronized Entry get(URL url, String version) {
+		return entries.get(createKey(url, version));
+	}
+
+	/**
+	 * Returns the cached response of the given entry and counts it as a hit.
+	 * To be called when the server confirmed that the response did not change.
+	 */
+	public synchronized RestResponse revalidated(Entry entry) {
+		hits++;
+		return entry.getResponse();
+	}
+
+	/**
+	 * Caches the given response if the server sent validators (ETag or
+	 * Last-Modified) for it, counts it as a miss otherwise.
+	 * 
+	 * @param url
+	 *            the url that was requested
+	 * @param version
+	 *            the protocol version that was requested
+	 * @param headers
+	 *            the response headers
+	 * @param response
+	 *            the parsed response
+	 */
+	public synchronized void put(URL url, String version, Map<String, String> headers, RestResponse response) {
+		misses++;
+		String key = createKey(url, version);
+		String etag = headers.get(IHttpClient.PROPERTY_ETAG);
+		String lastModified = headers.get(IHttpClient.PROPERTY_LAST_MODIFIED);
+		if (response == null
+				|| (StringUtils.isEmpty(etag) && StringUtils.isEmpty(lastModified))) {
+			entries.remove(key);
+			return;
+		}
+		entries.put(key, new Entry(getPath(url), etag, lastModified, response));
+	}
+
+	/**
+	 * Removes the responses for the given url and for the urls below it, with
+	 * any query and in all protocol versions. To be called when the resource
+	 * was modified (ex. a POST to <code>.../applications</code> drops
+	 * <code>.../applications?include=cartridges</code> and
+	 * <code>.../applications/foo</code>).
+	 */
+	public synchronized void invalidate(URL url) {
+		String path = getPath(url);
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+			if (it.next().isBelow(path)) {
+				it.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public synchronized ResponseCacheStatistics getStatistics() {
+		return new ResponseCacheStatistics(entries.size(), maxEntries, hits, misses, evictions);
+	}
+
+	/**
+	 * Returns the given url without query (and trailing slash).
+	 */
+	private String getPath(URL url) {
+		String path = new StringBuilder(url.getProtocol())
+				.append("://")
+				.append(url.getAuthority())
+				.append(url.getPath())
+				.toString();
+		if (path.endsWith(String.valueOf(IHttpClient.SLASH))) {
+			path = path.substring(0, path.length() - 1);
+		}
+		return path;
+	}
+
+	private String createKey(URL url, String version) {
+		return new StringBuilder(url.toExternalForm())
+				.append(IHttpClient.SPACE)
+				.append(version)
+				.toString();
+	}
+
+	/**
+	 * A cached response and its validators.
+	 */
+	public static class Entry {
+
+		private final String path;
+		private final String etag;
+		private final String lastModified;
+		private final RestResponse response;
+
+		private Entry(String path, String etag, String lastModified, RestResponse response) {
+			this.path = path;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.response = response;
+		}
+
+		/**
+		 * Returns the headers that make a request conditional on this
+		 * response having changed.
+		 */
+		public Map<String, String> getConditionalHeaders() {
+			Map<String, String> headers = new LinkedHashMap<String, String>();
+			if (!StringUtils.isEmpty(etag)) {
+				headers.put(IHttpClient.PROPERTY_IF_NONE_MATCH, etag);
+			}
+			if (!StringUtils.isEmpty(lastModified)) {
+				headers.put(IHttpClient.PROPERTY_IF_MODIFIED_SINCE, lastModified);
+			}
+			return headers;
+		}
+
+		public RestResponse getResponse() {
+			return response;
+		}
+
+		private boolean isBelow(String path) {
+			return this.path.equals(path)
+					|| this.path.startsWith(path + IHttpClient.SLASH);
+		}
+	}
+}
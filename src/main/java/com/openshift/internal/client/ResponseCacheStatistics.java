@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+/**
+ * A snapshot of the state of a {@link ResponseCache}.
+ *
+ * @author Andre Dietisheim
+ */
+public class ResponseCacheStatistics {
+
+	private final int size;
+	private final int maxSize;
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+
+	ResponseCacheStatistics(int size, int maxSize, long hits, long misses, long evictions) {
+		this.size = size;
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+	}
+
+	/**
+	 * Returns the number of responses that are currently cached.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the maximum number of responses that are cached.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of requests that the server answered with 304 (Not
+	 * Modified) and that were served from the cache.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of GET requests that had to be transferred and
+	 * parsed.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of responses that were removed to make room for
+	 * newer ones.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public String toString() {
+		return "ResponseCacheStatistics ["
+				+ "size=" + size + ", "
+				+ "maxSize=" + maxSize + ", "
+				+ "hits=" + hits + ", "
+				+ "misses=" + misses + ", "
+				+ "evictions=" + evictions
+				+ "]";
+	}
+}
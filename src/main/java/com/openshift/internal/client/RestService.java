@@ -10,31 +10,54 @@
  ******************************************************************************/
 package com.openshift.internal.client;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.net.Proxy;
 import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.openshift.client.HttpMethod;
+import com.openshift.client.IAsyncHttpClient;
 import com.openshift.client.IHttpClient;
+import com.openshift.client.IHttpResponseHandler;
+import com.openshift.client.IRequestCallback;
+import com.openshift.client.IStreamingHttpClient;
 import com.openshift.client.InvalidCredentialsOpenShiftException;
 import com.openshift.client.Messages;
 import com.openshift.client.NotFoundOpenShiftException;
+import com.openshift.client.OpenShiftCancelledException;
+import com.openshift.client.OpenShiftCircuitOpenException;
 import com.openshift.client.OpenShiftEndpointException;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftTimeoutException;
+import com.openshift.client.RequestContext;
 import com.openshift.internal.client.httpclient.EncodingException;
 import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.HttpClientSession;
 import com.openshift.internal.client.httpclient.NotFoundException;
+import com.openshift.internal.client.httpclient.ResponseFuture;
 import com.openshift.internal.client.httpclient.UnauthorizedException;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClient;
 import com.openshift.internal.client.httpclient.request.IMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.response.IRestResponseFactory;
 import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+import com.openshift.internal.client.response.OpenShiftJsonStreamingDTOFactory;
+import com.openshift.internal.client.response.ResponseProjection;
 import com.openshift.internal.client.response.RestResponse;
 import com.openshift.internal.client.utils.Assert;
 import com.openshift.internal.client.utils.StringUtils;
@@ -51,6 +74,14 @@ public class RestService implements IRestService {
 	private IMediaType defaultRequestMediaType;
 	private IHttpClient client;
 	private IRestResponseFactory factory;
+	private String protocolVersion;
+	private ResponseCache responseCache;
+	private RetryPolicy retryPolicy;
+	private CircuitBreaker circuitBreaker;
+	private HedgingPolicy hedgingPolicy;
+	private RequestLimiter requestLimiter;
+	private BrokerEndpoints endpoints;
+	private final Map<String, RequestLimiter> linkRequestLimiters = new ConcurrentHashMap<String, RequestLimiter>();
 
 	public RestService(String server, String clientId, IMediaType defaultRequestMediaType, String acceptedMediaType,
 			IRestResponseFactory factory, IHttpClient client) {
@@ -82,6 +113,7 @@ public class RestService implements IRestService {
 		if (StringUtils.isEmpty(protocolVersion)) {
 			protocolVersion = SERVICE_VERSION;
 		}
+		this.protocolVersion = protocolVersion;
 		client.setAcceptedMediaType(acceptedMediaType);
 		client.setAcceptVersion(protocolVersion);
 		client.setUserAgent(userAgent);
@@ -117,29 +149,444 @@ public class RestService implements IRestService {
 
 	@Override
     public RestResponse request(Link link, int timeout, List<Parameter> urlParameters, IMediaType requestMediaType, Parameter... parameters) throws OpenShiftException {
+		return request(link, timeout, urlParameters, requestMediaType, factory, parameters);
+	}
+
+	/**
+	 * Requests the given link and parses the response with a streaming
+	 * factory that's restricted to the given projection. Projected responses
+	 * are not cached, they'd be incomplete for requests without projection.
+	 * 
+	 * @see OpenShiftJsonStreamingDTOFactory#project(ResponseProjection)
+	 */
+	@Override
+	public RestResponse request(Link link, ResponseProjection projection, List<Parameter> urlParameters,
+			Parameter... parameters) throws OpenShiftException {
+		return request(link, IHttpClient.NO_TIMEOUT, urlParameters, defaultRequestMediaType,
+				getResponseFactory(projection), parameters);
+	}
+
+	/**
+	 * Returns a factory that only parses the properties that the given
+	 * projection includes. The tree factory can't skip any properties, a
+	 * streaming one (with lazy links) that shares its link templates and
+	 * string pool is used in its place.
+	 */
+	private IRestResponseFactory getResponseFactory(ResponseProjection projection) {
+		IRestResponseFactory factory = this.factory;
+		if (projection == null) {
+			return factory;
+		}
+		if (factory instanceof OpenShiftJsonStreamingDTOFactory) {
+			return ((OpenShiftJsonStreamingDTOFactory) factory).project(projection);
+		}
+		if (factory instanceof OpenShiftJsonDTOFactory) {
+			OpenShiftJsonDTOFactory treeFactory = (OpenShiftJsonDTOFactory) factory;
+			return new OpenShiftJsonStreamingDTOFactory(
+					true, treeFactory.getLinkTemplates(), treeFactory.getStringPool(), projection);
+		}
+		return new OpenShiftJsonStreamingDTOFactory(true, null, null, projection);
+	}
+
+	private RestResponse request(Link link, int timeout, List<Parameter> urlParameters, IMediaType requestMediaType,
+			IRestResponseFactory responseFactory, Parameter... parameters) throws OpenShiftException {
 		// link.validateParameters(parameters);
-        String url = link.getHref(server, SERVICE_PATH, urlParameters);
-        try {
-            String response = request(new URL(url), link.getHttpMethod(), requestMediaType, timeout, parameters);
-            return factory.get(response);
-        } catch (EncodingException e) {
-            throw new OpenShiftException(e, e.getMessage());
+		URL url = getUrl(link, urlParameters);
+		RetryPolicy retryPolicy = this.retryPolicy;
+		if (retryPolicy != null) {
+			retryPolicy.onRequest();
+		}
+		RequestContext context = RequestContext.current();
+		for (int retry = 0;; retry++) {
+			checkContext(context, url);
+			Exception failure = null;
+			try {
+				return requestRouted(url, link, requestMediaType, timeout, responseFactory, parameters);
+			} catch (HttpClientException e) {
+				failure = e;
+			} catch (SocketTimeoutException e) {
+				failure = e;
+			}
+			if (context != null
+					&& context.isCancelled()) {
+				throw new OpenShiftCancelledException(url.toString(), failure, "Request to {0} was cancelled", url);
+			}
+			if ((context != null && context.isExpired())
+					|| !retry(retryPolicy, link.getHttpMethod(), failure, retry)) {
+				throw createException(url.toString(), failure);
+			}
+		}
+    }
+
+	/**
+	 * Returns the absolute url of the given link with the given url parameters
+	 * appended. The url is cached in the link so that repeated requests skip
+	 * building and parsing it.
+	 */
+	private URL getUrl(Link link, List<Parameter> urlParameters) throws OpenShiftException {
+		try {
+			return link.getUrl(server, SERVICE_PATH, urlParameters);
 		} catch (MalformedURLException e) {
 			throw new OpenShiftException(e, e.getMessage());
-        } catch (UnauthorizedException e) {
-            throw new InvalidCredentialsOpenShiftException(url, e, getRestResponse(e));
-        } catch (NotFoundException e) {
-            throw new NotFoundOpenShiftException(url, e, getRestResponse(e));
-        } catch (HttpClientException e) {
-        	RestResponse restResponse = getRestResponse(e);
-        	String message = getMessage(restResponse, e);
-			throw new OpenShiftEndpointException(
-					url.toString(), e, restResponse, "Could not request {0}: {1}", url, message);
-        } catch (SocketTimeoutException e) {
-            throw new OpenShiftTimeoutException(url, e,
-                    "Could not request url {0}, connection timed out", url);
-        }
-    }
+		}
+	}
+
+	/**
+	 * Fails if the given request context was cancelled or if its deadline
+	 * passed.
+	 */
+	private void checkContext(RequestContext context, URL url) throws OpenShiftException {
+		if (context == null) {
+			return;
+		}
+		if (context.isCancelled()) {
+			throw new OpenShiftCancelledException(url.toString(), null, "Request to {0} was cancelled", url);
+		} else if (context.isExpired()) {
+			throw new OpenShiftTimeoutException(url.toString(), null,
+					"Could not request url {0}, the deadline of the request context passed", url);
+		}
+	}
+
+	/**
+	 * Sends the request to the best broker if there are several. Fails over
+	 * to the next best broker if it could not connect.
+	 */
+	private RestResponse requestRouted(URL url, Link link, IMediaType mediaType, int timeout,
+			IRestResponseFactory responseFactory, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
+		BrokerEndpoints endpoints = this.endpoints;
+		if (endpoints == null
+				|| !endpoints.contains(url)) {
+			return requestLimited(url, null, null, link, mediaType, timeout, responseFactory, parameters);
+		}
+		List<BrokerEndpoints.Endpoint> failed = new ArrayList<BrokerEndpoints.Endpoint>(endpoints.size());
+		while (true) {
+			BrokerEndpoints.Endpoint endpoint = endpoints.select(failed);
+			URL endpointUrl = endpoint.rewrite(url);
+			try {
+				return requestLimited(endpointUrl, endpoints, endpoint, link, mediaType, timeout, responseFactory,
+						parameters);
+			} catch (HttpClientException e) {
+				if (!endpoints.isConnectFailure(e)
+						|| failed.size() + 1 >= endpoints.size()) {
+					throw e;
+				}
+				failed.add(endpoint);
+				endpoints.failedOver(endpoint);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the request limiters of the link and of the server to let the
+	 * request through, reports the latency and outcome to them and to the
+	 * broker (if any). The latency does not include the time spent waiting
+	 * for the limiters. Requests that the circuit breaker rejects were not
+	 * sent and report neither.
+	 */
+	private RestResponse requestLimited(URL url, BrokerEndpoints endpoints, BrokerEndpoints.Endpoint endpoint,
+			Link link, IMediaType mediaType, int timeout, IRestResponseFactory responseFactory,
+			Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
+		RequestLimiter linkLimiter = getRequestLimiter(link);
+		RequestLimiter serverLimiter = this.requestLimiter;
+		long latency = 0;
+		Exception failure = null;
+		acquire(linkLimiter);
+		try {
+			acquire(serverLimiter);
+			long start = System.nanoTime();
+			boolean sent = true;
+			try {
+				return requestGuarded(url, link, mediaType, timeout, responseFactory, parameters);
+			} catch (OpenShiftCircuitOpenException e) {
+				sent = false;
+				throw e;
+			} catch (SocketTimeoutException e) {
+				failure = e;
+				throw e;
+			} catch (RuntimeException e) {
+				// ex. a response that could not be parsed
+				failure = e;
+				throw e;
+			} finally {
+				if (sent) {
+					latency = System.nanoTime() - start;
+					release(endpoints, endpoint, latency, failure);
+				}
+				release(serverLimiter, latency, failure);
+			}
+		} finally {
+			release(linkLimiter, latency, failure);
+		}
+	}
+
+	/**
+	 * Requests unless the circuit breaker is open, reports the outcome to it.
+	 */
+	private RestResponse requestGuarded(URL url, Link link, IMediaType mediaType, int timeout,
+			IRestResponseFactory responseFactory, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
+		CircuitBreaker circuitBreaker = this.circuitBreaker;
+		long start = acquire(circuitBreaker, url.toString());
+		Exception failure = null;
+		try {
+			return requestHedged(url, link, mediaType, timeout, responseFactory, parameters);
+		} catch (SocketTimeoutException e) {
+			failure = e;
+			throw e;
+		} catch (RuntimeException e) {
+			failure = e;
+			throw e;
+		} finally {
+			release(circuitBreaker, start, failure);
+		}
+	}
+
+	/**
+	 * Hedges GET requests if there's a hedging policy. The hedge is a request
+	 * of its own to the request limiters, the one that's hedged holds its
+	 * permits already.
+	 */
+	private RestResponse requestHedged(final URL url, final Link link, final IMediaType mediaType,
+			final int timeout, final IRestResponseFactory responseFactory, final Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
+		final HttpMethod httpMethod = link.getHttpMethod();
+		HedgingPolicy hedgingPolicy = this.hedgingPolicy;
+		if (hedgingPolicy == null
+				|| httpMethod != HttpMethod.GET) {
+			return request(url, httpMethod, mediaType, timeout, responseFactory, parameters);
+		}
+		Callable<RestResponse> request = new Callable<RestResponse>() {
+
+			@Override
+			public RestResponse call() throws Exception {
+				return request(url, httpMethod, mediaType, timeout, responseFactory, parameters);
+			}
+		};
+		Callable<RestResponse> hedge = new Callable<RestResponse>() {
+
+			@Override
+			public RestResponse call() throws Exception {
+				return requestHedge(url, link, mediaType, timeout, responseFactory, parameters);
+			}
+		};
+		try {
+			return hedgingPolicy.execute(request, hedge);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SocketTimeoutException) {
+				throw (SocketTimeoutException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new OpenShiftException(cause, "Could not request {0}: {1}", url, cause.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while requesting {0}", url);
+		}
+	}
+
+	/**
+	 * Sends a hedge once the request limiters of the link and of the server
+	 * let it through. A hedge that's cancelled because the other request
+	 * responded first does not report its latency or failure.
+	 */
+	private RestResponse requestHedge(URL url, Link link, IMediaType mediaType, int timeout,
+			IRestResponseFactory responseFactory, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
+		RequestLimiter linkLimiter = getRequestLimiter(link);
+		RequestLimiter serverLimiter = this.requestLimiter;
+		long latency = 0;
+		Exception failure = null;
+		acquire(linkLimiter);
+		try {
+			acquire(serverLimiter);
+			long start = System.nanoTime();
+			try {
+				return request(url, link.getHttpMethod(), mediaType, timeout, responseFactory, parameters);
+			} catch (SocketTimeoutException e) {
+				failure = e;
+				throw e;
+			} catch (RuntimeException e) {
+				failure = e;
+				throw e;
+			} finally {
+				latency = System.nanoTime() - start;
+				if (isCancelled(RequestContext.current())) {
+					latency = 0;
+					failure = null;
+				}
+				release(serverLimiter, latency, failure);
+			}
+		} finally {
+			release(linkLimiter, latency, failure);
+		}
+	}
+
+	private boolean isCancelled(RequestContext context) {
+		return context != null
+				&& context.isCancelled();
+	}
+
+	private RequestLimiter getRequestLimiter(Link link) {
+		if (linkRequestLimiters.isEmpty()) {
+			return null;
+		}
+		RequestLimiter limiter = null;
+		if (link.getName() != null) {
+			limiter = linkRequestLimiters.get(link.getName());
+		}
+		if (limiter == null
+				&& link.getRel() != null) {
+			limiter = linkRequestLimiters.get(link.getRel());
+		}
+		return limiter;
+	}
+
+	private void acquire(RequestLimiter limiter) throws OpenShiftException {
+		if (limiter != null) {
+			limiter.acquire();
+		}
+	}
+
+	private void release(RequestLimiter limiter, long latency, Exception failure) {
+		if (limiter != null) {
+			limiter.release(latency, failure);
+		}
+	}
+
+	private void release(BrokerEndpoints endpoints, BrokerEndpoints.Endpoint endpoint, long latency,
+			Exception failure) {
+		if (endpoints != null) {
+			endpoints.release(endpoint, latency, failure);
+		}
+	}
+
+	private long acquire(CircuitBreaker circuitBreaker, String url) throws OpenShiftException {
+		if (circuitBreaker == null) {
+			return 0;
+		}
+		return circuitBreaker.acquire(url);
+	}
+
+	private void release(CircuitBreaker circuitBreaker, long start, Exception failure) {
+		if (circuitBreaker != null) {
+			circuitBreaker.release(start, failure);
+		}
+	}
+
+	private boolean retry(RetryPolicy retryPolicy, HttpMethod httpMethod, Exception e, int retry) {
+		return retryPolicy != null
+				&& retryPolicy.retry(httpMethod, e, retry);
+	}
+
+	@Override
+	public Future<RestResponse> requestAsync(Link link, IRequestCallback<RestResponse> callback,
+			Parameter... parameters) {
+		return requestAsync(link, IHttpClient.NO_TIMEOUT, Collections.<Parameter> emptyList(),
+				defaultRequestMediaType, callback, parameters);
+	}
+
+	@Override
+	public Future<RestResponse> requestAsync(Link link, int timeout, List<Parameter> urlParameters,
+			IMediaType requestMediaType, IRequestCallback<RestResponse> callback, Parameter... parameters) {
+		ResponseFuture<RestResponse> future = new ResponseFuture<RestResponse>(callback);
+		if (!(client instanceof IAsyncHttpClient)) {
+			// client cant do it asynchronously, execute in the calling thread
+			try {
+				future.completed(request(link, timeout, urlParameters, requestMediaType, parameters));
+			} catch (OpenShiftException e) {
+				future.failed(e);
+			}
+			return future;
+		}
+		URL url = null;
+		try {
+			url = getUrl(link, urlParameters);
+			future.setSource(requestAsync((IAsyncHttpClient) client,
+					url, link.getHttpMethod(), requestMediaType, timeout, future, parameters));
+		} catch (OpenShiftException e) {
+			future.failed(e);
+		} catch (HttpClientException e) {
+			future.failed(createException(url.toString(), e));
+		}
+		return future;
+	}
+
+	private Future<RestResponse> requestAsync(IAsyncHttpClient client, final URL url, HttpMethod httpMethod,
+			IMediaType mediaType, int timeout, final ResponseFuture<RestResponse> future, Parameter... parameters)
+			throws HttpClientException, EncodingException {
+		LOGGER.info("Requesting {} asynchronously with protocol {} on {}",
+				new Object[] { httpMethod.name(), SERVICE_VERSION, url });
+
+		ResponseHandler handler = new ResponseHandler(url, httpMethod, factory);
+		final RequestContext context = RequestContext.current();
+		final Closeable abort = register(context, future);
+		return client.requestAsync(httpMethod, url, mediaType, timeout, handler.getRequestHeaders(), handler,
+				new IRequestCallback<RestResponse>() {
+
+					@Override
+					public void completed(RestResponse response) {
+						unregister(context, abort);
+						future.completed(response);
+					}
+
+					@Override
+					public void failed(Throwable e) {
+						unregister(context, abort);
+						future.failed(createException(url.toString(), e));
+					}
+				}, parameters);
+	}
+
+	/**
+	 * Registers the given future with the given request context so that it's
+	 * cancelled (and its connection closed) if the context is cancelled.
+	 */
+	private Closeable register(RequestContext context, final Future<?> future) {
+		if (context == null) {
+			return null;
+		}
+		Closeable abort = new Closeable() {
+
+			@Override
+			public void close() throws IOException {
+				future.cancel(true);
+			}
+		};
+		context.register(abort);
+		return abort;
+	}
+
+	private void unregister(RequestContext context, Closeable abort) {
+		if (context != null) {
+			context.unregister(abort);
+		}
+	}
+
+	private OpenShiftException createException(String url, Throwable e) {
+		if (e instanceof OpenShiftException) {
+			return (OpenShiftException) e;
+		} else if (e instanceof EncodingException) {
+			return new OpenShiftException(e, e.getMessage());
+		} else if (e instanceof UnauthorizedException) {
+			return new InvalidCredentialsOpenShiftException(url, (HttpClientException) e,
+					getRestResponse((HttpClientException) e));
+		} else if (e instanceof NotFoundException) {
+			return new NotFoundOpenShiftException(url, (HttpClientException) e,
+					getRestResponse((HttpClientException) e));
+		} else if (e instanceof HttpClientException) {
+			RestResponse restResponse = getRestResponse((HttpClientException) e);
+			String message = getMessage(restResponse, (HttpClientException) e);
+			return new OpenShiftEndpointException(
+					url, (HttpClientException) e, restResponse, "Could not request {0}: {1}", url, message);
+		} else if (e instanceof SocketTimeoutException) {
+			return new OpenShiftTimeoutException(url, (SocketTimeoutException) e,
+					"Could not request url {0}, connection timed out", url);
+		}
+		return new OpenShiftException(e, "Could not request {0}: {1}", url, e.getMessage());
+	}
 
     private RestResponse getRestResponse(HttpClientException clientException) {
 		try {
@@ -165,11 +612,30 @@ public class RestService implements IRestService {
 		return messages.toString();
 	}
 
-	private String request(URL url, HttpMethod httpMethod, IMediaType mediaType, int timeout, Parameter... parameters)
+	private RestResponse request(URL url, HttpMethod httpMethod, IMediaType mediaType, int timeout,
+			IRestResponseFactory responseFactory, Parameter... parameters)
 			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
 		LOGGER.info("Requesting {} with protocol {} on {}",
 				new Object[] { httpMethod.name(), SERVICE_VERSION, url });
-		
+
+		if (client instanceof IStreamingHttpClient) {
+			// parse while reading, dont hold the response as string
+			return requestStreaming((IStreamingHttpClient) client, url, httpMethod, mediaType, timeout,
+					responseFactory, parameters);
+		}
+		return responseFactory.get(requestString(url, httpMethod, mediaType, timeout, parameters));
+	}
+
+	private RestResponse requestStreaming(IStreamingHttpClient client, URL url, HttpMethod httpMethod,
+			IMediaType mediaType, int timeout, IRestResponseFactory responseFactory, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException {
+		ResponseHandler handler = new ResponseHandler(url, httpMethod, responseFactory);
+		return client.request(httpMethod, url, mediaType, timeout, handler.getRequestHeaders(), handler, parameters);
+	}
+
+	private String requestString(URL url, HttpMethod httpMethod, IMediaType mediaType, int timeout,
+			Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
 		switch (httpMethod) {
 		case GET:
 			return client.get(url, timeout);
@@ -186,10 +652,141 @@ public class RestService implements IRestService {
 		default:
 			throw new OpenShiftException("Unexpected HTTP method {0}", httpMethod.toString());
 		}
-		
-		
 	}
 	
+	/**
+	 * Sets the cache that GET responses are kept in so that they may be
+	 * requested conditionally. Responses are not cached by default (or if
+	 * <code>null</code> is given).
+	 */
+	public void setResponseCache(ResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * Sets the policy that decides whether failed requests are retried.
+	 * Requests are not retried by default (or if <code>null</code> is
+	 * passed).
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Sets the breaker that stops requests to the server while it's
+	 * unhealthy. Several services (for the same server) may share a breaker.
+	 * There's no breaker by default (or if <code>null</code> is passed).
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Sets the policy that decides whether GET requests that are slow to
+	 * respond are hedged. Requests are not hedged by default (or if
+	 * <code>null</code> is passed).
+	 */
+	public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+		this.hedgingPolicy = hedgingPolicy;
+	}
+
+	public HedgingPolicy getHedgingPolicy() {
+		return hedgingPolicy;
+	}
+
+	/**
+	 * Sets the limiter for all requests to the server. Several services (for
+	 * the same server) may share a limiter. Requests are not limited by
+	 * default (or if <code>null</code> is passed).
+	 * 
+	 * @see AdaptiveRequestLimiter
+	 */
+	public void setRequestLimiter(RequestLimiter requestLimiter) {
+		this.requestLimiter = requestLimiter;
+	}
+
+	public RequestLimiter getRequestLimiter() {
+		return requestLimiter;
+	}
+
+	/**
+	 * Sets the limiter for the requests to the given link. Requests are
+	 * limited by the link limiter first and then by the server limiter.
+	 * 
+	 * @param link
+	 *            the name (ex. ADD_APPLICATION) or the rel of the link
+	 * @param requestLimiter
+	 *            the limiter, <code>null</code> to remove it
+	 */
+	public void setRequestLimiter(String link, RequestLimiter requestLimiter) {
+		if (requestLimiter == null) {
+			linkRequestLimiters.remove(link);
+		} else {
+			linkRequestLimiters.put(link, requestLimiter);
+		}
+	}
+
+	public RequestLimiter getRequestLimiter(String link) {
+		return linkRequestLimiters.get(link);
+	}
+
+	/**
+	 * Sets the brokers that requests are routed to. Requests go to the server
+	 * of their url only by default (or if <code>null</code> is passed).
+	 * 
+	 * @see BrokerEndpoints#getStatistics()
+	 */
+	public void setEndpoints(BrokerEndpoints endpoints) {
+		this.endpoints = endpoints;
+	}
+
+	public BrokerEndpoints getEndpoints() {
+		return endpoints;
+	}
+
+	/**
+	 * Sets the factory that creates the DTOs off the responses.
+	 *
+	 * @see OpenShiftJsonDTOFactory
+	 * @see OpenShiftJsonStreamingDTOFactory
+	 */
+	public void setResponseFactory(IRestResponseFactory factory) {
+		Assert.notNull(factory);
+		this.factory = factory;
+	}
+
+	public IRestResponseFactory getResponseFactory() {
+		return factory;
+	}
+
+	/**
+	 * Sets the proxy on the client (or session) if it supports proxies of its
+	 * own. Other clients keep connecting with the proxy settings of the vm.
+	 */
+	@Override
+	public void setProxy(Proxy proxy) {
+		if (client instanceof UrlConnectionHttpClient) {
+			((UrlConnectionHttpClient) client).setProxy(proxy);
+		} else if (client instanceof HttpClientSession) {
+			((HttpClientSession) client).setProxy(proxy);
+		} else if (proxy != null) {
+			LOGGER.warn("{} does not support proxies of its own, using the proxy settings of the vm",
+					client.getClass().getName());
+		}
+	}
+
 	public String getServiceUrl() {
 		return server + SERVICE_PATH;
 	}
@@ -197,4 +794,54 @@ public class RestService implements IRestService {
 	public String getPlatformUrl() {
 		return server;
 	}
+
+	/**
+	 * Parses the response body. Reuses the cached response if the server
+	 * reports that it did not change, invalidates it if it's modified.
+	 */
+	private class ResponseHandler implements IHttpResponseHandler<RestResponse> {
+
+		private final URL url;
+		private final IRestResponseFactory factory;
+		private final ResponseCache cache;
+		private final ResponseCache.Entry cached;
+
+		private ResponseHandler(URL url, HttpMethod httpMethod, IRestResponseFactory factory) {
+			this.url = url;
+			this.factory = factory;
+			ResponseCache cache = responseCache;
+			if (cache != null
+					&& httpMethod != HttpMethod.GET) {
+				cache.invalidate(url);
+				cache = null;
+			} else if (factory != RestService.this.factory) {
+				// projected responses are incomplete
+				cache = null;
+			}
+			this.cache = cache;
+			this.cached = cache == null ? null : cache.get(url, protocolVersion);
+		}
+
+		private Map<String, String> getRequestHeaders() {
+			if (cached == null) {
+				return Collections.<String, String> emptyMap();
+			}
+			return cached.getConditionalHeaders();
+		}
+
+		@Override
+		public RestResponse handle(int statusCode, Map<String, String> headers, InputStream response)
+				throws IOException {
+			if (statusCode == IHttpClient.STATUS_NOT_MODIFIED
+					&& cached != null) {
+				LOGGER.debug("{} was not modified, using cached response", url);
+				return cache.revalidated(cached);
+			}
+			RestResponse restResponse = factory.get(response);
+			if (cache != null) {
+				cache.put(url, protocolVersion, headers, restResponse);
+			}
+			return restResponse;
+		}
+	}
 }
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.RequestContext;
+import com.openshift.internal.client.httpclient.HttpClientException;
+
+/**
+ * Decides whether {@link RestService} shall retry a failed request and how
+ * long it shall wait before doing so. Only requests that are idempotent (GET,
+ * HEAD, PUT and DELETE by default) are retried, and only if they timed out,
+ * could not connect or got a server error (5xx). Requests are not retried
+ * if the deadline of their {@link RequestContext} passes during the backoff.
+ * <p>
+ * Retries are delayed with exponential backoff and (full) jitter so that
+ * clients that failed at the same time dont retry at the same time. A retry
+ * budget limits the retries to a ratio of the requests so that retries cannot
+ * multiply the load on a server that is overloaded already: each request
+ * deposits the ratio, each retry withdraws 1.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see RestService#setRetryPolicy(RetryPolicy)
+ */
+public class RetryPolicy {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RetryPolicy.class);
+
+	public static final int DEFAULT_MAX_RETRIES = 2;
+	public static final long DEFAULT_INITIAL_BACKOFF = 100;
+	public static final long DEFAULT_MAX_BACKOFF = 2 * 1000;
+	public static final double DEFAULT_BUDGET_RATIO = 0.2;
+	public static final int DEFAULT_BUDGET_BURST = 10;
+
+	private int maxRetries = DEFAULT_MAX_RETRIES;
+	private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+	private long maxBackoff = DEFAULT_MAX_BACKOFF;
+	private double budgetRatio = DEFAULT_BUDGET_RATIO;
+	private int budgetBurst = DEFAULT_BUDGET_BURST;
+	private Set<HttpMethod> retryableMethods =
+			EnumSet.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.PUT, HttpMethod.DELETE);
+	private final Random random = new Random();
+
+	private double budget = DEFAULT_BUDGET_BURST;
+	private long requests;
+	private long retries;
+	private long budgetExhausted;
+
+	/**
+	 * Sets the maximum number of times a request is retried.
+	 */
+	public RetryPolicy setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+		return this;
+	}
+
+	/**
+	 * Sets the backoff (in milliseconds) before the first retry and the
+	 * maximum it may grow to. The backoff doubles with each retry, the actual
+	 * delay is a random value between 0 and the backoff.
+	 */
+	public RetryPolicy setBackoff(long initialBackoff, long maxBackoff) {
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+		return this;
+	}
+
+	/**
+	 * Sets the methods whose requests may be retried. Non-idempotent methods
+	 * (POST, PATCH) must be opted in explicitly since a retry may apply them
+	 * twice.
+	 */
+	public RetryPolicy setRetryableMethods(HttpMethod... methods) {
+		if (methods.length == 0) {
+			this.retryableMethods = EnumSet.noneOf(HttpMethod.class);
+		} else {
+			this.retryableMethods = EnumSet.copyOf(Arrays.asList(methods));
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the retry budget.
+	 * 
+	 * @param ratio
+	 *            the retries allowed per request in the long run (ex. 0.2 for
+	 *            1 retry in 5 requests)
+	 * @param burst
+	 *            the retries that may be spent at once, also the budget that
+	 *            is available initially
+	 */
+	public synchronized RetryPolicy setBudget(double ratio, int burst) {
+		this.budgetRatio = ratio;
+		this.budgetBurst = burst;
+		this.budget = Math.min(budget, burst);
+		return this;
+	}
+
+	/**
+	 * Notifies this policy of a new (not retried) request. Deposits into the
+	 * retry budget.
+	 */
+	synchronized void onRequest() {
+		requests++;
+		this.budget = Math.min(budgetBurst, budget + budgetRatio);
+	}
+
+	/**
+	 * Returns <code>true</code> if the request that failed with the given
+	 * error shall be retried. Waits for the backoff before it returns.
+	 * 
+	 * @param httpMethod
+	 *            the method of the request that failed
+	 * @param e
+	 *            the error that the request failed with
+	 * @param retry
+	 *            the number of retries that were done already
+	 * @return whether the request shall be retried
+	 */
+	boolean retry(HttpMethod httpMethod, Exception e, int retry) {
+		if (retry >= maxRetries
+				|| !retryableMethods.contains(httpMethod)
+				|| !isRetryable(e)) {
+			return false;
+		}
+		long backoff = getBackoff(retry);
+		if (isPastDeadline(backoff)
+				|| !acquireBudget()) {
+			return false;
+		}
+		LOGGER.warn("Retrying {} request in {}ms: {}", new Object[] { httpMethod, backoff, e.getMessage() });
+		try {
+			sleep(backoff);
+			return true;
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given error is transient: a timeout, a
+	 * connection that could not be established or a server error (5xx).
+	 */
+	protected boolean isRetryable(Exception e) {
+		if (e instanceof SocketTimeoutException) {
+			return true;
+		}
+		if (!(e instanceof HttpClientException)) {
+			return false;
+		}
+		return ((HttpClientException) e).getStatusCode() >= IHttpClient.STATUS_INTERNAL_SERVER_ERROR
+				|| e.getCause() instanceof ConnectException;
+	}
+
+	/**
+	 * Returns <code>true</code> if the deadline of the request context of the
+	 * calling thread passes before the given backoff (in milliseconds) did.
+	 */
+	private boolean isPastDeadline(long backoff) {
+		RequestContext context = RequestContext.current();
+		return context != null
+				&& context.getRemaining() <= backoff;
+	}
+
+	private synchronized boolean acquireBudget() {
+		if (budget < 1) {
+			budgetExhausted++;
+			return false;
+		}
+		budget--;
+		retries++;
+		return true;
+	}
+
+	/**
+	 * Returns a random delay between 0 and the exponential backoff for the
+	 * given retry.
+	 */
+	protected long getBackoff(int retry) {
+		long backoff = initialBackoff << Math.min(retry, 30);
+		if (backoff <= 0
+				|| backoff > maxBackoff) {
+			backoff = maxBackoff;
+		}
+		synchronized (random) {
+			return (long) (random.nextDouble() * backoff);
+		}
+	}
+
+	protected void sleep(long millis) throws InterruptedException {
+		Thread.sleep(millis);
+	}
+
+	public synchronized RetryStatistics getStatistics() {
+		return new RetryStatistics(requests, retries, budgetExhausted, budget);
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+/**
+ * A snapshot of the requests that a {@link RetryPolicy} saw and of the
+ * retries that it allowed.
+ *
+ * @author Andre Dietisheim
+ */
+public class RetryStatistics {
+
+	private final long requests;
+	private final long retries;
+	private final long budgetExhausted;
+	private final double budget;
+
+	RetryStatistics(long requests, long retries, long budgetExhausted, double budget) {
+		this.requests = requests;
+		this.retries = retries;
+		this.budgetExhausted = budgetExhausted;
+		this.budget = budget;
+	}
+
+	/**
+	 * Returns the number of requests, not counting their retries.
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	/**
+	 * Returns the number of retries that were done.
+	 */
+	public long getRetries() {
+		return retries;
+	}
+
+	/**
+	 * Returns the number of retries that were denied because the retry budget
+	 * was exhausted.
+	 */
+	public long getBudgetExhausted() {
+		return budgetExhausted;
+	}
+
+	/**
+	 * Returns the retries that the budget currently allows.
+	 */
+	public double getBudget() {
+		return budget;
+	}
+
+	@Override
+	public String toString() {
+		return "RetryStatistics ["
+				+ "requests=" + requests + ", "
+				+ "retries=" + retries + ", "
+				+ "budgetExhausted=" + budgetExhausted + ", "
+				+ "budget=" + budget
+				+ "]";
+	}
+}
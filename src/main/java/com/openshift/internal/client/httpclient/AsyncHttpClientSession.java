@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IAsyncHttpClient;
+import com.openshift.client.IHttpResponseHandler;
+import com.openshift.client.IRequestCallback;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+
+/**
+ * A session on a shared asynchronous client.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see NioHttpClient#createSession(String, String, String, String)
+ */
+public class AsyncHttpClientSession extends HttpClientSession implements IAsyncHttpClient {
+
+	private final NioHttpClient transport;
+
+	AsyncHttpClientSession(NioHttpClient transport, String username, String password, String authKey,
+			String authIV) {
+		super(transport, username, password, authKey, authIV);
+		this.transport = transport;
+	}
+
+	@Override
+	public <T> Future<T> requestAsync(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			Map<String, String> headers, IHttpResponseHandler<T> handler, IRequestCallback<T> callback,
+			Parameter... parameters) throws EncodingException {
+		return transport.requestAsync(getRequestTemplate(), httpMethod, url, mediaType, timeout, headers, handler,
+				callback, parameters);
+	}
+}
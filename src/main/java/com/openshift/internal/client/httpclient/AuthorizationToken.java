@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import com.openshift.client.IHttpClient;
+
+/**
+ * An authorization token that the broker issued for a user. Requests that
+ * carry it (as bearer credential) are authorized without the broker having
+ * to check the password of the user.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see AuthorizationTokenCache
+ */
+public class AuthorizationToken {
+
+	private final String id;
+	private final String token;
+	private final long issued;
+	private final long expires;
+
+	public AuthorizationToken(String token, long issued, long expires) {
+		this(null, token, issued, expires);
+	}
+
+	/**
+	 * @param id
+	 *            the id of the authorization that the token belongs to,
+	 *            <code>null</code> if unknown
+	 * @param token
+	 *            the token that the broker issued
+	 * @param issued
+	 *            the time (in milliseconds) the token was issued at
+	 * @param expires
+	 *            the time (in milliseconds) the token expires at
+	 */
+	public AuthorizationToken(String id, String token, long issued, long expires) {
+		this.id = id;
+		this.token = token;
+		this.issued = issued;
+		this.expires = expires;
+	}
+
+	/**
+	 * Returns the id of the authorization that the token belongs to.
+	 * Authorizations are revoked by their id.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public long getIssued() {
+		return issued;
+	}
+
+	public long getExpires() {
+		return expires;
+	}
+
+	/**
+	 * Returns the time (in milliseconds) the token may be used for.
+	 */
+	public long getLifetime() {
+		return expires - issued;
+	}
+
+	public boolean isExpired(long now) {
+		return now >= expires;
+	}
+
+	/**
+	 * Returns the value for the authorization header (ex. "Bearer 1a2b3c").
+	 */
+	public String getAuthorization() {
+		return new StringBuilder(IHttpClient.AUTHORIZATION_BEARER).append(IHttpClient.SPACE).append(token).toString();
+	}
+
+	@Override
+	public String toString() {
+		// dont leak the token to logs
+		return "AuthorizationToken ["
+				+ "issued=" + issued + ", "
+				+ "expires=" + expires
+				+ "]";
+	}
+}
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the authorization tokens that were issued to users so that all the
+ * clients (and connections) of a user share a single token. A token is
+ * replaced before it expires: the first request that sees that it is due
+ * requests a new one while concurrent requests keep using the current one.
+ * Requests only wait for a token if there is none or if it expired. Replaced
+ * tokens are revoked at the broker. The cache holds the tokens of a bounded
+ * number of users (and servers), tokens that are evicted to make room for
+ * others are dropped and expire at the broker.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see UrlConnectionHttpClientBuilder#setAuthorizationTokens(boolean)
+ */
+public class AuthorizationTokenCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AuthorizationTokenCache.class);
+
+	/** the time in milliseconds before expiry that tokens are replaced at */
+	public static final long DEFAULT_REFRESH_MARGIN = 5 * 60 * 1000;
+	/** the maximum number of users (and servers) to hold tokens for */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private static final AuthorizationTokenCache SHARED = new AuthorizationTokenCache();
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private final int maxEntries;
+	private volatile long refreshMargin = DEFAULT_REFRESH_MARGIN;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong issued = new AtomicLong();
+	private final AtomicLong refreshed = new AtomicLong();
+	private final AtomicLong invalidated = new AtomicLong();
+	private final AtomicLong evicted = new AtomicLong();
+
+	public AuthorizationTokenCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            the maximum number of users (and servers) to hold tokens
+	 *            for. Expired and then the least recently used tokens are
+	 *            evicted once it is exceeded.
+	 */
+	public AuthorizationTokenCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Returns the cache that all clients in this vm share unless they're
+	 * given a cache of their own.
+	 */
+	public static AuthorizationTokenCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Sets the time in milliseconds before expiry that tokens are replaced
+	 * at. Tokens with a shorter lifetime are replaced once half of it passed.
+	 */
+	public AuthorizationTokenCache setRefreshMargin(long refreshMargin) {
+		this.refreshMargin = refreshMargin;
+		return this;
+	}
+
+	/**
+	 * Returns the token for the given key (user and server). Requests a new
+	 * one from the given issuer if there is none, if it expired or if it is
+	 * due to be replaced.
+	 * 
+	 * @param key
+	 *            the user and server that the token is for
+	 * @param issuer
+	 *            requests a new token
+	 * @return the token
+	 * @throws SocketTimeoutException
+	 * @throws HttpClientException
+	 *             if no valid token could be issued
+	 */
+	AuthorizationToken get(String key, IAuthorizationTokenIssuer issuer)
+			throws SocketTimeoutException, HttpClientException {
+		long now = currentTimeMillis();
+		Entry entry = getEntry(key, now);
+		AuthorizationToken token = entry.token;
+		if (token != null
+				&& !isDue(token, now)) {
+			hits.incrementAndGet();
+			return token;
+		}
+		if (token != null
+				&& !token.isExpired(now)) {
+			// refresh in the background of concurrent requests
+			if (!entry.lock.tryLock()) {
+				hits.incrementAndGet();
+				return token;
+			}
+			try {
+				return refresh(entry, token, issuer);
+			} finally {
+				entry.lock.unlock();
+			}
+		}
+		entry.lock.lock();
+		try {
+			token = entry.token;
+			if (token != null
+					&& !token.isExpired(currentTimeMillis())) {
+				// issued while we waited
+				hits.incrementAndGet();
+				return token;
+			}
+			return entry.token = issue(issuer);
+		} finally {
+			entry.lock.unlock();
+		}
+	}
+
+	private AuthorizationToken refresh(Entry entry, AuthorizationToken token, IAuthorizationTokenIssuer issuer)
+			throws SocketTimeoutException, HttpClientException {
+		if (entry.token != token) {
+			// refreshed by a concurrent request
+			hits.incrementAndGet();
+			return entry.token;
+		}
+		try {
+			entry.token = issue(issuer);
+			refreshed.incrementAndGet();
+			revoke(token, issuer);
+			return entry.token;
+		} catch (HttpClientException e) {
+			LOGGER.warn("Could not refresh authorization token, using current one until it expires: {}",
+					e.getMessage());
+			return token;
+		} catch (SocketTimeoutException e) {
+			LOGGER.warn("Could not refresh authorization token, using current one until it expires: {}",
+					e.getMessage());
+			return token;
+		}
+	}
+
+	private AuthorizationToken issue(IAuthorizationTokenIssuer issuer)
+			throws SocketTimeoutException, HttpClientException {
+		AuthorizationToken token = issuer.issue();
+		issued.incrementAndGet();
+		return token;
+	}
+
+	/**
+	 * Revokes the given (replaced) token. Concurrent requests that still use
+	 * it are rejected by the broker and repeated with the new token.
+	 */
+	private void revoke(AuthorizationToken token, IAuthorizationTokenIssuer issuer) {
+		try {
+			issuer.revoke(token);
+		} catch (HttpClientException e) {
+			LOGGER.warn("Could not revoke replaced authorization token: {}", e.getMessage());
+		} catch (SocketTimeoutException e) {
+			LOGGER.warn("Could not revoke replaced authorization token: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Removes the given token (that the broker rejected) so that the next
+	 * request for the given key gets a new one. Does nothing if the token was
+	 * replaced already.
+	 */
+	void invalidate(String key, AuthorizationToken token) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return;
+		}
+		entry.lock.lock();
+		try {
+			if (entry.token == token) {
+				entry.token = null;
+				invalidated.incrementAndGet();
+			}
+		} finally {
+			entry.lock.unlock();
+		}
+	}
+
+	private Entry getEntry(String key, long now) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			Entry existing = entries.putIfAbsent(key, entry = new Entry());
+			if (existing != null) {
+				entry = existing;
+			} else if (entries.size() > maxEntries) {
+				evict(entry, now);
+			}
+		}
+		entry.used = now;
+		return entry;
+	}
+
+	/**
+	 * Removes the entries without (valid) token and, if there are still too
+	 * many, the least recently used ones. Entries that are busy issuing a
+	 * token and the given (new) one are kept.
+	 */
+	private void evict(Entry added, long now) {
+		for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+			Entry entry = candidate.getValue();
+			AuthorizationToken token = entry.token;
+			if (entry != added
+					&& !entry.lock.isLocked()
+					&& (token == null || token.isExpired(now))) {
+				remove(candidate.getKey(), entry);
+			}
+		}
+		while (entries.size() > maxEntries) {
+			Map.Entry<String, Entry> eldest = null;
+			for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+				Entry entry = candidate.getValue();
+				if (entry != added
+						&& !entry.lock.isLocked()
+						&& (eldest == null || entry.used < eldest.getValue().used)) {
+					eldest = candidate;
+				}
+			}
+			if (eldest == null) {
+				return;
+			}
+			remove(eldest.getKey(), eldest.getValue());
+		}
+	}
+
+	private void remove(String key, Entry entry) {
+		if (entries.remove(key, entry)) {
+			evicted.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given token shall be replaced.
+	 */
+	protected boolean isDue(AuthorizationToken token, long now) {
+		long margin = Math.min(refreshMargin, token.getLifetime() / 2);
+		return now >= token.getExpires() - margin;
+	}
+
+	/**
+	 * Removes all tokens.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	public AuthorizationTokenStatistics getStatistics() {
+		int tokens = 0;
+		for (Entry entry : entries.values()) {
+			if (entry.token != null) {
+				tokens++;
+			}
+		}
+		return new AuthorizationTokenStatistics(
+				tokens, maxEntries, hits.get(), issued.get(), refreshed.get(), invalidated.get(), evicted.get());
+	}
+
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private static class Entry {
+
+		private final ReentrantLock lock = new ReentrantLock();
+		private volatile AuthorizationToken token;
+		private volatile long used;
+
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+/**
+ * A snapshot of the authorization tokens that a {@link AuthorizationTokenCache}
+ * holds and of how often they were reused instead of being issued anew.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see AuthorizationTokenCache#getStatistics()
+ */
+public class AuthorizationTokenStatistics {
+
+	private final int tokens;
+	private final int maxEntries;
+	private final long hits;
+	private final long issued;
+	private final long refreshed;
+	private final long invalidated;
+	private final long evicted;
+
+	AuthorizationTokenStatistics(int tokens, int maxEntries, long hits, long issued, long refreshed,
+			long invalidated, long evicted) {
+		this.tokens = tokens;
+		this.maxEntries = maxEntries;
+		this.hits = hits;
+		this.issued = issued;
+		this.refreshed = refreshed;
+		this.invalidated = invalidated;
+		this.evicted = evicted;
+	}
+
+	/**
+	 * Returns the number of tokens (users) in the cache.
+	 */
+	public int getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * Returns the maximum number of users (and servers) that the cache holds
+	 * tokens for.
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Returns the number of requests that reused a cached token.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of tokens that were issued, including the refreshed
+	 * ones.
+	 */
+	public long getIssued() {
+		return issued;
+	}
+
+	/**
+	 * Returns the number of tokens that were replaced before they expired.
+	 */
+	public long getRefreshed() {
+		return refreshed;
+	}
+
+	/**
+	 * Returns the number of tokens that the broker rejected before they
+	 * expired.
+	 */
+	public long getInvalidated() {
+		return invalidated;
+	}
+
+	/**
+	 * Returns the number of users (and servers) that were removed from the
+	 * cache to make room for others.
+	 */
+	public long getEvicted() {
+		return evicted;
+	}
+
+	@Override
+	public String toString() {
+		return "AuthorizationTokenStatistics ["
+				+ "tokens=" + tokens + ", "
+				+ "maxEntries=" + maxEntries + ", "
+				+ "hits=" + hits + ", "
+				+ "issued=" + issued + ", "
+				+ "refreshed=" + refreshed + ", "
+				+ "invalidated=" + invalidated + ", "
+				+ "evicted=" + evicted
+				+ "]";
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that decodes a http message body that was sent with
+ * "Transfer-Encoding: chunked". Closing this stream does not close the
+ * underlying (connection) stream.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see <a href="http://tools.ietf.org/html/rfc2616#section-3.6.1">RFC 2616, Chunked Transfer Coding</a>
+ */
+class ChunkedInputStream extends InputStream {
+
+	private final InputStream in;
+	private int chunkRemaining;
+	private boolean chunkStarted;
+	private boolean complete;
+
+	ChunkedInputStream(InputStream in) {
+		this.in = in;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!ensureChunk()) {
+			return -1;
+		}
+		int character = in.read();
+		if (character == -1) {
+			throw new EOFException("Connection closed within a chunk.");
+		}
+		chunkRemaining--;
+		return character;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		if (!ensureChunk()) {
+			return -1;
+		}
+		int read = in.read(buffer, offset, Math.min(length, chunkRemaining));
+		if (read == -1) {
+			throw new EOFException("Connection closed within a chunk.");
+		}
+		chunkRemaining -= read;
+		return read;
+	}
+
+	private boolean ensureChunk() throws IOException {
+		if (complete) {
+			return false;
+		}
+		if (chunkRemaining > 0) {
+			return true;
+		}
+		if (chunkRemaining == 0
+				&& chunkStarted) {
+			// CRLF that terminates the previous chunk
+			HttpResponse.readLine(in);
+		}
+		this.chunkRemaining = readChunkSize();
+		this.chunkStarted = true;
+		if (chunkRemaining == 0) {
+			readTrailers();
+			this.complete = true;
+			return false;
+		}
+		return true;
+	}
+
+	private int readChunkSize() throws IOException {
+		String line = HttpResponse.readLine(in);
+		if (line == null) {
+			throw new EOFException("Connection closed before the last chunk was received.");
+		}
+		int extensionStart = line.indexOf(';');
+		if (extensionStart >= 0) {
+			line = line.substring(0, extensionStart);
+		}
+		try {
+			return Integer.parseInt(line.trim(), 16);
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid chunk size \"" + line + "\"");
+		}
+	}
+
+	private void readTrailers() throws IOException {
+		String line = null;
+		while ((line = HttpResponse.readLine(in)) != null
+				&& line.length() > 0) {
+			// ignore trailers
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the last chunk was read.
+	 */
+	boolean isComplete() {
+		return complete;
+	}
+
+	@Override
+	public void close() throws IOException {
+		// dont close the connection
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+/**
+ * A snapshot of the response bytes that a http client received with and
+ * without content encoding (compression).
+ *
+ * @author Andre Dietisheim
+ * 
+ * @see UrlConnectionHttpClientBuilder#setCompression(boolean)
+ */
+public class CompressionStatistics {
+
+	private final long compressedResponses;
+	private final long compressedBytes;
+	private final long uncompressedBytes;
+	private final long identityBytes;
+
+	CompressionStatistics(long compressedResponses, long compressedBytes, long uncompressedBytes, long identityBytes) {
+		this.compressedResponses = compressedResponses;
+		this.compressedBytes = compressedBytes;
+		this.uncompressedBytes = uncompressedBytes;
+		this.identityBytes = identityBytes;
+	}
+
+	/**
+	 * Returns the number of responses that the server sent compressed.
+	 */
+	public long getCompressedResponses() {
+		return compressedResponses;
+	}
+
+	/**
+	 * Returns the number of bytes that were received for compressed responses.
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes;
+	}
+
+	/**
+	 * Returns the number of bytes that the compressed responses were inflated
+	 * to.
+	 */
+	public long getUncompressedBytes() {
+		return uncompressedBytes;
+	}
+
+	/**
+	 * Returns the number of bytes that were received for responses that were
+	 * not compressed.
+	 */
+	public long getIdentityBytes() {
+		return identityBytes;
+	}
+
+	/**
+	 * Returns the ratio of uncompressed to compressed bytes (ex. 10 if
+	 * responses shrunk to a tenth). Returns <code>0</code> if no compressed
+	 * response was received yet.
+	 */
+	public double getCompressionRatio() {
+		if (compressedBytes == 0) {
+			return 0;
+		}
+		return (double) uncompressedBytes / compressedBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "CompressionStatistics ["
+				+ "compressedResponses=" + compressedResponses + ", "
+				+ "compressedBytes=" + compressedBytes + ", "
+				+ "uncompressedBytes=" + uncompressedBytes + ", "
+				+ "identityBytes=" + identityBytes
+				+ "]";
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * A socket factory that creates its sockets (and engines) off a single ssl
+ * context so that they share its session cache and may resume sessions. It
+ * enables the preferred protocols and cipher suites (if any) on each socket
+ * and reports completed handshakes to a {@link SSLSessionTracker}.
+ *
+ * @author Andre Dietisheim
+ */
+class ConfiguredSSLSocketFactory extends SSLSocketFactory {
+
+	private final SSLContext sslContext;
+	private final SSLSocketFactory socketFactory;
+	private final String[] protocols;
+	private final String[] cipherSuites;
+	private final SSLSessionTracker sessionTracker;
+
+	/**
+	 * @param sslContext
+	 *            the context to create sockets and engines with
+	 * @param protocols
+	 *            the protocols to enable in order of preference,
+	 *            <code>null</code> for the defaults of the context
+	 * @param cipherSuites
+	 *            the cipher suites to enable in order of preference,
+	 *            <code>null</code> for the defaults of the context
+	 * @param sessionTracker
+	 *            the tracker to report handshakes to
+	 * @throws HttpClientException
+	 *             if none of the given protocols or cipher suites is supported
+	 */
+	ConfiguredSSLSocketFactory(SSLContext sslContext, String[] protocols, String[] cipherSuites,
+			SSLSessionTracker sessionTracker) {
+		this.sslContext = sslContext;
+		this.socketFactory = sslContext.getSocketFactory();
+		this.protocols = getSupported("protocols", protocols,
+				sslContext.getSupportedSSLParameters().getProtocols());
+		this.cipherSuites = getSupported("cipher suites", cipherSuites,
+				sslContext.getSupportedSSLParameters().getCipherSuites());
+		this.sessionTracker = sessionTracker;
+	}
+
+	/**
+	 * Returns the preferred values that are supported, in the order of
+	 * preference. Returns <code>null</code> if no preference was given.
+	 */
+	private static String[] getSupported(String name, String[] preferred, String[] supported) {
+		if (preferred == null
+				|| preferred.length == 0) {
+			return null;
+		}
+		List<String> supportedValues = Arrays.asList(supported);
+		List<String> values = new ArrayList<String>();
+		for (String value : preferred) {
+			if (supportedValues.contains(value)) {
+				values.add(value);
+			}
+		}
+		if (values.isEmpty()) {
+			throw new HttpClientException(MessageFormat.format(
+					"None of the {0} {1} is supported, supported are {2}",
+					name, Arrays.toString(preferred), Arrays.toString(supported)));
+		}
+		return values.toArray(new String[values.size()]);
+	}
+
+	/**
+	 * Creates an engine for the given peer. Engines that are created for the
+	 * same host and port may resume each others sessions.
+	 */
+	SSLEngine createSSLEngine(String host, int port) {
+		SSLEngine sslEngine = sslContext.createSSLEngine(host, port);
+		sslEngine.setUseClientMode(true);
+		if (protocols != null) {
+			sslEngine.setEnabledProtocols(protocols);
+		}
+		if (cipherSuites != null) {
+			sslEngine.setEnabledCipherSuites(cipherSuites);
+		}
+		return sslEngine;
+	}
+
+	SSLSessionTracker getSessionTracker() {
+		return sessionTracker;
+	}
+
+	private Socket configure(Socket socket) {
+		if (socket instanceof SSLSocket) {
+			SSLSocket sslSocket = (SSLSocket) socket;
+			if (protocols != null) {
+				sslSocket.setEnabledProtocols(protocols);
+			}
+			if (cipherSuites != null) {
+				sslSocket.setEnabledCipherSuites(cipherSuites);
+			}
+			sslSocket.addHandshakeCompletedListener(sessionTracker);
+		}
+		return socket;
+	}
+
+	@Override
+	public String[] getDefaultCipherSuites() {
+		if (cipherSuites != null) {
+			return cipherSuites.clone();
+		}
+		return socketFactory.getDefaultCipherSuites();
+	}
+
+	@Override
+	public String[] getSupportedCipherSuites() {
+		return socketFactory.getSupportedCipherSuites();
+	}
+
+	@Override
+	public Socket createSocket() throws IOException {
+		return configure(socketFactory.createSocket());
+	}
+
+	@Override
+	public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+		return configure(socketFactory.createSocket(socket, host, port, autoClose));
+	}
+
+	@Override
+	public Socket createSocket(String host, int port) throws IOException, UnknownHostException {
+		return configure(socketFactory.createSocket(host, port));
+	}
+
+	@Override
+	public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException,
+			UnknownHostException {
+		return configure(socketFactory.createSocket(host, port, localHost, localPort));
+	}
+
+	@Override
+	public Socket createSocket(InetAddress host, int port) throws IOException {
+		return configure(socketFactory.createSocket(host, port));
+	}
+
+	@Override
+	public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+			throws IOException {
+		return configure(socketFactory.createSocket(address, port, localAddress, localPort));
+	}
+}
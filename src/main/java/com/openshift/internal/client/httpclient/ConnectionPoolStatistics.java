@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+/**
+ * A snapshot of the state of a {@link HttpConnectionPool}.
+ *
+ * @author Andre Dietisheim
+ */
+public class ConnectionPoolStatistics {
+
+	private final int leased;
+	private final int idle;
+	private final int pending;
+	private final long created;
+	private final long reused;
+	private final long evicted;
+
+	ConnectionPoolStatistics(int leased, int idle, int pending, long created, long reused, long evicted) {
+		this.leased = leased;
+		this.idle = idle;
+		this.pending = pending;
+		this.created = created;
+		this.reused = reused;
+		this.evicted = evicted;
+	}
+
+	/**
+	 * Returns the number of connections that are currently in use.
+	 */
+	public int getLeased() {
+		return leased;
+	}
+
+	/**
+	 * Returns the number of connections that are currently open and unused.
+	 */
+	public int getIdle() {
+		return idle;
+	}
+
+	/**
+	 * Returns the number of requests that are waiting for a connection.
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	/**
+	 * Returns the number of connections that were opened so far.
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	/**
+	 * Returns the number of times an existing connection was handed out again.
+	 */
+	public long getReused() {
+		return reused;
+	}
+
+	/**
+	 * Returns the number of idle connections that were closed because they
+	 * expired.
+	 */
+	public long getEvicted() {
+		return evicted;
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionPoolStatistics ["
+				+ "leased=" + leased + ", "
+				+ "idle=" + idle + ", "
+				+ "pending=" + pending + ", "
+				+ "created=" + created + ", "
+				+ "reused=" + reused + ", "
+				+ "evicted=" + evicted
+				+ "]";
+	}
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.text.MessageFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.openshift.internal.client.utils.StringUtils;
+
+/**
+ * Decodes (inflates) response bodies that the server sent with a content
+ * encoding and counts the bytes that were received and inflated.
+ *
+ * @author Andre Dietisheim
+ */
+class ContentEncoding {
+
+	static final String GZIP = "gzip";
+	static final String X_GZIP = "x-gzip";
+	static final String DEFLATE = "deflate";
+	static final String IDENTITY = "identity";
+	/** the value for the accept-encoding header */
+	static final String ACCEPTED_ENCODINGS = GZIP + ", " + DEFLATE;
+
+	private static final int ZLIB_METHOD_DEFLATE = 8;
+	private static final int ZLIB_HEADER_CHECK = 31;
+
+	private final AtomicLong compressedResponses = new AtomicLong();
+	private final AtomicLong compressedBytes = new AtomicLong();
+	private final AtomicLong uncompressedBytes = new AtomicLong();
+	private final AtomicLong identityBytes = new AtomicLong();
+
+	/**
+	 * Returns a stream that inflates the given body if it was sent with the
+	 * given content encoding.
+	 * 
+	 * @param body
+	 *            the response body as it was received
+	 * @param contentEncoding
+	 *            the value of the content-encoding header, may be
+	 *            <code>null</code>
+	 * @return the decoded body. Closing it releases the inflater but leaves
+	 *         the given body open.
+	 * @throws IOException
+	 *             if the encoding is not supported or the body is corrupt
+	 */
+	InputStream decode(InputStream body, String contentEncoding) throws IOException {
+		if (body == null) {
+			return null;
+		}
+		body = new FilterInputStream(body) {
+
+			@Override
+			public void close() throws IOException {
+				// body is owned by the connection
+			}
+		};
+		if (StringUtils.isEmpty(contentEncoding)
+				|| IDENTITY.equalsIgnoreCase(contentEncoding.trim())) {
+			return new CountingInputStream(body, identityBytes);
+		}
+		String encoding = contentEncoding.trim().toLowerCase();
+		if (!GZIP.equals(encoding)
+				&& !X_GZIP.equals(encoding)
+				&& !DEFLATE.equals(encoding)) {
+			throw new IOException(MessageFormat.format("Unsupported content encoding {0}", contentEncoding));
+		}
+		PushbackInputStream in = new PushbackInputStream(new CountingInputStream(body, compressedBytes), 2);
+		byte[] header = new byte[2];
+		int read = readFully(in, header);
+		if (read <= 0) {
+			// no body (ex. HEAD)
+			return new ByteArrayInputStream(new byte[0]);
+		}
+		in.unread(header, 0, read);
+		compressedResponses.incrementAndGet();
+		if (DEFLATE.equals(encoding)) {
+			return new CountingInputStream(createInflaterStream(in, isZlib(header, read)), uncompressedBytes);
+		}
+		return new CountingInputStream(new GZIPInputStream(in), uncompressedBytes);
+	}
+
+	private int readFully(InputStream in, byte[] buffer) throws IOException {
+		int read = 0;
+		int count = 0;
+		while (read < buffer.length
+				&& (count = in.read(buffer, read, buffer.length - read)) != -1) {
+			read += count;
+		}
+		return read;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given bytes are a zlib header (RFC
+	 * 1950). Servers use to send raw deflate data (RFC 1951) for "deflate"
+	 * instead of the zlib format that RFC 2616 requires.
+	 */
+	private boolean isZlib(byte[] header, int length) {
+		if (length < header.length) {
+			return false;
+		}
+		int cmf = header[0] & 0xff;
+		int flg = header[1] & 0xff;
+		return (cmf & 0x0f) == ZLIB_METHOD_DEFLATE
+				&& ((cmf << 8) | flg) % ZLIB_HEADER_CHECK == 0;
+	}
+
+	private InputStream createInflaterStream(InputStream in, boolean zlib) {
+		final Inflater inflater = new Inflater(!zlib);
+		return new InflaterInputStream(in, inflater) {
+
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					inflater.end();
+				}
+			}
+		};
+	}
+
+	CompressionStatistics getStatistics() {
+		return new CompressionStatistics(
+				compressedResponses.get(), compressedBytes.get(), uncompressedBytes.get(), identityBytes.get());
+	}
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that reads a http message body of a given length. Closing
+ * this stream does not close the underlying (connection) stream.
+ * 
+ * @author Andre Dietisheim
+ */
+class ContentLengthInputStream extends InputStream {
+
+	private final InputStream in;
+	private long remaining;
+
+	ContentLengthInputStream(InputStream in, long contentLength) {
+		this.in = in;
+		this.remaining = contentLength;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (remaining <= 0) {
+			return -1;
+		}
+		int character = in.read();
+		if (character == -1) {
+			throw new EOFException("Connection closed before the end of the response body was reached.");
+		}
+		remaining--;
+		return character;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		if (remaining <= 0) {
+			return -1;
+		}
+		int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+		if (read == -1) {
+			throw new EOFException("Connection closed before the end of the response body was reached.");
+		}
+		remaining -= read;
+		return read;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(in.available(), remaining);
+	}
+
+	/**
+	 * Returns <code>true</code> if the whole body was read.
+	 */
+	boolean isComplete() {
+		return remaining <= 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		// dont close the connection
+	}
+}
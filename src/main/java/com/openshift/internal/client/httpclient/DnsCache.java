@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the addresses that host names resolved to for a given time so that
+ * new connections to a host don't have to look it up again. The cache
+ * belongs to the client, it does not depend on the vm-wide dns cache
+ * settings (networkaddress.cache.ttl).
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see UrlConnectionHttpClientBuilder#setDnsCacheTtl(long)
+ */
+public class DnsCache {
+
+	/** the time in milliseconds that addresses are kept */
+	public static final long DEFAULT_TTL = 60 * 1000;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private final long ttl;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public DnsCache() {
+		this(DEFAULT_TTL);
+	}
+
+	/**
+	 * @param ttl
+	 *            the time in milliseconds that addresses are kept
+	 */
+	public DnsCache(long ttl) {
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Returns the addresses of the given host. Looks them up if they're not
+	 * cached or if they expired.
+	 * 
+	 * @param host
+	 *            the host name (or address) to resolve
+	 * @return the addresses of the host
+	 * @throws UnknownHostException
+	 *             if the host could not be resolved
+	 */
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		long now = currentTimeMillis();
+		Entry entry = entries.get(host);
+		if (entry != null
+				&& now < entry.expires) {
+			hits.incrementAndGet();
+			return entry.addresses;
+		}
+		misses.incrementAndGet();
+		InetAddress[] addresses = lookup(host);
+		entries.put(host, new Entry(addresses, now + ttl));
+		return addresses;
+	}
+
+	protected InetAddress[] lookup(String host) throws UnknownHostException {
+		return InetAddress.getAllByName(host);
+	}
+
+	/**
+	 * Removes the addresses of the given host (ex. because none of them
+	 * accepted connections).
+	 */
+	public void invalidate(String host) {
+		entries.remove(host);
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	public DnsCacheStatistics getStatistics() {
+		return new DnsCacheStatistics(entries.size(), hits.get(), misses.get());
+	}
+
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private static class Entry {
+
+		private final InetAddress[] addresses;
+		private final long expires;
+
+		private Entry(InetAddress[] addresses, long expires) {
+			this.addresses = addresses;
+			this.expires = expires;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+/**
+ * A snapshot of the hosts that a {@link DnsCache} holds and of how many
+ * lookups it saved.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see DnsCache#getStatistics()
+ */
+public class DnsCacheStatistics {
+
+	private final int hosts;
+	private final long hits;
+	private final long misses;
+
+	DnsCacheStatistics(int hosts, long hits, long misses) {
+		this.hosts = hosts;
+		this.hits = hits;
+		this.misses = misses;
+	}
+
+	/**
+	 * Returns the number of hosts in the cache.
+	 */
+	public int getHosts() {
+		return hosts;
+	}
+
+	/**
+	 * Returns the number of times a host was resolved from the cache.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of times a host had to be looked up.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	@Override
+	public String toString() {
+		return "DnsCacheStatistics ["
+				+ "hosts=" + hosts + ", "
+				+ "hits=" + hits + ", "
+				+ "misses=" + misses
+				+ "]";
+	}
+}
@@ -17,16 +17,57 @@ public class HttpClientException extends RuntimeException {
 
 	private static final long serialVersionUID = 1L;
 
+	/** the status code of errors that are not responses of the server */
+	public static final int NO_STATUS = 0;
+
+	private final int statusCode;
+
 	public  HttpClientException(String message, Throwable cause) {
+		this(NO_STATUS, message, cause);
+	}
+
+	/**
+	 * @param statusCode
+	 *            the status that the server responded with
+	 */
+	public HttpClientException(int statusCode, String message, Throwable cause) {
 		super(message, cause);
+		this.statusCode = statusCode;
 	}
 
 	public HttpClientException(String message) {
 		super(message);
+		this.statusCode = NO_STATUS;
 	}
 
 	public HttpClientException(Throwable cause) {
 		super(cause);
+		this.statusCode = NO_STATUS;
+	}
+
+	/**
+	 * @param statusCode
+	 *            the status that the server responded with
+	 */
+	public HttpClientException(int statusCode, Throwable cause) {
+		super(cause);
+		this.statusCode = statusCode;
 	}
 
+	/**
+	 * Returns the status that the server responded with, {@link #NO_STATUS}
+	 * if unknown or if the server did not respond.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * Returns <code>true</code> if the server rejected the request itself
+	 * (4xx), as opposed to failing to process it.
+	 */
+	public boolean isClientError() {
+		return statusCode >= 400
+				&& statusCode < 500;
+	}
 }
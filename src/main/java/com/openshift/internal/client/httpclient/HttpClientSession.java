@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpResponseHandler;
+import com.openshift.client.IStreamingHttpClient;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.httpclient.request.ParameterValueMap;
+
+/**
+ * A lightweight view on a (shared) http client that sends its requests with
+ * the credentials of a single user. Sessions of any number of users may share
+ * a client and thus its connections, tls sessions and statistics. The user
+ * agent, accepted version, media type and proxy are per session. Sessions
+ * without a proxy of their own use the one of the client.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see UrlConnectionHttpClient#createSession(String, String)
+ */
+public class HttpClientSession implements IStreamingHttpClient {
+
+	private final UrlConnectionHttpClient transport;
+	private final String username;
+	private final String password;
+	private final String authKey;
+	private final String authIV;
+	private volatile String userAgent;
+	private volatile String acceptedVersion;
+	private volatile String acceptedMediaType;
+	private volatile Proxy proxy;
+	private volatile RequestTemplate requestTemplate;
+
+	HttpClientSession(UrlConnectionHttpClient transport, String username, String password, String authKey,
+			String authIV) {
+		this.transport = transport;
+		this.username = username;
+		this.password = password;
+		this.authKey = authKey;
+		this.authIV = authIV;
+	}
+
+	@Override
+	public String get(URL url, int timeout) throws HttpClientException, SocketTimeoutException {
+		return request(HttpMethod.GET, url, null, timeout);
+	}
+
+	@Override
+	public String head(URL url, int timeout) throws HttpClientException, SocketTimeoutException {
+		return request(HttpMethod.HEAD, url, null, timeout);
+	}
+
+	@Override
+	public String put(URL url, IMediaType mediaType, int timeout, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException {
+		return request(HttpMethod.PUT, url, mediaType, timeout, parameters);
+	}
+
+	@Override
+	public String post(URL url, IMediaType mediaType, int timeout, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException {
+		return request(HttpMethod.POST, url, mediaType, timeout, parameters);
+	}
+
+	@Override
+	public String patch(URL url, IMediaType mediaType, int timeout, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException {
+		return request(HttpMethod.PATCH, url, mediaType, timeout, parameters);
+	}
+
+	@Override
+	public String delete(URL url, IMediaType mediaType, int timeout, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException {
+		return request(HttpMethod.DELETE, url, mediaType, timeout, parameters);
+	}
+
+	@Override
+	public String delete(URL url, int timeout)
+			throws HttpClientException, SocketTimeoutException, EncodingException {
+		return delete(url, null, timeout);
+	}
+
+	private String request(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			Parameter... parameters) throws SocketTimeoutException, HttpClientException {
+		return request(httpMethod, url, mediaType, timeout, Collections.<String, String> emptyMap(),
+				UrlConnectionHttpClient.STRING_RESPONSE, parameters);
+	}
+
+	@Override
+	public <T> T request(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			Map<String, String> headers, IHttpResponseHandler<T> handler, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException {
+		return transport.request(getRequestTemplate(), httpMethod, url, mediaType, timeout,
+				new ParameterValueMap(parameters), headers, handler);
+	}
+
+	/**
+	 * Returns the headers that the requests of this session are sent with.
+	 * They're created once and then reused until the user agent, the
+	 * accepted version or media type change.
+	 */
+	protected RequestTemplate getRequestTemplate() {
+		RequestTemplate template = this.requestTemplate;
+		if (template == null) {
+			template = transport.createRequestTemplate(
+					username, password, authKey, authIV, userAgent, acceptedVersion, acceptedMediaType)
+					.withProxy(proxy);
+			this.requestTemplate = template;
+		}
+		return template;
+	}
+
+	@Override
+	public void setUserAgent(String userAgent) {
+		this.userAgent = userAgent;
+		this.requestTemplate = null;
+	}
+
+	@Override
+	public void setAcceptVersion(String version) {
+		this.acceptedVersion = version;
+		this.requestTemplate = null;
+	}
+
+	@Override
+	public void setAcceptedMediaType(String acceptedMediaType) {
+		this.acceptedMediaType = acceptedMediaType;
+		this.requestTemplate = null;
+	}
+
+	/**
+	 * Sets the proxy that the requests of this session go through. Pooled
+	 * clients keep the connections of each proxy apart, sessions with
+	 * different proxies thus never share connections.
+	 * 
+	 * @param proxy
+	 *            the proxy to connect through, <code>null</code> to use the
+	 *            one of the client
+	 * @see UrlConnectionHttpClient#setProxy(Proxy)
+	 */
+	public void setProxy(Proxy proxy) {
+		this.proxy = proxy;
+		this.requestTemplate = null;
+	}
+
+	public Proxy getProxy() {
+		return proxy;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	/**
+	 * Returns the client that this session sends its requests with.
+	 */
+	public UrlConnectionHttpClient getTransport() {
+		return transport;
+	}
+}
@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.HostnameVerifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of persistent http connections. Connections are kept per
+ * route (scheme, host and port) and a route never has more than the given
+ * maximum of connections open. Requests that exceed this maximum wait for a
+ * connection to get released. Connections that were idle for longer than the
+ * idle timeout get closed when the pool is accessed.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see PooledHttpClient
+ */
+public class HttpConnectionPool {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionPool.class);
+
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
+	public static final long DEFAULT_IDLE_TIMEOUT = 30 * 1000;
+
+	private final Map<HttpRoute, RouteConnections> connectionsByRoute = new HashMap<HttpRoute, RouteConnections>();
+	private final int maxConnectionsPerRoute;
+	private final long idleTimeout;
+
+	private int pending;
+	private long created;
+	private long reused;
+	private long evicted;
+	private boolean shutdown;
+
+	public HttpConnectionPool() {
+		this(DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * Creates a new pool.
+	 *
+	 * @param maxConnectionsPerRoute
+	 *            the maximum number of connections to a single route
+	 * @param idleTimeout
+	 *            the time in milliseconds after which an idle connection is
+	 *            closed. 0 keeps idle connections forever.
+	 */
+	public HttpConnectionPool(int maxConnectionsPerRoute, long idleTimeout) {
+		if (maxConnectionsPerRoute <= 0) {
+			throw new IllegalArgumentException(
+					MessageFormat.format("Maximum connections per route must be > 0, was {0}", maxConnectionsPerRoute));
+		}
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Returns an open connection to the given route. An idle connection is
+	 * reused if present, a new one is opened otherwise. Waits for a connection
+	 * to get released if the maximum number of connections to the given route
+	 * is reached.
+	 *
+	 * @param route
+	 *            the route to get a connection for
+	 * @param connectTimeout
+	 *            the time to wait for a connection to be available and to be
+	 *            opened
+	 * @param socketFactory
+	 *            the factory to create new sockets with
+	 * @param hostnameVerifier
+	 *            the verifier for secure routes, may be <code>null</code>
+	 * @return an open connection
+	 * @throws IOException
+	 *             if a new connection could not be opened
+	 * @throws HttpClientException
+	 *             if no connection was released in time or the pool was shut
+	 *             down
+	 */
+	public PooledConnection lease(HttpRoute route, int connectTimeout, SocketFactory socketFactory,
+			HostnameVerifier hostnameVerifier) throws IOException, HttpClientException {
+		return lease(route, connectTimeout, socketFactory, hostnameVerifier, null);
+	}
+
+	/**
+	 * Returns an open connection to the given route. Resolves the host of the
+	 * route with the given dns cache if a new connection has to be opened.
+	 * 
+	 * @param dnsCache
+	 *            the cache to resolve the host with, the host is resolved by
+	 *            the socket if <code>null</code>
+	 * 
+	 * @see #lease(HttpRoute, int, SocketFactory, HostnameVerifier)
+	 */
+	public PooledConnection lease(HttpRoute route, int connectTimeout, SocketFactory socketFactory,
+			HostnameVerifier hostnameVerifier, DnsCache dnsCache) throws IOException, HttpClientException {
+		PooledConnection connection = leaseIdleOrReserve(route, connectTimeout);
+		if (connection != null) {
+			return connection;
+		}
+		try {
+			connection = open(route, connectTimeout, socketFactory, hostnameVerifier, dnsCache);
+			connection.markUsed();
+			synchronized (this) {
+				created++;
+			}
+			LOGGER.debug("Opened connection to {}", route);
+			return connection;
+		} catch (IOException e) {
+			cancelReservation(route);
+			throw e;
+		} catch (RuntimeException e) {
+			cancelReservation(route);
+			throw e;
+		}
+	}
+
+	private PooledConnection open(HttpRoute route, int connectTimeout, SocketFactory socketFactory,
+			HostnameVerifier hostnameVerifier, DnsCache dnsCache) throws IOException {
+		if (dnsCache == null
+				|| route.getProxy() != null) {
+			// proxied hosts are resolved by the proxy
+			return PooledConnection.open(route, connectTimeout, socketFactory, hostnameVerifier);
+		}
+		try {
+			return PooledConnection.open(
+					route, dnsCache.resolve(route.getHost()), connectTimeout, socketFactory, hostnameVerifier);
+		} catch (ConnectException e) {
+			// host may have moved
+			dnsCache.invalidate(route.getHost());
+			throw e;
+		} catch (SocketTimeoutException e) {
+			// host may have moved, packets to the old address may be dropped
+			dnsCache.invalidate(route.getHost());
+			throw e;
+		}
+	}
+
+	private synchronized PooledConnection leaseIdleOrReserve(HttpRoute route, int timeout)
+			throws HttpClientException {
+		long deadline = System.currentTimeMillis() + timeout;
+		RouteConnections connections = getConnections(route);
+		while (true) {
+			assertNotShutdown();
+			closeExpired(connections, System.currentTimeMillis());
+			PooledConnection connection = connections.pollIdle();
+			if (connection != null) {
+				connections.leased++;
+				connection.markUsed();
+				reused++;
+				return connection;
+			}
+			if (connections.getSize() < maxConnectionsPerRoute) {
+				// reserve a slot, connection is opened outside the lock
+				connections.leased++;
+				return null;
+			}
+			waitForRelease(route, deadline);
+		}
+	}
+
+	private void waitForRelease(HttpRoute route, long deadline) throws HttpClientException {
+		long remaining = deadline - System.currentTimeMillis();
+		if (remaining <= 0) {
+			throw new HttpClientException(
+					MessageFormat.format("Timed out waiting for a connection to {0}, all {1} connections are in use",
+							route, maxConnectionsPerRoute));
+		}
+		pending++;
+		try {
+			wait(remaining);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HttpClientException(
+					MessageFormat.format("Interrupted while waiting for a connection to {0}", route), e);
+		} finally {
+			pending--;
+		}
+	}
+
+	private synchronized void cancelReservation(HttpRoute route) {
+		getConnections(route).leased--;
+		notifyAll();
+	}
+
+	/**
+	 * Returns the given connection to this pool. Connections that may not be
+	 * reused are closed.
+	 *
+	 * @param connection
+	 *            the connection to release
+	 * @param reusable
+	 *            whether the connection may be used for further requests
+	 */
+	public synchronized void release(PooledConnection connection, boolean reusable) {
+		RouteConnections connections = getConnections(connection.getRoute());
+		connections.leased--;
+		if (reusable
+				&& !shutdown
+				&& connection.isOpen()) {
+			connection.markIdle();
+			connections.idle.addFirst(connection);
+		} else {
+			connection.close();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Closes all connections that were idle for longer than the idle timeout.
+	 */
+	public synchronized void closeExpiredConnections() {
+		long now = System.currentTimeMillis();
+		for (RouteConnections connections : connectionsByRoute.values()) {
+			closeExpired(connections, now);
+		}
+	}
+
+	private void closeExpired(RouteConnections connections, long now) {
+		for (Iterator<PooledConnection> it = connections.idle.iterator(); it.hasNext();) {
+			PooledConnection connection = it.next();
+			if (connection.isExpired(idleTimeout, now)
+					|| !connection.isOpen()) {
+				it.remove();
+				connection.close();
+				evicted++;
+			}
+		}
+	}
+
+	/**
+	 * Closes all idle connections and refuses to hand out further connections.
+	 * Connections that are in use are closed once they're released.
+	 */
+	public synchronized void shutdown() {
+		this.shutdown = true;
+		for (RouteConnections connections : connectionsByRoute.values()) {
+			for (PooledConnection connection : connections.idle) {
+				connection.close();
+			}
+			connections.idle.clear();
+		}
+		notifyAll();
+	}
+
+	public synchronized boolean isShutdown() {
+		return shutdown;
+	}
+
+	private void assertNotShutdown() throws HttpClientException {
+		if (shutdown) {
+			throw new HttpClientException("Connection pool is shut down");
+		}
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public synchronized List<HttpRoute> getRoutes() {
+		return new ArrayList<HttpRoute>(connectionsByRoute.keySet());
+	}
+
+	public synchronized ConnectionPoolStatistics getStatistics() {
+		int leased = 0;
+		int idle = 0;
+		for (RouteConnections connections : connectionsByRoute.values()) {
+			leased += connections.leased;
+			idle += connections.idle.size();
+		}
+		return new ConnectionPoolStatistics(leased, idle, pending, created, reused, evicted);
+	}
+
+	private RouteConnections getConnections(HttpRoute route) {
+		RouteConnections connections = connectionsByRoute.get(route);
+		if (connections == null) {
+			connections = new RouteConnections();
+			connectionsByRoute.put(route, connections);
+		}
+		return connections;
+	}
+
+	private static class RouteConnections {
+
+		/** idle connections, most recently used first */
+		private final LinkedList<PooledConnection> idle = new LinkedList<PooledConnection>();
+		private int leased;
+
+		private PooledConnection pollIdle() {
+			return idle.poll();
+		}
+
+		private int getSize() {
+			return leased + idle.size();
+		}
+	}
+}
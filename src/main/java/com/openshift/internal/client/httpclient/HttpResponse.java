@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.openshift.client.HttpMethod;
+
+/**
+ * A http response that was read from a persistent connection: the status, the
+ * headers and a stream to read the (delimited) body from.
+ *
+ * @author Andre Dietisheim
+ */
+class HttpResponse {
+
+	static final String HEADER_CONNECTION = "Connection";
+	static final String HEADER_CONTENT_LENGTH = "Content-Length";
+	static final String HEADER_TRANSFER_ENCODING = "Transfer-Encoding";
+	static final String HEADER_LOCATION = "Location";
+	static final String CLOSE = "close";
+	static final String KEEP_ALIVE = "keep-alive";
+	static final String CHUNKED = "chunked";
+
+	private static final String HTTP_1_0 = "HTTP/1.0";
+	private static final int STATUS_NO_CONTENT = 204;
+	private static final int STATUS_NOT_MODIFIED = 304;
+
+	private static final InputStream EMPTY_BODY = new ByteArrayInputStream(new byte[0]);
+
+	private final String protocol;
+	private final int statusCode;
+	private final String reasonPhrase;
+	private final Map<String, String> headers;
+	private final InputStream body;
+
+	private HttpResponse(String protocol, int statusCode, String reasonPhrase, Map<String, String> headers,
+			InputStream in, HttpMethod method) {
+		this.protocol = protocol;
+		this.statusCode = statusCode;
+		this.reasonPhrase = reasonPhrase;
+		this.headers = headers;
+		this.body = createBody(in, method);
+	}
+
+	/**
+	 * Reads the status line and the headers of a response from the given
+	 * stream.
+	 *
+	 * @param in
+	 *            the stream to read from
+	 * @param method
+	 *            the method of the request that this is the response for
+	 * @return the response
+	 * @throws IOException
+	 */
+	static HttpResponse read(InputStream in, HttpMethod method) throws IOException {
+		String statusLine = readLine(in);
+		if (statusLine == null) {
+			throw new EOFException("Connection closed before a response was received.");
+		}
+		// Status-Line = HTTP-Version SP Status-Code SP Reason-Phrase
+		String[] tokens = statusLine.split(" ", 3);
+		if (tokens.length < 2) {
+			throw new IOException("Invalid status line \"" + statusLine + "\"");
+		}
+		int statusCode = parseStatusCode(tokens[1], statusLine);
+		String reasonPhrase = tokens.length > 2 ? tokens[2] : "";
+		return new HttpResponse(tokens[0], statusCode, reasonPhrase, readHeaders(in), in, method);
+	}
+
+	private static int parseStatusCode(String statusCode, String statusLine) throws IOException {
+		try {
+			return Integer.parseInt(statusCode);
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid status line \"" + statusLine + "\"");
+		}
+	}
+
+	private static Map<String, String> readHeaders(InputStream in) throws IOException {
+		Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+		String line = null;
+		while ((line = readLine(in)) != null
+				&& line.length() > 0) {
+			int colon = line.indexOf(':');
+			if (colon <= 0) {
+				continue;
+			}
+			String name = line.substring(0, colon).trim();
+			String value = line.substring(colon + 1).trim();
+			String existing = headers.get(name);
+			if (existing != null) {
+				value = existing + ", " + value;
+			}
+			headers.put(name, value);
+		}
+		return headers;
+	}
+
+	private InputStream createBody(InputStream in, HttpMethod method) {
+		if (!hasBody(method)) {
+			return EMPTY_BODY;
+		}
+		if (CHUNKED.equalsIgnoreCase(getHeader(HEADER_TRANSFER_ENCODING))) {
+			return new ChunkedInputStream(in);
+		}
+		long contentLength = getContentLength();
+		if (contentLength >= 0) {
+			return new ContentLengthInputStream(in, contentLength);
+		}
+		// body is delimited by the server closing the connection
+		return in;
+	}
+
+	boolean hasBody(HttpMethod method) {
+		return method != HttpMethod.HEAD
+				&& statusCode >= 200
+				&& statusCode != STATUS_NO_CONTENT
+				&& statusCode != STATUS_NOT_MODIFIED;
+	}
+
+	long getContentLength() {
+		String contentLength = getHeader(HEADER_CONTENT_LENGTH);
+		if (contentLength == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(contentLength.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	int getStatusCode() {
+		return statusCode;
+	}
+
+	String getReasonPhrase() {
+		return reasonPhrase;
+	}
+
+	String getHeader(String name) {
+		return headers.get(name);
+	}
+
+	Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	InputStream getBody() {
+		return body;
+	}
+
+	boolean isError() {
+		return statusCode >= 400;
+	}
+
+	boolean isRedirect() {
+		return statusCode >= 300
+				&& statusCode < 400
+				&& statusCode != STATUS_NOT_MODIFIED
+				&& getHeader(HEADER_LOCATION) != null;
+	}
+
+	/**
+	 * Returns <code>true</code> if the server allows the connection to be used
+	 * for further requests. Requires the body to be fully read.
+	 */
+	boolean isKeepAlive() {
+		String connection = getHeader(HEADER_CONNECTION);
+		if (CLOSE.equalsIgnoreCase(connection)) {
+			return false;
+		}
+		if (HTTP_1_0.equals(protocol)
+				&& !KEEP_ALIVE.equalsIgnoreCase(connection)) {
+			return false;
+		}
+		return isBodyComplete();
+	}
+
+	private boolean isBodyComplete() {
+		if (body == EMPTY_BODY) {
+			return true;
+		} else if (body instanceof ContentLengthInputStream) {
+			return ((ContentLengthInputStream) body).isComplete();
+		} else if (body instanceof ChunkedInputStream) {
+			return ((ChunkedInputStream) body).isComplete();
+		}
+		// closed by server
+		return false;
+	}
+
+	/**
+	 * Reads a CRLF (or LF) terminated line in ISO-8859-1. Returns
+	 * <code>null</code> if the stream ended before any character was read.
+	 *
+	 * @param in
+	 *            the stream to read from
+	 * @return the line without its terminator
+	 * @throws IOException
+	 */
+	static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+		int character = -1;
+		while ((character = in.read()) != -1) {
+			if (character == '\n') {
+				break;
+			}
+			line.write(character);
+		}
+		if (character == -1
+				&& line.size() == 0) {
+			return null;
+		}
+		byte[] bytes = line.toByteArray();
+		int length = bytes.length;
+		if (length > 0
+				&& bytes[length - 1] == '\r') {
+			length--;
+		}
+		return new String(bytes, 0, length, "ISO-8859-1");
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.Proxy;
+import java.net.URL;
+
+/**
+ * The target of a connection: scheme, host, port and the proxy (if any) that
+ * it is reached through. Pooled connections are only reused for requests to
+ * the same route.
+ *
+ * @author Andre Dietisheim
+ */
+public class HttpRoute {
+
+	private static final String HTTPS = "https";
+	private static final int DEFAULT_HTTP_PORT = 80;
+	private static final int DEFAULT_HTTPS_PORT = 443;
+
+	private final String scheme;
+	private final String host;
+	private final int port;
+	private final Proxy proxy;
+
+	public HttpRoute(URL url) {
+		this(url, null);
+	}
+
+	public HttpRoute(URL url, Proxy proxy) {
+		this(url.getProtocol(), url.getHost(), url.getPort(), proxy);
+	}
+
+	public HttpRoute(String scheme, String host, int port) {
+		this(scheme, host, port, null);
+	}
+
+	/**
+	 * @param proxy
+	 *            the proxy to connect through, <code>null</code> or
+	 *            {@link Proxy#NO_PROXY} to connect directly
+	 */
+	public HttpRoute(String scheme, String host, int port, Proxy proxy) {
+		this.scheme = scheme.toLowerCase();
+		this.host = host.toLowerCase();
+		this.port = getPort(port, this.scheme);
+		this.proxy = getProxy(proxy);
+	}
+
+	private int getPort(int port, String scheme) {
+		if (port > 0) {
+			return port;
+		}
+		if (HTTPS.equals(scheme)) {
+			return DEFAULT_HTTPS_PORT;
+		}
+		return DEFAULT_HTTP_PORT;
+	}
+
+	private Proxy getProxy(Proxy proxy) {
+		if (proxy == null
+				|| proxy.type() == Proxy.Type.DIRECT) {
+			return null;
+		}
+		return proxy;
+	}
+
+	public String getScheme() {
+		return scheme;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public boolean isSecure() {
+		return HTTPS.equals(scheme);
+	}
+
+	/**
+	 * Returns the proxy that connections to this route go through,
+	 * <code>null</code> if they connect directly.
+	 */
+	public Proxy getProxy() {
+		return proxy;
+	}
+
+	/**
+	 * Returns <code>true</code> if requests to this route are forwarded by a
+	 * http proxy: plain http requests that have to name the absolute uri of
+	 * their target. Secure requests are tunnelled and name the path only.
+	 */
+	public boolean isForwarded() {
+		return proxy != null
+				&& proxy.type() == Proxy.Type.HTTP
+				&& !isSecure();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + host.hashCode();
+		result = prime * result + port;
+		result = prime * result + ((proxy == null) ? 0 : proxy.hashCode());
+		result = prime * result + scheme.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		HttpRoute other = (HttpRoute) obj;
+		return port == other.port
+				&& host.equals(other.host)
+				&& scheme.equals(other.scheme)
+				&& (proxy == null ? other.proxy == null : proxy.equals(other.proxy));
+	}
+
+	@Override
+	public String toString() {
+		if (proxy == null) {
+			return scheme + "://" + host + ":" + port;
+		}
+		return scheme + "://" + host + ":" + port + " via " + proxy;
+	}
+}
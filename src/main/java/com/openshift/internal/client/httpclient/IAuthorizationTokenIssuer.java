@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.SocketTimeoutException;
+
+/**
+ * Requests a new authorization token from the broker.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see AuthorizationTokenCache
+ */
+interface IAuthorizationTokenIssuer {
+
+	public AuthorizationToken issue() throws SocketTimeoutException, HttpClientException;
+
+	/**
+	 * Revokes the given token at the broker so that it can't be used any
+	 * more.
+	 */
+	public void revoke(AuthorizationToken token) throws SocketTimeoutException, HttpClientException;
+
+}
@@ -0,0 +1,390 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.text.MessageFormat;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+
+import com.openshift.client.HttpMethod;
+
+/**
+ * A single request/response exchange on a non-blocking channel. Driven by the
+ * selector thread of the {@link NioHttpEngine}: connects, performs the tls
+ * handshake (if any), writes the request and collects the response. Each
+ * exchange opens a connection of its own and closes it once the response
+ * arrived (the request asks for <code>Connection: close</code>), connections
+ * are not reused.
+ *
+ * @author Andre Dietisheim
+ */
+class NioExchange {
+
+	/**
+	 * Gets notified (in the selector thread) once the exchange completed.
+	 */
+	interface Listener {
+
+		public void onHandshakeCompleted(SSLSession session);
+
+		public void onResponse(HttpResponse response);
+
+		public void onFailure(IOException e);
+	}
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+	private final HttpRoute route;
+	private final InetSocketAddress address;
+	private final ByteBuffer request;
+	private final SSLEngine sslEngine;
+	private final HostnameVerifier hostnameVerifier;
+	private final int connectTimeout;
+	private final int readTimeout;
+	private final Listener listener;
+	private final NioResponseBuffer response;
+
+	private SocketChannel channel;
+	private SelectionKey key;
+	private ByteBuffer netIn;
+	private ByteBuffer netOut;
+	private ByteBuffer appIn;
+	private boolean hostVerified;
+	private long deadline;
+	private volatile boolean connected;
+	private volatile boolean done;
+
+	/**
+	 * @param address
+	 *            the resolved address to connect to. The selector thread must
+	 *            not block in a dns lookup.
+	 */
+	NioExchange(HttpRoute route, InetSocketAddress address, HttpMethod method, ByteBuffer request,
+			SSLEngine sslEngine, HostnameVerifier hostnameVerifier, int connectTimeout, int readTimeout,
+			Listener listener) {
+		this.route = route;
+		this.address = address;
+		this.request = request;
+		this.sslEngine = sslEngine;
+		this.hostnameVerifier = hostnameVerifier;
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		this.listener = listener;
+		this.response = new NioResponseBuffer(method);
+	}
+
+	void connect(Selector selector) {
+		try {
+			this.channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			resetDeadline(connectTimeout);
+			if (channel.connect(address)) {
+				this.key = channel.register(selector, SelectionKey.OP_WRITE, this);
+				onConnected();
+			} else {
+				this.key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Proceeds as far as the channel allows without blocking.
+	 */
+	void process() {
+		if (done) {
+			return;
+		}
+		try {
+			if (key.isConnectable()) {
+				if (!channel.finishConnect()) {
+					return;
+				}
+				onConnected();
+			}
+			if (sslEngine == null) {
+				processPlain();
+			} else {
+				processTls();
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	private void onConnected() throws SSLException {
+		this.connected = true;
+		resetDeadline(readTimeout);
+		if (sslEngine != null) {
+			SSLSession session = sslEngine.getSession();
+			this.netIn = ByteBuffer.allocate(session.getPacketBufferSize());
+			this.netOut = ByteBuffer.allocate(session.getPacketBufferSize());
+			this.appIn = ByteBuffer.allocate(session.getApplicationBufferSize());
+			sslEngine.beginHandshake();
+		}
+		key.interestOps(SelectionKey.OP_WRITE);
+	}
+
+	private void processPlain() throws IOException {
+		if (request.hasRemaining()) {
+			channel.write(request);
+			if (request.hasRemaining()) {
+				key.interestOps(SelectionKey.OP_WRITE);
+				return;
+			}
+		}
+		if (appIn == null) {
+			this.appIn = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		}
+		while (!done) {
+			int read = channel.read(appIn);
+			if (read == -1) {
+				onEndOfStream();
+				return;
+			} else if (read == 0) {
+				key.interestOps(SelectionKey.OP_READ);
+				return;
+			}
+			onRead();
+		}
+	}
+
+	private void processTls() throws IOException {
+		while (!done) {
+			if (!flush()) {
+				key.interestOps(SelectionKey.OP_WRITE);
+				return;
+			}
+			switch (sslEngine.getHandshakeStatus()) {
+			case NEED_TASK:
+				runDelegatedTasks();
+				break;
+			case NEED_WRAP:
+				wrap(EMPTY);
+				break;
+			case NEED_UNWRAP:
+				if (!unwrap()) {
+					key.interestOps(SelectionKey.OP_READ);
+					return;
+				}
+				break;
+			default:
+				onHandshakeCompleted();
+				if (request.hasRemaining()) {
+					wrap(request);
+				} else if (!unwrap()) {
+					key.interestOps(SelectionKey.OP_READ);
+					return;
+				}
+			}
+		}
+	}
+
+	private boolean flush() throws IOException {
+		netOut.flip();
+		try {
+			channel.write(netOut);
+			return !netOut.hasRemaining();
+		} finally {
+			netOut.compact();
+		}
+	}
+
+	private void wrap(ByteBuffer source) throws IOException {
+		SSLEngineResult result = sslEngine.wrap(source, netOut);
+		switch (result.getStatus()) {
+		case BUFFER_OVERFLOW:
+			this.netOut = enlarge(netOut, sslEngine.getSession().getPacketBufferSize());
+			break;
+		case CLOSED:
+			throw new EOFException("Tls session was closed.");
+		default:
+		}
+	}
+
+	/**
+	 * Decrypts what was received so far, reads from the channel if more data
+	 * is needed. Returns <code>false</code> if no progress could be made
+	 * without waiting for the channel.
+	 */
+	private boolean unwrap() throws IOException {
+		netIn.flip();
+		SSLEngineResult result = null;
+		try {
+			result = sslEngine.unwrap(netIn, appIn);
+		} finally {
+			netIn.compact();
+		}
+		switch (result.getStatus()) {
+		case BUFFER_OVERFLOW:
+			this.appIn = enlarge(appIn, sslEngine.getSession().getApplicationBufferSize());
+			return true;
+		case CLOSED:
+			onEndOfStream();
+			return false;
+		case OK:
+			if (result.bytesProduced() > 0) {
+				onRead();
+			}
+			if (result.bytesConsumed() > 0
+					|| result.bytesProduced() > 0) {
+				return true;
+			}
+			return readNet();
+		default:
+			// BUFFER_UNDERFLOW
+			if (!netIn.hasRemaining()) {
+				this.netIn = enlarge(netIn, sslEngine.getSession().getPacketBufferSize());
+			}
+			return readNet();
+		}
+	}
+
+	private boolean readNet() throws IOException {
+		int read = channel.read(netIn);
+		if (read == -1) {
+			try {
+				sslEngine.closeInbound();
+			} catch (SSLException e) {
+				// server did not send close_notify
+			}
+			onEndOfStream();
+			return false;
+		}
+		return read > 0;
+	}
+
+	private void runDelegatedTasks() {
+		Runnable task = null;
+		while ((task = sslEngine.getDelegatedTask()) != null) {
+			task.run();
+		}
+	}
+
+	private void onHandshakeCompleted() throws SSLPeerUnverifiedException {
+		if (hostVerified) {
+			return;
+		}
+		if (hostnameVerifier != null
+				&& !hostnameVerifier.verify(route.getHost(), sslEngine.getSession())) {
+			throw new SSLPeerUnverifiedException(
+					MessageFormat.format("Host name {0} does not match the certificate", route.getHost()));
+		}
+		this.hostVerified = true;
+		listener.onHandshakeCompleted(sslEngine.getSession());
+	}
+
+	private ByteBuffer enlarge(ByteBuffer buffer, int minimumCapacity) {
+		ByteBuffer enlarged = ByteBuffer.allocate(Math.max(minimumCapacity, buffer.capacity() * 2));
+		buffer.flip();
+		enlarged.put(buffer);
+		return enlarged;
+	}
+
+	private void onRead() throws IOException {
+		resetDeadline(readTimeout);
+		appIn.flip();
+		response.append(appIn);
+		appIn.clear();
+		if (response.isComplete(false)) {
+			complete();
+		}
+	}
+
+	private void onEndOfStream() throws IOException {
+		if (response.isComplete(true)) {
+			complete();
+		}
+	}
+
+	private void complete() throws IOException {
+		HttpResponse httpResponse = response.getResponse();
+		this.done = true;
+		close();
+		listener.onResponse(httpResponse);
+	}
+
+	private void fail(IOException e) {
+		if (done) {
+			return;
+		}
+		this.done = true;
+		close();
+		listener.onFailure(e);
+	}
+
+	private void resetDeadline(int timeout) {
+		this.deadline = System.currentTimeMillis() + timeout;
+	}
+
+	/**
+	 * Fails this exchange if it did not make any progress within its
+	 * timeout.
+	 */
+	void checkTimeout(long now) {
+		if (!done
+				&& now > deadline) {
+			fail(new SocketTimeoutException(MessageFormat.format("Request to {0} timed out", route)));
+		}
+	}
+
+	/**
+	 * Aborts this exchange without notifying the listener. May be called by
+	 * any thread.
+	 */
+	void cancel() {
+		this.done = true;
+		close();
+	}
+
+	void shutdown() {
+		fail(new IOException("Http engine was shut down"));
+	}
+
+	boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Returns <code>true</code> once the channel is connected.
+	 */
+	boolean isConnected() {
+		return connected;
+	}
+
+	private void close() {
+		if (key != null) {
+			key.cancel();
+		}
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
@@ -0,0 +1,415 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IAsyncHttpClient;
+import com.openshift.client.IHttpResponseHandler;
+import com.openshift.client.IRequestCallback;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.httpclient.request.ParameterValueMap;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * A http client that executes asynchronous requests on non-blocking channels:
+ * a single selector thread keeps any number of requests in flight while a
+ * small pool of worker threads processes (parses) the responses. Synchronous
+ * requests are executed on pooled connections as in {@link PooledHttpClient}.
+ * So are asynchronous requests that go through a proxy (the one of the
+ * client or the one that the vm selects), they then occupy a worker thread.
+ * <p>
+ * Asynchronous requests do not reuse connections: each of them connects (and
+ * handshakes) on its own and closes the connection once the response
+ * arrived. They save threads, not round trips.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see UrlConnectionHttpClientBuilder#setAsynchronous(boolean)
+ */
+public class NioHttpClient extends PooledHttpClient implements IAsyncHttpClient {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NioHttpClient.class);
+	private static final int MAX_REDIRECTS = 5;
+	private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+	private final NioHttpEngine engine;
+	private final ExecutorService executor;
+
+	public NioHttpClient(String username, String password, String userAgent, boolean sslChecks,
+			String acceptedMediaType, String version, String authKey, String authIV, HttpConnectionPool pool,
+			ExecutorService executor) {
+		super(username, password, userAgent, sslChecks, acceptedMediaType, version, authKey, authIV, pool);
+		int instance = INSTANCES.incrementAndGet();
+		this.engine = new NioHttpEngine("openshift-nio-" + instance);
+		if (executor == null) {
+			executor = createExecutor("openshift-async-" + instance + "-");
+		}
+		this.executor = executor;
+	}
+
+	private ExecutorService createExecutor(final String threadName) {
+		return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+
+			private final AtomicInteger threads = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, threadName + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	@Override
+	public <T> Future<T> requestAsync(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			Map<String, String> headers, IHttpResponseHandler<T> handler, IRequestCallback<T> callback,
+			Parameter... parameters) throws EncodingException {
+		return requestAsync(getRequestTemplate(), httpMethod, url, mediaType, timeout, authorize(url, headers),
+				handler, callback, parameters);
+	}
+
+	/**
+	 * Executes the given request asynchronously with the headers of the given
+	 * template instead of the ones of this client.
+	 * 
+	 * @see AsyncHttpClientSession
+	 */
+	protected <T> Future<T> requestAsync(RequestTemplate template, HttpMethod httpMethod, URL url,
+			IMediaType mediaType, int timeout, Map<String, String> headers, IHttpResponseHandler<T> handler,
+			IRequestCallback<T> callback, Parameter... parameters) throws EncodingException {
+		if (getProxy(template, url) != null) {
+			return requestPooled(
+					template, httpMethod, url, mediaType, timeout, headers, handler, callback, parameters);
+		}
+		byte[] body = createBody(new ParameterValueMap(parameters), mediaType);
+		Map<String, String> requestHeaders = new LinkedHashMap<String, String>(headers);
+		// each exchange connects on its own, connections are not reused
+		requestHeaders.put(HttpResponse.HEADER_CONNECTION, HttpResponse.CLOSE);
+		AsyncRequest<T> request = new AsyncRequest<T>(
+				template, httpMethod, url, mediaType, timeout, requestHeaders, body, handler, callback);
+		request.execute();
+		return request.getFuture();
+	}
+
+	@Override
+	public AsyncHttpClientSession createSession(String username, String password, String authKey, String authIV) {
+		return new AsyncHttpClientSession(this, username, password, authKey, authIV);
+	}
+
+	/**
+	 * Executes the given request on a pooled connection in a worker thread.
+	 * The selector only talks to servers directly, not through proxies.
+	 */
+	private <T> Future<T> requestPooled(final RequestTemplate template, final HttpMethod httpMethod, final URL url,
+			final IMediaType mediaType, final int timeout, final Map<String, String> headers,
+			final IHttpResponseHandler<T> handler, IRequestCallback<T> callback, final Parameter... parameters) {
+		final ResponseFuture<T> future = new ResponseFuture<T>(callback);
+		dispatch(new Runnable() {
+
+			@Override
+			public void run() {
+				if (future.isDone()) {
+					return;
+				}
+				try {
+					future.completed(request(template, httpMethod, url, mediaType, timeout,
+							new ParameterValueMap(parameters), headers, handler));
+				} catch (SocketTimeoutException e) {
+					future.failed(e);
+				} catch (RuntimeException e) {
+					future.failed(e);
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Adds the authorization token to the given headers. A token that's
+	 * missing (or expired) is requested in the calling thread.
+	 */
+	private Map<String, String> authorize(URL url, Map<String, String> headers) throws HttpClientException {
+		try {
+			return authorize(getAuthorizationToken(url), headers);
+		} catch (SocketTimeoutException e) {
+			throw new HttpClientException(
+					MessageFormat.format("Could not request authorization token for {0}: {1}", url, e.getMessage()), e);
+		}
+	}
+
+	/**
+	 * Runs the given task on a worker thread, in the calling thread if the
+	 * workers were shut down already.
+	 */
+	private void dispatch(Runnable task) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.run();
+		}
+	}
+
+	protected SSLEngine createSSLEngine(HttpRoute route) throws IOException {
+		if (!route.isSecure()) {
+			return null;
+		}
+		// engines off the shared context resume the sessions of their peer
+		return getConfiguredSSLSocketFactory().createSSLEngine(route.getHost(), route.getPort());
+	}
+
+	/**
+	 * Resolves the host of the given route in the calling thread (with the dns
+	 * cache if there's one) so that the selector thread doesn't block in a
+	 * lookup.
+	 */
+	private InetAddress[] resolve(HttpRoute route) throws UnknownHostException {
+		DnsCache dnsCache = getDnsCache();
+		if (dnsCache == null) {
+			return InetAddress.getAllByName(route.getHost());
+		}
+		return dnsCache.resolve(route.getHost());
+	}
+
+	/**
+	 * Drops the addresses of the given host from the dns cache (if any) once
+	 * none of them accepted a connection, the host may have moved.
+	 */
+	private void invalidate(HttpRoute route) {
+		DnsCache dnsCache = getDnsCache();
+		if (dnsCache != null) {
+			dnsCache.invalidate(route.getHost());
+		}
+	}
+
+	/**
+	 * Stops the selector and worker threads and closes the pooled
+	 * connections. Requests in progress fail.
+	 */
+	public void shutdown() {
+		engine.shutdown();
+		executor.shutdown();
+		getConnectionPool().shutdown();
+	}
+
+	/**
+	 * An asynchronous request, follows redirects by issuing new exchanges.
+	 * Tries the other addresses of the host (as pooled connections do) if an
+	 * address does not accept the connection.
+	 */
+	private class AsyncRequest<T> implements NioExchange.Listener {
+
+		private final RequestTemplate template;
+		private final HttpMethod httpMethod;
+		private final IMediaType mediaType;
+		private final int timeout;
+		private final Map<String, String> headers;
+		private final byte[] body;
+		private final IHttpResponseHandler<T> handler;
+		private final ResponseFuture<T> future;
+		private volatile URL url;
+		private volatile HttpRoute route;
+		private volatile InetAddress[] addresses;
+		private volatile int address;
+		private volatile NioExchange exchange;
+		private int redirects;
+
+		private AsyncRequest(RequestTemplate template, HttpMethod httpMethod, URL url, IMediaType mediaType,
+				int timeout, Map<String, String> headers, byte[] body, IHttpResponseHandler<T> handler,
+				IRequestCallback<T> callback) {
+			this.template = template;
+			this.httpMethod = httpMethod;
+			this.url = url;
+			this.mediaType = mediaType;
+			this.timeout = timeout;
+			this.headers = headers;
+			this.body = body;
+			this.handler = handler;
+			this.future = new ResponseFuture<T>(callback) {
+
+				@Override
+				public boolean cancel(boolean mayInterruptIfRunning) {
+					boolean cancelled = super.cancel(mayInterruptIfRunning);
+					if (cancelled) {
+						AsyncRequest.this.cancel();
+					}
+					return cancelled;
+				}
+			};
+		}
+
+		/**
+		 * Hands a new exchange to the selector thread. Runs in the calling
+		 * thread (or in a worker thread when following a redirect), which
+		 * also resolves the host.
+		 */
+		private void execute() {
+			try {
+				HttpRoute route = new HttpRoute(url);
+				this.route = route;
+				this.addresses = resolve(route);
+				this.address = 0;
+				connect();
+			} catch (IOException e) {
+				onFailure(e);
+			}
+		}
+
+		private void connect() throws IOException {
+			HttpRoute route = this.route;
+			this.exchange = new NioExchange(route, new InetSocketAddress(addresses[address], route.getPort()),
+					httpMethod, createRequest(), createSSLEngine(route), getHostnameVerifier(route),
+					getConnectTimeout(NO_TIMEOUT), getReadTimeout(timeout), this);
+			engine.execute(exchange);
+		}
+
+		/**
+		 * Connects to the next address of the host if the current one did not
+		 * accept the connection. Returns <code>false</code> if there's none
+		 * left.
+		 */
+		private boolean connectNext(IOException e) {
+			NioExchange exchange = this.exchange;
+			if (exchange == null
+					|| exchange.isConnected()
+					|| e instanceof SSLException) {
+				return false;
+			}
+			if (address + 1 >= addresses.length) {
+				invalidate(route);
+				return false;
+			}
+			LOGGER.debug("Could not connect to {}: {}", addresses[address], e.getMessage());
+			address++;
+			try {
+				connect();
+				return true;
+			} catch (IOException connectFailure) {
+				return false;
+			}
+		}
+
+		private ByteBuffer createRequest() throws IOException {
+			byte[] head = createRequestHead(template, httpMethod, url, mediaType, headers, body)
+					.getBytes("ISO-8859-1");
+			int length = head.length;
+			if (body != null) {
+				length += body.length;
+			}
+			ByteBuffer request = ByteBuffer.allocate(length).put(head);
+			if (body != null) {
+				request.put(body);
+			}
+			request.flip();
+			return request;
+		}
+
+		private void cancel() {
+			NioExchange exchange = this.exchange;
+			if (exchange != null) {
+				exchange.cancel();
+			}
+		}
+
+		@Override
+		public void onResponse(final HttpResponse response) {
+			dispatch(new Runnable() {
+
+				@Override
+				public void run() {
+					handle(response);
+				}
+			});
+		}
+
+		private void handle(HttpResponse response) {
+			try {
+				if (response.isRedirect()
+						&& redirects < MAX_REDIRECTS) {
+					URL location = getRedirectLocation(url, response);
+					if (location != null
+							&& !future.isDone()) {
+						this.url = location;
+						redirects++;
+						execute();
+						return;
+					}
+				}
+				if (response.isError()) {
+					String content = StreamUtils.readToString(decode(response));
+					future.failed(createException(
+							response.getStatusCode(), createErrorMessage(content, url, response), null));
+					return;
+				}
+				future.completed(NioHttpClient.this.handle(
+						response.getStatusCode(), response.getHeaders(), decode(response), handler));
+			} catch (IOException e) {
+				onFailure(e);
+			} catch (RuntimeException e) {
+				future.failed(e);
+			}
+		}
+
+		@Override
+		public void onHandshakeCompleted(SSLSession session) {
+			sslSessionTracker.handshakeCompleted(session);
+		}
+
+		@Override
+		public void onFailure(final IOException e) {
+			dispatch(new Runnable() {
+
+				@Override
+				public void run() {
+					if (!future.isDone()
+							&& connectNext(e)) {
+						return;
+					}
+					if (e instanceof SocketTimeoutException) {
+						future.failed(e);
+					} else {
+						future.failed(new HttpClientException(
+								MessageFormat.format("Could not request {0}: {1}", url, e.getMessage()), e));
+					}
+				}
+			});
+		}
+
+		private Future<T> getFuture() {
+			return future;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives any number of {@link NioExchange}s with a single selector thread.
+ * The thread is started with the first exchange and stopped on
+ * {@link #shutdown()}.
+ *
+ * @author Andre Dietisheim
+ */
+class NioHttpEngine implements Runnable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NioHttpEngine.class);
+
+	/** how often timeouts are checked */
+	private static final long SELECT_TIMEOUT = 100;
+
+	private final String name;
+	private final Queue<NioExchange> pending = new ConcurrentLinkedQueue<NioExchange>();
+	/** exchanges in progress, only accessed by the selector thread */
+	private final Set<NioExchange> active = new HashSet<NioExchange>();
+	private Selector selector;
+	private volatile Thread thread;
+
+	NioHttpEngine(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Hands the given exchange to the selector thread, starts it if needed.
+	 */
+	synchronized void execute(NioExchange exchange) throws IOException {
+		if (thread == null) {
+			start();
+		}
+		pending.add(exchange);
+		selector.wakeup();
+	}
+
+	private void start() throws IOException {
+		this.selector = Selector.open();
+		this.thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void run() {
+		Selector selector = this.selector;
+		while (thread == Thread.currentThread()) {
+			try {
+				selector.select(SELECT_TIMEOUT);
+				connectPending(selector);
+				processSelected(selector);
+				checkTimeouts();
+			} catch (IOException e) {
+				LOGGER.error("Could not select channels", e);
+			} catch (RuntimeException e) {
+				LOGGER.error("Unexpected error while processing requests", e);
+			}
+		}
+		close(selector);
+	}
+
+	private void connectPending(Selector selector) {
+		NioExchange exchange = null;
+		while ((exchange = pending.poll()) != null) {
+			active.add(exchange);
+			exchange.connect(selector);
+		}
+	}
+
+	private void processSelected(Selector selector) {
+		for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+			SelectionKey key = it.next();
+			it.remove();
+			if (!key.isValid()) {
+				continue;
+			}
+			((NioExchange) key.attachment()).process();
+		}
+	}
+
+	private void checkTimeouts() {
+		long now = System.currentTimeMillis();
+		for (Iterator<NioExchange> it = active.iterator(); it.hasNext();) {
+			NioExchange exchange = it.next();
+			exchange.checkTimeout(now);
+			if (exchange.isDone()) {
+				it.remove();
+			}
+		}
+	}
+
+	private void close(Selector selector) {
+		NioExchange exchange = null;
+		while ((exchange = pending.poll()) != null) {
+			active.add(exchange);
+		}
+		for (NioExchange activeExchange : active) {
+			activeExchange.shutdown();
+		}
+		active.clear();
+		try {
+			selector.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * Stops the selector thread, requests in progress fail.
+	 */
+	synchronized void shutdown() {
+		if (thread == null) {
+			return;
+		}
+		this.thread = null;
+		selector.wakeup();
+	}
+}
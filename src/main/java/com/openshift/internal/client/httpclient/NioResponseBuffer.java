@@ -0,0 +1,180 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.openshift.client.HttpMethod;
+
+/**
+ * Collects the bytes of a response that are read from a non-blocking channel
+ * and tells when the response is complete.
+ *
+ * @author Andre Dietisheim
+ */
+class NioResponseBuffer {
+
+	private static final int INITIAL_SIZE = 8 * 1024;
+	private static final String ISO_8859_1 = "ISO-8859-1";
+
+	private final HttpMethod method;
+	private byte[] buffer = new byte[INITIAL_SIZE];
+	private int count;
+	/** the position after the blank line that ends the head */
+	private int headEnd = -1;
+	private int headScanned;
+	private HttpResponse head;
+	/** the position of the next chunk-size line */
+	private int chunkPosition = -1;
+
+	NioResponseBuffer(HttpMethod method) {
+		this.method = method;
+	}
+
+	void append(ByteBuffer data) {
+		int length = data.remaining();
+		ensureCapacity(count + length);
+		data.get(buffer, count, length);
+		count += length;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= buffer.length) {
+			return;
+		}
+		byte[] newBuffer = new byte[Math.max(capacity, buffer.length * 2)];
+		System.arraycopy(buffer, 0, newBuffer, 0, count);
+		this.buffer = newBuffer;
+	}
+
+	/**
+	 * Returns <code>true</code> if the whole response was received.
+	 * 
+	 * @param endOfStream
+	 *            whether the server closed the connection
+	 * @return true if the response is complete
+	 * @throws IOException
+	 *             if the connection was closed before the response was
+	 *             complete or the response is invalid
+	 */
+	boolean isComplete(boolean endOfStream) throws IOException {
+		if (head == null) {
+			this.headEnd = findHeadEnd();
+			if (headEnd < 0) {
+				if (endOfStream) {
+					throw new EOFException("Connection closed before a response was received.");
+				}
+				return false;
+			}
+			this.head = HttpResponse.read(new ByteArrayInputStream(buffer, 0, headEnd), method);
+			this.chunkPosition = headEnd;
+		}
+		if (!head.hasBody(method)) {
+			return true;
+		}
+		boolean complete = endOfStream;
+		if (HttpResponse.CHUNKED.equalsIgnoreCase(head.getHeader(HttpResponse.HEADER_TRANSFER_ENCODING))) {
+			complete = isChunkedBodyComplete();
+			if (!complete && endOfStream) {
+				throw new EOFException("Connection closed before the chunked response was complete.");
+			}
+		} else if (head.getContentLength() >= 0) {
+			complete = count - headEnd >= head.getContentLength();
+			if (!complete && endOfStream) {
+				throw new EOFException("Connection closed before the response was complete.");
+			}
+		}
+		return complete;
+	}
+
+	private int findHeadEnd() {
+		for (int i = Math.max(headScanned, 1); i < count; i++) {
+			if (buffer[i] != '\n') {
+				continue;
+			}
+			if (buffer[i - 1] == '\n'
+					|| (i > 1 && buffer[i - 1] == '\r' && buffer[i - 2] == '\n')) {
+				return i + 1;
+			}
+		}
+		this.headScanned = count;
+		return -1;
+	}
+
+	private boolean isChunkedBodyComplete() throws IOException {
+		while (true) {
+			int lineEnd = indexOfLineFeed(chunkPosition);
+			if (lineEnd < 0) {
+				return false;
+			}
+			int chunkSize = parseChunkSize(chunkPosition, lineEnd);
+			if (chunkSize == 0) {
+				return isTrailerComplete(lineEnd + 1);
+			}
+			// chunk data + CRLF
+			int next = lineEnd + 1 + chunkSize + 2;
+			if (next > count) {
+				return false;
+			}
+			this.chunkPosition = next;
+		}
+	}
+
+	private boolean isTrailerComplete(int position) {
+		while (true) {
+			int lineEnd = indexOfLineFeed(position);
+			if (lineEnd < 0) {
+				return false;
+			}
+			if (lineEnd == position
+					|| (lineEnd == position + 1 && buffer[position] == '\r')) {
+				return true;
+			}
+			position = lineEnd + 1;
+		}
+	}
+
+	private int parseChunkSize(int start, int end) throws IOException {
+		String line = new String(buffer, start, end - start, ISO_8859_1).trim();
+		int extension = line.indexOf(';');
+		if (extension >= 0) {
+			line = line.substring(0, extension).trim();
+		}
+		try {
+			return Integer.parseInt(line, 16);
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid chunk size \"" + line + "\"");
+		}
+	}
+
+	private int indexOfLineFeed(int position) {
+		for (int i = position; i < count; i++) {
+			if (buffer[i] == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the complete response.
+	 */
+	HttpResponse getResponse() throws IOException {
+		return HttpResponse.read(new ByteArrayInputStream(buffer, 0, count), method);
+	}
+
+	int size() {
+		return count;
+	}
+}
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.text.MessageFormat;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import com.openshift.client.HttpMethod;
+
+/**
+ * A persistent (keep-alive) socket connection to a http route that may be
+ * reused for several subsequent requests.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see HttpConnectionPool
+ */
+public class PooledConnection {
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final HttpRoute route;
+	private final Socket socket;
+	private final InputStream in;
+	private final OutputStream out;
+	private long lastUsed;
+	private int requestCount;
+
+	protected PooledConnection(HttpRoute route, Socket socket) throws IOException {
+		this.route = route;
+		this.socket = socket;
+		this.in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+		this.out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	/**
+	 * Opens a new connection to the given route. Secure routes get their tls
+	 * handshake done and their host name verified (if a verifier is given).
+	 * Routes with a proxy are connected through it: socks proxies are handed
+	 * the host, http proxies are asked to tunnel secure routes (CONNECT).
+	 *
+	 * @param route
+	 *            the route to connect to
+	 * @param connectTimeout
+	 *            the timeout for establishing the connection
+	 * @param socketFactory
+	 *            the factory to create the socket with
+	 * @param hostnameVerifier
+	 *            the verifier for secure routes, may be <code>null</code>
+	 * @return the new connection
+	 * @throws IOException
+	 */
+	public static PooledConnection open(HttpRoute route, int connectTimeout, SocketFactory socketFactory,
+			HostnameVerifier hostnameVerifier) throws IOException {
+		if (route.getProxy() != null) {
+			return openProxied(route, connectTimeout, socketFactory, hostnameVerifier);
+		}
+		return open(route, new InetSocketAddress(route.getHost(), route.getPort()), connectTimeout, socketFactory,
+				hostnameVerifier);
+	}
+
+	/**
+	 * Opens a connection to the given route, trying the given (resolved)
+	 * addresses of its host in order until one of them accepts.
+	 */
+	public static PooledConnection open(HttpRoute route, InetAddress[] addresses, int connectTimeout,
+			SocketFactory socketFactory, HostnameVerifier hostnameVerifier) throws IOException {
+		IOException failure = null;
+		for (InetAddress address : addresses) {
+			try {
+				return open(route, new InetSocketAddress(address, route.getPort()), connectTimeout, socketFactory,
+						hostnameVerifier);
+			} catch (SSLException e) {
+				// tls fails the same on all of them
+				throw e;
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (failure == null) {
+			throw new UnknownHostException(route.getHost());
+		}
+		throw failure;
+	}
+
+	private static PooledConnection open(HttpRoute route, InetSocketAddress address, int connectTimeout,
+			SocketFactory socketFactory, HostnameVerifier hostnameVerifier) throws IOException {
+		Socket socket = socketFactory.createSocket();
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setKeepAlive(true);
+			socket.connect(address, connectTimeout);
+			if (socket instanceof SSLSocket) {
+				handshake((SSLSocket) socket, route, connectTimeout, hostnameVerifier);
+			}
+			return new PooledConnection(route, socket);
+		} catch (IOException e) {
+			quietlyClose(socket);
+			throw e;
+		}
+	}
+
+	private static PooledConnection openProxied(HttpRoute route, int connectTimeout, SocketFactory socketFactory,
+			HostnameVerifier hostnameVerifier) throws IOException {
+		Proxy proxy = route.getProxy();
+		Socket socket = null;
+		if (proxy.type() == Proxy.Type.SOCKS) {
+			socket = new Socket(proxy);
+		} else {
+			socket = new Socket();
+		}
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setKeepAlive(true);
+			if (proxy.type() == Proxy.Type.SOCKS) {
+				// host is resolved by the proxy
+				socket.connect(InetSocketAddress.createUnresolved(route.getHost(), route.getPort()), connectTimeout);
+			} else {
+				socket.connect(resolve((InetSocketAddress) proxy.address()), connectTimeout);
+				if (route.isSecure()) {
+					tunnel(socket, route, connectTimeout);
+				}
+			}
+			if (!route.isSecure()) {
+				return new PooledConnection(route, socket);
+			}
+			SSLSocket sslSocket = layer(socket, route, socketFactory);
+			handshake(sslSocket, route, connectTimeout, hostnameVerifier);
+			return new PooledConnection(route, sslSocket);
+		} catch (IOException e) {
+			quietlyClose(socket);
+			throw e;
+		}
+	}
+
+	private static InetSocketAddress resolve(InetSocketAddress address) {
+		if (!address.isUnresolved()) {
+			return address;
+		}
+		return new InetSocketAddress(address.getHostName(), address.getPort());
+	}
+
+	/**
+	 * Asks the http proxy that the given socket is connected to for a tunnel
+	 * to the given route.
+	 */
+	private static void tunnel(Socket socket, HttpRoute route, int timeout) throws IOException {
+		socket.setSoTimeout(timeout);
+		String authority = route.getHost() + ":" + route.getPort();
+		OutputStream out = socket.getOutputStream();
+		out.write(("CONNECT " + authority + " HTTP/1.1\r\n"
+				+ "Host: " + authority + "\r\n\r\n").getBytes("ISO-8859-1"));
+		out.flush();
+		// read unbuffered, the tls handshake follows. Tunnel responses have no body
+		HttpResponse response = HttpResponse.read(socket.getInputStream(), HttpMethod.HEAD);
+		if (response.getStatusCode() < 200
+				|| response.getStatusCode() >= 300) {
+			throw new IOException(MessageFormat.format("Proxy {0} refused to tunnel to {1}: {2} {3}",
+					route.getProxy().address(), authority, response.getStatusCode(), response.getReasonPhrase()));
+		}
+	}
+
+	private static SSLSocket layer(Socket socket, HttpRoute route, SocketFactory socketFactory) throws IOException {
+		if (!(socketFactory instanceof SSLSocketFactory)) {
+			throw new SSLException(MessageFormat.format("No tls socket factory for {0}", route));
+		}
+		return (SSLSocket) ((SSLSocketFactory) socketFactory).createSocket(
+				socket, route.getHost(), route.getPort(), true);
+	}
+
+	private static void handshake(SSLSocket socket, HttpRoute route, int timeout, HostnameVerifier hostnameVerifier)
+			throws IOException {
+		socket.setSoTimeout(timeout);
+		socket.startHandshake();
+		if (hostnameVerifier != null
+				&& !hostnameVerifier.verify(route.getHost(), socket.getSession())) {
+			throw new SSLPeerUnverifiedException(
+					MessageFormat.format("Host name {0} could not be verified", route.getHost()));
+		}
+	}
+
+	public HttpRoute getRoute() {
+		return route;
+	}
+
+	public InputStream getInputStream() {
+		return in;
+	}
+
+	public OutputStream getOutputStream() {
+		return out;
+	}
+
+	public void setReadTimeout(int timeout) throws SocketException {
+		socket.setSoTimeout(timeout);
+	}
+
+	/**
+	 * Returns <code>true</code> if this connection was already used for a
+	 * previous request.
+	 *
+	 * @return true if this connection is reused
+	 */
+	public boolean isReused() {
+		return requestCount > 1;
+	}
+
+	void markUsed() {
+		this.requestCount++;
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	void markIdle() {
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	public boolean isOpen() {
+		return !socket.isClosed()
+				&& socket.isConnected()
+				&& !socket.isInputShutdown()
+				&& !socket.isOutputShutdown();
+	}
+
+	/**
+	 * Returns <code>true</code> if this connection was idle for longer than
+	 * the given timeout.
+	 *
+	 * @param idleTimeout
+	 *            the maximum idle time in milliseconds
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return true if this connection is expired
+	 */
+	boolean isExpired(long idleTimeout, long now) {
+		return idleTimeout > 0
+				&& now - lastUsed > idleTimeout;
+	}
+
+	public void close() {
+		quietlyClose(socket);
+	}
+
+	private static void quietlyClose(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PooledConnection ["
+				+ "route=" + route + ", "
+				+ "requests=" + requestCount
+				+ "]";
+	}
+}
@@ -0,0 +1,497 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpResponseHandler;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.ParameterValueMap;
+import com.openshift.internal.client.utils.StreamUtils;
+import com.openshift.internal.client.utils.StringUtils;
+
+/**
+ * A http client that talks HTTP/1.1 over persistent connections that it keeps
+ * in a {@link HttpConnectionPool}. Subsequent requests to the same route reuse
+ * warm sockets (and tls sessions) instead of connecting and handshaking for
+ * each request as {@link UrlConnectionHttpClient} does.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see UrlConnectionHttpClientBuilder#setConnectionPooling(boolean)
+ */
+public class PooledHttpClient extends UrlConnectionHttpClient {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PooledHttpClient.class);
+
+	private static final String CRLF = "\r\n";
+	private static final String HTTP_1_1 = "HTTP/1.1";
+	private static final String HEADER_HOST = "Host";
+	private static final String HEADER_METHOD_OVERRIDE = "X-Http-Method-Override";
+	private static final int MAX_REDIRECTS = 5;
+	private static final int STATUS_MOVED_PERMANENTLY = 301;
+	private static final int STATUS_FOUND = 302;
+	private static final int STATUS_SEE_OTHER = 303;
+
+	private final HttpConnectionPool pool;
+	private volatile DnsCache dnsCache;
+
+	public PooledHttpClient(String username, String password, String userAgent, boolean sslChecks,
+			String acceptedMediaType, String version, String authKey, String authIV, HttpConnectionPool pool) {
+		super(username, password, userAgent, sslChecks, acceptedMediaType, version, authKey, authIV);
+		this.pool = pool;
+	}
+
+	@Override
+	protected <T> T request(RequestTemplate template, HttpMethod httpMethod, URL url, IMediaType requestMediaType,
+			int timeout, ParameterValueMap parameters, Map<String, String> headers, IHttpResponseHandler<T> handler)
+			throws SocketTimeoutException, HttpClientException {
+		byte[] body = createBody(parameters, requestMediaType);
+		for (int redirects = 0;; redirects++) {
+			PooledConnection connection = null;
+			Closeable abort = null;
+			boolean released = false;
+			try {
+				connection = lease(template, url);
+				abort = register(connection);
+				HttpResponse response = null;
+				try {
+					response = write(connection, template, httpMethod, url, requestMediaType, headers, body, timeout);
+				} catch (SocketTimeoutException e) {
+					throw e;
+				} catch (IOException e) {
+					if (!connection.isReused()
+							|| !isIdempotent(httpMethod)) {
+						// the server may have processed the request already
+						throw e;
+					}
+					// server closed the idle connection, retry once on a fresh one
+					LOGGER.debug("Reused connection {} is stale, retrying on a new connection", connection);
+					unregister(abort);
+					discard(connection);
+					connection = null;
+					connection = lease(template, url);
+					abort = register(connection);
+					response = write(connection, template, httpMethod, url, requestMediaType, headers, body, timeout);
+				}
+				if (response.isRedirect()
+						&& redirects < MAX_REDIRECTS) {
+					URL location = getRedirectLocation(url, response);
+					if (location != null) {
+						released = release(connection, response);
+						if (isRedirectToGet(httpMethod, response.getStatusCode())) {
+							// follow as GET without body, as HttpURLConnection does
+							httpMethod = HttpMethod.GET;
+							body = null;
+						}
+						url = location;
+						continue;
+					}
+				}
+				if (response.isError()) {
+					String content = StreamUtils.readToString(decode(response));
+					released = release(connection, response);
+					throw createException(response.getStatusCode(), createErrorMessage(content, url, response), null);
+				}
+				T result = handle(response.getStatusCode(), response.getHeaders(), decode(response), handler);
+				released = release(connection, response);
+				return result;
+			} catch (SocketTimeoutException e) {
+				throw e;
+			} catch (IOException e) {
+				throw new HttpClientException(
+						MessageFormat.format("Could not request {0}: {1}", url, e.getMessage()), e);
+			} finally {
+				unregister(abort);
+				if (!released) {
+					discard(connection);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the redirect with the given status is to be
+	 * followed with a GET (without body). This is the case for 303 (See Other)
+	 * and for 301/302 in reply to a POST (or PATCH that's sent as POST). 307
+	 * and 308 keep the method and body.
+	 */
+	private boolean isRedirectToGet(HttpMethod httpMethod, int statusCode) {
+		if (httpMethod == HttpMethod.GET
+				|| httpMethod == HttpMethod.HEAD) {
+			return false;
+		}
+		return statusCode == STATUS_SEE_OTHER
+				|| ((statusCode == STATUS_MOVED_PERMANENTLY || statusCode == STATUS_FOUND)
+						&& (httpMethod == HttpMethod.POST || httpMethod == HttpMethod.PATCH));
+	}
+
+	/**
+	 * Returns <code>true</code> if requests with the given method may be sent
+	 * twice without side effects.
+	 */
+	private boolean isIdempotent(HttpMethod httpMethod) {
+		return httpMethod == HttpMethod.GET
+				|| httpMethod == HttpMethod.HEAD;
+	}
+
+	/**
+	 * Registers the given connection with the request context of the calling
+	 * thread (if any) so that it's closed if the context is cancelled.
+	 */
+	private Closeable register(final PooledConnection connection) {
+		return register(new Closeable() {
+
+			@Override
+			public void close() throws IOException {
+				connection.close();
+			}
+		});
+	}
+
+	protected InputStream decode(HttpResponse response) throws IOException {
+		return contentEncoding.decode(response.getBody(), response.getHeader(PROPERTY_CONTENT_ENCODING));
+	}
+
+	private PooledConnection lease(RequestTemplate template, URL url) throws IOException {
+		return lease(new HttpRoute(url, getProxy(template, url)));
+	}
+
+	/**
+	 * Returns the proxy that requests of the given template to the given url
+	 * go through: the one of the template (session) or this client if there's
+	 * any, the one that the vm selects (system properties, proxy selector)
+	 * otherwise. Returns <code>null</code> if requests to the given url
+	 * connect directly. Connections are pooled per proxy.
+	 */
+	protected Proxy getProxy(RequestTemplate template, URL url) {
+		Proxy proxy = getProxy(template);
+		if (proxy == null) {
+			proxy = selectProxy(url);
+		}
+		if (proxy == null
+				|| proxy.type() == Proxy.Type.DIRECT) {
+			return null;
+		}
+		return proxy;
+	}
+
+	private Proxy selectProxy(URL url) {
+		ProxySelector selector = ProxySelector.getDefault();
+		if (selector == null) {
+			return null;
+		}
+		try {
+			List<Proxy> proxies = selector.select(url.toURI());
+			if (proxies == null
+					|| proxies.isEmpty()) {
+				return null;
+			}
+			return proxies.get(0);
+		} catch (URISyntaxException e) {
+			return null;
+		}
+	}
+
+	private PooledConnection lease(HttpRoute route) throws IOException {
+		return pool.lease(route, getConnectTimeout(NO_TIMEOUT), getSocketFactory(route), getHostnameVerifier(route),
+				dnsCache);
+	}
+
+	/**
+	 * Opens (and handshakes) the given number of connections to the server of
+	 * the given url in parallel and puts them to the pool so that the first
+	 * requests don't have to. The host is resolved once for all of them (if
+	 * there's a dns cache). Never opens more connections than the pool allows
+	 * per route, waits for at most twice the connect timeout.
+	 * 
+	 * @param url
+	 *            the server to connect to
+	 * @param connections
+	 *            the number of connections to open
+	 * @return the number of connections that are ready
+	 */
+	public int warmUp(URL url, int connections) {
+		if (connections <= 0) {
+			return 0;
+		}
+		final HttpRoute route = new HttpRoute(url, getProxy(getRequestTemplate(), url));
+		int count = Math.min(connections, pool.getMaxConnectionsPerRoute());
+		if (!resolve(route)) {
+			return 0;
+		}
+		final WarmUp warmUp = new WarmUp();
+		ExecutorService executor = Executors.newFixedThreadPool(count, new ThreadFactory() {
+
+			private final AtomicInteger threads = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "openshift-warmup-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			for (int i = 0; i < count; i++) {
+				executor.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							warmUp.add(lease(route));
+						} catch (IOException e) {
+							LOGGER.debug("Could not open connection to {}: {}", route, e.getMessage());
+						} catch (HttpClientException e) {
+							LOGGER.debug("Could not open connection to {}: {}", route, e.getMessage());
+						}
+					}
+				});
+			}
+			executor.shutdown();
+			executor.awaitTermination(2 * getConnectTimeout(NO_TIMEOUT), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		int ready = warmUp.finish();
+		LOGGER.debug("Warmed up {} connections to {}", ready, route);
+		return ready;
+	}
+
+	private boolean resolve(HttpRoute route) {
+		DnsCache dnsCache = this.dnsCache;
+		if (dnsCache == null
+				|| route.getProxy() != null) {
+			return true;
+		}
+		try {
+			dnsCache.resolve(route.getHost());
+			return true;
+		} catch (UnknownHostException e) {
+			LOGGER.warn("Could not resolve {}", route.getHost());
+			return false;
+		}
+	}
+
+	private HttpResponse write(PooledConnection connection, RequestTemplate template, HttpMethod httpMethod,
+			URL url, IMediaType requestMediaType, Map<String, String> headers, byte[] body, int timeout)
+			throws IOException {
+		connection.setReadTimeout(getReadTimeout(timeout));
+		OutputStream out = connection.getOutputStream();
+		out.write(createRequestHead(template, httpMethod, url, requestMediaType, headers, body)
+				.getBytes("ISO-8859-1"));
+		if (body != null) {
+			out.write(body);
+		}
+		out.flush();
+		return HttpResponse.read(connection.getInputStream(), httpMethod);
+	}
+
+	protected byte[] createBody(ParameterValueMap parameters, IMediaType requestMediaType) {
+		if (parameters.isEmpty()) {
+			return null;
+		}
+		getRequestMediaType(requestMediaType);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		requestMediaType.writeTo(parameters, out);
+		return out.toByteArray();
+	}
+
+	protected String createRequestHead(RequestTemplate template, HttpMethod httpMethod, URL url,
+			IMediaType requestMediaType, Map<String, String> requestHeaders, byte[] body) {
+		Map<String, String> headers = createHeaders(template, url);
+		headers.putAll(requestHeaders);
+		// PATCH not yet supported by all servers
+		if (httpMethod == HttpMethod.PATCH) {
+			httpMethod = HttpMethod.POST;
+			headers.put(HEADER_METHOD_OVERRIDE, HttpMethod.PATCH.name());
+		}
+		if (body != null) {
+			headers.put(PROPERTY_CONTENT_TYPE, getRequestMediaType(requestMediaType));
+			headers.put(HttpResponse.HEADER_CONTENT_LENGTH, String.valueOf(body.length));
+		} else if (httpMethod == HttpMethod.POST
+				|| httpMethod == HttpMethod.PUT) {
+			headers.put(HttpResponse.HEADER_CONTENT_LENGTH, "0");
+		}
+
+		StringBuilder builder = new StringBuilder()
+				.append(httpMethod.name()).append(SPACE)
+				.append(getRequestUri(template, url)).append(SPACE)
+				.append(HTTP_1_1).append(CRLF);
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			builder.append(header.getKey()).append(COLON).append(SPACE).append(header.getValue()).append(CRLF);
+		}
+		return builder.append(CRLF).toString();
+	}
+
+	protected Map<String, String> createHeaders(RequestTemplate template, URL url) {
+		Map<String, String> headers = new LinkedHashMap<String, String>();
+		headers.put(HEADER_HOST, getHost(url));
+		headers.putAll(template.getHeaders());
+		headers.put(HttpResponse.HEADER_CONNECTION, HttpResponse.KEEP_ALIVE);
+		return headers;
+	}
+
+	private String getHost(URL url) {
+		if (url.getPort() == -1) {
+			return url.getHost();
+		}
+		return url.getHost() + COLON + url.getPort();
+	}
+
+	private String getRequestUri(RequestTemplate template, URL url) {
+		if (new HttpRoute(url, getProxy(template, url)).isForwarded()) {
+			return url.toExternalForm();
+		}
+		String file = url.getFile();
+		if (StringUtils.isEmpty(file)) {
+			return String.valueOf(SLASH);
+		}
+		return file;
+	}
+
+	protected URL getRedirectLocation(URL url, HttpResponse response) {
+		try {
+			URL location = new URL(url, response.getHeader(HttpResponse.HEADER_LOCATION));
+			if (!location.getProtocol().equals(url.getProtocol())) {
+				// same as HttpURLConnection: dont follow http <-> https
+				return null;
+			}
+			return location;
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+
+	protected String createErrorMessage(String content, URL url, HttpResponse response) {
+		if (!StringUtils.isEmpty(content)) {
+			return content;
+		}
+		StringBuilder builder = new StringBuilder("Connection to ").append(url);
+		if (!StringUtils.isEmpty(response.getReasonPhrase())) {
+			builder.append(": ").append(response.getReasonPhrase());
+		}
+		return builder.toString();
+	}
+
+	private boolean release(PooledConnection connection, HttpResponse response) throws IOException {
+		// consume what's left (ex. redirect bodies) so that the connection may be reused
+		drain(response.getBody());
+		pool.release(connection, response.isKeepAlive());
+		return true;
+	}
+
+	private void drain(InputStream in) throws IOException {
+		byte[] buffer = new byte[1024];
+		while (in.read(buffer) != -1) {
+			// discard
+		}
+	}
+
+	private void discard(PooledConnection connection) {
+		if (connection != null) {
+			pool.release(connection, false);
+		}
+	}
+
+	protected SocketFactory getSocketFactory(HttpRoute route) {
+		if (!route.isSecure()) {
+			return SocketFactory.getDefault();
+		}
+		return getSSLSocketFactory();
+	}
+
+	protected HostnameVerifier getHostnameVerifier(HttpRoute route) {
+		if (!route.isSecure()
+				|| !sslChecks) {
+			return null;
+		}
+		return HttpsURLConnection.getDefaultHostnameVerifier();
+	}
+
+	/**
+	 * Sets the cache that the hosts of new connections are resolved with.
+	 * Hosts are resolved by the vm (and its dns cache) if <code>null</code>.
+	 */
+	public void setDnsCache(DnsCache dnsCache) {
+		this.dnsCache = dnsCache;
+	}
+
+	public DnsCache getDnsCache() {
+		return dnsCache;
+	}
+
+	public HttpConnectionPool getConnectionPool() {
+		return pool;
+	}
+
+	public ConnectionPoolStatistics getStatistics() {
+		return pool.getStatistics();
+	}
+
+	/**
+	 * Collects the connections that a warm up opened and puts them to the
+	 * pool once it's done. Connections that are opened later are put to the
+	 * pool right away.
+	 */
+	private class WarmUp {
+
+		private final List<PooledConnection> connections = new ArrayList<PooledConnection>();
+		private boolean finished;
+
+		private synchronized void add(PooledConnection connection) {
+			if (finished) {
+				pool.release(connection, true);
+			} else {
+				connections.add(connection);
+			}
+		}
+
+		private synchronized int finish() {
+			this.finished = true;
+			for (PooledConnection connection : connections) {
+				pool.release(connection, true);
+			}
+			return connections.size();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A stream for request bodies that buffers up to a given size. Bodies that
+ * fit are sent with their (fixed) length once the stream is closed, larger
+ * ones are streamed (chunked) as soon as they exceed the size. The connection
+ * is opened (see {@link #open(long)}) once it's known which of both applies.
+ * 
+ * @author Andre Dietisheim
+ */
+abstract class RequestBodyOutputStream extends OutputStream {
+
+	private static final int INITIAL_SIZE = 1024;
+
+	private final int maxBufferSize;
+	private byte[] buffer;
+	private int count;
+	private OutputStream out;
+	private boolean closed;
+
+	/**
+	 * @param maxBufferSize
+	 *            the size up to which bodies are buffered and sent with a fixed
+	 *            length
+	 */
+	RequestBodyOutputStream(int maxBufferSize) {
+		this.maxBufferSize = maxBufferSize;
+		this.buffer = new byte[Math.min(INITIAL_SIZE, maxBufferSize)];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		if (out == null
+				&& count + length > maxBufferSize) {
+			// too large to buffer, stream it
+			this.out = open(-1);
+			out.write(buffer, 0, count);
+			this.buffer = null;
+		}
+		if (out != null) {
+			out.write(bytes, offset, length);
+			return;
+		}
+		if (count + length > buffer.length) {
+			this.buffer = Arrays.copyOf(buffer, Math.min(maxBufferSize, Math.max(count + length, buffer.length * 2)));
+		}
+		System.arraycopy(bytes, offset, buffer, count, length);
+		this.count += length;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		// the buffer is sent once it's complete
+		if (out != null) {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Sends the buffered body with its length if it was not streamed
+	 * already, and closes the stream of the connection.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		this.closed = true;
+		if (out == null) {
+			this.out = open(count);
+			out.write(buffer, 0, count);
+			this.buffer = null;
+		}
+		out.close();
+	}
+
+	/**
+	 * Opens the stream of the connection that the body is sent to.
+	 * 
+	 * @param length
+	 *            the length of the body, -1 if it's not known and the body
+	 *            has to be streamed
+	 * @return the stream to write the body to
+	 */
+	protected abstract OutputStream open(long length) throws IOException;
+}
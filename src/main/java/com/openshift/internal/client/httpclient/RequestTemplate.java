@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.Proxy;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The headers that all requests of a client share (user agent, accept,
+ * authorization etc.) and the proxy they go through (if it's not the one of
+ * the client). They're computed once per client and copied into each request.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see UrlConnectionHttpClient#getRequestTemplate()
+ */
+public class RequestTemplate {
+
+	private final Map<String, String> headers;
+	private final Proxy proxy;
+
+	RequestTemplate(Map<String, String> headers) {
+		this(headers, null);
+	}
+
+	private RequestTemplate(Map<String, String> headers, Proxy proxy) {
+		this.headers = Collections.unmodifiableMap(new LinkedHashMap<String, String>(headers));
+		this.proxy = proxy;
+	}
+
+	/**
+	 * Returns a template with the headers of this one whose requests go
+	 * through the given proxy instead of the one of the client.
+	 * 
+	 * @param proxy
+	 *            the proxy to connect through, <code>null</code> to use the
+	 *            one of the client
+	 */
+	RequestTemplate withProxy(Proxy proxy) {
+		if (proxy == this.proxy) {
+			return this;
+		}
+		return new RequestTemplate(headers, proxy);
+	}
+
+	/**
+	 * Returns the proxy that requests of this template go through,
+	 * <code>null</code> if they use the one of the client.
+	 */
+	public Proxy getProxy() {
+		return proxy;
+	}
+
+	/**
+	 * Returns the headers (in the order they are sent).
+	 */
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	public String getHeader(String name) {
+		return headers.get(name);
+	}
+
+	/**
+	 * Sets the headers of this template to the given connection.
+	 */
+	void applyTo(URLConnection connection) {
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			connection.setRequestProperty(header.getKey(), header.getValue());
+		}
+	}
+}
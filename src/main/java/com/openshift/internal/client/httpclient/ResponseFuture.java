@@ -0,0 +1,152 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.IRequestCallback;
+
+/**
+ * The future result of an asynchronous request. Notifies an (optional)
+ * callback once it completes.
+ * 
+ * @author Andre Dietisheim
+ */
+public class ResponseFuture<T> implements Future<T> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResponseFuture.class);
+
+	private final IRequestCallback<T> callback;
+	private final CountDownLatch done = new CountDownLatch(1);
+	private final AtomicBoolean completed = new AtomicBoolean();
+	private volatile T result;
+	private volatile Throwable failure;
+	private volatile boolean cancelled;
+	private volatile Future<?> source;
+
+	public ResponseFuture(IRequestCallback<T> callback) {
+		this.callback = callback;
+	}
+
+	/**
+	 * Sets the future that this one depends on. It gets cancelled if this
+	 * future is cancelled.
+	 */
+	public void setSource(Future<?> source) {
+		this.source = source;
+		if (cancelled) {
+			source.cancel(true);
+		}
+	}
+
+	/**
+	 * Completes this future with the given result. Returns
+	 * <code>false</code> if it was completed already.
+	 */
+	public boolean completed(T result) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		this.result = result;
+		done.countDown();
+		if (callback != null) {
+			try {
+				callback.completed(result);
+			} catch (RuntimeException e) {
+				LOGGER.error("Callback failed to process result", e);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Completes this future with the given error. Returns <code>false</code>
+	 * if it was completed already.
+	 */
+	public boolean failed(Throwable e) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		this.failure = e;
+		done.countDown();
+		notifyFailed(e);
+		return true;
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		this.cancelled = true;
+		done.countDown();
+		Future<?> source = this.source;
+		if (source != null) {
+			source.cancel(mayInterruptIfRunning);
+		}
+		notifyFailed(new CancellationException());
+		return true;
+	}
+
+	private void notifyFailed(Throwable e) {
+		if (callback == null) {
+			return;
+		}
+		try {
+			callback.failed(e);
+		} catch (RuntimeException re) {
+			LOGGER.error("Callback failed to process error", re);
+		}
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		done.await();
+		return getResult();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return getResult();
+	}
+
+	private T getResult() throws ExecutionException {
+		if (cancelled) {
+			throw new CancellationException();
+		}
+		if (failure != null) {
+			throw new ExecutionException(failure);
+		}
+		return result;
+	}
+}
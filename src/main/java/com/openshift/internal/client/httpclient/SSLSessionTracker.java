@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Counts the tls handshakes of a client and tells resumed sessions from new
+ * ones by their session id. Sessions that are resumed without keeping their
+ * id (as in TLS 1.3) are counted as new ones.
+ *
+ * @author Andre Dietisheim
+ */
+class SSLSessionTracker implements HandshakeCompletedListener {
+
+	private static final int MAX_SESSION_IDS = 1024;
+
+	private final AtomicLong handshakes = new AtomicLong();
+	private final AtomicLong resumedSessions = new AtomicLong();
+	private final Set<String> sessionIds = Collections.synchronizedSet(
+			Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+					return size() > MAX_SESSION_IDS;
+				}
+			}));
+
+	@Override
+	public void handshakeCompleted(HandshakeCompletedEvent event) {
+		handshakeCompleted(event.getSession());
+	}
+
+	/**
+	 * Records a completed handshake that established the given session.
+	 *
+	 * @param session
+	 *            the session that the handshake established
+	 */
+	void handshakeCompleted(SSLSession session) {
+		handshakes.incrementAndGet();
+		String id = toHex(session.getId());
+		if (id.length() > 0
+				&& !sessionIds.add(id)) {
+			resumedSessions.incrementAndGet();
+		}
+	}
+
+	private String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return builder.toString();
+	}
+
+	SSLStatistics getStatistics() {
+		return new SSLStatistics(handshakes.get(), resumedSessions.get());
+	}
+}
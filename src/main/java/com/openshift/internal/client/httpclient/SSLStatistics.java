@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+/**
+ * A snapshot of the tls handshakes that a http client did and of how many of
+ * them resumed a cached session (abbreviated handshake) instead of
+ * negotiating a new one (full handshake).
+ *
+ * @author Andre Dietisheim
+ * 
+ * @see UrlConnectionHttpClientBuilder#setSSLSessionCacheSize(int)
+ */
+public class SSLStatistics {
+
+	private final long handshakes;
+	private final long resumedSessions;
+
+	SSLStatistics(long handshakes, long resumedSessions) {
+		this.handshakes = handshakes;
+		this.resumedSessions = resumedSessions;
+	}
+
+	/**
+	 * Returns the number of handshakes that were completed.
+	 */
+	public long getHandshakes() {
+		return handshakes;
+	}
+
+	/**
+	 * Returns the number of handshakes that resumed a session that was
+	 * negotiated before.
+	 */
+	public long getResumedSessions() {
+		return resumedSessions;
+	}
+
+	/**
+	 * Returns the number of handshakes that negotiated a new session.
+	 */
+	public long getFullHandshakes() {
+		return handshakes - resumedSessions;
+	}
+
+	@Override
+	public String toString() {
+		return "SSLStatistics ["
+				+ "handshakes=" + handshakes + ", "
+				+ "resumedSessions=" + resumedSessions
+				+ "]";
+	}
+}
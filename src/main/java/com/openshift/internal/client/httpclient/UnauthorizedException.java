@@ -10,6 +10,8 @@
  ******************************************************************************/ 
 package com.openshift.internal.client.httpclient;
 
+import com.openshift.client.IHttpClient;
+
 /**
  * @author André Dietisheim
  */
@@ -18,11 +20,11 @@ public class UnauthorizedException extends HttpClientException {
 	private static final long serialVersionUID = 1L;
 
 	public UnauthorizedException(String message, Throwable cause) {
-		super(message, cause);
+		super(IHttpClient.STATUS_UNAUTHORIZED, message, cause);
 	}
 
 	public UnauthorizedException(Throwable cause) {
-		super(cause);
+		super(IHttpClient.STATUS_UNAUTHORIZED, cause);
 	}
 
 }
@@ -10,33 +10,54 @@
  ******************************************************************************/
 package com.openshift.internal.client.httpclient;
 
+import java.io.Closeable;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpRetryException;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.Proxy;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.security.GeneralSecurityException;
 import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
+import org.jboss.dmr.ModelNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.openshift.client.HttpMethod;
-import com.openshift.client.IHttpClient;
+import com.openshift.client.IHttpResponseHandler;
+import com.openshift.client.IStreamingHttpClient;
+import com.openshift.client.RequestContext;
 import com.openshift.client.utils.Base64Coder;
+import com.openshift.internal.client.httpclient.request.FormUrlEncodedMediaType;
 import com.openshift.internal.client.httpclient.request.IMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.ParameterValueMap;
@@ -47,10 +68,52 @@ import com.openshift.internal.client.utils.StringUtils;
  * @author Andre Dietisheim
  * @author Nicolas Spano
  */
-public class UrlConnectionHttpClient implements IHttpClient {
+public class UrlConnectionHttpClient implements IStreamingHttpClient {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(UrlConnectionHttpClient.class);
 
+	/** the number of tls sessions that are cached for resumption */
+	public static final int DEFAULT_SSL_SESSION_CACHE_SIZE = 100;
+	/** the time in seconds that cached tls sessions may be resumed */
+	public static final int DEFAULT_SSL_SESSION_TIMEOUT = 60 * 60;
+
+	private static final String PROPERTY_KEY_STORE = "javax.net.ssl.keyStore";
+	private static final String PROPERTY_KEY_STORE_TYPE = "javax.net.ssl.keyStoreType";
+	private static final String PROPERTY_KEY_STORE_PROVIDER = "javax.net.ssl.keyStoreProvider";
+	private static final String PROPERTY_KEY_STORE_PASSWORD = "javax.net.ssl.keyStorePassword";
+	/** a key store that's not backed by a file (ex. PKCS11) */
+	private static final String KEY_STORE_NONE = "NONE";
+	/** the size in bytes up to which request bodies are buffered by the connection */
+	protected static final int MAX_BUFFERED_BODY = 64 * 1024;
+	/** the size in bytes of the chunks that larger request bodies are streamed in */
+	protected static final int CHUNK_SIZE = 8 * 1024;
+
+	/** the path of the resource that the broker issues authorization tokens at */
+	protected static final String AUTHORIZATIONS_PATH = "/broker/rest/user/authorizations";
+	/** the scope of the authorization tokens, grants all api actions */
+	protected static final String AUTHORIZATION_SCOPE = "session";
+	/** the lifetime in milliseconds of a token if the broker does not tell (session tokens are valid for a day) */
+	protected static final long DEFAULT_AUTHORIZATION_LIFETIME = 24 * 60 * 60 * 1000;
+
+	private static final String PARAMETER_SCOPE = "scope";
+	private static final String PARAMETER_NOTE = "note";
+	private static final String PROPERTY_DATA = "data";
+	private static final String PROPERTY_ID = "id";
+	private static final String PROPERTY_TOKEN = "token";
+	private static final String PROPERTY_EXPIRES_IN = "expires_in";
+
+	private static final HostnameVerifier NOOP_HOSTNAME_VERIFIER = new NoopHostnameVerifier();
+
+	/** reads the response body to a string */
+	protected static final IHttpResponseHandler<String> STRING_RESPONSE = new IHttpResponseHandler<String>() {
+
+		@Override
+		public String handle(int statusCode, Map<String, String> headers, InputStream response)
+				throws IOException {
+			return StreamUtils.readToString(response);
+		}
+	};
+
 	protected String userAgent;
 	protected boolean sslChecks;
 	protected String username;
@@ -59,6 +122,18 @@ public class UrlConnectionHttpClient implements IHttpClient {
 	protected String authIV;
 	protected String acceptedMediaType;
 	protected String acceptedVersion;
+	protected boolean compression = true;
+	protected final ContentEncoding contentEncoding = new ContentEncoding();
+	protected String[] sslProtocols;
+	protected String[] sslCipherSuites;
+	protected int sslSessionCacheSize = DEFAULT_SSL_SESSION_CACHE_SIZE;
+	protected int sslSessionTimeout = DEFAULT_SSL_SESSION_TIMEOUT;
+	protected final SSLSessionTracker sslSessionTracker = new SSLSessionTracker();
+	private ConfiguredSSLSocketFactory sslSocketFactory;
+	private volatile RequestTemplate requestTemplate;
+	private volatile AuthorizationTokenCache authorizationTokens;
+	private volatile Proxy proxy;
+	private String credentialsDigest;
 
 	public UrlConnectionHttpClient(String username, String password, String userAgent, boolean sslChecks,
 			String acceptedMediaType, String version) {
@@ -117,6 +192,14 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		return delete(url, null, timeout);
 	}
 
+	@Override
+	public <T> T request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
+			Map<String, String> headers, IHttpResponseHandler<T> handler, Parameter... parameters)
+			throws SocketTimeoutException, HttpClientException, EncodingException {
+		return requestAuthorized(
+				httpMethod, url, requestMediaType, timeout, new ParameterValueMap(parameters), headers, handler);
+	}
+
 	protected String request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
 			Parameter... parameters)
 			throws SocketTimeoutException, HttpClientException {
@@ -126,10 +209,194 @@ public class UrlConnectionHttpClient implements IHttpClient {
 	protected String request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
 			ParameterValueMap parameters)
 			throws SocketTimeoutException, HttpClientException {
+		return requestAuthorized(httpMethod, url, requestMediaType, timeout, parameters,
+				Collections.<String, String> emptyMap(), STRING_RESPONSE);
+	}
+
+	/**
+	 * Executes the given request with the authorization token of the user if
+	 * this client uses tokens. Requests a new token and repeats the request
+	 * once if the broker rejects the token.
+	 */
+	private <T> T requestAuthorized(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
+			ParameterValueMap parameters, Map<String, String> headers, IHttpResponseHandler<T> handler)
+			throws SocketTimeoutException, HttpClientException {
+		AuthorizationToken token = getAuthorizationToken(url);
+		if (token == null) {
+			return request(httpMethod, url, requestMediaType, timeout, parameters, headers, handler);
+		}
+		try {
+			return request(httpMethod, url, requestMediaType, timeout, parameters, authorize(token, headers), handler);
+		} catch (UnauthorizedException e) {
+			// revoked or expired earlier than announced
+			LOGGER.debug("Authorization token for {} was rejected, requesting a new one", url);
+			authorizationTokens.invalidate(getAuthorizationTokenKey(url), token);
+			token = getAuthorizationToken(url);
+			return request(httpMethod, url, requestMediaType, timeout, parameters, authorize(token, headers), handler);
+		}
+	}
+
+	/**
+	 * Returns the given request headers with the authorization header for the
+	 * given token added.
+	 */
+	protected Map<String, String> authorize(AuthorizationToken token, Map<String, String> headers) {
+		if (token == null) {
+			return headers;
+		}
+		Map<String, String> authorized = new LinkedHashMap<String, String>(headers);
+		// replaces basic authorization of the request template
+		authorized.put(PROPERTY_AUTHORIZATION, token.getAuthorization());
+		return authorized;
+	}
+
+	/**
+	 * Returns the authorization token of the user for the server of the given
+	 * url, requests one if there's none yet. Returns <code>null</code> if this
+	 * client does not use tokens or has no credentials.
+	 */
+	protected AuthorizationToken getAuthorizationToken(final URL url)
+			throws SocketTimeoutException, HttpClientException {
+		AuthorizationTokenCache authorizationTokens = this.authorizationTokens;
+		if (authorizationTokens == null
+				|| createBasicAuthorization(username, password) == null) {
+			return null;
+		}
+		return authorizationTokens.get(getAuthorizationTokenKey(url), new IAuthorizationTokenIssuer() {
+
+			@Override
+			public AuthorizationToken issue() throws SocketTimeoutException, HttpClientException {
+				return requestAuthorizationToken(url);
+			}
+
+			@Override
+			public void revoke(AuthorizationToken token) throws SocketTimeoutException, HttpClientException {
+				revokeAuthorizationToken(url, token);
+			}
+		});
+	}
+
+	/**
+	 * Requests a new authorization token from the broker of the given url.
+	 * The request is authorized with the credentials of the user.
+	 */
+	protected AuthorizationToken requestAuthorizationToken(URL url)
+			throws SocketTimeoutException, HttpClientException {
+		URL authorizationsUrl = createAuthorizationsUrl(url);
+		LOGGER.debug("Requesting authorization token for user \"{}\" at {}", username, authorizationsUrl);
+		ParameterValueMap parameters = new ParameterValueMap()
+				.add(PARAMETER_SCOPE, AUTHORIZATION_SCOPE);
+		if (!StringUtils.isEmpty(userAgent)) {
+			parameters.add(PARAMETER_NOTE, userAgent);
+		}
+		long issued = System.currentTimeMillis();
+		String response = request(HttpMethod.POST, authorizationsUrl, new FormUrlEncodedMediaType(), NO_TIMEOUT,
+				parameters, Collections.<String, String> emptyMap(), STRING_RESPONSE);
+		return createAuthorizationToken(response, issued, authorizationsUrl);
+	}
+
+	/**
+	 * Deletes the authorization of the given token at the broker of the given
+	 * url. Does nothing if the id of the authorization is unknown.
+	 */
+	protected void revokeAuthorizationToken(URL url, AuthorizationToken token)
+			throws SocketTimeoutException, HttpClientException {
+		if (StringUtils.isEmpty(token.getId())) {
+			return;
+		}
+		URL authorizationUrl = createAuthorizationsUrl(url, SLASH + token.getId());
+		LOGGER.debug("Revoking authorization token for user \"{}\" at {}", username, authorizationUrl);
+		request(HttpMethod.DELETE, authorizationUrl, null, NO_TIMEOUT,
+				new ParameterValueMap(), Collections.<String, String> emptyMap(), STRING_RESPONSE);
+	}
+
+	private URL createAuthorizationsUrl(URL url) throws HttpClientException {
+		return createAuthorizationsUrl(url, "");
+	}
+
+	private URL createAuthorizationsUrl(URL url, String path) throws HttpClientException {
+		try {
+			return new URL(url.getProtocol(), url.getHost(), url.getPort(), AUTHORIZATIONS_PATH + path);
+		} catch (MalformedURLException e) {
+			throw new HttpClientException(
+					MessageFormat.format("Could not create authorizations url for {0}", url), e);
+		}
+	}
+
+	private AuthorizationToken createAuthorizationToken(String response, long issued, URL url)
+			throws HttpClientException {
+		ModelNode data = null;
+		try {
+			data = ModelNode.fromJSONString(response).get(PROPERTY_DATA);
+		} catch (IllegalArgumentException e) {
+			throw new HttpClientException(
+					MessageFormat.format("Could not parse authorization issued by {0}", url), e);
+		}
+		ModelNode token = data.get(PROPERTY_TOKEN);
+		if (!token.isDefined()) {
+			throw new HttpClientException(
+					MessageFormat.format("Authorization issued by {0} has no token", url));
+		}
+		long lifetime = DEFAULT_AUTHORIZATION_LIFETIME;
+		ModelNode expiresIn = data.get(PROPERTY_EXPIRES_IN);
+		if (expiresIn.isDefined()
+				&& expiresIn.asLong() > 0) {
+			lifetime = expiresIn.asLong() * 1000;
+		}
+		ModelNode id = data.get(PROPERTY_ID);
+		return new AuthorizationToken(
+				id.isDefined() ? id.asString() : null, token.asString(), issued, issued + lifetime);
+	}
+
+	/**
+	 * Returns the key that the token for the given url is cached at: the
+	 * server and the user plus a digest of the password so that clients with
+	 * other (wrong) credentials dont get the token.
+	 */
+	private String getAuthorizationTokenKey(URL url) {
+		return new StringBuilder(url.getProtocol()).append("://")
+				.append(url.getHost()).append(COLON).append(url.getPort()).append(SLASH)
+				.append(username).append(COLON).append(getCredentialsDigest())
+				.toString();
+	}
+
+	private synchronized String getCredentialsDigest() {
+		if (credentialsDigest == null) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				this.credentialsDigest = Base64Coder.encode(digest.digest(
+						new StringBuilder(username).append(COLON).append(password).toString().getBytes("UTF-8")));
+			} catch (GeneralSecurityException e) {
+				throw new HttpClientException("Could not create digest of the credentials", e);
+			} catch (IOException e) {
+				throw new HttpClientException("Could not create digest of the credentials", e);
+			}
+		}
+		return credentialsDigest;
+	}
+
+	protected <T> T request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
+			ParameterValueMap parameters, Map<String, String> headers, IHttpResponseHandler<T> handler)
+			throws SocketTimeoutException, HttpClientException {
+		return request(getRequestTemplate(), httpMethod, url, requestMediaType, timeout, parameters, headers, handler);
+	}
+
+	/**
+	 * Executes the given request with the headers of the given template
+	 * instead of the ones of this client. Allows sessions to send their own
+	 * credentials over the connections of this client.
+	 * 
+	 * @see HttpClientSession
+	 */
+	protected <T> T request(RequestTemplate template, HttpMethod httpMethod, URL url, IMediaType requestMediaType,
+			int timeout, ParameterValueMap parameters, Map<String, String> headers, IHttpResponseHandler<T> handler)
+			throws SocketTimeoutException, HttpClientException {
 		HttpURLConnection connection = null;
+		Closeable abort = null;
 		try {
-			connection = createConnection(
-					url, username, password, authKey, authIV, userAgent, acceptedVersion, acceptedMediaType, timeout);
+			connection = createConnection(url, template, timeout);
+			abort = register(connection);
+			setRequestHeaders(headers, connection);
 			// PATCH not yet supported by JVM
 			if (httpMethod == HttpMethod.PATCH) {
 				httpMethod = HttpMethod.POST;
@@ -139,18 +406,127 @@ public class UrlConnectionHttpClient implements IHttpClient {
 			if (!parameters.isEmpty()) {
 				connection.setDoOutput(true);
 				setRequestMediaType(requestMediaType, connection);
-				requestMediaType.writeTo(parameters, connection.getOutputStream());
+				writeBody(parameters, requestMediaType, connection);
 			}
-			return StreamUtils.readToString(connection.getInputStream());
+			InputStream response = decode(connection.getInputStream(), connection);
+			return handle(connection.getResponseCode(), getResponseHeaders(connection), response, handler);
 		} catch (SocketTimeoutException e) {
 			throw e;
 		} catch (IOException e) {
 			throw createException(e, connection);
 		} finally {
+			unregister(abort);
 			disconnect(connection);
 		}
 	}
+
+	/**
+	 * Writes the request body. Bodies up to {@link #MAX_BUFFERED_BODY} are
+	 * buffered by the connection, which then reads the error responses (ex.
+	 * 401) and follows redirects as it does for any other request. Larger
+	 * ones are streamed in chunks so that they are not held in memory as a
+	 * whole.
+	 */
+	private void writeBody(ParameterValueMap parameters, IMediaType requestMediaType,
+			final HttpURLConnection connection) throws IOException {
+		RequestBodyOutputStream out = new RequestBodyOutputStream(MAX_BUFFERED_BODY) {
+
+			@Override
+			protected OutputStream open(long length) throws IOException {
+				if (length < 0) {
+					connection.setChunkedStreamingMode(CHUNK_SIZE);
+				}
+				return connection.getOutputStream();
+			}
+		};
+		requestMediaType.writeTo(parameters, out);
+		out.close();
+	}
+
+	/**
+	 * Registers the given connection with the request context of the calling
+	 * thread (if any) so that it's disconnected if the context is cancelled.
+	 * 
+	 * @return the registration, <code>null</code> if there's no context
+	 */
+	private Closeable register(final HttpURLConnection connection) {
+		return register(new Closeable() {
+
+			@Override
+			public void close() throws IOException {
+				connection.disconnect();
+			}
+		});
+	}
+
+	/**
+	 * Registers the given request with the request context of the calling
+	 * thread so that the context may abort it.
+	 * 
+	 * @param abort
+	 *            aborts the request
+	 * @return the given closeable, <code>null</code> if there's no context
+	 * @see RequestContext#register(Closeable)
+	 */
+	protected Closeable register(Closeable abort) {
+		RequestContext context = RequestContext.current();
+		if (context == null) {
+			return null;
+		}
+		context.register(abort);
+		return abort;
+	}
+
+	protected void unregister(Closeable abort) {
+		RequestContext context = RequestContext.current();
+		if (context != null
+				&& abort != null) {
+			context.unregister(abort);
+		}
+	}
 	
+	protected <T> T handle(int statusCode, Map<String, String> headers, InputStream response,
+			IHttpResponseHandler<T> handler) throws IOException {
+		try {
+			return handler.handle(statusCode, headers, response);
+		} finally {
+			StreamUtils.quietlyClose(response);
+		}
+	}
+
+	private void setRequestHeaders(Map<String, String> headers, HttpURLConnection connection) {
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			connection.setRequestProperty(header.getKey(), header.getValue());
+		}
+	}
+
+	private Map<String, String> getResponseHeaders(HttpURLConnection connection) {
+		Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+		for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+			if (header.getKey() == null) {
+				// status line
+				continue;
+			}
+			headers.put(header.getKey(), toHeaderValue(header.getValue()));
+		}
+		return headers;
+	}
+
+	private String toHeaderValue(List<String> values) {
+		StringBuilder builder = new StringBuilder();
+		for (String value : values) {
+			if (builder.length() > 0) {
+				builder.append(COMMA).append(SPACE);
+			}
+			builder.append(value);
+		}
+		return builder.toString();
+	}
+
+	private InputStream decode(InputStream in, HttpURLConnection connection) throws IOException {
+		return contentEncoding.decode(in, connection.getContentEncoding());
+	}
+
 	private void disconnect(HttpURLConnection connection) {
 		if (connection != null) {
 			connection.disconnect();
@@ -159,21 +535,16 @@ public class UrlConnectionHttpClient implements IHttpClient {
 
 	private HttpClientException createException(IOException ioe, HttpURLConnection connection)
 			throws SocketTimeoutException {
+		if (ioe instanceof HttpRetryException) {
+			// streamed body, the connection can't resend it nor read the response
+			HttpRetryException retryException = (HttpRetryException) ioe;
+			return createException(retryException.responseCode(),
+					"Connection to " + connection.getURL() + ": " + retryException.getReason(), ioe);
+		}
 		try {
 			int responseCode = connection.getResponseCode();
 			String errorMessage = createErrorMessage(ioe, connection);
-			switch (responseCode) {
-			case STATUS_INTERNAL_SERVER_ERROR:
-				return new InternalServerErrorException(errorMessage, ioe);
-			case STATUS_BAD_REQUEST:
-				return new BadRequestException(errorMessage, ioe);
-			case STATUS_UNAUTHORIZED:
-				return new UnauthorizedException(errorMessage, ioe);
-			case STATUS_NOT_FOUND:
-				return new NotFoundException(errorMessage, ioe);
-			default:
-				return new HttpClientException(errorMessage, ioe);
-			}
+			return createException(responseCode, errorMessage, ioe);
 		} catch (SocketTimeoutException e) {
 			throw e;
 		} catch (IOException e) {
@@ -181,8 +552,34 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		}
 	}
 
+	/**
+	 * Returns the exception that matches the given http response code.
+	 * 
+	 * @param responseCode
+	 *            the http status code that the server responded with
+	 * @param errorMessage
+	 *            the message to use in the exception
+	 * @param cause
+	 *            the cause of the error
+	 * @return the exception to throw
+	 */
+	protected HttpClientException createException(int responseCode, String errorMessage, Throwable cause) {
+		switch (responseCode) {
+		case STATUS_INTERNAL_SERVER_ERROR:
+			return new InternalServerErrorException(errorMessage, cause);
+		case STATUS_BAD_REQUEST:
+			return new BadRequestException(errorMessage, cause);
+		case STATUS_UNAUTHORIZED:
+			return new UnauthorizedException(errorMessage, cause);
+		case STATUS_NOT_FOUND:
+			return new NotFoundException(errorMessage, cause);
+		default:
+			return new HttpClientException(responseCode, errorMessage, cause);
+		}
+	}
+
 	protected String createErrorMessage(IOException ioe, HttpURLConnection connection) throws IOException {
-		String errorMessage = StreamUtils.readToString(connection.getErrorStream());
+		String errorMessage = StreamUtils.readToString(decode(connection.getErrorStream(), connection));
 		if (!StringUtils.isEmpty(errorMessage)) {
 			return errorMessage;
 		}
@@ -200,34 +597,147 @@ public class UrlConnectionHttpClient implements IHttpClient {
 	}
 
 	/**
-	 * Sets a trust manager that will always trust.
-	 * <p>
-	 * TODO: dont swallog exceptions and setup things so that they dont disturb
-	 * other components.
+	 * Returns the socket factory that all secure connections of this client
+	 * are created with. It is created once (along with its ssl context) so
+	 * that connections share the context's session cache and resume their tls
+	 * sessions instead of negotiating new ones. Trusts all certificates if ssl
+	 * checks are disabled.
+	 * 
+	 * @return the ssl socket factory of this client
+	 * @throws HttpClientException
+	 *             if the ssl context could not be created or if none of the
+	 *             preferred protocols or cipher suites is supported
+	 */
+	protected SSLSocketFactory getSSLSocketFactory() {
+		return getConfiguredSSLSocketFactory();
+	}
+
+	synchronized ConfiguredSSLSocketFactory getConfiguredSSLSocketFactory() {
+		if (sslSocketFactory == null) {
+			this.sslSocketFactory = new ConfiguredSSLSocketFactory(
+					createSSLContext(), sslProtocols, sslCipherSuites, sslSessionTracker);
+		}
+		return sslSocketFactory;
+	}
+
+	/**
+	 * Drops the ssl socket factory (and its sessions) so that it gets
+	 * recreated with the current settings.
+	 */
+	private synchronized void resetSSLSocketFactory() {
+		this.sslSocketFactory = null;
+	}
+
+	private SSLContext createSSLContext() {
+		SSLContext sslContext = null;
+		if (!sslChecks) {
+			sslContext = createPermissiveSSLContext();
+		}
+		if (sslContext == null) {
+			sslContext = createDefaultSSLContext();
+		}
+		SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+		if (sessionContext != null) {
+			sessionContext.setSessionCacheSize(sslSessionCacheSize);
+			sessionContext.setSessionTimeout(sslSessionTimeout);
+		}
+		return sslContext;
+	}
+
+	/**
+	 * Returns a ssl context that trusts the certificates of the default
+	 * trust store and authenticates with the keys of the default key store
+	 * (javax.net.ssl.keyStore etc.). A context of its own is created (instead
+	 * of using the default context) so that the session cache settings of
+	 * this client dont affect other components. Override to use a context
+	 * that's configured otherwise.
+	 */
+	protected SSLContext createDefaultSSLContext() {
+		try {
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(createDefaultKeyManagers(), null, null);
+			return sslContext;
+		} catch (GeneralSecurityException e) {
+			throw new HttpClientException(
+					MessageFormat.format("Could not create ssl context: {0}", e.getMessage()), e);
+		} catch (IOException e) {
+			throw new HttpClientException(
+					MessageFormat.format("Could not load key store: {0}", e.getMessage()), e);
+		}
+	}
+
+	/**
+	 * Returns the key managers for the key store that the vm is configured
+	 * with (javax.net.ssl.keyStore, keyStoreType, keyStoreProvider and
+	 * keyStorePassword) the same way the default ssl context does. Returns
+	 * <code>null</code> if there's none.
+	 */
+	protected KeyManager[] createDefaultKeyManagers() throws GeneralSecurityException, IOException {
+		String file = System.getProperty(PROPERTY_KEY_STORE);
+		String provider = System.getProperty(PROPERTY_KEY_STORE_PROVIDER);
+		if (StringUtils.isEmpty(file)
+				&& StringUtils.isEmpty(provider)) {
+			return null;
+		}
+		String type = System.getProperty(PROPERTY_KEY_STORE_TYPE, KeyStore.getDefaultType());
+		String password = System.getProperty(PROPERTY_KEY_STORE_PASSWORD);
+		char[] passwordChars = null;
+		if (password != null) {
+			passwordChars = password.toCharArray();
+		}
+		KeyStore keyStore = null;
+		if (StringUtils.isEmpty(provider)) {
+			keyStore = KeyStore.getInstance(type);
+		} else {
+			keyStore = KeyStore.getInstance(type, provider);
+		}
+		InputStream in = null;
+		try {
+			if (!StringUtils.isEmpty(file)
+					&& !KEY_STORE_NONE.equals(file)) {
+				in = new FileInputStream(file);
+			}
+			keyStore.load(in, passwordChars);
+		} finally {
+			StreamUtils.quietlyClose(in);
+		}
+		KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(keyStore, passwordChars);
+		return keyManagerFactory.getKeyManagers();
+	}
+
+	/**
+	 * Returns a ssl context that trusts all certificates. Returns
+	 * <code>null</code> if it could not be created.
+	 * 
+	 * @return the permissive ssl context
 	 */
-	private void setPermissiveSSLSocketFactory(HttpsURLConnection connection) {
+	protected SSLContext createPermissiveSSLContext() {
 		try {
 			SSLContext sslContext = SSLContext.getInstance("SSL");
 			sslContext.init(
 					new KeyManager[0], new TrustManager[] { new PermissiveTrustManager() }, new SecureRandom());
-			SSLSocketFactory socketFactory = sslContext.getSocketFactory();
-			((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
+			return sslContext;
 		} catch (KeyManagementException e) {
 			// ignore
 		} catch (NoSuchAlgorithmException e) {
 			// ignore
 		}
+		return null;
 	}
 
 	protected HttpURLConnection createConnection(URL url, String username, String password, String authKey,
 			String authIV, String userAgent, String acceptedVersion, String acceptedMediaType, int timeout)
 			throws IOException {
-		LOGGER.trace(
-				"creating connection to {} using username \"{}\" and password \"{}\"",
-				new Object[] { url, username, password });
-		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		return createConnection(url, createRequestTemplate(
+				username, password, authKey, authIV, userAgent, acceptedVersion, acceptedMediaType), timeout);
+	}
+
+	protected HttpURLConnection createConnection(URL url, RequestTemplate template, int timeout)
+			throws IOException {
+		LOGGER.trace("creating connection to {} using username \"{}\"", url, username);
+		HttpURLConnection connection = openConnection(url, template);
 		setSSLChecks(url, connection);
-		setAuthorisation(username, password, authKey, authIV, connection);
 		connection.setUseCaches(false);
 		connection.setDoInput(true);
 		connection.setAllowUserInteraction(false);
@@ -236,19 +746,60 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		// wont work when switching http->https
 		// http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=4620571
 		connection.setInstanceFollowRedirects(true);
-		setUserAgent(userAgent, authKey, connection);
-		setAcceptHeader(acceptedVersion, acceptedMediaType, connection);
+		template.applyTo(connection);
 
 		return connection;
 	}
 
-	private void setUserAgent(String userAgent, String authKey, HttpURLConnection connection) {
+	private HttpURLConnection openConnection(URL url, RequestTemplate template) throws IOException {
+		Proxy proxy = getProxy(template);
+		if (proxy == null) {
+			return (HttpURLConnection) url.openConnection();
+		}
+		return (HttpURLConnection) url.openConnection(proxy);
+	}
+
+	/**
+	 * Returns the template that requests are created from. It's created
+	 * once and then reused until the user agent, the accepted version or
+	 * media type, or the compression change.
+	 */
+	protected RequestTemplate getRequestTemplate() {
+		RequestTemplate template = this.requestTemplate;
+		if (template == null) {
+			template = createRequestTemplate(
+					username, password, authKey, authIV, userAgent, acceptedVersion, acceptedMediaType);
+			this.requestTemplate = template;
+		}
+		return template;
+	}
+
+	protected RequestTemplate createRequestTemplate(String username, String password, String authKey,
+			String authIV, String userAgent, String acceptedVersion, String acceptedMediaType) {
+		Map<String, String> headers = new LinkedHashMap<String, String>();
 		if (!StringUtils.isEmpty(userAgent)) {
-			connection.setRequestProperty(PROPERTY_USER_AGENT, userAgent);
+			headers.put(PROPERTY_USER_AGENT, userAgent);
+		}
+		headers.put(PROPERTY_ACCEPT, createAcceptHeader(acceptedVersion, acceptedMediaType));
+		if (compression) {
+			headers.put(PROPERTY_ACCEPT_ENCODING, ContentEncoding.ACCEPTED_ENCODINGS);
 		}
+		String authorization = createBasicAuthorization(username, password);
+		if (authorization != null) {
+			headers.put(PROPERTY_AUTHORIZATION, authorization);
+		} else if (authKey != null
+				&& authIV != null) {
+			headers.put(PROPERTY_AUTHKEY, authKey);
+			headers.put(PROPERTY_AUTHIV, authIV);
+		}
+		return new RequestTemplate(headers);
 	}
 
-	private void setAcceptHeader(String acceptedVersion, String acceptedMediaType, HttpURLConnection connection) {
+	private void resetRequestTemplate() {
+		this.requestTemplate = null;
+	}
+
+	protected String createAcceptHeader(String acceptedVersion, String acceptedMediaType) {
 		if (StringUtils.isEmpty(acceptedMediaType)) {
 			throw new HttpClientException(MessageFormat.format(
 					"Accepted media type (ex. {0}) is not defined", MEDIATYPE_APPLICATION_JSON));
@@ -259,51 +810,64 @@ public class UrlConnectionHttpClient implements IHttpClient {
 			builder.append(SEMICOLON).append(SPACE)
 					.append(VERSION).append(EQUALS).append(acceptedVersion);
 		}
-
-		connection.setRequestProperty(PROPERTY_ACCEPT, builder.toString());
+		return builder.toString();
 	}
 
-	private void setAuthorisation(String username, String password, String authKey, String authIV,
-			HttpURLConnection connection) {
+	/**
+	 * Returns the value for the basic authorization header for the given
+	 * credentials. Returns <code>null</code> if username or password are
+	 * missing.
+	 * 
+	 * @param username
+	 *            the user to authenticate
+	 * @param password
+	 *            the password to authenticate with
+	 * @return the authorization header value or <code>null</code>
+	 */
+	protected String createBasicAuthorization(String username, String password) {
 		if (username == null || username.trim().length() == 0
 				|| password == null || password.trim().length() == 0) {
-			if (authKey != null && authIV != null) {
-				connection.setRequestProperty(PROPERTY_AUTHKEY, authKey);
-				connection.setRequestProperty(PROPERTY_AUTHIV, authIV);
-			}
-		} else {
-			String credentials = Base64Coder.encode(
-					new StringBuilder().append(username).append(COLON).append(password).toString().getBytes());
-			connection.setRequestProperty(PROPERTY_AUTHORIZATION,
-					new StringBuilder().append(AUTHORIZATION_BASIC).append(SPACE).append(credentials).toString());
+			return null;
 		}
+		String credentials = Base64Coder.encode(
+				new StringBuilder().append(username).append(COLON).append(password).toString().getBytes());
+		return new StringBuilder().append(AUTHORIZATION_BASIC).append(SPACE).append(credentials).toString();
 	}
 
 	private void setSSLChecks(URL url, HttpURLConnection connection) {
-		if (isHttps(url)
-				&& !sslChecks) {
-			HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
-			httpsConnection.setHostnameVerifier(new NoopHostnameVerifier());
-			setPermissiveSSLSocketFactory(httpsConnection);
+		if (!isHttps(url)) {
+			return;
+		}
+		HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
+		if (!sslChecks) {
+			httpsConnection.setHostnameVerifier(NOOP_HOSTNAME_VERIFIER);
 		}
+		// connections off a shared factory resume each others sessions
+		httpsConnection.setSSLSocketFactory(getSSLSocketFactory());
 	}
 
 	private void setConnectTimeout(int timeout, URLConnection connection) {
-		connection.setConnectTimeout(
-				getTimeout(
-						timeout,
-						getSystemPropertyInteger(SYSPROP_OPENSHIFT_CONNECT_TIMEOUT),
-						getSystemPropertyInteger(SYSPROP_DEFAULT_CONNECT_TIMEOUT),
-						DEFAULT_CONNECT_TIMEOUT));
+		connection.setConnectTimeout(getConnectTimeout(timeout));
 	}
 
 	private void setReadTimeout(int timeout, URLConnection connection) {
-		connection.setReadTimeout(
-				getTimeout(
-						timeout,
-						getSystemPropertyInteger(SYSPROP_OPENSHIFT_READ_TIMEOUT),
-						getSystemPropertyInteger(SYSPROP_DEFAULT_READ_TIMEOUT),
-						DEFAULT_READ_TIMEOUT));
+		connection.setReadTimeout(getReadTimeout(timeout));
+	}
+
+	protected int getConnectTimeout(int timeout) {
+		return getTimeout(
+				timeout,
+				getSystemPropertyInteger(SYSPROP_OPENSHIFT_CONNECT_TIMEOUT),
+				getSystemPropertyInteger(SYSPROP_DEFAULT_CONNECT_TIMEOUT),
+				DEFAULT_CONNECT_TIMEOUT);
+	}
+
+	protected int getReadTimeout(int timeout) {
+		return getTimeout(
+				timeout,
+				getSystemPropertyInteger(SYSPROP_OPENSHIFT_READ_TIMEOUT),
+				getSystemPropertyInteger(SYSPROP_DEFAULT_READ_TIMEOUT),
+				DEFAULT_READ_TIMEOUT);
 	}
 
 	private int getTimeout(int timeout, int openShiftTimeout, int systemPropertyTimeout, int defaultTimeout) {
@@ -316,28 +880,42 @@ public class UrlConnectionHttpClient implements IHttpClient {
 				}
 			}
 		}
+		// dont wait beyond the deadline of the request context
+		RequestContext context = RequestContext.current();
+		if (context != null) {
+			timeout = context.getTimeout(timeout);
+		}
 		return timeout;
 	}
 
 	private void setRequestMediaType(IMediaType mediaType, HttpURLConnection connection) {
+		connection.setRequestProperty(PROPERTY_CONTENT_TYPE, getRequestMediaType(mediaType));	
+	}
+
+	protected String getRequestMediaType(IMediaType mediaType) {
 		if (mediaType == null
 				|| StringUtils.isEmpty(mediaType.getType())) {
 			throw new HttpClientException(
 					MessageFormat.format("Request media type (ex. {0}) is not defined",
 							MEDIATYPE_APPLICATION_FORMURLENCODED));
 		}
-		connection.setRequestProperty(PROPERTY_CONTENT_TYPE, mediaType.getType());	
+		return mediaType.getType();
 	}
 	
 	private int getSystemPropertyInteger(String key) {
+		String value = System.getProperty(key);
+		if (value == null) {
+			// dont create (expensive) exceptions for missing properties
+			return NO_TIMEOUT;
+		}
 		try {
-			return Integer.parseInt(System.getProperty(key));
+			return Integer.parseInt(value);
 		} catch (NumberFormatException e) {
 			return NO_TIMEOUT;
 		}
 	}
 
-	private class PermissiveTrustManager implements X509TrustManager {
+	private static class PermissiveTrustManager implements X509TrustManager {
 
 		public X509Certificate[] getAcceptedIssuers() {
 			return null;
@@ -352,7 +930,7 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		}
 	}
 
-	private class NoopHostnameVerifier implements HostnameVerifier {
+	protected static class NoopHostnameVerifier implements HostnameVerifier {
 
 		public boolean verify(String hostname, SSLSession sslSession) {
 			return true;
@@ -362,15 +940,163 @@ public class UrlConnectionHttpClient implements IHttpClient {
 	@Override
 	public void setUserAgent(String userAgent) {
 		this.userAgent = userAgent;
+		resetRequestTemplate();
 	}
 
 	@Override
 	public void setAcceptVersion(String version) {
 		this.acceptedVersion = version;
+		resetRequestTemplate();
 	}
 
 	@Override
 	public void setAcceptedMediaType(String acceptedMediaType) {
 		this.acceptedMediaType = acceptedMediaType;
+		resetRequestTemplate();
+	}
+
+	/**
+	 * Sets whether this client shall ask the server to compress (gzip or
+	 * deflate) its responses. Compressed responses are inflated while they're
+	 * read.
+	 * 
+	 * @param compression
+	 *            whether responses shall be compressed
+	 */
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+		resetRequestTemplate();
+	}
+
+	public boolean isCompression() {
+		return compression;
+	}
+
+	public CompressionStatistics getCompressionStatistics() {
+		return contentEncoding.getStatistics();
+	}
+
+	/**
+	 * Sets the cache that this client shares the authorization tokens of its
+	 * user in. The client then authorizes its requests with a token (bearer)
+	 * instead of the password (basic). Requests are authorized with the
+	 * password if <code>null</code>.
+	 * 
+	 * @param authorizationTokens
+	 *            the cache to get the tokens from
+	 */
+	public void setAuthorizationTokenCache(AuthorizationTokenCache authorizationTokens) {
+		this.authorizationTokens = authorizationTokens;
+	}
+
+	public AuthorizationTokenCache getAuthorizationTokenCache() {
+		return authorizationTokens;
+	}
+
+	/**
+	 * Creates a session that sends requests with the given credentials over
+	 * the connections of this client. Any number of sessions (of different
+	 * users) may share a client: its connections, tls sessions and
+	 * statistics. The client itself should have no credentials.
+	 * 
+	 * @param username
+	 *            the user of the session
+	 * @param password
+	 *            the password of the user
+	 * @return the new session
+	 */
+	public HttpClientSession createSession(String username, String password) {
+		return createSession(username, password, null, null);
+	}
+
+	public HttpClientSession createSession(String username, String password, String authKey, String authIV) {
+		return new HttpClientSession(this, username, password, authKey, authIV);
+	}
+
+	/**
+	 * Sets the proxy that this client connects through. The proxy only applies
+	 * to this client, other clients in the same vm are not affected. Uses the
+	 * proxy settings of the vm (system properties, proxy selector) if
+	 * <code>null</code>, connects directly if {@link Proxy#NO_PROXY}.
+	 * 
+	 * @param proxy
+	 *            the proxy to connect through
+	 */
+	public void setProxy(Proxy proxy) {
+		this.proxy = proxy;
+	}
+
+	public Proxy getProxy() {
+		return proxy;
+	}
+
+	/**
+	 * Returns the proxy that requests of the given template go through: the
+	 * one of the template (session) if it has one, the one of this client
+	 * otherwise.
+	 */
+	protected Proxy getProxy(RequestTemplate template) {
+		Proxy proxy = template.getProxy();
+		if (proxy == null) {
+			proxy = this.proxy;
+		}
+		return proxy;
+	}
+
+	/**
+	 * Sets the tls protocols (ex. TLSv1.2) that secure connections may use in
+	 * order of preference. Protocols that are not supported by the runtime are
+	 * skipped. Uses the defaults of the runtime if <code>null</code>.
+	 * 
+	 * @param protocols
+	 *            the protocols to enable
+	 */
+	public void setSSLProtocols(String... protocols) {
+		this.sslProtocols = protocols;
+		resetSSLSocketFactory();
+	}
+
+	/**
+	 * Sets the cipher suites that secure connections may use in order of
+	 * preference. Suites that are not supported by the runtime are skipped.
+	 * Uses the defaults of the runtime if <code>null</code>.
+	 * 
+	 * @param cipherSuites
+	 *            the cipher suites to enable
+	 */
+	public void setSSLCipherSuites(String... cipherSuites) {
+		this.sslCipherSuites = cipherSuites;
+		resetSSLSocketFactory();
+	}
+
+	/**
+	 * Sets the maximum number of tls sessions that this client keeps for
+	 * resumption.
+	 * 
+	 * @param size
+	 *            the number of sessions, <code>0</code> for no limit
+	 */
+	public void setSSLSessionCacheSize(int size) {
+		this.sslSessionCacheSize = size;
+		resetSSLSocketFactory();
+	}
+
+	/**
+	 * Sets the time in seconds that tls sessions may be resumed.
+	 * 
+	 * @param timeout
+	 *            the timeout, <code>0</code> for no limit
+	 */
+	public void setSSLSessionTimeout(int timeout) {
+		this.sslSessionTimeout = timeout;
+		resetSSLSocketFactory();
+	}
+
+	/**
+	 * Returns how many tls handshakes this client did and how many of them
+	 * resumed a cached session.
+	 */
+	public SSLStatistics getSSLStatistics() {
+		return sslSessionTracker.getStatistics();
 	}
 }
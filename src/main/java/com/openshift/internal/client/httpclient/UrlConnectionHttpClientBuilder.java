@@ -10,6 +10,8 @@
  ******************************************************************************/
 package com.openshift.internal.client.httpclient;
 
+import java.net.Proxy;
+
 import com.openshift.client.IHttpClient;
 
 /**
@@ -25,6 +27,19 @@ public class UrlConnectionHttpClientBuilder {
 	private String authIV;
 	private String acceptedMediaType;
 	private String version;
+	private boolean connectionPooling = false;
+	private int maxConnectionsPerRoute = HttpConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+	private long idleConnectionTimeout = HttpConnectionPool.DEFAULT_IDLE_TIMEOUT;
+	private HttpConnectionPool connectionPool;
+	private boolean compression = true;
+	private boolean asynchronous = false;
+	private String[] sslProtocols;
+	private String[] sslCipherSuites;
+	private int sslSessionCacheSize = UrlConnectionHttpClient.DEFAULT_SSL_SESSION_CACHE_SIZE;
+	private int sslSessionTimeout = UrlConnectionHttpClient.DEFAULT_SSL_SESSION_TIMEOUT;
+	private AuthorizationTokenCache authorizationTokens;
+	private long dnsCacheTtl;
+	private Proxy proxy;
 
 	public UrlConnectionHttpClientBuilder setUserAgent(String userAgent) {
 		this.userAgent = userAgent;
@@ -58,8 +73,224 @@ public class UrlConnectionHttpClientBuilder {
 		return this;
 	}
 
+	/**
+	 * Switches to a client that keeps persistent (keep-alive) connections in a
+	 * pool and reuses them for subsequent requests.
+	 * 
+	 * @param pooling
+	 *            whether connections shall be pooled
+	 * @return this builder
+	 * 
+	 * @see PooledHttpClient
+	 */
+	public UrlConnectionHttpClientBuilder setConnectionPooling(boolean pooling) {
+		this.connectionPooling = pooling;
+		return this;
+	}
+
+	public UrlConnectionHttpClientBuilder setMaxConnectionsPerRoute(int maxConnections) {
+		this.maxConnectionsPerRoute = maxConnections;
+		return this;
+	}
+
+	/**
+	 * Sets the time in milliseconds after which idle pooled connections are
+	 * closed.
+	 */
+	public UrlConnectionHttpClientBuilder setIdleConnectionTimeout(long timeout) {
+		this.idleConnectionTimeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Sets the pool that the client shall use. Allows several clients to share
+	 * their connections. Implies connection pooling.
+	 */
+	public UrlConnectionHttpClientBuilder setConnectionPool(HttpConnectionPool pool) {
+		this.connectionPool = pool;
+		this.connectionPooling = pool != null;
+		return this;
+	}
+
+	/**
+	 * Sets whether the client shall ask for gzip or deflate compressed
+	 * responses. Enabled by default.
+	 * 
+	 * @param compression
+	 *            whether responses shall be compressed
+	 * @return this builder
+	 * 
+	 * @see UrlConnectionHttpClient#getCompressionStatistics()
+	 */
+	public UrlConnectionHttpClientBuilder setCompression(boolean compression) {
+		this.compression = compression;
+		return this;
+	}
+
+	/**
+	 * Switches to a client that can execute requests asynchronously on
+	 * non-blocking channels. Implies connection pooling for synchronous
+	 * requests.
+	 * 
+	 * @param asynchronous
+	 *            whether the client shall support asynchronous requests
+	 * @return this builder
+	 * 
+	 * @see NioHttpClient
+	 */
+	public UrlConnectionHttpClientBuilder setAsynchronous(boolean asynchronous) {
+		this.asynchronous = asynchronous;
+		return this;
+	}
+
+	/**
+	 * Sets the tls protocols (ex. TLSv1.2, TLSv1.1) that the client may use
+	 * in order of preference. Uses the defaults of the runtime if not set.
+	 * 
+	 * @param protocols
+	 *            the protocols to enable
+	 * @return this builder
+	 */
+	public UrlConnectionHttpClientBuilder setSSLProtocols(String... protocols) {
+		this.sslProtocols = protocols;
+		return this;
+	}
+
+	/**
+	 * Sets the cipher suites that the client may use in order of preference.
+	 * Uses the defaults of the runtime if not set.
+	 * 
+	 * @param cipherSuites
+	 *            the cipher suites to enable
+	 * @return this builder
+	 */
+	public UrlConnectionHttpClientBuilder setSSLCipherSuites(String... cipherSuites) {
+		this.sslCipherSuites = cipherSuites;
+		return this;
+	}
+
+	/**
+	 * Sets the number of tls sessions that the client keeps so that
+	 * reconnecting to the same server resumes the session instead of doing a
+	 * full handshake.
+	 * 
+	 * @param size
+	 *            the number of sessions, <code>0</code> for no limit
+	 * @return this builder
+	 * 
+	 * @see UrlConnectionHttpClient#getSSLStatistics()
+	 */
+	public UrlConnectionHttpClientBuilder setSSLSessionCacheSize(int size) {
+		this.sslSessionCacheSize = size;
+		return this;
+	}
+
+	/**
+	 * Sets the time in seconds that cached tls sessions may be resumed.
+	 */
+	public UrlConnectionHttpClientBuilder setSSLSessionTimeout(int timeout) {
+		this.sslSessionTimeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Makes the client keep the addresses that host names resolve to for the
+	 * given time instead of relying on the dns cache of the vm. Implies
+	 * connection pooling.
+	 * 
+	 * @param ttl
+	 *            the time in milliseconds that addresses are kept, 0 to use
+	 *            the dns cache of the vm
+	 * @return this builder
+	 * 
+	 * @see DnsCache
+	 */
+	public UrlConnectionHttpClientBuilder setDnsCacheTtl(long ttl) {
+		this.dnsCacheTtl = ttl;
+		if (ttl > 0) {
+			this.connectionPooling = true;
+		}
+		return this;
+	}
+
+	/**
+	 * Switches to authorizing requests with a token that the broker issues
+	 * for the user (bearer) instead of sending the password with each
+	 * request (basic). The token is shared with all other clients of the
+	 * user in this vm and is replaced before it expires.
+	 * 
+	 * @param tokens
+	 *            whether requests shall be authorized with tokens
+	 * @return this builder
+	 * 
+	 * @see AuthorizationTokenCache#getShared()
+	 */
+	public UrlConnectionHttpClientBuilder setAuthorizationTokens(boolean tokens) {
+		if (tokens) {
+			this.authorizationTokens = AuthorizationTokenCache.getShared();
+		} else {
+			this.authorizationTokens = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the cache that the client shall get the authorization tokens
+	 * from. Implies authorizing requests with tokens.
+	 */
+	public UrlConnectionHttpClientBuilder setAuthorizationTokenCache(AuthorizationTokenCache authorizationTokens) {
+		this.authorizationTokens = authorizationTokens;
+		return this;
+	}
+
+	/**
+	 * Sets the proxy that the client shall connect through. Pooled clients
+	 * keep connections through different proxies apart.
+	 * 
+	 * @param proxy
+	 *            the proxy to connect through, <code>null</code> for the
+	 *            settings of the vm
+	 * @return this builder
+	 * 
+	 * @see UrlConnectionHttpClient#setProxy(Proxy)
+	 */
+	public UrlConnectionHttpClientBuilder setProxy(Proxy proxy) {
+		this.proxy = proxy;
+		return this;
+	}
+
 	public IHttpClient client() {
-		return new UrlConnectionHttpClient(
-				username, password, userAgent, sslChecks, acceptedMediaType, version, authKey, authIV);
+		UrlConnectionHttpClient client = null;
+		if (asynchronous) {
+			client = new NioHttpClient(
+					username, password, userAgent, sslChecks, acceptedMediaType, version, authKey, authIV,
+					getConnectionPool(), null);
+		} else if (connectionPooling) {
+			client = new PooledHttpClient(
+					username, password, userAgent, sslChecks, acceptedMediaType, version, authKey, authIV,
+					getConnectionPool());
+		} else {
+			client = new UrlConnectionHttpClient(
+					username, password, userAgent, sslChecks, acceptedMediaType, version, authKey, authIV);
+		}
+		client.setCompression(compression);
+		client.setSSLProtocols(sslProtocols);
+		client.setSSLCipherSuites(sslCipherSuites);
+		client.setSSLSessionCacheSize(sslSessionCacheSize);
+		client.setSSLSessionTimeout(sslSessionTimeout);
+		client.setAuthorizationTokenCache(authorizationTokens);
+		client.setProxy(proxy);
+		if (dnsCacheTtl > 0
+				&& client instanceof PooledHttpClient) {
+			((PooledHttpClient) client).setDnsCache(new DnsCache(dnsCacheTtl));
+		}
+		return client;
+	}
+
+	private HttpConnectionPool getConnectionPool() {
+		if (connectionPool != null) {
+			return connectionPool;
+		}
+		return new HttpConnectionPool(maxConnectionsPerRoute, idleConnectionTimeout);
 	}
 }
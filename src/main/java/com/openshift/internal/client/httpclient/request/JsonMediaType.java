@@ -10,10 +10,10 @@
  ******************************************************************************/
 package com.openshift.internal.client.httpclient.request;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 
-import org.jboss.dmr.ModelNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +30,7 @@ import com.openshift.internal.client.httpclient.EncodingException;
  * <li>ParameterValueArray (array of values, in json: array</li>
  * <li>ParameterValueMap (map of values, in json: object</li>
  * </ul>
+ * The parameters are written in UTF-8 straight to the given stream.
  * 
  * @author Andre Dietisheim
  * 
@@ -47,54 +48,24 @@ public class JsonMediaType implements IMediaType {
 	}
 
 	public void writeTo(ParameterValueMap parameterMap, OutputStream out) throws EncodingException {
-		ModelNode root = new ModelNode();
-		for (Parameter parameter : parameterMap.getValue().values()) {
-			ModelNode property = root.get(parameter.getName());
-			create(parameter.getValue(), property);
-		}
-
-		writeTo(out, root);
-		log(root);
-	}
-
-	private void create(ParameterValueMap parameterMap, ModelNode node) {
-		for (Parameter parameter : parameterMap.getValue().values()) {
-			ModelNode property = node.get(parameter.getName());
-			create(parameter.getValue(), property);
-		}
-	}
-
-	private void create(ParameterValue<?> value, ModelNode node) {
-		if (StringValue.class.isAssignableFrom(value.getClass())) {
-			create((StringValue) value, node);
-		} else if (ParameterValueArray.class.isAssignableFrom(value.getClass())) {
-			create((ParameterValueArray) value, node);
-		} else if (ParameterValueMap.class.isAssignableFrom(value.getClass())) {
-			create((ParameterValueMap) value, node);
+		try {
+			new JsonWriter(out).write(parameterMap);
+		} catch (IOException e) {
+			throw new EncodingException("Could not write json request body", e);
 		}
+		log(parameterMap);
 	}
 
-	private void create(ParameterValueArray array, ModelNode node) {
-		for (ParameterValue<?> value : array.getValue()) {
-			ModelNode member = new ModelNode();
-			create(value, member);
-			node.add(member);
+	private void log(ParameterValueMap parameterMap) {
+		if (!LOGGER.isTraceEnabled()) {
+			return;
 		}
-	}
-
-	private void create(StringValue stringValue, ModelNode node) {
-		node.set(stringValue.getValue());
-	}
-
-	private void writeTo(OutputStream out, ModelNode node) {
-		PrintWriter writer = new PrintWriter(out);
-		node.writeJSONString(writer, true);
-		writer.flush();
-	}
-
-	private void log(ModelNode node) {
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace(node.toJSONString(true));
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			new JsonWriter(out).write(parameterMap);
+			LOGGER.trace(out.toString("UTF-8"));
+		} catch (IOException e) {
+			// cannot happen
 		}
 	}
 
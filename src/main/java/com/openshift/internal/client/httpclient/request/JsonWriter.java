@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient.request;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Writes request parameters as (compact) json straight to a stream, in
+ * UTF-8. Writes through a buffer that is reused by all writers of the same
+ * thread instead of building a tree of nodes first. The output is the one
+ * that jboss-dmr produces for the same parameters.
+ * 
+ * @author Andre Dietisheim
+ */
+class JsonWriter {
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+	private static final byte[] NAME_SEPARATOR = { ' ', ':', ' ' };
+	private static final byte[] MEMBER_SEPARATOR = { ',', ' ' };
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>() {
+
+		@Override
+		protected byte[] initialValue() {
+			return new byte[BUFFER_SIZE];
+		}
+	};
+
+	private final OutputStream out;
+	private final byte[] buffer;
+	private int count;
+
+	JsonWriter(OutputStream out) {
+		this.out = out;
+		this.buffer = BUFFERS.get();
+	}
+
+	/**
+	 * Writes the given parameters as json object and flushes the buffer.
+	 */
+	void write(ParameterValueMap parameters) throws IOException {
+		writeValue(parameters);
+		flush();
+	}
+
+	private void writeValue(ParameterValue<?> value) throws IOException {
+		if (value instanceof StringValue) {
+			writeString(((StringValue) value).getValue());
+		} else if (value instanceof ParameterValueArray) {
+			writeArray((ParameterValueArray) value);
+		} else if (value instanceof ParameterValueMap) {
+			writeObject((ParameterValueMap) value);
+		} else {
+			write(NULL);
+		}
+	}
+
+	private void writeObject(ParameterValueMap map) throws IOException {
+		if (map.isEmpty()) {
+			// an empty map is an undefined node in dmr
+			write(NULL);
+			return;
+		}
+		write('{');
+		for (Iterator<Parameter> it = map.getValue().values().iterator(); it.hasNext();) {
+			Parameter parameter = it.next();
+			writeString(parameter.getName());
+			write(NAME_SEPARATOR);
+			writeValue(parameter.getValue());
+			if (it.hasNext()) {
+				write(MEMBER_SEPARATOR);
+			}
+		}
+		write('}');
+	}
+
+	private void writeArray(ParameterValueArray array) throws IOException {
+		if (array.getValue().isEmpty()) {
+			// an empty array is an undefined node in dmr
+			write(NULL);
+			return;
+		}
+		write('[');
+		for (Iterator<ParameterValue<?>> it = array.getValue().iterator(); it.hasNext();) {
+			writeValue(it.next());
+			if (it.hasNext()) {
+				write(',');
+			}
+		}
+		write(']');
+	}
+
+	private void writeString(String value) throws IOException {
+		if (value == null) {
+			write(NULL);
+			return;
+		}
+		write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char character = value.charAt(i);
+			switch (character) {
+			case '"':
+			case '\\':
+				write('\\');
+				write(character);
+				break;
+			case '\b':
+				writeEscaped('b');
+				break;
+			case '\f':
+				writeEscaped('f');
+				break;
+			case '\n':
+				writeEscaped('n');
+				break;
+			case '\r':
+				writeEscaped('r');
+				break;
+			case '\t':
+				writeEscaped('t');
+				break;
+			default:
+				if (isEscaped(character)) {
+					writeUnicode(character);
+				} else {
+					writeUtf8(character, value, i);
+					if (Character.isHighSurrogate(character)
+							&& i + 1 < value.length()
+							&& Character.isLowSurrogate(value.charAt(i + 1))) {
+						i++;
+					}
+				}
+			}
+		}
+		write('"');
+	}
+
+	/**
+	 * Returns <code>true</code> for the characters that dmr escapes as
+	 * unicode sequence: control characters and the general punctuation block.
+	 */
+	private boolean isEscaped(char character) {
+		return character < ' '
+				|| (character >= '\u007f' && character < '\u00a0')
+				|| (character >= '\u2000' && character < '\u2100');
+	}
+
+	private void writeEscaped(char character) throws IOException {
+		write('\\');
+		write(character);
+	}
+
+	private void writeUnicode(char character) throws IOException {
+		write('\\');
+		write('u');
+		write(HEX[(character >> 12) & 0xf]);
+		write(HEX[(character >> 8) & 0xf]);
+		write(HEX[(character >> 4) & 0xf]);
+		write(HEX[character & 0xf]);
+	}
+
+	private void writeUtf8(char character, String value, int index) throws IOException {
+		if (character < 0x80) {
+			write(character);
+		} else if (character < 0x800) {
+			write(0xc0 | (character >> 6));
+			write(0x80 | (character & 0x3f));
+		} else if (Character.isHighSurrogate(character)
+				&& index + 1 < value.length()
+				&& Character.isLowSurrogate(value.charAt(index + 1))) {
+			int codePoint = Character.toCodePoint(character, value.charAt(index + 1));
+			write(0xf0 | (codePoint >> 18));
+			write(0x80 | ((codePoint >> 12) & 0x3f));
+			write(0x80 | ((codePoint >> 6) & 0x3f));
+			write(0x80 | (codePoint & 0x3f));
+		} else if (character >= Character.MIN_SURROGATE
+				&& character <= Character.MAX_SURROGATE) {
+			// unpaired surrogate, not encodable
+			write('?');
+		} else {
+			write(0xe0 | (character >> 12));
+			write(0x80 | ((character >> 6) & 0x3f));
+			write(0x80 | (character & 0x3f));
+		}
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		for (byte b : bytes) {
+			write(b);
+		}
+	}
+
+	private void write(int b) throws IOException {
+		if (count == buffer.length) {
+			flushBuffer();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	private void flushBuffer() throws IOException {
+		if (count > 0) {
+			out.write(buffer, 0, count);
+			this.count = 0;
+		}
+	}
+
+	void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+}
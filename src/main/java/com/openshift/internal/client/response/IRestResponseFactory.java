@@ -10,6 +10,8 @@
  ******************************************************************************/
 package com.openshift.internal.client.response;
 
+import java.io.InputStream;
+
 import com.openshift.client.OpenShiftException;
 
 public interface IRestResponseFactory {
@@ -23,5 +25,20 @@ public interface IRestResponseFactory {
 	 * @see RestResponse
 	 */
 	public RestResponse get(final String restResponse) throws OpenShiftException;
+
+	/**
+	 * Returns a {@link RestResponse} instance for a given rest response stream.
+	 * The response is parsed while it is read, it is not read into a string
+	 * first.
+	 * 
+	 * @param restResponse
+	 *            the response stream
+	 * @return RestResponse instance or <code>null</code> if the response is
+	 *         empty
+	 * @throws OpenShiftException
+	 * 
+	 * @see RestResponse
+	 */
+	public RestResponse get(final InputStream restResponse) throws OpenShiftException;
 	
 }
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+/**
+ * A pool of strings that the response factories hand the values to that
+ * repeat across resources (ex. cartridge names, link rels or parameter
+ * names). Equal values then share one instance instead of each resource
+ * holding its own copy. Implementations have to be thread safe.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see StringPool
+ */
+public interface IStringPool {
+
+	/**
+	 * Returns the pooled string that's equal to the given one. Returns the
+	 * given string if there's none (and it was pooled or if the pool is
+	 * full).
+	 * 
+	 * @param value
+	 *            the string to look up, may be <code>null</code>
+	 * @return the pooled string or the given one
+	 */
+	public String intern(String value);
+
+	/**
+	 * Returns the number of lookups that hit and the memory that they saved.
+	 */
+	public StringPoolStatistics getStatistics();
+
+}
@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import com.openshift.client.OpenShiftException;
+
+/**
+ * A minimal pull parser for json documents. It hands out one token at a time
+ * and creates nothing but the strings that are asked for: values that are
+ * not needed are skipped without being materialized. The position may be
+ * saved and restored to come back to a value that was skipped.
+ * <p>
+ * Separators (<code>,</code> and <code>:</code>) are not validated.
+ * 
+ * @author Andre Dietisheim
+ */
+class JsonPullParser {
+
+	enum Token {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+	}
+
+	private final char[] json;
+	private final int end;
+	private int position;
+	private final StringBuilder builder = new StringBuilder();
+
+	JsonPullParser(String json) {
+		this(json.toCharArray(), json.length());
+	}
+
+	JsonPullParser(char[] json, int length) {
+		this.json = json;
+		this.end = length;
+	}
+
+	/**
+	 * Returns the type of the next token without consuming it.
+	 */
+	Token peek() throws OpenShiftException {
+		skipWhitespaceAndSeparators();
+		if (position >= end) {
+			return Token.END_DOCUMENT;
+		}
+		char character = json[position];
+		switch (character) {
+		case '{':
+			return Token.BEGIN_OBJECT;
+		case '}':
+			return Token.END_OBJECT;
+		case '[':
+			return Token.BEGIN_ARRAY;
+		case ']':
+			return Token.END_ARRAY;
+		case '"':
+			return Token.STRING;
+		case 't':
+		case 'f':
+			return Token.BOOLEAN;
+		case 'n':
+			return Token.NULL;
+		default:
+			if (character == '-'
+					|| (character >= '0' && character <= '9')) {
+				return Token.NUMBER;
+			}
+			throw unexpected();
+		}
+	}
+
+	void beginObject() throws OpenShiftException {
+		consume(Token.BEGIN_OBJECT);
+	}
+
+	void endObject() throws OpenShiftException {
+		consume(Token.END_OBJECT);
+	}
+
+	void beginArray() throws OpenShiftException {
+		consume(Token.BEGIN_ARRAY);
+	}
+
+	void endArray() throws OpenShiftException {
+		consume(Token.END_ARRAY);
+	}
+
+	/**
+	 * Returns <code>true</code> if the current object or array has more
+	 * members.
+	 */
+	boolean hasNext() throws OpenShiftException {
+		Token token = peek();
+		return token != Token.END_OBJECT
+				&& token != Token.END_ARRAY
+				&& token != Token.END_DOCUMENT;
+	}
+
+	/**
+	 * Returns the name of the next member of the current object.
+	 */
+	String nextName() throws OpenShiftException {
+		if (peek() != Token.STRING) {
+			throw unexpected();
+		}
+		return readString();
+	}
+
+	/**
+	 * Returns the next value as the jboss-dmr <code>ModelNode</code> that
+	 * the same json was parsed to would return it: strings as they are,
+	 * numbers and booleans as their text. Returns <code>null</code> for
+	 * <code>null</code> (undefined). Objects and arrays are skipped and
+	 * returned as <code>null</code>, too.
+	 */
+	String nextString() throws OpenShiftException {
+		switch (peek()) {
+		case STRING:
+			return readString();
+		case NUMBER:
+			return readNumber().toString();
+		case BOOLEAN:
+			return String.valueOf(readBoolean());
+		case NULL:
+			readLiteral("null");
+			return null;
+		default:
+			skipValue();
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the next value as int, the given default if it is
+	 * <code>null</code>.
+	 */
+	int nextInt(int defaultValue) throws OpenShiftException {
+		switch (peek()) {
+		case NUMBER:
+			Number number = readNumber();
+			return number.intValue();
+		case STRING:
+			String string = readString();
+			try {
+				return Integer.parseInt(string);
+			} catch (NumberFormatException e) {
+				throw new OpenShiftException(e, "Could not unmarshall response: \"{0}\" is not a number", string);
+			}
+		case BOOLEAN:
+			return readBoolean() ? 1 : 0;
+		default:
+			skipValue();
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Skips the next value, nested objects and arrays included.
+	 */
+	void skipValue() throws OpenShiftException {
+		int depth = 0;
+		do {
+			switch (peek()) {
+			case BEGIN_OBJECT:
+			case BEGIN_ARRAY:
+				position++;
+				depth++;
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				position++;
+				depth--;
+				break;
+			case STRING:
+				skipString();
+				break;
+			case END_DOCUMENT:
+				throw unexpected();
+			default:
+				skipLiteral();
+			}
+		} while (depth > 0);
+	}
+
+	/**
+	 * Returns the json of the next value as it is and skips it.
+	 */
+	String nextValue() throws OpenShiftException {
+		skipWhitespaceAndSeparators();
+		int start = position;
+		skipValue();
+		return new String(json, start, position - start);
+	}
+
+	/**
+	 * Returns the json in between the given positions without the whitespace
+	 * outside of strings.
+	 */
+	String getJson(int start, int end) {
+		StringBuilder builder = new StringBuilder(end - start);
+		boolean inString = false;
+		for (int i = start; i < end; i++) {
+			char character = json[i];
+			if (inString) {
+				if (character == '\\'
+						&& i + 1 < end) {
+					builder.append(character);
+					character = json[++i];
+				} else if (character == '"') {
+					inString = false;
+				}
+			} else if (character == '"') {
+				inString = true;
+			} else if (character == ' '
+					|| character == '\n'
+					|| character == '\r'
+					|| character == '\t') {
+				continue;
+			}
+			builder.append(character);
+		}
+		return builder.toString();
+	}
+
+	int getPosition() {
+		return position;
+	}
+
+	void setPosition(int position) {
+		this.position = position;
+	}
+
+	private void consume(Token token) throws OpenShiftException {
+		if (peek() != token) {
+			throw unexpected();
+		}
+		position++;
+	}
+
+	private void skipWhitespaceAndSeparators() {
+		while (position < end) {
+			char character = json[position];
+			if (character != ' '
+					&& character != '\n'
+					&& character != '\r'
+					&& character != '\t'
+					&& character != ','
+					&& character != ':') {
+				return;
+			}
+			position++;
+		}
+	}
+
+	private String readString() throws OpenShiftException {
+		// opening quote
+		int start = ++position;
+		while (position < end) {
+			char character = json[position];
+			if (character == '"') {
+				return new String(json, start, position++ - start);
+			} else if (character == '\\') {
+				return readEscapedString(start);
+			}
+			position++;
+		}
+		throw unexpected();
+	}
+
+	private String readEscapedString(int start) throws OpenShiftException {
+		builder.setLength(0);
+		builder.append(json, start, position - start);
+		while (position < end) {
+			char character = json[position++];
+			if (character == '"') {
+				return builder.toString();
+			} else if (character != '\\') {
+				builder.append(character);
+				continue;
+			}
+			if (position >= end) {
+				break;
+			}
+			character = json[position++];
+			switch (character) {
+			case 'b':
+				builder.append('\b');
+				break;
+			case 'f':
+				builder.append('\f');
+				break;
+			case 'n':
+				builder.append('\n');
+				break;
+			case 'r':
+				builder.append('\r');
+				break;
+			case 't':
+				builder.append('\t');
+				break;
+			case 'u':
+				if (position + 4 > end) {
+					throw unexpected();
+				}
+				builder.append((char) Integer.parseInt(new String(json, position, 4), 16));
+				position += 4;
+				break;
+			default:
+				// \" \\ \/
+				builder.append(character);
+			}
+		}
+		throw unexpected();
+	}
+
+	private void skipString() throws OpenShiftException {
+		position++;
+		while (position < end) {
+			char character = json[position++];
+			if (character == '"') {
+				return;
+			} else if (character == '\\') {
+				position++;
+			}
+		}
+		throw unexpected();
+	}
+
+	private Number readNumber() throws OpenShiftException {
+		int start = position;
+		boolean decimal = false;
+		while (position < end) {
+			char character = json[position];
+			if (character == '.'
+					|| character == 'e'
+					|| character == 'E') {
+				decimal = true;
+			} else if (character != '-'
+					&& character != '+'
+					&& (character < '0' || character > '9')) {
+				break;
+			}
+			position++;
+		}
+		String number = new String(json, start, position - start);
+		try {
+			if (decimal) {
+				return new BigDecimal(number);
+			}
+			return new BigInteger(number);
+		} catch (NumberFormatException e) {
+			throw new OpenShiftException(e, "Could not unmarshall response: \"{0}\" is not a number", number);
+		}
+	}
+
+	private boolean readBoolean() throws OpenShiftException {
+		if (json[position] == 't') {
+			readLiteral("true");
+			return true;
+		}
+		readLiteral("false");
+		return false;
+	}
+
+	private void readLiteral(String literal) throws OpenShiftException {
+		if (position + literal.length() > end) {
+			throw unexpected();
+		}
+		for (int i = 0; i < literal.length(); i++) {
+			if (json[position + i] != literal.charAt(i)) {
+				throw unexpected();
+			}
+		}
+		position += literal.length();
+	}
+
+	private void skipLiteral() {
+		while (position < end) {
+			char character = json[position];
+			if (character == ','
+					|| character == '}'
+					|| character == ']'
+					|| character == ' '
+					|| character == '\n'
+					|| character == '\r'
+					|| character == '\t') {
+				return;
+			}
+			position++;
+		}
+	}
+
+	private OpenShiftException unexpected() {
+		if (position >= end) {
+			return new OpenShiftException("Could not unmarshall response: unexpected end of content.");
+		}
+		return new OpenShiftException("Could not unmarshall response: unexpected character ''{0}'' at {1}",
+				json[position], String.valueOf(position));
+	}
+}
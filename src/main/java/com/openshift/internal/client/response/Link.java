@@ -12,6 +12,8 @@ package com.openshift.internal.client.response;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 
@@ -22,7 +24,9 @@ import com.openshift.client.OpenShiftRequestException;
 import com.openshift.internal.client.httpclient.EncodingException;
 import com.openshift.internal.client.httpclient.request.FormUrlEncodedMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.httpclient.request.ParameterValue;
 import com.openshift.internal.client.httpclient.request.ParameterValueMap;
+import com.openshift.internal.client.httpclient.request.StringValue;
 import com.openshift.internal.client.utils.StringUtils;
 import com.openshift.internal.client.utils.UrlUtils;
 
@@ -33,11 +37,20 @@ import com.openshift.internal.client.utils.UrlUtils;
  */
 public class Link {
 
+	/** The name that the server lists this link under (ex. ADD_APPLICATION) */
+	private final String name;
+
 	/** The related resource (destination) this link points to */
 	private final String rel;
 
-	/** The url/href this link point to. */
-	private final String href;
+	/**
+	 * The url/href this link point to. Built off the segments if this link was
+	 * created off a template.
+	 */
+	private volatile String href;
+
+	/** The (shared) segments of the href if this link was created off a template. */
+	private final String[] hrefSegments;
 
 	/** The http method that this link operates on. */
 	private final HttpMethod httpMethod;
@@ -48,6 +61,9 @@ public class Link {
 	/** The optional params of this link. */
 	private final List<LinkParameter> optionalParams;
 
+	/** The absolute url this link was last resolved to. */
+	private volatile ResolvedUrl resolvedUrl;
+
 	public Link(final String href, final HttpMethod httpMethod) {
 		this(null, href, httpMethod);
 	}
@@ -58,7 +74,12 @@ public class Link {
 
 	protected Link(final String rel, final String href, final String httpMethod,
 			final List<LinkParameter> requiredParams, final List<LinkParameter> optionalParams) {
-		this(rel, href, HttpMethod.valueOf(httpMethod), requiredParams, optionalParams);
+		this(null, rel, href, httpMethod, requiredParams, optionalParams);
+	}
+
+	protected Link(final String name, final String rel, final String href, final String httpMethod,
+			final List<LinkParameter> requiredParams, final List<LinkParameter> optionalParams) {
+		this(name, rel, href, HttpMethod.valueOf(httpMethod), requiredParams, optionalParams);
 	}
 
 	/**
@@ -77,13 +98,66 @@ public class Link {
 	 */
 	protected Link(final String rel, final String href, final HttpMethod httpMethod,
 			final List<LinkParameter> requiredParams, final List<LinkParameter> optionalParams) {
+		this(null, rel, href, httpMethod, requiredParams, optionalParams);
+	}
+
+	/**
+	 * Instantiates a new Link object.
+	 * 
+	 * @param name
+	 *            the name that the server lists this link under
+	 * @param rel
+	 *            the related resource this link points to
+	 * @param href
+	 *            the href the url/href this link points to
+	 * @param httpMethod
+	 *            the http method that this link operates on
+	 * @param requiredParams
+	 *            the required params
+	 * @param optionalParams
+	 *            the optional params
+	 */
+	protected Link(final String name, final String rel, final String href, final HttpMethod httpMethod,
+			final List<LinkParameter> requiredParams, final List<LinkParameter> optionalParams) {
+		this.name = name;
 		this.rel = rel;
 		this.href = href;
+		this.hrefSegments = null;
 		this.httpMethod = httpMethod;
 		this.requiredParams = requiredParams;
 		this.optionalParams = optionalParams;
 	}
 
+	/**
+	 * Instantiates a new Link object off the given template. The href is
+	 * built off the given segments once it's asked for.
+	 * 
+	 * @param template
+	 *            the name, rel, http method and parameters
+	 * @param hrefSegments
+	 *            the segments of the href, split at '/'
+	 * 
+	 * @see LinkTemplates
+	 */
+	Link(final LinkTemplate template, final String[] hrefSegments) {
+		this.name = template.getName();
+		this.rel = template.getRel();
+		this.hrefSegments = hrefSegments;
+		this.httpMethod = template.getHttpMethod();
+		this.requiredParams = template.getRequiredParams();
+		this.optionalParams = template.getOptionalParams();
+	}
+
+	/**
+	 * Gets the name that the server lists this link under (ex.
+	 * ADD_APPLICATION). Returns <code>null</code> if it's unknown.
+	 * 
+	 * @return the name
+	 */
+	public final String getName() {
+		return name;
+	}
+
 	/**
 	 * Gets the related resource (destination) this link points to.
 	 * 
@@ -99,15 +173,123 @@ public class Link {
 	 * @return the href
 	 */
 	public final String getHref() {
+		String href = this.href;
+		if (href == null
+				&& hrefSegments != null) {
+			href = LinkTemplates.toHref(hrefSegments);
+			this.href = href;
+		}
 		return href;
 	}
 
 	public final String getHref(String server, String servicePath, Parameter... urlParameters) {
-		return addParameters(ensureAbsoluteUrl(href, server, servicePath), urlParameters);
+		return addParameters(getAbsoluteHref(server, servicePath), urlParameters);
 	}
 
 	public final String getHref(String server, String servicePath, List<Parameter> urlParameters) {
-		return addParameters(ensureAbsoluteUrl(href, server, servicePath), urlParameters);
+		return addParameters(getAbsoluteHref(server, servicePath), urlParameters);
+	}
+
+	/**
+	 * Returns the absolute url of this link for the given server and service
+	 * path with the given url parameters appended. The parsed url is cached
+	 * and reused as long as the link is requested on the same server with the
+	 * same (or no) url parameters.
+	 * 
+	 * @param server
+	 *            the server to resolve relative hrefs against
+	 * @param servicePath
+	 *            the service path to resolve relative hrefs against
+	 * @param urlParameters
+	 *            the parameters to append as query
+	 * @return the absolute url
+	 * @throws MalformedURLException
+	 *             if the resulting url is not valid
+	 */
+	public final URL getUrl(String server, String servicePath, List<Parameter> urlParameters)
+			throws MalformedURLException {
+		ResolvedUrl resolved = resolve(server, servicePath);
+		if (urlParameters == null
+				|| urlParameters.isEmpty()) {
+			return resolved.getUrl();
+		}
+		String query = createQuery(urlParameters);
+		if (query == null) {
+			// needs encoding
+			return new URL(addParameters(resolved.getHref(), urlParameters));
+		}
+		if (!query.equals(resolved.getQuery())) {
+			resolved = new ResolvedUrl(resolved, query);
+			this.resolvedUrl = resolved;
+		}
+		return resolved.getQueryUrl();
+	}
+
+	private String getAbsoluteHref(String server, String servicePath) {
+		ResolvedUrl resolved = this.resolvedUrl;
+		if (resolved != null
+				&& resolved.isFor(server, servicePath)) {
+			return resolved.getHref();
+		}
+		return ensureAbsoluteUrl(getHref(), server, servicePath);
+	}
+
+	private ResolvedUrl resolve(String server, String servicePath) throws MalformedURLException {
+		ResolvedUrl resolved = this.resolvedUrl;
+		if (resolved == null
+				|| !resolved.isFor(server, servicePath)) {
+			resolved = new ResolvedUrl(server, servicePath, ensureAbsoluteUrl(getHref(), server, servicePath));
+			this.resolvedUrl = resolved;
+		}
+		return resolved;
+	}
+
+	/**
+	 * Creates the query for the given parameters without going through the
+	 * form-url encoder (ex. "include=cartridges"). Returns <code>null</code>
+	 * if any of the parameters is not a plain string or would need to be
+	 * encoded.
+	 */
+	private String createQuery(List<Parameter> urlParameters) {
+		StringBuilder builder = new StringBuilder();
+		for (Parameter parameter : urlParameters) {
+			ParameterValue<?> value = parameter.getValue();
+			if (!(value instanceof StringValue)
+					|| !isUnreserved(parameter.getName())
+					|| !isUnreserved(((StringValue) value).getValue())) {
+				return null;
+			}
+			if (builder.length() > 0) {
+				builder.append(IHttpClient.AMPERSAND);
+			}
+			builder.append(parameter.getName())
+					.append(IHttpClient.EQUALS)
+					.append(((StringValue) value).getValue());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns <code>true</code> if the given string is not altered by form-url
+	 * encoding.
+	 */
+	private boolean isUnreserved(String string) {
+		if (StringUtils.isEmpty(string)) {
+			return false;
+		}
+		for (int i = 0; i < string.length(); i++) {
+			char character = string.charAt(i);
+			if (!((character >= 'a' && character <= 'z')
+					|| (character >= 'A' && character <= 'Z')
+					|| (character >= '0' && character <= '9')
+					|| character == '-'
+					|| character == '_'
+					|| character == '.'
+					|| character == '*')) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -262,11 +444,74 @@ public class Link {
 		}
 	}
 
+	/**
+	 * An absolute url that a link was resolved to for a given server and
+	 * service path, with the last query that was appended to it.
+	 */
+	private static class ResolvedUrl {
+
+		private final String server;
+		private final String servicePath;
+		private final String href;
+		private final URL url;
+		private final String query;
+		private final URL queryUrl;
+
+		private ResolvedUrl(String server, String servicePath, String href) throws MalformedURLException {
+			this(server, servicePath, href, new URL(href), null, null);
+		}
+
+		private ResolvedUrl(ResolvedUrl resolved, String query) throws MalformedURLException {
+			this(resolved.server, resolved.servicePath, resolved.href, resolved.url, query,
+					new URL(new StringBuilder(resolved.href)
+							.append(IHttpClient.QUESTION_MARK)
+							.append(query)
+							.toString()));
+		}
+
+		private ResolvedUrl(String server, String servicePath, String href, URL url, String query, URL queryUrl) {
+			this.server = server;
+			this.servicePath = servicePath;
+			this.href = href;
+			this.url = url;
+			this.query = query;
+			this.queryUrl = queryUrl;
+		}
+
+		private boolean isFor(String server, String servicePath) {
+			return equals(this.server, server)
+					&& equals(this.servicePath, servicePath);
+		}
+
+		private boolean equals(String thisString, String thatString) {
+			if (thisString == null) {
+				return thatString == null;
+			}
+			return thisString.equals(thatString);
+		}
+
+		private String getHref() {
+			return href;
+		}
+
+		private URL getUrl() {
+			return url;
+		}
+
+		private String getQuery() {
+			return query;
+		}
+
+		private URL getQueryUrl() {
+			return queryUrl;
+		}
+	}
+
 	public String toString() {
 		return "Link [" +
 				"rel=" + rel + ", "
 				+ "httpMethod=" + httpMethod + ", "
-				+ "href=" + href
+				+ "href=" + getHref()
 				+ "]";
 	}
 
@@ -72,4 +72,39 @@ public class LinkParameter {
 	public List<String> getValidOptions() {
 		return validOptions;
 	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((name == null) ? 0 : name.hashCode());
+		result = prime * result + ((type == null) ? 0 : type.hashCode());
+		result = prime * result + ((description == null) ? 0 : description.hashCode());
+		result = prime * result + ((defaultValue == null) ? 0 : defaultValue.hashCode());
+		result = prime * result + ((validOptions == null) ? 0 : validOptions.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		LinkParameter other = (LinkParameter) obj;
+		return equals(name, other.name)
+				&& equals(type, other.type)
+				&& equals(description, other.description)
+				&& equals(defaultValue, other.defaultValue)
+				&& equals(validOptions, other.validOptions);
+	}
+
+	private boolean equals(Object thisObject, Object thatObject) {
+		if (thisObject == null) {
+			return thatObject == null;
+		}
+		return thisObject.equals(thatObject);
+	}
 }
\ No newline at end of file
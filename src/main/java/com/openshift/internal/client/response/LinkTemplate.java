@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import java.util.List;
+
+import com.openshift.client.HttpMethod;
+
+/**
+ * What links of the same kind have in common: the name, the rel, the http
+ * method and the parameters. Links to different resources only differ in
+ * their href.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see LinkTemplates
+ */
+class LinkTemplate {
+
+	private final String name;
+	private final String rel;
+	private final HttpMethod httpMethod;
+	private final List<LinkParameter> requiredParams;
+	private final List<LinkParameter> optionalParams;
+
+	LinkTemplate(String name, String rel, HttpMethod httpMethod, List<LinkParameter> requiredParams,
+			List<LinkParameter> optionalParams) {
+		this.name = name;
+		this.rel = rel;
+		this.httpMethod = httpMethod;
+		this.requiredParams = requiredParams;
+		this.optionalParams = optionalParams;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getRel() {
+		return rel;
+	}
+
+	HttpMethod getHttpMethod() {
+		return httpMethod;
+	}
+
+	List<LinkParameter> getRequiredParams() {
+		return requiredParams;
+	}
+
+	List<LinkParameter> getOptionalParams() {
+		return optionalParams;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((name == null) ? 0 : name.hashCode());
+		result = prime * result + ((rel == null) ? 0 : rel.hashCode());
+		result = prime * result + ((httpMethod == null) ? 0 : httpMethod.hashCode());
+		result = prime * result + ((requiredParams == null) ? 0 : requiredParams.hashCode());
+		result = prime * result + ((optionalParams == null) ? 0 : optionalParams.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		LinkTemplate other = (LinkTemplate) obj;
+		return equals(name, other.name)
+				&& equals(rel, other.rel)
+				&& httpMethod == other.httpMethod
+				&& equals(requiredParams, other.requiredParams)
+				&& equals(optionalParams, other.optionalParams);
+	}
+
+	private boolean equals(Object thisObject, Object thatObject) {
+		if (thisObject == null) {
+			return thatObject == null;
+		}
+		return thisObject.equals(thatObject);
+	}
+
+	@Override
+	public String toString() {
+		return "LinkTemplate ["
+				+ "name=" + name + ", "
+				+ "rel=" + rel + ", "
+				+ "httpMethod=" + httpMethod
+				+ "]";
+	}
+}
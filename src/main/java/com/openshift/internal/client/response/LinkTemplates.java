@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.openshift.client.HttpMethod;
+
+/**
+ * A registry of link templates that links of the same kind share. Links to
+ * different resources (ex. the START link of 2 applications) are all the same
+ * but their href, which only differs in the ids of the resources. The
+ * registry therefore canonicalizes the name, rel, method and parameters of a
+ * link and splits the href into (shared) path segments. A link then only
+ * holds a few references instead of its own copy of the parameters.
+ * <p>
+ * The templates and parameters are held strongly, there's a few dozen kinds
+ * of links only. If there are more templates than the given maximum (ex.
+ * because the broker sends parameters that are specific to a resource),
+ * further ones are not registered. Path segments are held weakly, they go
+ * away with the resources.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see OpenShiftJsonDTOFactory#OpenShiftJsonDTOFactory(LinkTemplates)
+ * @see OpenShiftJsonStreamingDTOFactory#OpenShiftJsonStreamingDTOFactory(boolean, LinkTemplates)
+ */
+public class LinkTemplates {
+
+	static final char SEGMENT_DELIMITER = '/';
+
+	private static final int DEFAULT_MAX_TEMPLATES = 10 * 1000;
+
+	private final int maxTemplates;
+	private final ConcurrentMap<LinkTemplate, LinkTemplate> templates =
+			new ConcurrentHashMap<LinkTemplate, LinkTemplate>();
+	private final ConcurrentMap<LinkParameter, LinkParameter> parameters =
+			new ConcurrentHashMap<LinkParameter, LinkParameter>();
+	private final ConcurrentMap<List<LinkParameter>, List<LinkParameter>> parameterLists =
+			new ConcurrentHashMap<List<LinkParameter>, List<LinkParameter>>();
+	private final Map<String, WeakReference<String>> segments = new WeakHashMap<String, WeakReference<String>>();
+
+	public LinkTemplates() {
+		this(DEFAULT_MAX_TEMPLATES);
+	}
+
+	/**
+	 * @param maxTemplates
+	 *            the maximum number of templates (and parameters) to keep
+	 */
+	public LinkTemplates(int maxTemplates) {
+		this.maxTemplates = maxTemplates;
+	}
+
+	/**
+	 * Creates a link off the (shared) template for the given name, rel,
+	 * method and parameters.
+	 */
+	public Link createLink(String name, String rel, String href, String httpMethod,
+			List<LinkParameter> requiredParams, List<LinkParameter> optionalParams) {
+		LinkTemplate template = getTemplate(new LinkTemplate(
+				getSegment(name),
+				getSegment(rel),
+				HttpMethod.valueOf(httpMethod),
+				getParameters(requiredParams),
+				getParameters(optionalParams)));
+		return new Link(template, getSegments(href));
+	}
+
+	/**
+	 * Returns the registered template that's equal to the given one, registers
+	 * the given one if there's none yet.
+	 */
+	LinkTemplate getTemplate(LinkTemplate template) {
+		return getCanonical(template, templates);
+	}
+
+	/**
+	 * Returns the registered parameters that are equal to the given ones.
+	 */
+	List<LinkParameter> getParameters(List<LinkParameter> parameters) {
+		if (parameters == null) {
+			return null;
+		}
+		List<LinkParameter> canonical = new ArrayList<LinkParameter>(parameters.size());
+		for (LinkParameter parameter : parameters) {
+			canonical.add(getParameter(parameter));
+		}
+		return getCanonical(Collections.unmodifiableList(canonical), parameterLists);
+	}
+
+	private LinkParameter getParameter(LinkParameter parameter) {
+		LinkParameter registered = parameters.get(parameter);
+		if (registered != null) {
+			return registered;
+		}
+		if (parameters.size() >= maxTemplates) {
+			return parameter;
+		}
+		return getCanonical(new LinkParameter(
+				getSegment(parameter.getName()),
+				parameter.getType(),
+				getSegment(parameter.getDefaultValue()),
+				getSegment(parameter.getDescription()),
+				getValidOptions(parameter.getValidOptions())), parameters);
+	}
+
+	private List<String> getValidOptions(List<String> validOptions) {
+		if (validOptions == null) {
+			return null;
+		}
+		List<String> canonical = new ArrayList<String>(validOptions.size());
+		for (String validOption : validOptions) {
+			canonical.add(getSegment(validOption));
+		}
+		return Collections.unmodifiableList(canonical);
+	}
+
+	private <T> T getCanonical(T value, ConcurrentMap<T, T> registry) {
+		T registered = registry.get(value);
+		if (registered != null) {
+			return registered;
+		}
+		if (registry.size() >= maxTemplates) {
+			return value;
+		}
+		registered = registry.putIfAbsent(value, value);
+		if (registered != null) {
+			return registered;
+		}
+		return value;
+	}
+
+	/**
+	 * Splits the given href at '/' and returns the (shared) segments.
+	 */
+	String[] getSegments(String href) {
+		if (href == null) {
+			return null;
+		}
+		List<String> segments = new ArrayList<String>();
+		int start = 0;
+		int delimiter = -1;
+		while ((delimiter = href.indexOf(SEGMENT_DELIMITER, start)) != -1) {
+			segments.add(getSegment(href.substring(start, delimiter)));
+			start = delimiter + 1;
+		}
+		segments.add(getSegment(href.substring(start)));
+		return segments.toArray(new String[segments.size()]);
+	}
+
+	/**
+	 * Returns the registered string that's equal to the given one.
+	 */
+	private String getSegment(String segment) {
+		if (segment == null) {
+			return null;
+		}
+		synchronized (segments) {
+			WeakReference<String> reference = segments.get(segment);
+			if (reference != null) {
+				String registered = reference.get();
+				if (registered != null) {
+					return registered;
+				}
+			}
+			segments.put(segment, new WeakReference<String>(segment));
+			return segment;
+		}
+	}
+
+	/**
+	 * Returns the href for the given segments.
+	 */
+	static String toHref(String[] segments) {
+		int length = segments.length - 1;
+		for (String segment : segments) {
+			length += segment.length();
+		}
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < segments.length; i++) {
+			if (i > 0) {
+				builder.append(SEGMENT_DELIMITER);
+			}
+			builder.append(segments[i]);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the number of registered templates.
+	 */
+	public int getTemplateCount() {
+		return templates.size();
+	}
+
+	/**
+	 * Returns the number of registered (distinct) parameters.
+	 */
+	public int getParameterCount() {
+		return parameters.size();
+	}
+
+	@Override
+	public String toString() {
+		return "LinkTemplates ["
+				+ "templates=" + templates.size() + ", "
+				+ "parameters=" + parameters.size()
+				+ "]";
+	}
+}
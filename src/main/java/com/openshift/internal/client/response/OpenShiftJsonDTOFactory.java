@@ -46,6 +46,9 @@ import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPER
 import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_VALID_OPTIONS;
 import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_VALUE;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -73,6 +76,7 @@ import com.openshift.client.cartridge.ICartridge;
 import com.openshift.internal.client.Gear;
 import com.openshift.internal.client.GearProfile;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
+import com.openshift.internal.client.utils.StreamUtils;
 import com.openshift.internal.client.utils.StringUtils;
 
 /**
@@ -85,13 +89,87 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 
 	private final Logger LOGGER = LoggerFactory.getLogger(OpenShiftJsonDTOFactory.class);
 
+	private final LinkTemplates linkTemplates;
+	private final IStringPool stringPool;
+
+	public OpenShiftJsonDTOFactory() {
+		this(null);
+	}
+
+	/**
+	 * @param linkTemplates
+	 *            the templates that the links shall be created off,
+	 *            <code>null</code> if each link shall have its own copy of
+	 *            its parameters
+	 */
+	public OpenShiftJsonDTOFactory(LinkTemplates linkTemplates) {
+		this(linkTemplates, null);
+	}
+
+	/**
+	 * @param linkTemplates
+	 *            the templates that the links shall be created off,
+	 *            <code>null</code> if each link shall have its own copy of
+	 *            its parameters
+	 * @param stringPool
+	 *            the pool for the values that repeat across resources (ex.
+	 *            cartridge names), <code>null</code> for none
+	 */
+	public OpenShiftJsonDTOFactory(LinkTemplates linkTemplates, IStringPool stringPool) {
+		this.linkTemplates = linkTemplates;
+		this.stringPool = stringPool;
+	}
+
+	public LinkTemplates getLinkTemplates() {
+		return linkTemplates;
+	}
+
+	public IStringPool getStringPool() {
+		return stringPool;
+	}
+
 	public RestResponse get(final String json) throws OpenShiftException {
 		// in case the server answers with 'no-content'
 		if (StringUtils.isEmpty(json)) {
 			return null;
 		}
 		LOGGER.trace("Unmarshalling response\n{}", json);
-		final ModelNode rootNode = getModelNode(json);
+		return createResponse(getModelNode(json));
+	}
+
+	public RestResponse get(final InputStream json) throws OpenShiftException {
+		if (json == null) {
+			return null;
+		}
+		try {
+			if (LOGGER.isTraceEnabled()) {
+				return get(StreamUtils.readToString(json));
+			}
+			PushbackInputStream in = new PushbackInputStream(json);
+			// in case the server answers with 'no-content'
+			if (isEmpty(in)) {
+				return null;
+			}
+			return createResponse(getModelNode(in));
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Could not unmarshall response: {0}", e.getMessage());
+		}
+	}
+
+	private boolean isEmpty(PushbackInputStream in) throws IOException {
+		int character = -1;
+		while ((character = in.read()) != -1
+				&& Character.isWhitespace(character)) {
+			// skip leading whitespace
+		}
+		if (character == -1) {
+			return true;
+		}
+		in.unread(character);
+		return false;
+	}
+
+	private RestResponse createResponse(final ModelNode rootNode) {
 		final String type = rootNode.get(IOpenShiftJsonConstants.PROPERTY_TYPE).asString();
 		final String status = rootNode.get(IOpenShiftJsonConstants.PROPERTY_STATUS).asString();
 		final Messages messages = createMessages(rootNode.get(IOpenShiftJsonConstants.PROPERTY_MESSAGES));
@@ -169,9 +247,9 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 	
 	private Message createMessage(ModelNode messageNode) {
 		String text = getString(messageNode.get(IOpenShiftJsonConstants.PROPERTY_TEXT));
-		String field = getString(messageNode.get(IOpenShiftJsonConstants.PROPERTY_FIELD));
+		String field = intern(getString(messageNode.get(IOpenShiftJsonConstants.PROPERTY_FIELD)));
 		int exitCode = getInt(messageNode.get(IOpenShiftJsonConstants.PROPERTY_EXIT_CODE));
-		String severity = getString(messageNode.get(IOpenShiftJsonConstants.PROPERTY_SEVERITY));
+		String severity = intern(getString(messageNode.get(IOpenShiftJsonConstants.PROPERTY_SEVERITY)));
 		return new Message(text, field, severity, exitCode);
 	}
 
@@ -205,6 +283,14 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 			throw new OpenShiftException("Could not unmarshall response: no content.");
 		}
 		final ModelNode node = ModelNode.fromJSONString(content);
+		return assertDefined(node);
+	}
+
+	private ModelNode getModelNode(final InputStream content) throws IOException, OpenShiftException {
+		return assertDefined(ModelNode.fromJSONStream(content));
+	}
+
+	private ModelNode assertDefined(final ModelNode node) throws OpenShiftException {
 		if (!node.isDefined()) {
 			throw new OpenShiftException("Could not unmarshall response: erroneous content.");
 		}
@@ -268,7 +354,7 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 			return createKey(keyNode.get(PROPERTY_DATA), messages);
 		}
 		final String name = getAsString(keyNode, IOpenShiftJsonConstants.PROPERTY_NAME);
-		final String type = getAsString(keyNode, IOpenShiftJsonConstants.PROPERTY_TYPE);
+		final String type = intern(getAsString(keyNode, IOpenShiftJsonConstants.PROPERTY_TYPE));
 		final String content = getAsString(keyNode, IOpenShiftJsonConstants.PROPERTY_CONTENT);
 		final Map<String, Link> links = createLinks(keyNode.get(PROPERTY_LINKS));
 		return new KeyResourceDTO(name, type, content, links, messages);
@@ -294,22 +380,26 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 				final String linkName = linkNode.asProperty().getName();
 				final ModelNode valueNode = linkNode.asProperty().getValue();
 				if (valueNode.isDefined()) {
-					links.put(linkName, createLink(valueNode));
+					links.put(linkName, createLink(linkName, valueNode));
 				}
 			}
 		}
 		return links;
 	}
 
-	private Link createLink(final ModelNode valueNode) {
-		final String rel = getAsString(valueNode, PROPERTY_REL);
+	private Link createLink(String name, final ModelNode valueNode) {
+		name = intern(name);
+		final String rel = intern(getAsString(valueNode, PROPERTY_REL));
 		final String href = valueNode.get(PROPERTY_HREF).asString();
 		final String method = valueNode.get(PROPERTY_METHOD).asString();
 		final List<LinkParameter> requiredParams = 
 				createLinkParameters(valueNode.get(PROPERTY_REQUIRED_PARAMS));
 		final List<LinkParameter> optionalParams = 
 				createLinkParameters(valueNode.get(PROPERTY_OPTIONAL_PARAMS));
-		return new Link(rel, href, method, requiredParams, optionalParams);
+		if (linkTemplates != null) {
+			return linkTemplates.createLink(name, rel, href, method, requiredParams, optionalParams);
+		}
+		return new Link(name, rel, href, method, requiredParams, optionalParams);
 	}
 
 	/**
@@ -362,7 +452,7 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 			return createDomain(domainNode.get(PROPERTY_DATA), messages);
 		}
 		final String namespace = getAsString(domainNode, PROPERTY_ID);
-		final String suffix = getAsString(domainNode, PROPERTY_SUFFIX);
+		final String suffix = intern(getAsString(domainNode, PROPERTY_SUFFIX));
 		final Map<String, Link> links = createLinks(domainNode.get(PROPERTY_LINKS));
 		return new DomainResourceDTO(namespace, suffix, links, messages);
 	}
@@ -400,7 +490,7 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 			// recurse into 'data' node
 			return createApplication(appNode.get(PROPERTY_DATA), messages);
 		}
-		final String framework = getAsString(appNode, PROPERTY_FRAMEWORK);
+		final String framework = intern(getAsString(appNode, PROPERTY_FRAMEWORK));
 		final String creationTime = getAsString(appNode, PROPERTY_CREATION_TIME);
 		final String name = getAsString(appNode, PROPERTY_NAME);
 		final String uuid = getAsString(appNode, PROPERTY_UUID);
@@ -410,7 +500,7 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 		final String sshUrl = getAsString(appNode, PROPERTY_SSH_URL);
 		final String gitUrl = getAsString(appNode, PROPERTY_GIT_URL);
 		final String initialGitUrl = getAsString(appNode, PROPERTY_INITIAL_GIT_URL);
-		final String domainId = getAsString(appNode, PROPERTY_DOMAIN_ID);
+		final String domainId = intern(getAsString(appNode, PROPERTY_DOMAIN_ID));
 		final Map<String, Link> links = createLinks(appNode.get(PROPERTY_LINKS));
 		final List<String> aliases = createAliases(appNode.get(PROPERTY_ALIASES));
 		final Map<String, CartridgeResourceDTO> cartridges = createCartridges(appNode.get(PROPERTY_CARTRIDGES));
@@ -434,7 +524,7 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 	}
 
 	private GearProfile createGearProfile(ModelNode appNode) {
-		String gearProfileName = getAsString(appNode, PROPERTY_GEAR_PROFILE);
+		String gearProfileName = intern(getAsString(appNode, PROPERTY_GEAR_PROFILE));
 		if (gearProfileName == null) {
 			return null;
 		}
@@ -452,7 +542,7 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 
 	private GearGroupResourceDTO createGearGroupResourceDTO(ModelNode gearGroupNode) {
 		final String uuid = getAsString(gearGroupNode, PROPERTY_UUID);
-		final String name = getAsString(gearGroupNode, PROPERTY_NAME);
+		final String name = intern(getAsString(gearGroupNode, PROPERTY_NAME));
 		final Collection<GearResourceDTO> gears = createGears(gearGroupNode.get(PROPERTY_GEARS));
 		final Map<String, CartridgeResourceDTO> cartridges = createCartridges(gearGroupNode.get(PROPERTY_CARTRIDGES));
 		return new GearGroupResourceDTO(uuid, name, gears, cartridges);
@@ -464,7 +554,7 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 			gears.add(
 					new GearResourceDTO(
 							getAsString(gearNode, PROPERTY_ID),
-							getAsString(gearNode, PROPERTY_GEAR_STATE),
+							intern(getAsString(gearNode, PROPERTY_GEAR_STATE)),
 							getAsString(gearNode, PROPERTY_SSH_URL)));
 		}
 		return gears;
@@ -505,10 +595,10 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 			return createCartridge(cartridgeNode.get(PROPERTY_DATA), messages);
 		}
 		
-		final String name = getAsString(cartridgeNode, PROPERTY_NAME);
-		final String displayName = getAsString(cartridgeNode, PROPERTY_DISPLAY_NAME);
-		final String description = getAsString(cartridgeNode, PROPERTY_DESCRIPTION);
-		final String type = getAsString(cartridgeNode, PROPERTY_TYPE);
+		final String name = intern(getAsString(cartridgeNode, PROPERTY_NAME));
+		final String displayName = intern(getAsString(cartridgeNode, PROPERTY_DISPLAY_NAME));
+		final String description = intern(getAsString(cartridgeNode, PROPERTY_DESCRIPTION));
+		final String type = intern(getAsString(cartridgeNode, PROPERTY_TYPE));
 		final URL url = createUrl(getAsString(cartridgeNode, PROPERTY_URL), name);
 		final CartridgeResourceProperties properties = createProperties(cartridgeNode.get(PROPERTY_PROPERTIES));
 		final Map<String, Link> links = createLinks(cartridgeNode.get(PROPERTY_LINKS));
@@ -577,10 +667,10 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 	 * @throws OpenShiftRequestException
 	 */
 	private LinkParameter createLinkParameter(ModelNode linkParamNode) throws OpenShiftRequestException {
-		final String description = linkParamNode.get(IOpenShiftJsonConstants.PROPERTY_DESCRIPTION).asString();
-		final String type = linkParamNode.get(IOpenShiftJsonConstants.PROPERTY_TYPE).asString();
-		final String defaultValue = linkParamNode.get(IOpenShiftJsonConstants.PROPERTY_DEFAULT_VALUE).asString();
-		final String name = linkParamNode.get(IOpenShiftJsonConstants.PROPERTY_NAME).asString();
+		final String description = intern(linkParamNode.get(IOpenShiftJsonConstants.PROPERTY_DESCRIPTION).asString());
+		final String type = intern(linkParamNode.get(IOpenShiftJsonConstants.PROPERTY_TYPE).asString());
+		final String defaultValue = intern(linkParamNode.get(IOpenShiftJsonConstants.PROPERTY_DEFAULT_VALUE).asString());
+		final String name = intern(linkParamNode.get(IOpenShiftJsonConstants.PROPERTY_NAME).asString());
 		return new LinkParameter(name, type, defaultValue, description, createValidOptions(linkParamNode));
 	}
 
@@ -598,11 +688,11 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 			switch (validOptionsNode.getType()) {
 			case STRING: // if there's only one value, it is not serialized as a
 							// list, but just a string
-				validOptions.add(validOptionsNode.asString());
+				validOptions.add(intern(validOptionsNode.asString()));
 				break;
 			case LIST:
 				for (ModelNode validOptionNode : validOptionsNode.asList()) {
-					validOptions.add(validOptionNode.asString());
+					validOptions.add(intern(validOptionNode.asString()));
 				}
 				break;
 			default:
@@ -627,6 +717,17 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 		return propertyNode.isDefined() ? propertyNode.asString() : null;
 	}
 	
+	/**
+	 * Returns the pooled string that's equal to the given one if there's a
+	 * string pool.
+	 */
+	private String intern(String value) {
+		if (stringPool == null) {
+			return value;
+		}
+		return stringPool.intern(value);
+	}
+
 	/**
 	 * Creates ResourceProperties for a given propertiesNode
 	 * <p>
@@ -664,9 +765,9 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 	}
 
 	private CartridgeResourceProperty createProperty(ModelNode propertyNode) {
-		String name = getAsString(propertyNode, IOpenShiftJsonConstants.PROPERTY_NAME);
-		String description = getAsString(propertyNode, IOpenShiftJsonConstants.PROPERTY_DESCRIPTION);
-		String type = getAsString(propertyNode, IOpenShiftJsonConstants.PROPERTY_TYPE);
+		String name = intern(getAsString(propertyNode, IOpenShiftJsonConstants.PROPERTY_NAME));
+		String description = intern(getAsString(propertyNode, IOpenShiftJsonConstants.PROPERTY_DESCRIPTION));
+		String type = intern(getAsString(propertyNode, IOpenShiftJsonConstants.PROPERTY_TYPE));
 		String value = getAsString(propertyNode, IOpenShiftJsonConstants.PROPERTY_VALUE);
 		return new CartridgeResourceProperty(name, type, description, value);
 	}
@@ -720,7 +821,7 @@ public class OpenShiftJsonDTOFactory implements IRestResponseFactory {
 			// recurse into 'data' node
 			return createEnvironmentVariable(environmentVariableNode.get(PROPERTY_DATA), messages);
 		}
-		final String name = getAsString(environmentVariableNode, PROPERTY_NAME);
+		final String name = intern(getAsString(environmentVariableNode, PROPERTY_NAME));
 		final String value = getAsString(environmentVariableNode, PROPERTY_VALUE);
 		final Map<String, Link> links = createLinks(environmentVariableNode.get(PROPERTY_LINKS));
 		return new EnvironmentVariableResourceDTO(name, value, links, messages);
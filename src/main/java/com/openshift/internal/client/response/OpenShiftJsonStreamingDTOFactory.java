@@ -0,0 +1,1219 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_ALIASES;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_APP_URL;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_CARTRIDGES;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_CONSUMED_GEARS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_CONTENT;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_CREATION_TIME;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_DATA;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_DEFAULT_VALUE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_DESCRIPTION;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_DISPLAY_NAME;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_DOMAIN;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_DOMAIN_ID;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_EXIT_CODE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_FIELD;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_FRAMEWORK;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_GEARS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_GEAR_PROFILE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_GEAR_STATE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_GIT_URL;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_HREF;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_ID;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_INITIAL_GIT_URL;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_LINKS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_LOGIN;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_MAX_GEARS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_MESSAGES;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_METHOD;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_NAME;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_OPTIONAL_PARAMS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_PROPERTIES;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_REL;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_REQUIRED_PARAMS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_SCALABLE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_SEVERITY;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_SSH_URL;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_STATUS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_SUFFIX;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_TEXT;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_TYPE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_URL;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_UUID;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_VALID_OPTIONS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_VALUE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.jboss.dmr.ModelNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.ApplicationScale;
+import com.openshift.client.IField;
+import com.openshift.client.Message;
+import com.openshift.client.Messages;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.GearProfile;
+import com.openshift.internal.client.response.JsonPullParser.Token;
+import com.openshift.internal.client.utils.StringUtils;
+
+/**
+ * A factory for creating DTO objects that pulls them straight off the json
+ * response. Unlike {@link OpenShiftJsonDTOFactory} it does not build an
+ * intermediate (jboss-dmr) tree of the whole response, values that are of no
+ * interest are skipped without being materialized. The DTOs that it creates
+ * are the same as the ones that {@link OpenShiftJsonDTOFactory} creates.
+ * <p>
+ * The broker sends the "data" of a response before its "type". The data is
+ * therefore skipped at first and parsed once the type is known.
+ * <p>
+ * Links are by far the largest part of the responses while only few of them
+ * are ever requested. They are therefore only indexed by default and created
+ * once they're asked for (see {@link #OpenShiftJsonStreamingDTOFactory(boolean)}).
+ * <p>
+ * A factory may be restricted to a {@link ResponseProjection}: applications,
+ * gear groups and gears then only get the properties that the projection
+ * includes, the others are skipped (see {@link #project(ResponseProjection)}).
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see RestService#setResponseFactory(IRestResponseFactory)
+ */
+public class OpenShiftJsonStreamingDTOFactory implements IRestResponseFactory {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OpenShiftJsonStreamingDTOFactory.class);
+
+	/** what jboss-dmr returns for the string value of a missing or null property */
+	private static final String UNDEFINED = "undefined";
+	private static final String EMPTY_OBJECT = "{}";
+	private static final int NO_POSITION = -1;
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final boolean lazyLinks;
+	private final LinkTemplates linkTemplates;
+	private final IStringPool stringPool;
+	private final ResponseProjection projection;
+
+	public OpenShiftJsonStreamingDTOFactory() {
+		this(true);
+	}
+
+	/**
+	 * @param lazyLinks
+	 *            whether links shall only be created once they're asked for.
+	 *            The resources then keep the (compacted) json of their links
+	 *            instead.
+	 */
+	public OpenShiftJsonStreamingDTOFactory(boolean lazyLinks) {
+		this(lazyLinks, null);
+	}
+
+	/**
+	 * @param lazyLinks
+	 *            whether links shall only be created once they're asked for.
+	 * @param linkTemplates
+	 *            the templates that the links shall be created off,
+	 *            <code>null</code> if each link shall have its own copy of
+	 *            its parameters
+	 */
+	public OpenShiftJsonStreamingDTOFactory(boolean lazyLinks, LinkTemplates linkTemplates) {
+		this(lazyLinks, linkTemplates, null);
+	}
+
+	/**
+	 * @param lazyLinks
+	 *            whether links shall only be created once they're asked for.
+	 * @param linkTemplates
+	 *            the templates that the links shall be created off,
+	 *            <code>null</code> if each link shall have its own copy of
+	 *            its parameters
+	 * @param stringPool
+	 *            the pool for the values that repeat across resources (ex.
+	 *            cartridge names), <code>null</code> for none
+	 */
+	public OpenShiftJsonStreamingDTOFactory(boolean lazyLinks, LinkTemplates linkTemplates, IStringPool stringPool) {
+		this(lazyLinks, linkTemplates, stringPool, null);
+	}
+
+	/**
+	 * @param lazyLinks
+	 *            whether links shall only be created once they're asked for.
+	 * @param linkTemplates
+	 *            the templates that the links shall be created off,
+	 *            <code>null</code> if each link shall have its own copy of
+	 *            its parameters
+	 * @param stringPool
+	 *            the pool for the values that repeat across resources (ex.
+	 *            cartridge names), <code>null</code> for none
+	 * @param projection
+	 *            the properties of applications, gear groups and gears that
+	 *            shall get parsed, <code>null</code> for all of them
+	 */
+	public OpenShiftJsonStreamingDTOFactory(boolean lazyLinks, LinkTemplates linkTemplates, IStringPool stringPool,
+			ResponseProjection projection) {
+		this.lazyLinks = lazyLinks;
+		this.linkTemplates = linkTemplates;
+		this.stringPool = stringPool;
+		this.projection = projection;
+	}
+
+	/**
+	 * Returns a factory that shares the settings, templates and pool of this
+	 * one but only parses the properties that the given projection includes.
+	 * 
+	 * @param projection
+	 *            the properties to parse, <code>null</code> for all of them
+	 * @return the projecting factory
+	 */
+	public OpenShiftJsonStreamingDTOFactory project(ResponseProjection projection) {
+		return new OpenShiftJsonStreamingDTOFactory(lazyLinks, linkTemplates, stringPool, projection);
+	}
+
+	public ResponseProjection getProjection() {
+		return projection;
+	}
+
+	public RestResponse get(final String json) throws OpenShiftException {
+		// in case the server answers with 'no-content'
+		if (StringUtils.isEmpty(json)) {
+			return null;
+		}
+		LOGGER.trace("Unmarshalling response\n{}", json);
+		return createResponse(new JsonPullParser(json));
+	}
+
+	public RestResponse get(final InputStream json) throws OpenShiftException {
+		if (json == null) {
+			return null;
+		}
+		try {
+			Reader reader = new InputStreamReader(json, "UTF-8");
+			char[] buffer = new char[BUFFER_SIZE];
+			int length = 0;
+			int read = -1;
+			while ((read = reader.read(buffer, length, buffer.length - length)) != -1) {
+				length += read;
+				if (length == buffer.length) {
+					char[] grown = new char[buffer.length * 2];
+					System.arraycopy(buffer, 0, grown, 0, length);
+					buffer = grown;
+				}
+			}
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("Unmarshalling response\n{}", new String(buffer, 0, length));
+			}
+			return createResponse(new JsonPullParser(buffer, length));
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Could not unmarshall response: {0}", e.getMessage());
+		}
+	}
+
+	private RestResponse createResponse(JsonPullParser parser) throws OpenShiftException {
+		switch (parser.peek()) {
+		case END_DOCUMENT:
+			// in case the server answers with 'no-content'
+			return null;
+		case NULL:
+			throw new OpenShiftException("Could not unmarshall response: erroneous content.");
+		default:
+			break;
+		}
+		int rootPosition = parser.getPosition();
+		int dataPosition = NO_POSITION;
+		int domainPosition = NO_POSITION;
+		String type = null;
+		String status = null;
+		Messages messages = null;
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_TYPE.equals(name)) {
+				type = nextString(parser);
+			} else if (PROPERTY_STATUS.equals(name)) {
+				status = nextString(parser);
+			} else if (PROPERTY_MESSAGES.equals(name)) {
+				messages = createMessages(parser);
+			} else if (PROPERTY_DATA.equals(name)) {
+				dataPosition = parser.getPosition();
+				parser.skipValue();
+			} else if (PROPERTY_DOMAIN.equals(name)) {
+				domainPosition = parser.getPosition();
+				parser.skipValue();
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (messages == null) {
+			messages = new Messages(new LinkedHashMap<IField, List<Message>>());
+		}
+
+		final EnumDataType dataType = EnumDataType.safeValueOf(asString(type));
+		// the response is after an error, only the messages are relevant
+		if (dataType == null) {
+			return new RestResponse(asString(status), messages, null, null);
+		}
+
+		Object data = createData(dataType, messages, parser, rootPosition, dataPosition, domainPosition);
+		return new RestResponse(asString(status), messages, data, dataType);
+	}
+
+	private Object createData(EnumDataType dataType, Messages messages, JsonPullParser parser,
+			int rootPosition, int dataPosition, int domainPosition) throws OpenShiftException {
+		switch (dataType) {
+		case user:
+			return createUser(getResource(parser, rootPosition, dataPosition));
+		case keys:
+			return createKeys(parser, dataPosition);
+		case key:
+			return createKey(getResource(parser, rootPosition, dataPosition), messages);
+		case links:
+			return createLinks(getResource(parser, rootPosition, dataPosition));
+		case domains:
+			return createDomains(parser, dataPosition, domainPosition);
+		case domain:
+			return createDomain(getResource(parser, rootPosition, dataPosition), messages);
+		case applications:
+			return createApplications(parser, dataPosition);
+		case application:
+			return createApplication(getResource(parser, rootPosition, dataPosition), messages);
+		case gear_groups:
+			return createGearGroups(parser, dataPosition);
+		case cartridges:
+			if (dataPosition == NO_POSITION) {
+				return new LinkedHashMap<String, CartridgeResourceDTO>();
+			}
+			parser.setPosition(dataPosition);
+			return createCartridges(parser);
+		case cartridge:
+			return createCartridge(getResource(parser, rootPosition, dataPosition), messages);
+		case environment_variables:
+			return createEnvironmentVariables(parser, dataPosition);
+		case environment_variable:
+			return createEnvironmentVariable(getResource(parser, rootPosition, dataPosition), messages);
+
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a parser that is positioned at the single resource in the
+	 * response: the 'data' if there's such, the root otherwise. A resource
+	 * whose 'data' is <code>null</code> has no properties.
+	 */
+	private JsonPullParser getResource(JsonPullParser parser, int rootPosition, int dataPosition)
+			throws OpenShiftException {
+		if (dataPosition == NO_POSITION) {
+			parser.setPosition(rootPosition);
+			return parser;
+		}
+		parser.setPosition(dataPosition);
+		if (parser.peek() == Token.NULL) {
+			return new JsonPullParser(EMPTY_OBJECT);
+		}
+		return parser;
+	}
+
+	private Messages createMessages(JsonPullParser parser) throws OpenShiftException {
+		Map<IField, List<Message>> messagesByField = new LinkedHashMap<IField, List<Message>>();
+		if (parser.peek() != Token.BEGIN_ARRAY) {
+			parser.skipValue();
+			return new Messages(messagesByField);
+		}
+		parser.beginArray();
+		while (parser.hasNext()) {
+			if (parser.peek() != Token.BEGIN_OBJECT) {
+				parser.skipValue();
+				continue;
+			}
+			Message message = createMessage(parser);
+			List<Message> messages = messagesByField.get(message.getField());
+			if (messages == null) {
+				messages = new ArrayList<Message>();
+			}
+			messages.add(message);
+			messagesByField.put(message.getField(), messages);
+		}
+		parser.endArray();
+		return new Messages(messagesByField);
+	}
+
+	private Message createMessage(JsonPullParser parser) throws OpenShiftException {
+		String text = null;
+		String field = null;
+		int exitCode = -1;
+		String severity = null;
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_TEXT.equals(name)) {
+				text = nextString(parser);
+			} else if (PROPERTY_FIELD.equals(name)) {
+				field = intern(nextString(parser));
+			} else if (PROPERTY_EXIT_CODE.equals(name)) {
+				exitCode = parser.nextInt(-1);
+			} else if (PROPERTY_SEVERITY.equals(name)) {
+				severity = intern(nextString(parser));
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		return new Message(text, field, severity, exitCode);
+	}
+
+	private UserResourceDTO createUser(JsonPullParser parser) throws OpenShiftException {
+		UserResourceDTO data = null;
+		String rhlogin = null;
+		int maxGears = 0;
+		int consumedGears = 0;
+		Map<String, Link> links = new HashMap<String, Link>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_DATA.equals(name)) {
+				// loop inside 'data' node
+				data = createUser(parser);
+			} else if (PROPERTY_LOGIN.equals(name)) {
+				rhlogin = nextString(parser);
+			} else if (PROPERTY_MAX_GEARS.equals(name)) {
+				maxGears = parser.nextInt(0);
+			} else if (PROPERTY_CONSUMED_GEARS.equals(name)) {
+				consumedGears = parser.nextInt(0);
+			} else if (PROPERTY_LINKS.equals(name)) {
+				links = createLinks(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (data != null) {
+			return data;
+		}
+		return new UserResourceDTO(rhlogin, maxGears, consumedGears, links);
+	}
+
+	private List<KeyResourceDTO> createKeys(JsonPullParser parser, int dataPosition) throws OpenShiftException {
+		final List<KeyResourceDTO> keys = new ArrayList<KeyResourceDTO>();
+		if (!beginArray(parser, dataPosition)) {
+			return keys;
+		}
+		while (parser.hasNext()) {
+			if (parser.peek() == Token.BEGIN_OBJECT) {
+				keys.add(createKey(parser, null));
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endArray();
+		return keys;
+	}
+
+	private KeyResourceDTO createKey(JsonPullParser parser, Messages messages) throws OpenShiftException {
+		KeyResourceDTO data = null;
+		String keyName = null;
+		String type = null;
+		String content = null;
+		Map<String, Link> links = new HashMap<String, Link>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_DATA.equals(name)) {
+				// loop inside 'data' node
+				data = createKey(parser, messages);
+			} else if (PROPERTY_NAME.equals(name)) {
+				keyName = nextString(parser);
+			} else if (PROPERTY_TYPE.equals(name)) {
+				type = intern(nextString(parser));
+			} else if (PROPERTY_CONTENT.equals(name)) {
+				content = nextString(parser);
+			} else if (PROPERTY_LINKS.equals(name)) {
+				links = createLinks(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (data != null) {
+			return data;
+		}
+		return new KeyResourceDTO(keyName, type, content, links, messages);
+	}
+
+	/**
+	 * Creates the links in the object at the current position, the ones in
+	 * its 'data' if it has such.
+	 */
+	private Map<String, Link> createLinks(JsonPullParser parser) throws OpenShiftException {
+		Map<String, Link> links = new HashMap<String, Link>();
+		if (parser.peek() != Token.BEGIN_OBJECT) {
+			parser.skipValue();
+			return links;
+		}
+		if (lazyLinks) {
+			int start = parser.getPosition();
+			parser.skipValue();
+			return createLazyLinks(parser.getJson(start, parser.getPosition()));
+		}
+		Map<String, Link> data = null;
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String linkName = parser.nextName();
+			if (PROPERTY_DATA.equals(linkName)) {
+				// loop inside 'data' node
+				data = createLinks(parser);
+			} else if (parser.peek() == Token.BEGIN_OBJECT) {
+				linkName = intern(linkName);
+				links.put(linkName, createLink(linkName, parser));
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (data != null) {
+			return data;
+		}
+		return links;
+	}
+
+	/**
+	 * Indexes the links in the given json object, the ones in its 'data' if
+	 * it has such.
+	 */
+	private Map<String, Link> createLazyLinks(String json) throws OpenShiftException {
+		char[] chars = json.toCharArray();
+		JsonPullParser parser = new JsonPullParser(chars, chars.length);
+		List<String> names = new ArrayList<String>();
+		List<Integer> positions = new ArrayList<Integer>();
+		Map<String, Link> data = null;
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String linkName = parser.nextName();
+			if (PROPERTY_DATA.equals(linkName)) {
+				// loop inside 'data' node
+				data = createLinks(parser);
+			} else if (parser.peek() == Token.BEGIN_OBJECT) {
+				int index = names.indexOf(linkName);
+				if (index >= 0) {
+					positions.set(index, parser.getPosition());
+				} else {
+					names.add(intern(linkName));
+					positions.add(parser.getPosition());
+				}
+				parser.skipValue();
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (data != null) {
+			return data;
+		}
+		return new LazyLinks(chars, names, positions);
+	}
+
+	private Link createLink(final String linkName, JsonPullParser parser) throws OpenShiftException {
+		String rel = null;
+		String href = null;
+		String method = null;
+		List<LinkParameter> requiredParams = new ArrayList<LinkParameter>();
+		List<LinkParameter> optionalParams = new ArrayList<LinkParameter>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_REL.equals(name)) {
+				rel = intern(nextString(parser));
+			} else if (PROPERTY_HREF.equals(name)) {
+				href = nextString(parser);
+			} else if (PROPERTY_METHOD.equals(name)) {
+				method = nextString(parser);
+			} else if (PROPERTY_REQUIRED_PARAMS.equals(name)) {
+				requiredParams = createLinkParameters(parser);
+			} else if (PROPERTY_OPTIONAL_PARAMS.equals(name)) {
+				optionalParams = createLinkParameters(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (linkTemplates != null) {
+			return linkTemplates.createLink(
+					linkName, rel, asString(href), asString(method), requiredParams, optionalParams);
+		}
+		return new Link(linkName, rel, asString(href), asString(method), requiredParams, optionalParams);
+	}
+
+	private List<LinkParameter> createLinkParameters(JsonPullParser parser) throws OpenShiftException {
+		List<LinkParameter> linkParams = new ArrayList<LinkParameter>();
+		if (parser.peek() != Token.BEGIN_ARRAY) {
+			parser.skipValue();
+			return linkParams;
+		}
+		parser.beginArray();
+		while (parser.hasNext()) {
+			linkParams.add(createLinkParameter(parser));
+		}
+		parser.endArray();
+		return linkParams;
+	}
+
+	private LinkParameter createLinkParameter(JsonPullParser parser) throws OpenShiftException {
+		String description = null;
+		String type = null;
+		String defaultValue = null;
+		String parameterName = null;
+		List<String> validOptions = new ArrayList<String>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_DESCRIPTION.equals(name)) {
+				description = nextString(parser);
+			} else if (PROPERTY_TYPE.equals(name)) {
+				type = nextString(parser);
+			} else if (PROPERTY_DEFAULT_VALUE.equals(name)) {
+				defaultValue = nextString(parser);
+			} else if (PROPERTY_NAME.equals(name)) {
+				parameterName = nextString(parser);
+			} else if (PROPERTY_VALID_OPTIONS.equals(name)) {
+				validOptions = createValidOptions(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		return new LinkParameter(intern(asString(parameterName)), intern(asString(type)),
+				intern(asString(defaultValue)), intern(asString(description)), validOptions);
+	}
+
+	private List<String> createValidOptions(JsonPullParser parser) throws OpenShiftException {
+		final List<String> validOptions = new ArrayList<String>();
+		switch (parser.peek()) {
+		case STRING:
+			// if there's only one value, it is not serialized as a list, but
+			// just a string
+			validOptions.add(intern(nextString(parser)));
+			break;
+		case BEGIN_ARRAY:
+			parser.beginArray();
+			while (parser.hasNext()) {
+				validOptions.add(intern(asString(nextString(parser))));
+			}
+			parser.endArray();
+			break;
+		default:
+			parser.skipValue();
+		}
+		return validOptions;
+	}
+
+	private List<DomainResourceDTO> createDomains(JsonPullParser parser, int dataPosition, int domainPosition)
+			throws OpenShiftException {
+		final List<DomainResourceDTO> domains = new ArrayList<DomainResourceDTO>();
+		// temporarily supporting absence of 'data' node in the 'domain'
+		// response message
+		if (dataPosition != NO_POSITION) {
+			if (!beginArray(parser, dataPosition)) {
+				return domains;
+			}
+			while (parser.hasNext()) {
+				assertObject(parser);
+				domains.add(createDomain(parser, null));
+			}
+			parser.endArray();
+		} else if (domainPosition != NO_POSITION) {
+			parser.setPosition(domainPosition);
+			assertObject(parser);
+			domains.add(createDomain(parser, null));
+		} else {
+			throw new OpenShiftException("Unexpected node type: {0}", Token.END_DOCUMENT);
+		}
+		return domains;
+	}
+
+	private DomainResourceDTO createDomain(JsonPullParser parser, Messages messages) throws OpenShiftException {
+		DomainResourceDTO data = null;
+		String namespace = null;
+		String suffix = null;
+		Map<String, Link> links = new HashMap<String, Link>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_DATA.equals(name)) {
+				// recurse into "data" node
+				data = createDomain(parser, messages);
+			} else if (PROPERTY_ID.equals(name)) {
+				namespace = nextString(parser);
+			} else if (PROPERTY_SUFFIX.equals(name)) {
+				suffix = intern(nextString(parser));
+			} else if (PROPERTY_LINKS.equals(name)) {
+				links = createLinks(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (data != null) {
+			return data;
+		}
+		return new DomainResourceDTO(namespace, suffix, links, messages);
+	}
+
+	private List<ApplicationResourceDTO> createApplications(JsonPullParser parser, int dataPosition)
+			throws OpenShiftException {
+		final List<ApplicationResourceDTO> applicationDTOs = new ArrayList<ApplicationResourceDTO>();
+		if (!beginArray(parser, dataPosition)) {
+			return applicationDTOs;
+		}
+		while (parser.hasNext()) {
+			applicationDTOs.add(createApplication(parser, null));
+		}
+		parser.endArray();
+		return applicationDTOs;
+	}
+
+	private ApplicationResourceDTO createApplication(JsonPullParser parser, Messages messages)
+			throws OpenShiftException {
+		ApplicationResourceDTO data = null;
+		String framework = null;
+		String creationTime = null;
+		String applicationName = null;
+		String uuid = null;
+		String scalable = null;
+		String gearProfile = null;
+		String applicationUrl = null;
+		String sshUrl = null;
+		String gitUrl = null;
+		String initialGitUrl = null;
+		String domainId = null;
+		Map<String, Link> links = new HashMap<String, Link>();
+		List<String> aliases = null;
+		Map<String, CartridgeResourceDTO> cartridges = new LinkedHashMap<String, CartridgeResourceDTO>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_DATA.equals(name)) {
+				// recurse into 'data' node
+				data = createApplication(parser, messages);
+			} else if (!isProjected(name)) {
+				parser.skipValue();
+			} else if (PROPERTY_FRAMEWORK.equals(name)) {
+				framework = intern(nextString(parser));
+			} else if (PROPERTY_CREATION_TIME.equals(name)) {
+				creationTime = nextString(parser);
+			} else if (PROPERTY_NAME.equals(name)) {
+				applicationName = nextString(parser);
+			} else if (PROPERTY_UUID.equals(name)) {
+				uuid = nextString(parser);
+			} else if (PROPERTY_SCALABLE.equals(name)) {
+				scalable = nextString(parser);
+			} else if (PROPERTY_GEAR_PROFILE.equals(name)) {
+				gearProfile = intern(nextString(parser));
+			} else if (PROPERTY_APP_URL.equals(name)) {
+				applicationUrl = nextString(parser);
+			} else if (PROPERTY_SSH_URL.equals(name)) {
+				sshUrl = nextString(parser);
+			} else if (PROPERTY_GIT_URL.equals(name)) {
+				gitUrl = nextString(parser);
+			} else if (PROPERTY_INITIAL_GIT_URL.equals(name)) {
+				initialGitUrl = nextString(parser);
+			} else if (PROPERTY_DOMAIN_ID.equals(name)) {
+				domainId = intern(nextString(parser));
+			} else if (PROPERTY_LINKS.equals(name)) {
+				links = createLinks(parser);
+			} else if (PROPERTY_ALIASES.equals(name)) {
+				aliases = createAliases(parser);
+			} else if (PROPERTY_CARTRIDGES.equals(name)) {
+				cartridges = createCartridges(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (data != null) {
+			return data;
+		}
+		if (aliases == null) {
+			aliases = new ArrayList<String>();
+			if (isProjected(PROPERTY_ALIASES)) {
+				aliases.add(UNDEFINED);
+			}
+		}
+
+		return new ApplicationResourceDTO(
+				framework,
+				domainId,
+				creationTime,
+				applicationName,
+				createGearProfile(gearProfile),
+				ApplicationScale.safeValueOf(scalable),
+				uuid,
+				applicationUrl,
+				sshUrl,
+				gitUrl,
+				initialGitUrl,
+				aliases,
+				cartridges,
+				links,
+				messages);
+	}
+
+	private GearProfile createGearProfile(String gearProfileName) {
+		if (gearProfileName == null) {
+			return null;
+		}
+		return new GearProfile(gearProfileName);
+	}
+
+	private List<String> createAliases(JsonPullParser parser) throws OpenShiftException {
+		final List<String> aliases = new ArrayList<String>();
+		switch (parser.peek()) {
+		case BEGIN_ARRAY:
+			parser.beginArray();
+			while (parser.hasNext()) {
+				aliases.add(asString(nextString(parser)));
+			}
+			parser.endArray();
+			break;
+		case BEGIN_OBJECT:
+			for (ModelNode aliasNode : ModelNode.fromJSONString(parser.nextValue()).asList()) {
+				aliases.add(aliasNode.asString());
+			}
+			break;
+		default:
+			aliases.add(asString(nextString(parser)));
+		}
+		return aliases;
+	}
+
+	private Collection<GearGroupResourceDTO> createGearGroups(JsonPullParser parser, int dataPosition)
+			throws OpenShiftException {
+		Collection<GearGroupResourceDTO> gearGroupDTOs = new ArrayList<GearGroupResourceDTO>();
+		if (!beginArray(parser, dataPosition)) {
+			return gearGroupDTOs;
+		}
+		while (parser.hasNext()) {
+			gearGroupDTOs.add(createGearGroupResourceDTO(parser));
+		}
+		parser.endArray();
+		return gearGroupDTOs;
+	}
+
+	private GearGroupResourceDTO createGearGroupResourceDTO(JsonPullParser parser) throws OpenShiftException {
+		String uuid = null;
+		String gearGroupName = null;
+		Collection<GearResourceDTO> gears = new ArrayList<GearResourceDTO>();
+		Map<String, CartridgeResourceDTO> cartridges = new LinkedHashMap<String, CartridgeResourceDTO>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (!isProjected(name)) {
+				parser.skipValue();
+			} else if (PROPERTY_UUID.equals(name)) {
+				uuid = nextString(parser);
+			} else if (PROPERTY_NAME.equals(name)) {
+				gearGroupName = intern(nextString(parser));
+			} else if (PROPERTY_GEARS.equals(name)) {
+				gears = createGears(parser);
+			} else if (PROPERTY_CARTRIDGES.equals(name)) {
+				cartridges = createCartridges(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		return new GearGroupResourceDTO(uuid, gearGroupName, gears, cartridges);
+	}
+
+	private Collection<GearResourceDTO> createGears(JsonPullParser parser) throws OpenShiftException {
+		List<GearResourceDTO> gears = new ArrayList<GearResourceDTO>();
+		if (parser.peek() != Token.BEGIN_ARRAY) {
+			parser.skipValue();
+			return gears;
+		}
+		parser.beginArray();
+		while (parser.hasNext()) {
+			gears.add(createGear(parser));
+		}
+		parser.endArray();
+		return gears;
+	}
+
+	private GearResourceDTO createGear(JsonPullParser parser) throws OpenShiftException {
+		String id = null;
+		String state = null;
+		String sshUrl = null;
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (!isProjected(name)) {
+				parser.skipValue();
+			} else if (PROPERTY_ID.equals(name)) {
+				id = nextString(parser);
+			} else if (PROPERTY_GEAR_STATE.equals(name)) {
+				state = intern(nextString(parser));
+			} else if (PROPERTY_SSH_URL.equals(name)) {
+				sshUrl = nextString(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		return new GearResourceDTO(id, state, sshUrl);
+	}
+
+	private Map<String, CartridgeResourceDTO> createCartridges(JsonPullParser parser) throws OpenShiftException {
+		final Map<String, CartridgeResourceDTO> cartridgesByName = new LinkedHashMap<String, CartridgeResourceDTO>();
+		if (parser.peek() != Token.BEGIN_ARRAY) {
+			parser.skipValue();
+			return cartridgesByName;
+		}
+		parser.beginArray();
+		while (parser.hasNext()) {
+			CartridgeResourceDTO cartridgeResourceDTO = createCartridge(parser, null);
+			cartridgesByName.put(cartridgeResourceDTO.getName(), cartridgeResourceDTO);
+		}
+		parser.endArray();
+		return cartridgesByName;
+	}
+
+	private CartridgeResourceDTO createCartridge(JsonPullParser parser, Messages messages)
+			throws OpenShiftException {
+		CartridgeResourceDTO data = null;
+		String cartridgeName = null;
+		String displayName = null;
+		String description = null;
+		String type = null;
+		String url = null;
+		CartridgeResourceProperties properties = null;
+		Map<String, Link> links = new HashMap<String, Link>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_DATA.equals(name)) {
+				// recurse into 'data' node
+				data = createCartridge(parser, messages);
+			} else if (PROPERTY_NAME.equals(name)) {
+				cartridgeName = intern(nextString(parser));
+			} else if (PROPERTY_DISPLAY_NAME.equals(name)) {
+				displayName = intern(nextString(parser));
+			} else if (PROPERTY_DESCRIPTION.equals(name)) {
+				description = intern(nextString(parser));
+			} else if (PROPERTY_TYPE.equals(name)) {
+				type = intern(nextString(parser));
+			} else if (PROPERTY_URL.equals(name)) {
+				url = nextString(parser);
+			} else if (PROPERTY_PROPERTIES.equals(name)) {
+				properties = createProperties(parser);
+			} else if (PROPERTY_LINKS.equals(name)) {
+				links = createLinks(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (data != null) {
+			return data;
+		}
+		return new CartridgeResourceDTO(cartridgeName, displayName, description, type, createUrl(url, cartridgeName),
+				properties, links, messages);
+	}
+
+	private URL createUrl(String url, String name) {
+		try {
+			if (url == null) {
+				return null;
+			}
+			return new URL(url);
+		} catch (MalformedURLException e) {
+			LOGGER.warn("Url {} in server response for cartridge {} is not a valid URL.", url, name);
+			return null;
+		}
+	}
+
+	private CartridgeResourceProperties createProperties(JsonPullParser parser) throws OpenShiftException {
+		switch (parser.peek()) {
+		case NULL:
+			parser.skipValue();
+			return null;
+		case BEGIN_ARRAY:
+			break;
+		default:
+			parser.skipValue();
+			return new CartridgeResourceProperties();
+		}
+		CartridgeResourceProperties properties = new CartridgeResourceProperties();
+		parser.beginArray();
+		while (parser.hasNext()) {
+			CartridgeResourceProperty property = createProperty(parser);
+			String name = property.getName();
+			if (StringUtils.isEmpty(name)) {
+				continue;
+			}
+			properties.add(name, property);
+		}
+		parser.endArray();
+		return properties;
+	}
+
+	private CartridgeResourceProperty createProperty(JsonPullParser parser) throws OpenShiftException {
+		String propertyName = null;
+		String description = null;
+		String type = null;
+		String value = null;
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_NAME.equals(name)) {
+				propertyName = intern(nextString(parser));
+			} else if (PROPERTY_DESCRIPTION.equals(name)) {
+				description = intern(nextString(parser));
+			} else if (PROPERTY_TYPE.equals(name)) {
+				type = intern(nextString(parser));
+			} else if (PROPERTY_VALUE.equals(name)) {
+				value = nextString(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		return new CartridgeResourceProperty(propertyName, type, description, value);
+	}
+
+	private List<EnvironmentVariableResourceDTO> createEnvironmentVariables(JsonPullParser parser, int dataPosition)
+			throws OpenShiftException {
+		final List<EnvironmentVariableResourceDTO> environmentVariables = new ArrayList<EnvironmentVariableResourceDTO>();
+		if (!beginArray(parser, dataPosition)) {
+			return environmentVariables;
+		}
+		while (parser.hasNext()) {
+			environmentVariables.add(createEnvironmentVariable(parser, null));
+		}
+		parser.endArray();
+		return environmentVariables;
+	}
+
+	private EnvironmentVariableResourceDTO createEnvironmentVariable(JsonPullParser parser, Messages messages)
+			throws OpenShiftException {
+		EnvironmentVariableResourceDTO data = null;
+		String variableName = null;
+		String value = null;
+		Map<String, Link> links = new HashMap<String, Link>();
+		parser.beginObject();
+		while (parser.hasNext()) {
+			String name = parser.nextName();
+			if (PROPERTY_DATA.equals(name)) {
+				// recurse into 'data' node
+				data = createEnvironmentVariable(parser, messages);
+			} else if (PROPERTY_NAME.equals(name)) {
+				variableName = intern(nextString(parser));
+			} else if (PROPERTY_VALUE.equals(name)) {
+				value = nextString(parser);
+			} else if (PROPERTY_LINKS.equals(name)) {
+				links = createLinks(parser);
+			} else {
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+		if (data != null) {
+			return data;
+		}
+		return new EnvironmentVariableResourceDTO(variableName, value, links, messages);
+	}
+
+	/**
+	 * Moves the parser to the given position and enters the array that it's
+	 * at. Returns <code>false</code> if there's no such position or if
+	 * there's no array at it.
+	 */
+	private boolean beginArray(JsonPullParser parser, int position) throws OpenShiftException {
+		if (position == NO_POSITION) {
+			return false;
+		}
+		parser.setPosition(position);
+		if (parser.peek() != Token.BEGIN_ARRAY) {
+			return false;
+		}
+		parser.beginArray();
+		return true;
+	}
+
+	private void assertObject(JsonPullParser parser) throws OpenShiftException {
+		Token token = parser.peek();
+		if (token != Token.BEGIN_OBJECT) {
+			throw new OpenShiftException("Unexpected node type: {0}", token);
+		}
+	}
+
+	/**
+	 * Returns the next value as string. Objects and arrays are rare where
+	 * strings are expected, they're handed to jboss-dmr so that they end up
+	 * in the same notation as they do with {@link OpenShiftJsonDTOFactory}.
+	 */
+	private String nextString(JsonPullParser parser) throws OpenShiftException {
+		switch (parser.peek()) {
+		case BEGIN_OBJECT:
+		case BEGIN_ARRAY:
+			return ModelNode.fromJSONString(parser.nextValue()).asString();
+		default:
+			return parser.nextString();
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the property with the given name shall get
+	 * parsed, which it shall unless there's a projection that excludes it.
+	 */
+	private boolean isProjected(String property) {
+		return projection == null
+				|| projection.includes(property);
+	}
+
+	/**
+	 * Returns the pooled string that's equal to the given one if there's a
+	 * string pool.
+	 */
+	private String intern(String value) {
+		if (stringPool == null) {
+			return value;
+		}
+		return stringPool.intern(value);
+	}
+
+	private String asString(String value) {
+		if (value == null) {
+			return UNDEFINED;
+		}
+		return value;
+	}
+
+	/**
+	 * Links that are kept as json and created once they're asked for. They
+	 * can't be modified.
+	 */
+	private class LazyLinks extends AbstractMap<String, Link> {
+
+		private final char[] json;
+		private final String[] names;
+		private final int[] positions;
+		private final Link[] links;
+
+		private LazyLinks(char[] json, List<String> names, List<Integer> positions) {
+			this.json = json;
+			this.names = names.toArray(new String[names.size()]);
+			this.positions = new int[positions.size()];
+			for (int i = 0; i < this.positions.length; i++) {
+				this.positions[i] = positions.get(i);
+			}
+			this.links = new Link[this.names.length];
+		}
+
+		@Override
+		public Link get(Object name) {
+			int index = indexOf(name);
+			if (index < 0) {
+				return null;
+			}
+			return getLink(index);
+		}
+
+		@Override
+		public boolean containsKey(Object name) {
+			return indexOf(name) >= 0;
+		}
+
+		@Override
+		public int size() {
+			return names.length;
+		}
+
+		@Override
+		public Set<Entry<String, Link>> entrySet() {
+			return new AbstractSet<Entry<String, Link>>() {
+
+				@Override
+				public Iterator<Entry<String, Link>> iterator() {
+					return new Iterator<Entry<String, Link>>() {
+
+						private int index = 0;
+
+						@Override
+						public boolean hasNext() {
+							return index < names.length;
+						}
+
+						@Override
+						public Entry<String, Link> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							Link link = getLink(index);
+							return new SimpleImmutableEntry<String, Link>(names[index++], link);
+						}
+
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return names.length;
+				}
+			};
+		}
+
+		private int indexOf(Object name) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equals(name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private synchronized Link getLink(int index) {
+			if (links[index] == null) {
+				JsonPullParser parser = new JsonPullParser(json, json.length);
+				parser.setPosition(positions[index]);
+				try {
+					links[index] = createLink(names[index], parser);
+				} catch (IllegalArgumentException e) {
+					throw new OpenShiftException(e, "Could not create link \"{0}\": {1}", names[index], e.getMessage());
+				}
+			}
+			return links[index];
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_APP_URL;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_CREATION_TIME;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_DOMAIN_ID;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_FRAMEWORK;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_GEARS;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_GEAR_PROFILE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_GEAR_STATE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_ID;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_NAME;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_SCALABLE;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_SSH_URL;
+import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_UUID;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The properties of the resources in a response that shall get parsed. All
+ * other properties (and the subtrees below them) are skipped without being
+ * materialized: resources then have empty links, cartridges, aliases etc.
+ * and <code>null</code> for the values that were not parsed. The properties
+ * are matched by name, regardless of the resource they're in: a projection
+ * that shall reach the gears of gear groups has to include the property
+ * "gears".
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see OpenShiftJsonStreamingDTOFactory#project(ResponseProjection)
+ * @see com.openshift.internal.client.IRestService#request(Link, ResponseProjection, java.util.List,
+ *      com.openshift.internal.client.httpclient.request.Parameter...)
+ */
+public class ResponseProjection {
+
+	/** the plain values of applications, no links, cartridges or aliases */
+	public static final ResponseProjection APPLICATION_SUMMARY = new ResponseProjection(
+			PROPERTY_NAME, PROPERTY_UUID, PROPERTY_FRAMEWORK, PROPERTY_DOMAIN_ID, PROPERTY_CREATION_TIME,
+			PROPERTY_SCALABLE, PROPERTY_GEAR_PROFILE, PROPERTY_APP_URL);
+
+	/** the gears of gear groups, no cartridges */
+	public static final ResponseProjection GEARS = new ResponseProjection(
+			PROPERTY_GEARS, PROPERTY_ID, PROPERTY_GEAR_STATE, PROPERTY_SSH_URL);
+
+	private final Set<String> properties;
+
+	public ResponseProjection(String... properties) {
+		this.properties = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(properties)));
+	}
+
+	/**
+	 * Returns <code>true</code> if the property with the given name shall get
+	 * parsed.
+	 */
+	public boolean includes(String property) {
+		return properties.contains(property);
+	}
+
+	public Set<String> getProperties() {
+		return properties;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((properties == null) ? 0 : properties.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ResponseProjection other = (ResponseProjection) obj;
+		if (properties == null) {
+			if (other.properties != null)
+				return false;
+		} else if (!properties.equals(other.properties))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "ResponseProjection [properties=" + properties + "]";
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded string pool. Strings are pooled until the maximum size is
+ * reached, further ones are then handed back as they are. The values that
+ * repeat are low in cardinality, they are met (and pooled) early. Strings
+ * that are longer than the given maximum length are not pooled.
+ * 
+ * @author Andre Dietisheim
+ */
+public class StringPool implements IStringPool {
+
+	private static final int DEFAULT_MAX_SIZE = 4 * 1024;
+	private static final int DEFAULT_MAX_LENGTH = 1024;
+
+	/** header and fields of a string and header of its char array */
+	private static final int STRING_OVERHEAD = 40;
+
+	private final int maxSize;
+	private final int maxLength;
+	private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<String, String>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong bytesSaved = new AtomicLong();
+
+	public StringPool() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_MAX_LENGTH);
+	}
+
+	/**
+	 * @param maxSize
+	 *            the maximum number of strings to pool
+	 * @param maxLength
+	 *            the length above which strings are not pooled
+	 */
+	public StringPool(int maxSize, int maxLength) {
+		this.maxSize = maxSize;
+		this.maxLength = maxLength;
+	}
+
+	@Override
+	public String intern(String value) {
+		if (value == null
+				|| value.length() > maxLength) {
+			return value;
+		}
+		String pooled = strings.get(value);
+		if (pooled == null) {
+			if (strings.size() >= maxSize
+					|| (pooled = strings.putIfAbsent(value, value)) == null) {
+				misses.incrementAndGet();
+				return value;
+			}
+		}
+		hits.incrementAndGet();
+		if (pooled != value) {
+			bytesSaved.addAndGet(getSize(value));
+		}
+		return pooled;
+	}
+
+	/**
+	 * Returns the (estimated) number of bytes that the given string occupies
+	 * on the heap.
+	 */
+	private long getSize(String value) {
+		// chars, aligned to 8 bytes
+		return STRING_OVERHEAD + ((value.length() * 2 + 7) & ~7);
+	}
+
+	@Override
+	public StringPoolStatistics getStatistics() {
+		return new StringPoolStatistics(strings.size(), maxSize, hits.get(), misses.get(), bytesSaved.get());
+	}
+
+	/**
+	 * Removes all strings from the pool.
+	 */
+	public void clear() {
+		strings.clear();
+	}
+}
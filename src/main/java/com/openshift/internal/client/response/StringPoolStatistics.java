@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+/**
+ * A snapshot of the state of an {@link IStringPool}.
+ *
+ * @author Andre Dietisheim
+ */
+public class StringPoolStatistics {
+
+	private final int size;
+	private final int maxSize;
+	private final long hits;
+	private final long misses;
+	private final long bytesSaved;
+
+	public StringPoolStatistics(int size, int maxSize, long hits, long misses, long bytesSaved) {
+		this.size = size;
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.bytesSaved = bytesSaved;
+	}
+
+	/**
+	 * Returns the number of strings that are pooled.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the maximum number of strings that are pooled.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of strings that were replaced by a pooled one.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of strings that had no pooled equal.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the share of the lookups that hit (0 to 1).
+	 */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		if (lookups == 0) {
+			return 0;
+		}
+		return (double) hits / lookups;
+	}
+
+	/**
+	 * Returns the (estimated) number of bytes that the strings occupied that
+	 * were replaced by pooled ones.
+	 */
+	public long getBytesSaved() {
+		return bytesSaved;
+	}
+
+	@Override
+	public String toString() {
+		return "StringPoolStatistics ["
+				+ "size=" + size + ", "
+				+ "maxSize=" + maxSize + ", "
+				+ "hits=" + hits + ", "
+				+ "misses=" + misses + ", "
+				+ "bytesSaved=" + bytesSaved
+				+ "]";
+	}
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.fakes;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A http proxy fake that tunnels connections (CONNECT) to the requested
+ * host. Refuses to tunnel with the given status line if one is set.
+ *
+ * @author Andre Dietisheim
+ */
+public class HttpProxyFake {
+
+	private ExecutorService executor;
+	private ServerSocket serverSocket;
+	private final AtomicInteger tunnels = new AtomicInteger();
+	private String refusal;
+
+	/**
+	 * Makes the proxy refuse to tunnel, answering with the given status line
+	 * (ex. HTTP/1.1 407 Proxy Authentication Required).
+	 */
+	public HttpProxyFake setRefusal(String statusLine) {
+		this.refusal = statusLine;
+		return this;
+	}
+
+	public void start() throws IOException {
+		this.executor = Executors.newCachedThreadPool();
+		this.serverSocket = new ServerSocket(0);
+		executor.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (!serverSocket.isClosed()) {
+						final Socket socket = serverSocket.accept();
+						executor.submit(new Runnable() {
+
+							@Override
+							public void run() {
+								serve(socket);
+							}
+						});
+					}
+				} catch (IOException e) {
+					// proxy stopped
+				}
+			}
+		});
+	}
+
+	private void serve(Socket client) {
+		Socket server = null;
+		try {
+			InputStream in = new BufferedInputStream(client.getInputStream());
+			OutputStream out = client.getOutputStream();
+			String requestLine = readLine(in);
+			while (readLine(in).length() > 0) {
+				// skip headers
+			}
+			if (refusal != null
+					|| !requestLine.startsWith("CONNECT ")) {
+				out.write((refusal + "\r\nContent-Length: 0\r\n\r\n").getBytes());
+				out.flush();
+				return;
+			}
+			String[] authority = requestLine.split(" ")[1].split(":");
+			server = new Socket(authority[0], Integer.parseInt(authority[1]));
+			tunnels.incrementAndGet();
+			out.write("HTTP/1.1 200 Connection established\r\n\r\n".getBytes());
+			out.flush();
+			executor.submit(pipe(server.getInputStream(), out));
+			pipe(in, server.getOutputStream()).run();
+		} catch (IOException e) {
+			// client closed
+		} finally {
+			close(server);
+			close(client);
+		}
+	}
+
+	private Runnable pipe(final InputStream in, final OutputStream out) {
+		return new Runnable() {
+
+			@Override
+			public void run() {
+				byte[] buffer = new byte[1024];
+				int read = -1;
+				try {
+					while ((read = in.read(buffer)) != -1) {
+						out.write(buffer, 0, read);
+						out.flush();
+					}
+				} catch (IOException e) {
+					// closed
+				}
+			}
+		};
+	}
+
+	private String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int character = -1;
+		while ((character = in.read()) != -1) {
+			if (character == '\n') {
+				return line.toString().trim();
+			}
+			line.write(character);
+		}
+		throw new IOException("Connection closed");
+	}
+
+	private void close(Socket socket) {
+		if (socket == null) {
+			return;
+		}
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	public Proxy getProxy() {
+		return new Proxy(Proxy.Type.HTTP, new InetSocketAddress("localhost", serverSocket.getLocalPort()));
+	}
+
+	public int getTunnels() {
+		return tunnels.get();
+	}
+
+	public void stop() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.fakes;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.text.MessageFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * A http server fake that keeps connections open (HTTP/1.1 keep-alive) and
+ * answers each request with the request head that it received.
+ *
+ * @author Andre Dietisheim
+ */
+public class KeepAliveHttpServerFake {
+
+	private static final String KEYSTORE = "/localhost.jks";
+	private static final String KEYSTORE_PASSWORD = "openshift";
+
+	private ExecutorService executor;
+	private ServerSocket serverSocket;
+	private final String statusLine;
+	private final boolean chunked;
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicInteger requests = new AtomicInteger();
+	private String contentEncoding;
+	private String body;
+	private String etag;
+	private boolean closeAfterResponse;
+	private String redirectStatusLine;
+	private String redirectLocation;
+	private SSLContext sslContext;
+
+	public KeepAliveHttpServerFake() {
+		this("HTTP/1.1 200 OK", false);
+	}
+
+	/**
+	 * @param statusLine
+	 *            the status line to respond with
+	 * @param chunked
+	 *            whether the response shall be sent with chunked transfer
+	 *            encoding
+	 */
+	public KeepAliveHttpServerFake(String statusLine, boolean chunked) {
+		this.statusLine = statusLine;
+		this.chunked = chunked;
+	}
+
+	/**
+	 * Sets the encoding (gzip or deflate) that the response shall be
+	 * compressed with if the request accepts it.
+	 */
+	public KeepAliveHttpServerFake setContentEncoding(String contentEncoding) {
+		this.contentEncoding = contentEncoding;
+		return this;
+	}
+
+	/**
+	 * Sets the body that the server shall respond with instead of echoing the
+	 * request.
+	 */
+	public KeepAliveHttpServerFake setBody(String body) {
+		this.body = body;
+		return this;
+	}
+
+	/**
+	 * Sets the ETag that the server shall send with its responses. Requests
+	 * that match it (If-None-Match) are answered with 304 (Not Modified).
+	 */
+	public KeepAliveHttpServerFake setETag(String etag) {
+		this.etag = etag;
+		return this;
+	}
+
+	/**
+	 * Makes the server redirect all requests that are not for the given
+	 * location (path) to it, using the given status line.
+	 */
+	public KeepAliveHttpServerFake setRedirect(String statusLine, String location) {
+		this.redirectStatusLine = statusLine;
+		this.redirectLocation = location;
+		return this;
+	}
+
+	/**
+	 * Makes the server close each connection after its first response
+	 * without announcing it, as servers do with connections that were idle
+	 * for too long.
+	 */
+	public KeepAliveHttpServerFake setCloseAfterResponse() {
+		this.closeAfterResponse = true;
+		return this;
+	}
+
+	/**
+	 * Makes the server accept tls connections only, using the certificate in
+	 * the test keystore (localhost.jks).
+	 */
+	public KeepAliveHttpServerFake setSecure() throws GeneralSecurityException, IOException {
+		KeyStore keyStore = KeyStore.getInstance("JKS");
+		InputStream in = getClass().getResourceAsStream(KEYSTORE);
+		try {
+			keyStore.load(in, KEYSTORE_PASSWORD.toCharArray());
+		} finally {
+			in.close();
+		}
+		KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(keyStore, KEYSTORE_PASSWORD.toCharArray());
+		this.sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+		return this;
+	}
+
+	public void start() throws IOException {
+		this.executor = Executors.newCachedThreadPool();
+		if (sslContext != null) {
+			this.serverSocket = sslContext.getServerSocketFactory().createServerSocket(0);
+		} else {
+			this.serverSocket = new ServerSocket(0);
+		}
+		executor.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (!serverSocket.isClosed()) {
+						final Socket socket = serverSocket.accept();
+						connections.incrementAndGet();
+						executor.submit(new Runnable() {
+
+							@Override
+							public void run() {
+								serve(socket);
+							}
+						});
+					}
+				} catch (IOException e) {
+					// server stopped
+				}
+			}
+		});
+	}
+
+	private void serve(Socket socket) {
+		try {
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			OutputStream out = socket.getOutputStream();
+			String request = null;
+			while ((request = readRequest(in)) != null) {
+				requests.incrementAndGet();
+				writeResponse(request, out);
+				if (closeAfterResponse) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// client closed
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	protected String readRequest(InputStream in) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		int contentLength = 0;
+		String line = null;
+		while ((line = readLine(in)) != null) {
+			if (line.length() == 0) {
+				break;
+			}
+			if (line.toLowerCase().startsWith("content-length:")) {
+				contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+			}
+			builder.append(line).append('\n');
+		}
+		if (line == null) {
+			return null;
+		}
+		for (int i = 0; i < contentLength; i++) {
+			builder.append((char) in.read());
+		}
+		return builder.toString();
+	}
+
+	protected void writeResponse(String request, OutputStream out) throws IOException {
+		if (redirectLocation != null
+				&& !request.contains(" " + redirectLocation + " ")) {
+			out.write((redirectStatusLine + "\r\nLocation: " + redirectLocation
+					+ "\r\nContent-Length: 0\r\n\r\n").getBytes());
+			out.flush();
+			return;
+		}
+		if (etag != null
+				&& request.contains("If-None-Match: " + etag)) {
+			out.write(("HTTP/1.1 304 Not Modified\r\nETag: " + etag + "\r\n\r\n").getBytes());
+			out.flush();
+			return;
+		}
+		byte[] body = request.getBytes();
+		if (this.body != null) {
+			body = this.body.getBytes();
+		}
+		StringBuilder head = new StringBuilder(statusLine).append("\r\n");
+		if (etag != null) {
+			head.append("ETag: ").append(etag).append("\r\n");
+		}
+		if (contentEncoding != null
+				&& request.contains("Accept-Encoding: ")) {
+			body = compress(body);
+			head.append("Content-Encoding: ").append(contentEncoding).append("\r\n");
+		}
+		if (chunked) {
+			head.append("Transfer-Encoding: chunked\r\n\r\n");
+			out.write(head.toString().getBytes());
+			int half = body.length / 2;
+			writeChunk(body, 0, half, out);
+			writeChunk(body, half, body.length - half, out);
+			out.write("0\r\n\r\n".getBytes());
+		} else {
+			head.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+			out.write(head.toString().getBytes());
+			out.write(body);
+		}
+		out.flush();
+	}
+
+	private byte[] compress(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DeflaterOutputStream compressor = null;
+		if ("gzip".equals(contentEncoding)) {
+			compressor = new GZIPOutputStream(out);
+		} else {
+			compressor = new DeflaterOutputStream(out);
+		}
+		compressor.write(data);
+		compressor.close();
+		return out.toByteArray();
+	}
+
+	private void writeChunk(byte[] data, int offset, int length, OutputStream out) throws IOException {
+		out.write((Integer.toHexString(length) + ";ext=foo\r\n").getBytes());
+		out.write(data, offset, length);
+		out.write("\r\n".getBytes());
+	}
+
+	private String readLine(InputStream in) throws IOException, SocketException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int character = -1;
+		while ((character = in.read()) != -1) {
+			if (character == '\n') {
+				return line.toString().trim();
+			}
+			line.write(character);
+		}
+		return null;
+	}
+
+	public URL getUrl() throws MalformedURLException {
+		return new URL(MessageFormat.format("{0}://localhost:{1}/",
+				sslContext != null ? "https" : "http", String.valueOf(serverSocket.getLocalPort())));
+	}
+
+	public int getConnections() {
+		return connections.get();
+	}
+
+	public int getRequests() {
+		return requests.get();
+	}
+
+	public void stop() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+		executor.shutdownNow();
+	}
+}
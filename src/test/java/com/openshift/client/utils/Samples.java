@@ -96,4 +96,8 @@ public enum Samples {
 		}
 		return content;
 	}
+
+	public InputStream getContentAsStream() {
+		return Samples.class.getResourceAsStream(filePath);
+	}
 }
@@ -11,6 +11,7 @@
 package com.openshift.internal.client;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 import java.util.List;
 
@@ -18,6 +19,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.openshift.client.IOpenShiftConnection;
+import com.openshift.client.OpenShiftException;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
 import com.openshift.client.cartridge.IStandaloneCartridge;
 import com.openshift.client.utils.Cartridges;
@@ -73,4 +75,30 @@ public class APIResourceTest {
 						, Cartridges.MYSQL_51_NAME
 						, Cartridges.SWITCHYARD_06_NAME);
 	}
+
+	@Test
+	public void shouldThrowOnInvalidProxyPort() throws Throwable {
+		// pre-conditions
+		// operation
+		try {
+			connection.setProxyPort("80a");
+			fail("OpenShiftException expected");
+		} catch (OpenShiftException e) {
+			// verifications
+			assertThat(e.getMessage()).contains("80a");
+		}
+	}
+
+	@Test
+	public void shouldThrowOnProxyPortOutOfRange() throws Throwable {
+		// pre-conditions
+		// operation
+		try {
+			connection.setProxyPort("65536");
+			fail("OpenShiftException expected");
+		} catch (OpenShiftException e) {
+			// verifications
+			assertThat(e.getMessage()).contains("65536");
+		}
+	}
 }
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.NotFoundException;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class AdaptiveRequestLimiterTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	public void shouldGrowLimitWhileLatencyIsStable() throws Throwable {
+		// pre-conditions
+		AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(4, 1, 20);
+
+		// operation
+		for (int i = 0; i < 20; i++) {
+			requestInParallel(limiter.getLimit(), FAST, limiter);
+		}
+
+		// verification
+		assertThat(limiter.getLimit()).isEqualTo(20);
+		AdaptiveRequestLimiterStatistics statistics = limiter.getAdaptiveStatistics();
+		assertThat(statistics.getMinRtt()).isEqualTo(10);
+		assertThat(statistics.getAverageRtt()).isEqualTo(10);
+		assertThat(statistics.getIncreases()).isGreaterThan(0);
+		assertThat(statistics.getDecreases()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldNotGrowLimitThatIsNotUsed() throws Throwable {
+		// pre-conditions
+		AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(10, 1, 20);
+
+		// operation
+		for (int i = 0; i < 20; i++) {
+			requestInParallel(1, FAST, limiter);
+		}
+
+		// verification
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	public void shouldShrinkLimitIfLatencyGrows() throws Throwable {
+		// pre-conditions
+		AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(10, 2, 20);
+		requestInParallel(10, FAST, limiter);
+		int limit = limiter.getLimit();
+
+		// operation
+		for (int i = 0; i < 5; i++) {
+			requestInParallel(limiter.getLimit(), SLOW, limiter);
+		}
+
+		// verification
+		assertThat(limiter.getLimit()).isLessThan(limit);
+		assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(2);
+		assertThat(limiter.getAdaptiveStatistics().getDecreases()).isGreaterThan(0);
+	}
+
+	@Test
+	public void shouldShrinkLimitOnTimeouts() throws Throwable {
+		// pre-conditions
+		AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(10, 1, 20);
+
+		// operation
+		limiter.acquire();
+		limiter.release(SLOW, new SocketTimeoutException());
+
+		// verification
+		assertThat(limiter.getLimit()).isEqualTo(9);
+		assertThat(limiter.getStatistics().getInFlight()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldShrinkLimitOnServerErrors() throws Throwable {
+		// pre-conditions
+		AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(10, 1, 20);
+
+		// operation
+		for (int statusCode : new int[] { 500, 502, 503, 504 }) {
+			limiter.acquire();
+			limiter.release(FAST, new HttpClientException(statusCode, "mock...", null));
+		}
+
+		// verification
+		assertThat(limiter.getLimit()).isEqualTo(6);
+	}
+
+	@Test
+	public void shouldNotShrinkLimitOnClientErrors() throws Throwable {
+		// pre-conditions
+		AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(10, 1, 20);
+
+		// operation
+		limiter.acquire();
+		limiter.release(FAST, new HttpClientException(409, "mock...", null));
+		limiter.acquire();
+		limiter.release(FAST, new NotFoundException("mock..."));
+
+		// verification
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	public void shouldBlockRequestsBeyondLimit() throws Throwable {
+		// pre-conditions
+		final AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(1, 1, 1);
+		limiter.acquire();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// operation
+			Future<?> blocked = executor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					limiter.acquire();
+				}
+			});
+			waitForQueueDepth(1, limiter);
+			assertThat(blocked.isDone()).isFalse();
+			limiter.release(FAST, null);
+
+			// verification
+			blocked.get(10, TimeUnit.SECONDS);
+			RequestLimiterStatistics statistics = limiter.getStatistics();
+			assertThat(statistics.getDelayedRequests()).isEqualTo(1);
+			assertThat(statistics.getInFlight()).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void requestInParallel(int requests, long latency, RequestLimiter limiter) {
+		for (int i = 0; i < requests; i++) {
+			limiter.acquire();
+		}
+		for (int i = 0; i < requests; i++) {
+			limiter.release(latency, null);
+		}
+	}
+
+	private void waitForQueueDepth(int depth, RequestLimiter limiter) throws InterruptedException {
+		for (int i = 0; i < 100
+				&& limiter.getStatistics().getQueueDepth() < depth; i++) {
+			Thread.sleep(50);
+		}
+	}
+}
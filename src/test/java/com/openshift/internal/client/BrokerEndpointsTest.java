@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.ConnectException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.OpenShiftCancelledException;
+import com.openshift.client.OpenShiftCircuitOpenException;
+import com.openshift.client.OpenShiftEndpointException;
+import com.openshift.internal.client.BrokerEndpoints.Endpoint;
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.InternalServerErrorException;
+import com.openshift.internal.client.httpclient.NotFoundException;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.JsonMediaType;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class BrokerEndpointsTest {
+
+	private static final String BROKER1 = "http://localhost:8081";
+	private static final String BROKER2 = "http://localhost:8082";
+	private static final String DOMAINS = "/broker/rest/domains";
+	private static final long RETRY_INTERVAL = 1000;
+
+	private IHttpClient clientMock;
+	private RestService service;
+	private ClockBrokerEndpoints endpoints;
+
+	@Before
+	public void setUp() {
+		this.clientMock = mock(IHttpClient.class);
+		this.service = new RestService(BROKER1, "test", new JsonMediaType(), IHttpClient.MEDIATYPE_APPLICATION_JSON,
+				new OpenShiftJsonDTOFactory(), clientMock);
+		this.endpoints = new ClockBrokerEndpoints(BROKER1, BROKER2);
+		endpoints.setRetryInterval(RETRY_INTERVAL);
+		service.setEndpoints(endpoints);
+	}
+
+	@Test
+	public void shouldFailOverIfCannotConnect() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(eq(new URL(BROKER1 + DOMAINS)), anyInt()))
+				.thenThrow(new HttpClientException(new ConnectException("Connection refused")));
+		when(clientMock.get(eq(new URL(BROKER2 + DOMAINS)), anyInt()))
+				.thenReturn("{}");
+
+		// operation
+		service.request(new Link(BROKER1 + DOMAINS, HttpMethod.GET));
+
+		// verification
+		verify(clientMock).get(eq(new URL(BROKER2 + DOMAINS)), anyInt());
+		List<BrokerEndpointStatistics> statistics = endpoints.getStatistics();
+		assertThat(statistics.get(0).isHealthy()).isFalse();
+		assertThat(statistics.get(0).getFailovers()).isEqualTo(1);
+		assertThat(statistics.get(0).getErrorRate()).isEqualTo(1);
+		assertThat(statistics.get(1).isHealthy()).isTrue();
+		assertThat(statistics.get(1).getRequests()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotFailOverIfBrokerFailed() throws Throwable {
+		// pre-conditions
+		when(clientMock.post(eq(new URL(BROKER1 + DOMAINS)), any(IMediaType.class), anyInt()))
+				.thenThrow(new InternalServerErrorException("mock..."));
+
+		// operation
+		try {
+			service.request(new Link(BROKER1 + DOMAINS, HttpMethod.POST));
+			fail("OpenShiftEndpointException expected");
+		} catch (OpenShiftEndpointException e) {
+			// verification
+			verify(clientMock, never()).post(eq(new URL(BROKER2 + DOMAINS)), any(IMediaType.class), anyInt());
+			assertThat(endpoints.getStatistics().get(0).getFailures()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void shouldRouteToFasterBroker() throws Throwable {
+		// pre-conditions
+		Endpoint broker1 = endpoints.getEndpoint(new URL(BROKER1));
+		Endpoint broker2 = endpoints.getEndpoint(new URL(BROKER2));
+		endpoints.release(broker1, 100 * 1000000, null);
+		endpoints.release(broker2, 10 * 1000000, null);
+		when(clientMock.get(any(URL.class), anyInt())).thenReturn("{}");
+
+		// operation
+		service.request(new Link(BROKER1 + DOMAINS, HttpMethod.GET));
+
+		// verification
+		verify(clientMock).get(eq(new URL(BROKER2 + DOMAINS)), anyInt());
+		assertThat(endpoints.getStatistics().get(0).getLatency()).isEqualTo(100);
+	}
+
+	@Test
+	public void shouldPenalizeErrors() throws Throwable {
+		// pre-conditions
+		Endpoint broker1 = endpoints.getEndpoint(new URL(BROKER1));
+		Endpoint broker2 = endpoints.getEndpoint(new URL(BROKER2));
+		endpoints.release(broker1, 10 * 1000000, null);
+		endpoints.release(broker1, 10 * 1000000, new InternalServerErrorException("mock..."));
+		// 10ms * (1 + 0.3 error rate * 10) = 40ms
+		endpoints.release(broker2, 30 * 1000000, null);
+
+		// operation
+		Endpoint selected = endpoints.select(Collections.<Endpoint> emptyList());
+
+		// verification
+		assertThat(selected).isSameAs(broker2);
+		assertThat(endpoints.getStatistics().get(0).isHealthy()).isTrue();
+	}
+
+	@Test
+	public void shouldNotCountClientErrors() throws Throwable {
+		// pre-conditions
+		Endpoint broker1 = endpoints.getEndpoint(new URL(BROKER1));
+
+		// operation
+		endpoints.release(broker1, 10 * 1000000, new NotFoundException("mock..."));
+
+		// verification
+		assertThat(endpoints.getStatistics().get(0).getErrorRate()).isEqualTo(0);
+		assertThat(endpoints.getStatistics().get(0).getFailures()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldNotCountUnmappedClientErrors() throws Throwable {
+		// pre-conditions
+		Endpoint broker1 = endpoints.getEndpoint(new URL(BROKER1));
+
+		// operation
+		for (int statusCode : new int[] { 403, 409, 422 }) {
+			endpoints.release(broker1, 10 * 1000000, new HttpClientException(statusCode, "mock...", null));
+		}
+
+		// verification
+		assertThat(endpoints.getStatistics().get(0).getRequests()).isEqualTo(3);
+		assertThat(endpoints.getStatistics().get(0).getFailures()).isEqualTo(0);
+		assertThat(endpoints.getStatistics().get(0).isHealthy()).isTrue();
+	}
+
+	@Test
+	public void shouldNotCountRequestsRejectedByCircuitBreaker() throws Throwable {
+		// pre-conditions
+		service.setCircuitBreaker(new CircuitBreaker().setMinimumRequests(1));
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new InternalServerErrorException("mock..."));
+		requestQuietly(new Link(BROKER1 + DOMAINS, HttpMethod.GET));
+
+		// operation
+		try {
+			service.request(new Link(BROKER1 + DOMAINS, HttpMethod.GET));
+			fail("OpenShiftCircuitOpenException expected");
+		} catch (OpenShiftCircuitOpenException e) {
+			// verification
+			List<BrokerEndpointStatistics> statistics = endpoints.getStatistics();
+			assertThat(statistics.get(0).getRequests() + statistics.get(1).getRequests()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void shouldNotIncludeWaitForRequestLimitInLatency() throws Throwable {
+		// pre-conditions
+		service.setRequestLimiter(new RequestLimiter(RequestLimiter.UNLIMITED, 1, RequestLimiter.UNLIMITED) {
+
+			@Override
+			protected boolean tryAcquirePermit() throws InterruptedException {
+				Thread.sleep(500);
+				return true;
+			}
+		});
+		when(clientMock.get(any(URL.class), anyInt())).thenReturn("{}");
+
+		// operation
+		service.request(new Link(BROKER1 + DOMAINS, HttpMethod.GET));
+
+		// verification
+		assertThat(endpoints.getStatistics().get(0).getRequests()).isEqualTo(1);
+		assertThat(endpoints.getStatistics().get(0).getLatency()).isLessThan(500);
+	}
+
+	@Test
+	public void shouldCountInvalidResponseAsFailure() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(eq(new URL(BROKER1 + DOMAINS)), anyInt()))
+				.thenReturn("{ invalid json");
+
+		// operation
+		try {
+			service.request(new Link(BROKER1 + DOMAINS, HttpMethod.GET));
+			fail("RuntimeException expected");
+		} catch (RuntimeException e) {
+			// verification
+			assertThat(endpoints.getStatistics().get(0).getFailures()).isEqualTo(1);
+			assertThat(endpoints.getStatistics().get(0).getLatency()).isEqualTo(0);
+		}
+	}
+
+	@Test
+	public void shouldNotCountCancelledRequests() throws Throwable {
+		// pre-conditions
+		Endpoint broker1 = endpoints.getEndpoint(new URL(BROKER1));
+
+		// operation
+		endpoints.release(broker1, 10 * 1000000,
+				new OpenShiftCancelledException(BROKER1, null, "Request to {0} was cancelled", BROKER1));
+
+		// verification
+		assertThat(endpoints.getStatistics().get(0).getRequests()).isEqualTo(0);
+		assertThat(endpoints.getStatistics().get(0).getFailures()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldRetryUnhealthyBrokerAfterInterval() throws Throwable {
+		// pre-conditions
+		Endpoint broker1 = endpoints.getEndpoint(new URL(BROKER1));
+		Endpoint broker2 = endpoints.getEndpoint(new URL(BROKER2));
+		endpoints.release(broker2, 50 * 1000000, null);
+		endpoints.release(broker1, 10 * 1000000, new HttpClientException(new ConnectException()));
+		assertThat(endpoints.select(Collections.<Endpoint> emptyList())).isSameAs(broker2);
+
+		// operation
+		endpoints.time += RETRY_INTERVAL;
+
+		// verification
+		assertThat(endpoints.getStatistics().get(0).isHealthy()).isTrue();
+		assertThat(endpoints.select(Collections.singletonList(broker2))).isSameAs(broker1);
+	}
+
+	@Test
+	public void shouldNotRouteOtherHosts() throws Throwable {
+		// pre-conditions
+		String url = "http://localhost:8083" + DOMAINS;
+		when(clientMock.get(any(URL.class), anyInt())).thenReturn("{}");
+
+		// operation
+		service.request(new Link(url, HttpMethod.GET));
+
+		// verification
+		verify(clientMock).get(eq(new URL(url)), anyInt());
+		assertThat(endpoints.getStatistics().get(0).getRequests()).isEqualTo(0);
+		assertThat(endpoints.getStatistics().get(1).getRequests()).isEqualTo(0);
+	}
+
+	private void requestQuietly(Link link) {
+		try {
+			service.request(link);
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+
+	private static class ClockBrokerEndpoints extends BrokerEndpoints {
+
+		private long time = RETRY_INTERVAL * 10;
+
+		private ClockBrokerEndpoints(String... servers) {
+			super(servers);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return time;
+		}
+	}
+}
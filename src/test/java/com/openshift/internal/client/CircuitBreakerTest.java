@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URL;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.OpenShiftCircuitOpenException;
+import com.openshift.internal.client.CircuitBreaker.State;
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.InternalServerErrorException;
+import com.openshift.internal.client.httpclient.NotFoundException;
+import com.openshift.internal.client.httpclient.request.JsonMediaType;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class CircuitBreakerTest {
+
+	private static final String URL = "http://www.redhat.com";
+	private static final int WINDOW_SIZE = 4;
+	private static final long OPEN_DURATION = 1000;
+
+	private IHttpClient clientMock;
+	private RestService service;
+	private ClockCircuitBreaker circuitBreaker;
+
+	@Before
+	public void setUp() {
+		this.clientMock = mock(IHttpClient.class);
+		this.service = new RestService(URL, "test", new JsonMediaType(), IHttpClient.MEDIATYPE_APPLICATION_JSON,
+				new OpenShiftJsonDTOFactory(), clientMock);
+		this.circuitBreaker = new ClockCircuitBreaker();
+		circuitBreaker
+				.setMinimumRequests(WINDOW_SIZE)
+				.setOpenDuration(OPEN_DURATION)
+				.setHalfOpenRequests(2);
+		service.setCircuitBreaker(circuitBreaker);
+	}
+
+	@Test
+	public void shouldOpenIfFailureRateExceedsThreshold() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new InternalServerErrorException("mock..."));
+		requestQuietly(WINDOW_SIZE);
+		assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+
+		// operation
+		try {
+			service.request(new Link(URL, HttpMethod.GET));
+			fail("OpenShiftCircuitOpenException expected");
+		} catch (OpenShiftCircuitOpenException e) {
+			// verification
+			assertThat(e.getRetryAfter()).isEqualTo(OPEN_DURATION);
+			verify(clientMock, times(WINDOW_SIZE)).get(any(URL.class), anyInt());
+			assertThat(circuitBreaker.getStatistics().getRejected()).isEqualTo(1);
+			assertThat(circuitBreaker.getStatistics().getOpened()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void shouldNotOpenOnClientErrors() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new NotFoundException("mock..."));
+
+		// operation
+		requestQuietly(WINDOW_SIZE * 2);
+
+		// verification
+		assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+		assertThat(circuitBreaker.getStatistics().getFailureRate()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldNotOpenOnUnmappedClientErrors() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new HttpClientException(403, "mock...", null));
+
+		// operation
+		requestQuietly(WINDOW_SIZE * 2);
+
+		// verification
+		assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	public void shouldOpenIfResponsesCannotBeParsed() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenReturn("{ invalid json");
+
+		// operation
+		requestQuietly(WINDOW_SIZE);
+
+		// verification
+		assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	public void shouldOpenOnServiceUnavailable() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new HttpClientException(503, "mock...", null));
+
+		// operation
+		requestQuietly(WINDOW_SIZE);
+
+		// verification
+		assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	public void shouldNotGrowRequestLimitWhileOpen() throws Throwable {
+		// pre-conditions
+		AdaptiveRequestLimiter requestLimiter = new AdaptiveRequestLimiter(1, 1, 20);
+		service.setRequestLimiter(requestLimiter);
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new InternalServerErrorException("mock..."));
+		requestQuietly(WINDOW_SIZE);
+		assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+
+		// operation
+		requestQuietly(WINDOW_SIZE * 10);
+
+		// verification
+		assertThat(circuitBreaker.getStatistics().getRejected()).isEqualTo(WINDOW_SIZE * 10);
+		assertThat(requestLimiter.getLimit()).isEqualTo(1);
+		assertThat(requestLimiter.getAdaptiveStatistics().getIncreases()).isEqualTo(0);
+		assertThat(requestLimiter.getStatistics().getInFlight()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldCloseIfTrialRequestsSucceed() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new InternalServerErrorException("mock..."))
+				.thenThrow(new InternalServerErrorException("mock..."))
+				.thenThrow(new InternalServerErrorException("mock..."))
+				.thenThrow(new InternalServerErrorException("mock..."))
+				.thenReturn("{}");
+		requestQuietly(WINDOW_SIZE);
+		assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+		circuitBreaker.time += OPEN_DURATION;
+
+		// operation
+		service.request(new Link(URL, HttpMethod.GET));
+		assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+		service.request(new Link(URL, HttpMethod.GET));
+
+		// verification
+		assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+		assertThat(circuitBreaker.getStatistics().getRequests()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldReopenIfTrialRequestFails() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new InternalServerErrorException("mock..."));
+		requestQuietly(WINDOW_SIZE);
+		circuitBreaker.time += OPEN_DURATION;
+
+		// operation
+		requestQuietly(1);
+
+		// verification
+		assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+		assertThat(circuitBreaker.getStatistics().getOpened()).isEqualTo(2);
+		verify(clientMock, times(WINDOW_SIZE + 1)).get(any(URL.class), anyInt());
+	}
+
+	@Test
+	public void shouldOpenIfRequestsAreSlow() throws Throwable {
+		// pre-conditions
+		circuitBreaker.setSlowRequestThreshold(100, 0.75);
+
+		// operation
+		for (int i = 0; i < WINDOW_SIZE; i++) {
+			long start = circuitBreaker.acquire(URL);
+			circuitBreaker.time += 100;
+			circuitBreaker.release(start, null);
+		}
+
+		// verification
+		assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	public void shouldLimitTrialRequests() throws Throwable {
+		// pre-conditions
+		circuitBreaker.setHalfOpenRequests(1);
+		for (int i = 0; i < WINDOW_SIZE; i++) {
+			circuitBreaker.release(circuitBreaker.acquire(URL), new InternalServerErrorException("mock..."));
+		}
+		circuitBreaker.time += OPEN_DURATION;
+		circuitBreaker.acquire(URL);
+
+		// operation
+		try {
+			circuitBreaker.acquire(URL);
+			fail("OpenShiftCircuitOpenException expected");
+		} catch (OpenShiftCircuitOpenException e) {
+			// verification
+			assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+		}
+	}
+
+	private void requestQuietly(int requests) {
+		for (int i = 0; i < requests; i++) {
+			try {
+				service.request(new Link(URL, HttpMethod.GET));
+			} catch (RuntimeException e) {
+				// expected
+			}
+		}
+	}
+
+	private static class ClockCircuitBreaker extends CircuitBreaker {
+
+		private long time = 1;
+
+		private ClockCircuitBreaker() {
+			super(WINDOW_SIZE);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return time;
+		}
+	}
+}
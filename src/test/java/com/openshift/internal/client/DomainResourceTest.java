@@ -39,6 +39,7 @@ import org.junit.rules.ExpectedException;
 
 import com.openshift.client.ApplicationScale;
 import com.openshift.client.IApplication;
+import com.openshift.client.IApplicationSummary;
 import com.openshift.client.IDomain;
 import com.openshift.client.IField;
 import com.openshift.client.IGearProfile;
@@ -270,6 +271,37 @@ public class DomainResourceTest {
 				.verifyGetAny(4);
 	}
 
+	@Test
+	public void shouldLoadApplicationSummaries() throws Throwable {
+		// pre-conditions
+		mockDirector.mockGetApplicationSummaries("foobarz", GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED);
+		// operation
+		final List<IApplicationSummary> summaries = domain.getApplicationSummaries();
+		// verifications
+		assertThat(summaries).hasSize(2);
+		IApplicationSummary summary = summaries.get(0);
+		assertThat(summary.getName()).isEqualTo("scalable");
+		assertThat(summary.getUUID()).isEqualTo("523cbc31e0b8cdae1e0000ac");
+		assertThat(summary.getCartridgeName()).isEqualTo("jbossas-7");
+		assertThat(summary.getDomainId()).isEqualTo("foobarz");
+		assertThat(summary.getApplicationScale()).isEqualTo(ApplicationScale.SCALE);
+		assertThat(summary.getCreationTime()).isNotNull();
+		mockDirector
+				.verifyGetApplicationSummaries("foobarz", 1)
+				.verifyGetApplications("foobarz", 0);
+	}
+
+	@Test
+	public void shouldNotCacheApplicationSummaries() throws Throwable {
+		// pre-conditions
+		mockDirector.mockGetApplicationSummaries("foobarz", GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED);
+		// operation
+		domain.getApplicationSummaries();
+		domain.getApplicationSummaries();
+		// verifications
+		mockDirector.verifyGetApplicationSummaries("foobarz", 2);
+	}
+
 	@Test
 	public void shouldNotLoadApplicationTwice() throws Throwable {
 		// pre-conditions
@@ -17,6 +17,7 @@ import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATION
 import static org.fest.assertions.Assertions.assertThat;
 
 import java.util.Collection;
+import java.util.Iterator;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -24,6 +25,7 @@ import org.junit.Test;
 import com.openshift.client.GearState;
 import com.openshift.client.IApplication;
 import com.openshift.client.IDomain;
+import com.openshift.client.IGear;
 import com.openshift.client.IGearGroup;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.IUser;
@@ -70,4 +72,21 @@ public class GearGroupsResourceTest {
 				.assertGear("514212ce500446b64e0000b4").inState(GearState.DEPLOYING)
 				.hasCartridges("mongodb-2.2");
 	}
+
+	@Test
+	public void shouldGetGears() throws Throwable {
+		// pre-conditions
+		final IApplication app = domain.getApplicationByName("springeap6");
+		// operation
+		final Collection<IGear> gears = app.getGears();
+		// verifications
+		assertThat(gears).hasSize(3);
+		Iterator<IGear> iterator = gears.iterator();
+		IGear gear = iterator.next();
+		assertThat(gear.getId()).isEqualTo("514207b84382ec1fef000098");
+		assertThat(gear.getState()).isEqualTo(GearState.IDLE);
+		assertThat(gear.getSshUrl()).isEqualTo("ssh://52380549e0b8cd1e0e000032@springeap6-foobarz.rhcloud.com");
+		assertThat(iterator.next().getState()).isEqualTo(GearState.BUILDING);
+		assertThat(iterator.next().getState()).isEqualTo(GearState.DEPLOYING);
+	}
 }
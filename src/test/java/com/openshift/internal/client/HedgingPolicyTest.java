@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.RequestContext;
+import com.openshift.internal.client.httpclient.request.JsonMediaType;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class HedgingPolicyTest {
+
+	private static final String URL = "http://www.redhat.com";
+	private static final long DELAY = 50;
+
+	private HedgingPolicy policy;
+
+	@Before
+	public void setUp() {
+		this.policy = new FixedDelayHedgingPolicy(DELAY);
+	}
+
+	@After
+	public void tearDown() {
+		policy.shutdown();
+	}
+
+	@Test
+	public void shouldHedgeSlowRequest() throws Throwable {
+		// pre-conditions
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		SlowFirstRequest request = new SlowFirstRequest(10 * 1000, cancelled);
+		long start = System.currentTimeMillis();
+
+		// operation
+		String result = policy.execute(request);
+
+		// verification
+		assertThat(result).isEqualTo("2");
+		assertThat(System.currentTimeMillis() - start).isLessThan(5 * 1000);
+		assertThat(cancelled.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+		HedgingStatistics statistics = policy.getStatistics();
+		assertThat(statistics.getRequests()).isEqualTo(1);
+		assertThat(statistics.getHedges()).isEqualTo(1);
+		assertThat(statistics.getHedgeWins()).isEqualTo(1);
+		assertThat(statistics.getHedgeRate()).isEqualTo(1d);
+	}
+
+	@Test
+	public void shouldNotHedgeFastRequest() throws Throwable {
+		// pre-conditions
+		final AtomicInteger calls = new AtomicInteger();
+
+		// operation
+		String result = policy.execute(new Callable<String>() {
+
+			@Override
+			public String call() throws Exception {
+				return String.valueOf(calls.incrementAndGet());
+			}
+		});
+
+		// verification
+		assertThat(result).isEqualTo("1");
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(policy.getStatistics().getHedges()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldSendFirstRequestInCallingThread() throws Throwable {
+		// pre-conditions
+		final Thread caller = Thread.currentThread();
+		HedgingPolicy notHedging = new FixedDelayHedgingPolicy(-1);
+		Callable<Boolean> request = new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws Exception {
+				return Thread.currentThread() == caller;
+			}
+		};
+
+		try {
+			// operation
+			boolean hedgingInCaller = policy.execute(request);
+			boolean notHedgingInCaller = notHedging.execute(request);
+
+			// verification
+			assertThat(hedgingInCaller).isTrue();
+			assertThat(notHedgingInCaller).isTrue();
+		} finally {
+			notHedging.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldNotHedgeBeyondBudget() throws Throwable {
+		// pre-conditions
+		policy.setBudget(0, 1);
+
+		// operation
+		policy.execute(new SlowFirstRequest(200, null));
+		policy.execute(new SlowFirstRequest(200, null));
+
+		// verification
+		HedgingStatistics statistics = policy.getStatistics();
+		assertThat(statistics.getRequests()).isEqualTo(2);
+		assertThat(statistics.getHedges()).isEqualTo(1);
+		assertThat(statistics.getBudgetExhausted()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldWaitForHedgeIfFirstRequestFails() throws Throwable {
+		// pre-conditions
+		final AtomicInteger calls = new AtomicInteger();
+
+		// operation
+		String result = policy.execute(new Callable<String>() {
+
+			@Override
+			public String call() throws Exception {
+				if (calls.incrementAndGet() == 1) {
+					Thread.sleep(DELAY * 2);
+					throw new IllegalStateException();
+				}
+				Thread.sleep(DELAY * 4);
+				return "2";
+			}
+		});
+
+		// verification
+		assertThat(result).isEqualTo("2");
+	}
+
+	@Test
+	public void shouldFailIfAllRequestsFail() throws Throwable {
+		// pre-conditions
+		final IllegalStateException error = new IllegalStateException();
+
+		// operation
+		try {
+			policy.execute(new Callable<String>() {
+
+				@Override
+				public String call() throws Exception {
+					Thread.sleep(DELAY * 2);
+					throw error;
+				}
+			});
+			fail("expected ExecutionException");
+		} catch (ExecutionException e) {
+			// verification
+			assertThat(e.getCause()).isSameAs(error);
+		}
+	}
+
+	@Test
+	public void shouldCloseConnectionOfCancelledRequest() throws Throwable {
+		// pre-conditions
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch closed = new CountDownLatch(1);
+
+		// operation
+		String result = policy.execute(new Callable<String>() {
+
+			@Override
+			public String call() throws Exception {
+				if (calls.incrementAndGet() == 1) {
+					RequestContext.current().register(new Closeable() {
+
+						@Override
+						public void close() throws IOException {
+							closed.countDown();
+						}
+					});
+					// blocked in i/o, does not react to interrupts
+					long end = System.currentTimeMillis() + 10 * 1000;
+					while (closed.getCount() > 0
+							&& System.currentTimeMillis() < end) {
+						try {
+							closed.await(100, TimeUnit.MILLISECONDS);
+						} catch (InterruptedException e) {
+							// ignore
+						}
+					}
+					return "1";
+				}
+				return "2";
+			}
+		});
+
+		// verification
+		assertThat(result).isEqualTo("2");
+		assertThat(closed.await(10, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	public void shouldMeasureLatencyFromStartOfFirstRequest() throws Throwable {
+		// pre-conditions
+		FixedDelayHedgingPolicy policy = new FixedDelayHedgingPolicy(DELAY);
+		policy.setMinDelay(0).setWindow(1, 1);
+
+		try {
+			// operation
+			policy.execute(new SlowFirstRequest(10 * 1000, null));
+
+			// verification
+			assertThat(policy.getStatistics().getHedgeWins()).isEqualTo(1);
+			assertThat(policy.getMeasuredDelay()).isGreaterThanOrEqualTo(DELAY);
+		} finally {
+			policy.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldHedgeAtPercentileOfLatencies() throws Throwable {
+		// pre-conditions
+		HedgingPolicy policy = new HedgingPolicy()
+				.setPercentile(0.5)
+				.setMinDelay(0)
+				.setWindow(10, 3);
+		try {
+			assertThat(policy.getDelay()).isEqualTo(-1);
+
+			// operation
+			for (int i = 0; i < 3; i++) {
+				policy.execute(new SleepingRequest(20 * (i + 1)));
+			}
+
+			// verification
+			assertThat(policy.getDelay()).isGreaterThanOrEqualTo(40).isLessThan(60);
+		} finally {
+			policy.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldHedgeGetRequests() throws Throwable {
+		// pre-conditions
+		IHttpClient clientMock = mock(IHttpClient.class);
+		final AtomicInteger calls = new AtomicInteger();
+		when(clientMock.get(any(URL.class), anyInt())).thenAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				if (calls.incrementAndGet() == 1) {
+					Thread.sleep(10 * 1000);
+				}
+				return "{}";
+			}
+		});
+		RestService service = new RestService(URL, "test", new JsonMediaType(),
+				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), clientMock);
+		service.setHedgingPolicy(policy);
+		long start = System.currentTimeMillis();
+
+		// operation
+		service.request(new Link(URL, HttpMethod.GET));
+
+		// verification
+		assertThat(System.currentTimeMillis() - start).isLessThan(5 * 1000);
+		verify(clientMock, times(2)).get(any(URL.class), anyInt());
+	}
+
+	@Test
+	public void shouldNotHedgeBeyondRequestLimit() throws Throwable {
+		// pre-conditions
+		IHttpClient clientMock = mock(IHttpClient.class);
+		when(clientMock.get(any(URL.class), anyInt())).thenAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(DELAY * 4);
+				return "{}";
+			}
+		});
+		RestService service = new RestService(URL, "test", new JsonMediaType(),
+				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), clientMock);
+		service.setHedgingPolicy(policy);
+		RequestLimiter limiter = RequestLimiter.concurrency(1);
+		service.setRequestLimiter(limiter);
+
+		// operation
+		service.request(new Link(URL, HttpMethod.GET));
+
+		// verification
+		assertThat(policy.getStatistics().getHedges()).isEqualTo(1);
+		// hedge waited for the permit of the first request and got cancelled
+		verify(clientMock, times(1)).get(any(URL.class), anyInt());
+		assertThat(limiter.getStatistics().getRequests()).isEqualTo(2);
+	}
+
+	private static class FixedDelayHedgingPolicy extends HedgingPolicy {
+
+		private final long delay;
+
+		private FixedDelayHedgingPolicy(long delay) {
+			this.delay = delay;
+		}
+
+		@Override
+		protected synchronized long getDelay() {
+			return delay;
+		}
+
+		/**
+		 * Returns the delay that the measured latencies result in.
+		 */
+		private long getMeasuredDelay() {
+			return super.getDelay();
+		}
+	}
+
+	/**
+	 * Takes the given time to respond to its first call, responds right away
+	 * to the others.
+	 */
+	private static class SlowFirstRequest implements Callable<String> {
+
+		private final AtomicInteger calls = new AtomicInteger();
+		private final long latency;
+		private final CountDownLatch interrupted;
+
+		private SlowFirstRequest(long latency, CountDownLatch interrupted) {
+			this.latency = latency;
+			this.interrupted = interrupted;
+		}
+
+		@Override
+		public String call() throws Exception {
+			int call = calls.incrementAndGet();
+			if (call == 1) {
+				try {
+					Thread.sleep(latency);
+				} catch (InterruptedException e) {
+					if (interrupted != null) {
+						interrupted.countDown();
+					}
+					throw e;
+				}
+			}
+			return String.valueOf(call);
+		}
+	}
+
+	private static class SleepingRequest implements Callable<String> {
+
+		private final long latency;
+
+		private SleepingRequest(long latency) {
+			this.latency = latency;
+		}
+
+		@Override
+		public String call() throws Exception {
+			Thread.sleep(latency);
+			return String.valueOf(latency);
+		}
+	}
+}
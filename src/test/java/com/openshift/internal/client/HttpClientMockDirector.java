@@ -229,6 +229,13 @@ public class HttpClientMockDirector {
 		return this;
 	}
 
+	public HttpClientMockDirector mockGetApplicationSummaries(String domainId, Samples applicationsResourceResponse)
+			throws SocketTimeoutException, HttpClientException {
+		when(client.get(urlEndsWith("/domains/" + domainId + "/applications"), anyInt()))
+				.thenReturn(applicationsResourceResponse.getContentAsString());
+		return this;
+	}
+
 	public HttpClientMockDirector mockGetApplications(String domainId, Exception exception)
 			throws SocketTimeoutException, HttpClientException {
 		when(client.get(urlEndsWith("/domains/" + domainId + "/applications?include=cartridges"), anyInt()))
@@ -461,6 +468,12 @@ public class HttpClientMockDirector {
 		return this;
 	}
 
+	public HttpClientMockDirector verifyGetApplicationSummaries(String domainId, int times)
+			throws SocketTimeoutException, HttpClientException {
+		verify(client, times(times)).get(urlEndsWith("/domains/" + domainId + "/applications"), anyInt());
+		return this;
+	}
+
 	public HttpClientMockDirector verifyGetAPI() throws SocketTimeoutException, HttpClientException {
 		verify(client, times(1)).get(urlEndsWith("/broker/rest/api"), anyInt());
 		return this;
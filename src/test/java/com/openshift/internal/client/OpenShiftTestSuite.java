@@ -13,18 +13,47 @@ package com.openshift.internal.client;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import com.openshift.internal.client.httpclient.AuthorizationTokenCacheTest;
+import com.openshift.internal.client.httpclient.ContentEncodingTest;
+import com.openshift.internal.client.httpclient.HttpClientSessionTest;
 import com.openshift.internal.client.httpclient.HttpClientTest;
+import com.openshift.internal.client.httpclient.NioHttpClientTest;
+import com.openshift.internal.client.httpclient.SSLSocketFactoryTest;
+import com.openshift.internal.client.httpclient.PooledHttpClientTest;
+import com.openshift.internal.client.httpclient.RequestBodyOutputStreamTest;
 import com.openshift.internal.client.httpclient.request.FormUrlEncodedMediaTypeTest;
 import com.openshift.internal.client.httpclient.request.JsonMediaTypeTest;
+import com.openshift.internal.client.response.LinkTest;
+import com.openshift.internal.client.response.LinkTemplatesTest;
 import com.openshift.internal.client.response.OpenShiftJsonDTOFactoryTest;
+import com.openshift.internal.client.response.OpenShiftJsonStreamingDTOFactoryTest;
+import com.openshift.internal.client.response.StringPoolTest;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
 	ConfigurationTest.class,
 	HttpClientTest.class,
+	PooledHttpClientTest.class,
+	AuthorizationTokenCacheTest.class,
+	HttpClientSessionTest.class,
+	ContentEncodingTest.class,
+	NioHttpClientTest.class,
+	SSLSocketFactoryTest.class,
 	RestServicePropertiesTest.class,
 	RestServiceTest.class,
+	ResponseCacheTest.class,
+	RetryPolicyTest.class,
+	CircuitBreakerTest.class,
+	BrokerEndpointsTest.class,
+	RequestLimiterTest.class,
+	AdaptiveRequestLimiterTest.class,
+	HedgingPolicyTest.class,
+	RequestContextTest.class,
 	OpenShiftJsonDTOFactoryTest.class,
+	OpenShiftJsonStreamingDTOFactoryTest.class,
+	LinkTemplatesTest.class,
+	StringPoolTest.class,
+	LinkTest.class,
 	DomainResourceTest.class,
 	ApplicationResourceTest.class,
 	APIResourceTest.class,
@@ -40,6 +69,7 @@ import com.openshift.internal.client.response.OpenShiftJsonDTOFactoryTest;
 	OpenShiftExceptionTest.class,
 	FormUrlEncodedMediaTypeTest.class,
 	JsonMediaTypeTest.class,
+	RequestBodyOutputStreamTest.class,
 	EnvironmentVariableResourceTest.class
 })
 
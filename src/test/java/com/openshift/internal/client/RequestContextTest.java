@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.OpenShiftCancelledException;
+import com.openshift.client.OpenShiftTimeoutException;
+import com.openshift.client.RequestContext;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
+import com.openshift.internal.client.httpclient.request.JsonMediaType;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class RequestContextTest {
+
+	private static final String URL = "http://www.redhat.com";
+
+	private SilentServer server;
+	private RequestContext context;
+	private RequestContext previous;
+
+	@Before
+	public void setUp() throws IOException {
+		this.server = new SilentServer();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+		if (context != null) {
+			context.detach(previous);
+		}
+	}
+
+	@Test
+	public void shouldNotRequestIfContextIsCancelled() throws Throwable {
+		// pre-conditions
+		IHttpClient clientMock = mock(IHttpClient.class);
+		RestService service = createService(URL, clientMock);
+		attach(new RequestContext());
+		context.cancel();
+
+		// operation
+		try {
+			service.request(new Link(URL, HttpMethod.GET));
+			fail("expected OpenShiftCancelledException");
+		} catch (OpenShiftCancelledException e) {
+			// verification
+			verify(clientMock, never()).get(any(URL.class), anyInt());
+		}
+	}
+
+	@Test
+	public void shouldNotRequestIfDeadlinePassed() throws Throwable {
+		// pre-conditions
+		IHttpClient clientMock = mock(IHttpClient.class);
+		RestService service = createService(URL, clientMock);
+		attach(new RequestContext(1, TimeUnit.MILLISECONDS));
+		Thread.sleep(10);
+
+		// operation
+		try {
+			service.request(new Link(URL, HttpMethod.GET));
+			fail("expected OpenShiftTimeoutException");
+		} catch (OpenShiftTimeoutException e) {
+			// verification
+			verify(clientMock, never()).get(any(URL.class), anyInt());
+		}
+	}
+
+	@Test
+	public void shouldLimitTimeoutToDeadline() {
+		// pre-conditions
+		RequestContext context = new RequestContext(10, TimeUnit.SECONDS);
+
+		// operation
+		int shorter = context.getTimeout(1000);
+		int longer = context.getTimeout(60 * 1000);
+		int none = context.getTimeout(IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(shorter).isEqualTo(1000);
+		assertThat(longer).isGreaterThan(9 * 1000).isLessThanOrEqualTo(10 * 1000);
+		assertThat(none).isGreaterThan(9 * 1000).isLessThanOrEqualTo(10 * 1000);
+		assertThat(new RequestContext().getTimeout(IHttpClient.NO_TIMEOUT)).isEqualTo(IHttpClient.NO_TIMEOUT);
+	}
+
+	@Test
+	public void shouldTimeoutAtDeadline() throws Throwable {
+		// pre-conditions
+		RestService service = createService(server.getUrl(), new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client());
+		attach(new RequestContext(500, TimeUnit.MILLISECONDS));
+		long start = System.currentTimeMillis();
+
+		// operation
+		try {
+			service.request(new Link(server.getUrl(), HttpMethod.GET));
+			fail("expected OpenShiftTimeoutException");
+		} catch (OpenShiftTimeoutException e) {
+			// verification
+			assertThat(System.currentTimeMillis() - start).isLessThan(5 * 1000);
+		}
+	}
+
+	@Test
+	public void shouldCloseConnectionOnCancel() throws Throwable {
+		assertCancelsRequest(new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client());
+	}
+
+	@Test
+	public void shouldClosePooledConnectionOnCancel() throws Throwable {
+		assertCancelsRequest(new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setConnectionPooling(true)
+				.client());
+	}
+
+	private void assertCancelsRequest(IHttpClient client) throws Throwable {
+		// pre-conditions
+		RestService service = createService(server.getUrl(), client);
+		attach(new RequestContext());
+		cancelOnceRequested(context);
+		long start = System.currentTimeMillis();
+
+		// operation
+		try {
+			service.request(new Link(server.getUrl(), HttpMethod.GET));
+			fail("expected OpenShiftCancelledException");
+		} catch (OpenShiftCancelledException e) {
+			// verification
+			assertThat(System.currentTimeMillis() - start).isLessThan(10 * 1000);
+		}
+	}
+
+	private void cancelOnceRequested(final RequestContext context) {
+		Thread thread = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					if (server.awaitConnection()) {
+						// wait for the request to block in its read
+						Thread.sleep(200);
+					}
+					context.cancel();
+				} catch (InterruptedException e) {
+					// stop
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void attach(RequestContext context) {
+		this.context = context;
+		this.previous = context.attach();
+	}
+
+	private RestService createService(String url, IHttpClient client) {
+		return new RestService(url, "test", new JsonMediaType(),
+				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), client);
+	}
+
+	/**
+	 * A server that accepts connections but never responds.
+	 */
+	private static class SilentServer {
+
+		private final ServerSocket serverSocket;
+		/** referenced so that they're not garbage collected (and closed) */
+		private final List<Socket> sockets = new CopyOnWriteArrayList<Socket>();
+		private final CountDownLatch connected = new CountDownLatch(1);
+
+		private SilentServer() throws IOException {
+			this.serverSocket = new ServerSocket(0);
+			Thread thread = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						while (!serverSocket.isClosed()) {
+							sockets.add(serverSocket.accept());
+							connected.countDown();
+						}
+					} catch (IOException e) {
+						// stopped
+					}
+				}
+			};
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private boolean awaitConnection() throws InterruptedException {
+			return connected.await(10, TimeUnit.SECONDS);
+		}
+
+		private String getUrl() {
+			return "http://localhost:" + serverSocket.getLocalPort() + "/";
+		}
+
+		private void stop() {
+			try {
+				serverSocket.close();
+				for (Socket socket : sockets) {
+					socket.close();
+				}
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.internal.client.httpclient.request.JsonMediaType;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class RequestLimiterTest {
+
+	private static final String URL = "http://www.redhat.com";
+
+	@Test
+	public void shouldLimitRate() throws Throwable {
+		// pre-conditions
+		RequestLimiter limiter = RequestLimiter.rate(20, 1);
+		long start = System.currentTimeMillis();
+
+		// operation
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire();
+			limiter.release(0, null);
+		}
+
+		// verification
+		// 4 requests wait for 50ms each
+		assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(150);
+		RequestLimiterStatistics statistics = limiter.getStatistics();
+		assertThat(statistics.getRequests()).isEqualTo(5);
+		assertThat(statistics.getDelayedRequests()).isEqualTo(4);
+		assertThat(statistics.getTotalWaitTime()).isGreaterThanOrEqualTo(150);
+	}
+
+	@Test
+	public void shouldAllowBurst() throws Throwable {
+		// pre-conditions
+		RequestLimiter limiter = RequestLimiter.rate(1, 5);
+
+		// operation
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire();
+			limiter.release(0, null);
+		}
+
+		// verification
+		assertThat(limiter.getStatistics().getDelayedRequests()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldLimitRequestsInFlight() throws Throwable {
+		// pre-conditions
+		final RequestLimiter limiter = RequestLimiter.concurrency(2);
+		limiter.acquire();
+		limiter.acquire();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// operation
+			Future<?> blocked = executor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					limiter.acquire();
+				}
+			});
+			waitForQueueDepth(1, limiter);
+			assertThat(blocked.isDone()).isFalse();
+			assertThat(limiter.getStatistics().getInFlight()).isEqualTo(2);
+			limiter.release(0, null);
+
+			// verification
+			blocked.get(10, TimeUnit.SECONDS);
+			RequestLimiterStatistics statistics = limiter.getStatistics();
+			assertThat(statistics.getQueueDepth()).isEqualTo(0);
+			assertThat(statistics.getMaxQueueDepth()).isEqualTo(1);
+			assertThat(statistics.getDelayedRequests()).isEqualTo(1);
+			assertThat(statistics.getInFlight()).isEqualTo(2);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldLimitRequestsPerLink() throws Throwable {
+		// pre-conditions
+		IHttpClient clientMock = mock(IHttpClient.class);
+		final CountDownLatch requesting = new CountDownLatch(1);
+		final CountDownLatch respond = new CountDownLatch(1);
+		when(clientMock.get(any(URL.class), anyInt())).thenAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				requesting.countDown();
+				respond.await(10, TimeUnit.SECONDS);
+				return "{}";
+			}
+		});
+		final RestService service = new RestService(URL, "test", new JsonMediaType(),
+				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), clientMock);
+		RequestLimiter listLimiter = RequestLimiter.concurrency(1);
+		service.setRequestLimiter("LIST_APPLICATIONS", listLimiter);
+		RequestLimiter serverLimiter = RequestLimiter.concurrency(10);
+		service.setRequestLimiter(serverLimiter);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			// operation
+			Future<?> first = executor.submit(createRequest("LIST_APPLICATIONS", service));
+			requesting.await(10, TimeUnit.SECONDS);
+			Future<?> second = executor.submit(createRequest("LIST_APPLICATIONS", service));
+			waitForQueueDepth(1, listLimiter);
+			// other links are not limited
+			service.request(new Link("GET_APPLICATION", URL, HttpMethod.HEAD));
+			respond.countDown();
+
+			// verification
+			first.get(10, TimeUnit.SECONDS);
+			second.get(10, TimeUnit.SECONDS);
+			assertThat(listLimiter.getStatistics().getRequests()).isEqualTo(2);
+			assertThat(listLimiter.getStatistics().getDelayedRequests()).isEqualTo(1);
+			assertThat(serverLimiter.getStatistics().getRequests()).isEqualTo(3);
+			assertThat(serverLimiter.getStatistics().getInFlight()).isEqualTo(0);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Runnable createRequest(final String rel, final RestService service) {
+		return new Runnable() {
+
+			@Override
+			public void run() {
+				service.request(new Link(rel, URL, HttpMethod.GET));
+			}
+		};
+	}
+
+	private void waitForQueueDepth(int depth, RequestLimiter limiter) throws InterruptedException {
+		for (int i = 0; i < 200 && limiter.getStatistics().getQueueDepth() < depth; i++) {
+			Thread.sleep(10);
+		}
+		assertThat(limiter.getStatistics().getQueueDepth()).isEqualTo(depth);
+	}
+}
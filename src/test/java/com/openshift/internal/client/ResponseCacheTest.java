@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+import com.openshift.client.utils.Samples;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
+import com.openshift.internal.client.httpclient.request.FormUrlEncodedMediaType;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+import com.openshift.internal.client.response.RestResponse;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class ResponseCacheTest {
+
+	private static final String ETAG = "\"4f3c2a\"";
+
+	private KeepAliveHttpServerFake serverFake;
+	private RestService service;
+
+	@Before
+	public void setUp() throws Exception {
+		this.serverFake = new KeepAliveHttpServerFake()
+				.setBody(Samples.GET_DOMAINS.getContentAsString())
+				.setETag(ETAG);
+		serverFake.start();
+		IHttpClient client = new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client();
+		String server = serverFake.getUrl().toString();
+		this.service = new RestService(server.substring(0, server.length() - 1), "test",
+				new FormUrlEncodedMediaType(), IHttpClient.MEDIATYPE_APPLICATION_JSON,
+				new OpenShiftJsonDTOFactory(), client);
+		service.setResponseCache(new ResponseCache());
+	}
+
+	@After
+	public void tearDown() {
+		serverFake.stop();
+	}
+
+	@Test
+	public void shouldReuseResponseIfNotModified() throws Throwable {
+		// pre-conditions
+		Link link = new Link("/domains", HttpMethod.GET);
+		RestResponse response = service.request(link);
+
+		// operation
+		RestResponse cachedResponse = service.request(link);
+
+		// verification
+		assertThat(cachedResponse).isSameAs(response);
+		assertThat(serverFake.getRequests()).isEqualTo(2);
+		ResponseCacheStatistics statistics = service.getResponseCache().getStatistics();
+		assertThat(statistics.getHits()).isEqualTo(1);
+		assertThat(statistics.getMisses()).isEqualTo(1);
+		assertThat(statistics.getSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotCacheResponsesByDefault() throws Throwable {
+		// operation
+		RestService service = new RestService("http://localhost", "test", new FormUrlEncodedMediaType(),
+				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(),
+				new UrlConnectionHttpClientBuilder().client());
+
+		// verification
+		assertThat(service.getResponseCache()).isNull();
+	}
+
+	@Test
+	public void shouldNotReuseResponseIfCacheDisabled() throws Throwable {
+		// pre-conditions
+		service.setResponseCache(null);
+		Link link = new Link("/domains", HttpMethod.GET);
+		RestResponse response = service.request(link);
+
+		// operation
+		RestResponse secondResponse = service.request(link);
+
+		// verification
+		assertThat(secondResponse).isNotSameAs(response);
+		assertThat(secondResponse.getDataType()).isEqualTo(response.getDataType());
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsed() throws Throwable {
+		// pre-conditions
+		ResponseCache cache = new ResponseCache(2);
+		Map<String, String> headers = createHeaders(ETAG);
+		URL domains = new URL("https://openshift.redhat.com/broker/rest/domains");
+		URL user = new URL("https://openshift.redhat.com/broker/rest/user");
+		URL cartridges = new URL("https://openshift.redhat.com/broker/rest/cartridges");
+		cache.put(domains, "1.2", headers, createResponse());
+		cache.put(user, "1.2", headers, createResponse());
+		cache.get(domains, "1.2");
+
+		// operation
+		cache.put(cartridges, "1.2", headers, createResponse());
+
+		// verification
+		assertThat(cache.get(domains, "1.2")).isNotNull();
+		assertThat(cache.get(user, "1.2")).isNull();
+		assertThat(cache.get(cartridges, "1.2")).isNotNull();
+		assertThat(cache.getStatistics().getEvictions()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotCacheResponseWithoutValidators() throws Throwable {
+		// pre-conditions
+		ResponseCache cache = new ResponseCache();
+		URL domains = new URL("https://openshift.redhat.com/broker/rest/domains");
+
+		// operation
+		cache.put(domains, "1.2", createHeaders(null), createResponse());
+
+		// verification
+		assertThat(cache.get(domains, "1.2")).isNull();
+		assertThat(cache.getStatistics().getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldInvalidateAllVersions() throws Throwable {
+		// pre-conditions
+		ResponseCache cache = new ResponseCache();
+		URL domains = new URL("https://openshift.redhat.com/broker/rest/domains");
+		cache.put(domains, "1.1", createHeaders(ETAG), createResponse());
+		cache.put(domains, "1.2", createHeaders(ETAG), createResponse());
+
+		// operation
+		cache.invalidate(domains);
+
+		// verification
+		assertThat(cache.getStatistics().getSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldInvalidateQueriesAndResourcesBelow() throws Throwable {
+		// pre-conditions
+		ResponseCache cache = new ResponseCache();
+		Map<String, String> headers = createHeaders(ETAG);
+		URL applications = new URL("https://openshift.redhat.com/broker/rest/domains/foo/applications");
+		URL applicationsWithCartridges = new URL(applications + "?include=cartridges");
+		URL application = new URL(applications + "/bar");
+		URL domain = new URL("https://openshift.redhat.com/broker/rest/domains/foo");
+		URL otherApplications = new URL("https://openshift.redhat.com/broker/rest/domains/foo/applicationsX");
+		cache.put(applicationsWithCartridges, "1.2", headers, createResponse());
+		cache.put(application, "1.2", headers, createResponse());
+		cache.put(domain, "1.2", headers, createResponse());
+		cache.put(otherApplications, "1.2", headers, createResponse());
+
+		// operation
+		cache.invalidate(applications);
+
+		// verification
+		assertThat(cache.get(applicationsWithCartridges, "1.2")).isNull();
+		assertThat(cache.get(application, "1.2")).isNull();
+		assertThat(cache.get(domain, "1.2")).isNotNull();
+		assertThat(cache.get(otherApplications, "1.2")).isNotNull();
+	}
+
+	private RestResponse createResponse() throws Exception {
+		return new OpenShiftJsonDTOFactory().get(Samples.GET_DOMAINS.getContentAsString());
+	}
+
+	private Map<String, String> createHeaders(String etag) {
+		Map<String, String> headers = new HashMap<String, String>();
+		if (etag != null) {
+			headers.put(IHttpClient.PROPERTY_ETAG, etag);
+		}
+		return headers;
+	}
+}
@@ -18,10 +18,15 @@ import static org.mockito.Mockito.verify;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
+import java.net.Proxy;
 import java.net.SocketTimeoutException;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -29,22 +34,29 @@ import org.junit.Test;
 import com.openshift.client.HttpMethod;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.Message;
+import com.openshift.client.NotFoundOpenShiftException;
 import com.openshift.client.OpenShiftEndpointException;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftRequestException;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
 import com.openshift.client.utils.MessageAssert;
 import com.openshift.client.utils.OpenShiftTestConfiguration;
 import com.openshift.client.utils.Samples;
 import com.openshift.internal.client.httpclient.EncodingException;
 import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.NioHttpClient;
 import com.openshift.internal.client.httpclient.NotFoundException;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
 import com.openshift.internal.client.httpclient.request.JsonMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.response.EnumDataType;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.response.LinkParameter;
 import com.openshift.internal.client.response.LinkParameterType;
 import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+import com.openshift.internal.client.response.ResponseProjection;
 import com.openshift.internal.client.response.RestResponse;
+import com.openshift.internal.client.response.StringPool;
 
 /**
  * @author Andre Dietisheim
@@ -84,6 +96,15 @@ public class RestServiceTest {
 		service.request(link);
 	}
 
+	@Test
+	public void shouldNotFailToSetProxyIfClientHasNoProxySupport() throws Throwable {
+		// operation
+		service.setProxy(new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved("proxy.example.com", 3128)));
+		service.request(new TestLink("0 required parameter", "http://www.redhat.com", HttpMethod.GET));
+		// verifications
+		mockDirector.verifyGetAny(1);
+	}
+
 	@Test
 	public void shouldGetIfGetHttpMethod() throws OpenShiftException, SocketTimeoutException, HttpClientException {
 		// operation
@@ -92,6 +113,65 @@ public class RestServiceTest {
 		mockDirector.verifyGetAny(1);
 	}
 
+	@Test
+	public void shouldGetInCallingThreadIfClientIsNotAsynchronous() throws Throwable {
+		// operation
+		Future<RestResponse> response =
+				service.requestAsync(new TestLink("0 required parameter", "http://www.redhat.com", HttpMethod.GET), null);
+		// verifications
+		assertThat(response.isDone()).isTrue();
+		mockDirector.verifyGetAny(1);
+	}
+
+	@Test
+	public void shouldGetAsynchronouslyIfClientIsAsynchronous() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake serverFake = new KeepAliveHttpServerFake()
+				.setBody(Samples.GET_DOMAINS.getContentAsString());
+		serverFake.start();
+		NioHttpClient client = (NioHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAsynchronous(true)
+				.client();
+		String server = serverFake.getUrl().toString();
+		IRestService service = new RestService(server.substring(0, server.length() - 1), "test",
+				new JsonMediaType(), IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), client);
+		try {
+			// operation
+			Future<RestResponse> response = service.requestAsync(new Link("/domains", HttpMethod.GET), null);
+			// verifications
+			assertThat(response.get(10, TimeUnit.SECONDS).getDataType()).isEqualTo(EnumDataType.domains);
+		} finally {
+			client.shutdown();
+			serverFake.stop();
+		}
+	}
+
+	@Test
+	public void shouldReportNotFoundOpenShiftExceptionAsynchronously() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake serverFake = new KeepAliveHttpServerFake("HTTP/1.1 404 Not Found", false)
+				.setBody(Samples.GET_DOMAINS_FOOBAR_KO_NOTFOUND.getContentAsString());
+		serverFake.start();
+		NioHttpClient client = (NioHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAsynchronous(true)
+				.client();
+		String server = serverFake.getUrl().toString();
+		IRestService service = new RestService(server.substring(0, server.length() - 1), "test",
+				new JsonMediaType(), IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), client);
+		try {
+			// operation
+			service.requestAsync(new Link("/domains/foobar", HttpMethod.GET), null).get(10, TimeUnit.SECONDS);
+			fail("NotFoundOpenShiftException expected");
+		} catch (ExecutionException e) {
+			// verifications
+			assertThat(e.getCause()).isInstanceOf(NotFoundOpenShiftException.class);
+			assertThat(((NotFoundOpenShiftException) e.getCause()).getRestResponse()).isNotNull();
+		} finally {
+			client.shutdown();
+			serverFake.stop();
+		}
+	}
+
 	@Test
 	public void shouldPostIfPostHttpMethod() throws OpenShiftException, SocketTimeoutException, HttpClientException,
 			EncodingException {
@@ -371,6 +451,24 @@ public class RestServiceTest {
 		verify(httpClientMock, times(1)).setAcceptVersion("4.2");
 	}
 
+	@Test
+	public void shouldShareStringPoolOfTreeFactoryWithProjectedRequests() throws Throwable {
+		// pre-conditions
+		StringPool pool = new StringPool();
+		IHttpClient clientMock = new HttpClientMockDirector()
+				.mockGetAny(Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString())
+				.client();
+		RestService service = new RestService("http://localhost", "test", new JsonMediaType(),
+				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(null, pool), clientMock);
+
+		// operation
+		service.request(new TestLink("applications", "/applications", HttpMethod.GET),
+				new ResponseProjection("name", "links"), null);
+
+		// verification
+		assertThat(pool.getStatistics().getSize()).isGreaterThan(0);
+	}
+
 	public class TestLink extends Link {
 
 		public TestLink(String rel, String href, HttpMethod httpMethod, List<LinkParameter> requiredParams,
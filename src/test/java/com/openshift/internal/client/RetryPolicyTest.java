@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.NotFoundOpenShiftException;
+import com.openshift.client.OpenShiftEndpointException;
+import com.openshift.client.OpenShiftTimeoutException;
+import com.openshift.client.RequestContext;
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.InternalServerErrorException;
+import com.openshift.internal.client.httpclient.NotFoundException;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.JsonMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class RetryPolicyTest {
+
+	private static final String URL = "http://www.redhat.com";
+
+	private IHttpClient clientMock;
+	private RestService service;
+	private NoSleepRetryPolicy retryPolicy;
+
+	@Before
+	public void setUp() {
+		this.clientMock = mock(IHttpClient.class);
+		this.service = new RestService(URL, "test", new JsonMediaType(), IHttpClient.MEDIATYPE_APPLICATION_JSON,
+				new OpenShiftJsonDTOFactory(), clientMock);
+		this.retryPolicy = new NoSleepRetryPolicy();
+		service.setRetryPolicy(retryPolicy);
+	}
+
+	@Test
+	public void shouldRetryGetOnInternalServerError() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new InternalServerErrorException("mock..."))
+				.thenReturn("{}");
+
+		// operation
+		service.request(new Link(URL, HttpMethod.GET));
+
+		// verification
+		verify(clientMock, times(2)).get(any(URL.class), anyInt());
+		assertThat(retryPolicy.getStatistics().getRequests()).isEqualTo(1);
+		assertThat(retryPolicy.getStatistics().getRetries()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldRetryGetOnServerErrors() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new HttpClientException(503, "mock...", null))
+				.thenThrow(new HttpClientException(502, "mock...", null))
+				.thenReturn("{}");
+
+		// operation
+		service.request(new Link(URL, HttpMethod.GET));
+
+		// verification
+		verify(clientMock, times(3)).get(any(URL.class), anyInt());
+		assertThat(retryPolicy.getStatistics().getRetries()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldNotRetryIfDeadlinePassesDuringBackoff() throws Throwable {
+		// pre-conditions
+		RetryPolicy retryPolicy = new NoSleepRetryPolicy() {
+
+			@Override
+			protected long getBackoff(int retry) {
+				return 60 * 1000;
+			}
+		};
+		service.setRetryPolicy(retryPolicy);
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new HttpClientException(503, "mock...", null))
+				.thenReturn("{}");
+		RequestContext context = new RequestContext(10, TimeUnit.SECONDS);
+		RequestContext previous = context.attach();
+
+		// operation
+		try {
+			service.request(new Link(URL, HttpMethod.GET));
+			fail("OpenShiftEndpointException expected");
+		} catch (OpenShiftEndpointException e) {
+			// verification
+			verify(clientMock, times(1)).get(any(URL.class), anyInt());
+			assertThat(retryPolicy.getStatistics().getRetries()).isEqualTo(0);
+		} finally {
+			context.detach(previous);
+		}
+	}
+
+	@Test
+	public void shouldRetryDeleteIfConnectionRefused() throws Throwable {
+		// pre-conditions
+		when(clientMock.delete(any(URL.class), any(IMediaType.class), anyInt(), Matchers.<Parameter[]> anyVararg()))
+				.thenThrow(new HttpClientException(new ConnectException("mock...")))
+				.thenReturn("{}");
+
+		// operation
+		service.request(new Link(URL, HttpMethod.DELETE));
+
+		// verification
+		verify(clientMock, times(2))
+				.delete(any(URL.class), any(IMediaType.class), anyInt(), Matchers.<Parameter[]> anyVararg());
+	}
+
+	@Test
+	public void shouldNotRetryPostByDefault() throws Throwable {
+		// pre-conditions
+		when(clientMock.post(any(URL.class), any(IMediaType.class), anyInt(), Matchers.<Parameter[]> anyVararg()))
+				.thenThrow(new InternalServerErrorException("mock..."))
+				.thenReturn("{}");
+
+		// operation
+		try {
+			service.request(new Link(URL, HttpMethod.POST));
+			fail("OpenShiftEndpointException expected");
+		} catch (OpenShiftEndpointException e) {
+			// verification
+			verify(clientMock, times(1))
+					.post(any(URL.class), any(IMediaType.class), anyInt(), Matchers.<Parameter[]> anyVararg());
+		}
+	}
+
+	@Test
+	public void shouldRetryPostIfOptedIn() throws Throwable {
+		// pre-conditions
+		retryPolicy.setRetryableMethods(HttpMethod.GET, HttpMethod.POST);
+		when(clientMock.post(any(URL.class), any(IMediaType.class), anyInt(), Matchers.<Parameter[]> anyVararg()))
+				.thenThrow(new InternalServerErrorException("mock..."))
+				.thenReturn("{}");
+
+		// operation
+		service.request(new Link(URL, HttpMethod.POST));
+
+		// verification
+		verify(clientMock, times(2))
+				.post(any(URL.class), any(IMediaType.class), anyInt(), Matchers.<Parameter[]> anyVararg());
+	}
+
+	@Test
+	public void shouldNotRetryNotFound() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new NotFoundException("mock..."));
+
+		// operation
+		try {
+			service.request(new Link(URL, HttpMethod.GET));
+			fail("NotFoundOpenShiftException expected");
+		} catch (NotFoundOpenShiftException e) {
+			// verification
+			verify(clientMock, times(1)).get(any(URL.class), anyInt());
+		}
+	}
+
+	@Test
+	public void shouldNotExceedMaxRetries() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new SocketTimeoutException("mock..."));
+
+		// operation
+		try {
+			service.request(new Link(URL, HttpMethod.GET));
+			fail("OpenShiftTimeoutException expected");
+		} catch (OpenShiftTimeoutException e) {
+			// verification
+			verify(clientMock, times(1 + RetryPolicy.DEFAULT_MAX_RETRIES)).get(any(URL.class), anyInt());
+			assertThat(retryPolicy.backoffs).hasSize(RetryPolicy.DEFAULT_MAX_RETRIES);
+		}
+	}
+
+	@Test
+	public void shouldNotRetryIfBudgetIsExhausted() throws Throwable {
+		// pre-conditions
+		retryPolicy.setBudget(0.5, 1);
+		when(clientMock.get(any(URL.class), anyInt()))
+				.thenThrow(new SocketTimeoutException("mock..."));
+
+		// operation
+		for (int i = 0; i < 2; i++) {
+			try {
+				service.request(new Link(URL, HttpMethod.GET));
+				fail("OpenShiftTimeoutException expected");
+			} catch (OpenShiftTimeoutException e) {
+				// expected
+			}
+		}
+
+		// verification
+		// 1st request: retried once, 2nd request: budget back to 0.5 only
+		verify(clientMock, times(3)).get(any(URL.class), anyInt());
+		RetryStatistics statistics = retryPolicy.getStatistics();
+		assertThat(statistics.getRequests()).isEqualTo(2);
+		assertThat(statistics.getRetries()).isEqualTo(1);
+		assertThat(statistics.getBudgetExhausted()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldBackoffExponentiallyWithJitter() {
+		// pre-conditions
+		RetryPolicy policy = new RetryPolicy().setBackoff(100, 500);
+
+		// operation
+		for (int i = 0; i < 100; i++) {
+			// verification
+			assertThat(policy.getBackoff(0)).isGreaterThanOrEqualTo(0).isLessThan(100);
+			assertThat(policy.getBackoff(1)).isLessThan(200);
+			assertThat(policy.getBackoff(3)).isLessThan(500);
+			assertThat(policy.getBackoff(64)).isLessThan(500);
+		}
+	}
+
+	private static class NoSleepRetryPolicy extends RetryPolicy {
+
+		private final List<Long> backoffs = new ArrayList<Long>();
+
+		@Override
+		protected void sleep(long millis) {
+			backoffs.add(millis);
+		}
+	}
+}
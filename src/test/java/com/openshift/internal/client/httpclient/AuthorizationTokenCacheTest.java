@@ -0,0 +1,414 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class AuthorizationTokenCacheTest {
+
+	private static final String KEY = "https://openshift.redhat.com:443/adietish:digest";
+	private static final long LIFETIME = 60 * 60 * 1000;
+
+	private TimedAuthorizationTokenCache cache;
+	private AuthorizationServerFake serverFake;
+
+	@Before
+	public void setUp() throws IOException {
+		this.cache = new TimedAuthorizationTokenCache();
+		this.serverFake = new AuthorizationServerFake();
+		serverFake.start();
+	}
+
+	@After
+	public void tearDown() {
+		serverFake.stop();
+	}
+
+	@Test
+	public void shouldReuseToken() throws Throwable {
+		// pre-conditions
+		CountingIssuer issuer = new CountingIssuer();
+
+		// operation
+		AuthorizationToken token = cache.get(KEY, issuer);
+		AuthorizationToken token2 = cache.get(KEY, issuer);
+
+		// verification
+		assertThat(token2).isSameAs(token);
+		assertThat(issuer.getIssued()).isEqualTo(1);
+		assertThat(cache.getStatistics().getHits()).isEqualTo(1);
+		assertThat(cache.getStatistics().getTokens()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldRefreshTokenBeforeExpiry() throws Throwable {
+		// pre-conditions
+		CountingIssuer issuer = new CountingIssuer();
+		cache.setRefreshMargin(5 * 60 * 1000);
+		AuthorizationToken token = cache.get(KEY, issuer);
+
+		// operation
+		cache.now += LIFETIME - 5 * 60 * 1000 - 1;
+		AuthorizationToken token2 = cache.get(KEY, issuer);
+		cache.now += 1;
+		AuthorizationToken token3 = cache.get(KEY, issuer);
+
+		// verification
+		assertThat(token2).isSameAs(token);
+		assertThat(token3).isNotSameAs(token);
+		assertThat(token3.isExpired(cache.now)).isFalse();
+		assertThat(cache.getStatistics().getRefreshed()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldRevokeReplacedToken() throws Throwable {
+		// pre-conditions
+		CountingIssuer issuer = new CountingIssuer();
+		AuthorizationToken token = cache.get(KEY, issuer);
+		cache.now += LIFETIME - 1;
+
+		// operation
+		AuthorizationToken token2 = cache.get(KEY, issuer);
+
+		// verification
+		assertThat(token2).isNotSameAs(token);
+		assertThat(issuer.getRevoked()).containsOnly(token);
+	}
+
+	@Test
+	public void shouldUseNewTokenIfRevokeFails() throws Throwable {
+		// pre-conditions
+		AuthorizationToken token = cache.get(KEY, new CountingIssuer());
+		cache.now += LIFETIME - 1;
+
+		// operation
+		AuthorizationToken token2 = cache.get(KEY, new CountingIssuer() {
+
+			@Override
+			public void revoke(AuthorizationToken token) throws SocketTimeoutException, HttpClientException {
+				throw new HttpClientException("broker down");
+			}
+		});
+
+		// verification
+		assertThat(token2).isNotSameAs(token);
+		assertThat(cache.get(KEY, new FailingIssuer())).isSameAs(token2);
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedToken() throws Throwable {
+		// pre-conditions
+		this.cache = new TimedAuthorizationTokenCache(2);
+		CountingIssuer issuer = new CountingIssuer();
+		AuthorizationToken token = cache.get("user1", issuer);
+		cache.now++;
+		cache.get("user2", issuer);
+		cache.now++;
+		cache.get("user1", issuer);
+		cache.now++;
+
+		// operation
+		cache.get("user3", issuer);
+
+		// verification
+		assertThat(cache.getStatistics().getTokens()).isEqualTo(2);
+		assertThat(cache.getStatistics().getEvicted()).isEqualTo(1);
+		assertThat(cache.get("user1", new FailingIssuer())).isSameAs(token);
+		assertThat(issuer.getIssued()).isEqualTo(3);
+	}
+
+	@Test
+	public void shouldEvictExpiredTokensFirst() throws Throwable {
+		// pre-conditions
+		this.cache = new TimedAuthorizationTokenCache(2);
+		CountingIssuer issuer = new CountingIssuer();
+		cache.get("user1", issuer);
+		cache.now += LIFETIME / 2;
+		AuthorizationToken token = cache.get("user2", issuer);
+		cache.now += LIFETIME / 2;
+
+		// operation
+		cache.get("user3", issuer);
+
+		// verification
+		assertThat(cache.getStatistics().getTokens()).isEqualTo(2);
+		assertThat(cache.get("user2", new FailingIssuer())).isSameAs(token);
+	}
+
+	@Test
+	public void shouldKeepTokenIfRefreshFails() throws Throwable {
+		// pre-conditions
+		CountingIssuer issuer = new CountingIssuer();
+		AuthorizationToken token = cache.get(KEY, issuer);
+		cache.now += LIFETIME - 1;
+
+		// operation
+		AuthorizationToken token2 = cache.get(KEY, new FailingIssuer());
+
+		// verification
+		assertThat(token2).isSameAs(token);
+	}
+
+	@Test
+	public void shouldFailIfTokenExpiredAndCannotBeIssued() throws Throwable {
+		// pre-conditions
+		cache.get(KEY, new CountingIssuer());
+		cache.now += LIFETIME;
+
+		// operation
+		try {
+			cache.get(KEY, new FailingIssuer());
+			fail("expected HttpClientException");
+		} catch (HttpClientException e) {
+			// verification
+		}
+	}
+
+	@Test
+	public void shouldIssueNewTokenIfInvalidated() throws Throwable {
+		// pre-conditions
+		CountingIssuer issuer = new CountingIssuer();
+		AuthorizationToken token = cache.get(KEY, issuer);
+
+		// operation
+		cache.invalidate(KEY, token);
+		AuthorizationToken token2 = cache.get(KEY, issuer);
+		// stale rejection of the replaced token
+		cache.invalidate(KEY, token);
+
+		// verification
+		assertThat(token2).isNotSameAs(token);
+		assertThat(cache.get(KEY, issuer)).isSameAs(token2);
+		assertThat(issuer.getIssued()).isEqualTo(2);
+		assertThat(cache.getStatistics().getInvalidated()).isEqualTo(1);
+	}
+
+	@Test
+	public void clientsOfSameUserShouldShareToken() throws Throwable {
+		// pre-conditions
+		AuthorizationTokenCache cache = new AuthorizationTokenCache();
+		IHttpClient client = createClient("adietish", "redhat", cache);
+		IHttpClient client2 = createClient("adietish", "redhat", cache);
+
+		// operation
+		String response = client.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		String response2 = client2.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(serverFake.getIssued()).isEqualTo(1);
+		assertThat(serverFake.getAuthorizationRequests().get(0)).contains("Authorization: Basic ");
+		assertThat(response).contains("Authorization: Bearer token1");
+		assertThat(response2).contains("Authorization: Bearer token1");
+		assertThat(cache.getStatistics().getHits()).isEqualTo(1);
+	}
+
+	@Test
+	public void clientsWithOtherCredentialsShouldNotShareToken() throws Throwable {
+		// pre-conditions
+		AuthorizationTokenCache cache = new AuthorizationTokenCache();
+		IHttpClient client = createClient("adietish", "redhat", cache);
+		IHttpClient client2 = createClient("adietish", "guessed", cache);
+
+		// operation
+		client.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		String response = client2.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(serverFake.getIssued()).isEqualTo(2);
+		assertThat(response).contains("Authorization: Bearer token2");
+	}
+
+	@Test
+	public void shouldRequestNewTokenIfRejected() throws Throwable {
+		// pre-conditions
+		AuthorizationTokenCache cache = new AuthorizationTokenCache();
+		IHttpClient client = createClient("adietish", "redhat", cache);
+		client.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		serverFake.revoke("token1");
+
+		// operation
+		String response = client.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response).contains("Authorization: Bearer token2");
+		assertThat(cache.getStatistics().getInvalidated()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldRevokeReplacedTokenAtBroker() throws Throwable {
+		// pre-conditions
+		TimedAuthorizationTokenCache cache = new TimedAuthorizationTokenCache();
+		cache.now = System.currentTimeMillis();
+		IHttpClient client = createClient("adietish", "redhat", cache);
+		client.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		// due to be replaced
+		cache.now += 24 * 60 * 60 * 1000 - 60 * 1000;
+
+		// operation
+		String response = client.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response).contains("Authorization: Bearer token2");
+		assertThat(serverFake.getRevokeRequests()).hasSize(1);
+		assertThat(serverFake.getRevokeRequests().get(0))
+				.startsWith("DELETE " + UrlConnectionHttpClient.AUTHORIZATIONS_PATH + "/authorization1 ")
+				.contains("Authorization: Basic ");
+	}
+
+	@Test
+	public void shouldUseBasicAuthorizationWithoutTokenCache() throws Throwable {
+		// pre-conditions
+		IHttpClient client = createClient("adietish", "redhat", null);
+
+		// operation
+		String response = client.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(serverFake.getIssued()).isEqualTo(0);
+		assertThat(response).contains("Authorization: Basic ");
+	}
+
+	private IHttpClient createClient(String username, String password, AuthorizationTokenCache cache) {
+		return new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.setCredentials(username, password)
+				.setConnectionPooling(true)
+				.setAuthorizationTokenCache(cache)
+				.client();
+	}
+
+	private class TimedAuthorizationTokenCache extends AuthorizationTokenCache {
+
+		private long now = 1000;
+
+		private TimedAuthorizationTokenCache() {
+			super();
+		}
+
+		private TimedAuthorizationTokenCache(int maxEntries) {
+			super(maxEntries);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return now;
+		}
+	}
+
+	private class CountingIssuer implements IAuthorizationTokenIssuer {
+
+		private int issued;
+		private final List<AuthorizationToken> revoked = new ArrayList<AuthorizationToken>();
+
+		@Override
+		public AuthorizationToken issue() throws SocketTimeoutException, HttpClientException {
+			issued++;
+			return new AuthorizationToken("token" + issued, cache.now, cache.now + LIFETIME);
+		}
+
+		@Override
+		public void revoke(AuthorizationToken token) throws SocketTimeoutException, HttpClientException {
+			revoked.add(token);
+		}
+
+		public int getIssued() {
+			return issued;
+		}
+
+		public List<AuthorizationToken> getRevoked() {
+			return revoked;
+		}
+	}
+
+	private class FailingIssuer implements IAuthorizationTokenIssuer {
+
+		@Override
+		public AuthorizationToken issue() throws SocketTimeoutException, HttpClientException {
+			throw new HttpClientException("broker down");
+		}
+
+		@Override
+		public void revoke(AuthorizationToken token) throws SocketTimeoutException, HttpClientException {
+			throw new HttpClientException("broker down");
+		}
+	}
+
+	/**
+	 * Issues tokens for posts to the authorizations resource, records deletes
+	 * of authorizations, rejects revoked tokens and echoes all other requests.
+	 */
+	private static class AuthorizationServerFake extends KeepAliveHttpServerFake {
+
+		private final AtomicInteger issued = new AtomicInteger();
+		private final List<String> authorizationRequests = Collections.synchronizedList(new ArrayList<String>());
+		private final List<String> revokeRequests = Collections.synchronizedList(new ArrayList<String>());
+		private volatile String revoked;
+
+		@Override
+		protected void writeResponse(String request, OutputStream out) throws IOException {
+			if (request.startsWith("POST " + UrlConnectionHttpClient.AUTHORIZATIONS_PATH)) {
+				authorizationRequests.add(request);
+				int id = issued.incrementAndGet();
+				write("200 OK", "{\"data\" : {\"id\" : \"authorization" + id + "\", \"token\" : \"token" + id
+						+ "\", \"expires_in\" : 86400}, \"type\" : \"authorization\"}", out);
+			} else if (request.startsWith("DELETE " + UrlConnectionHttpClient.AUTHORIZATIONS_PATH)) {
+				revokeRequests.add(request);
+				write("204 No Content", "", out);
+			} else if (revoked != null
+					&& request.contains("Authorization: Bearer " + revoked)) {
+				write("401 Unauthorized", "", out);
+			} else {
+				super.writeResponse(request, out);
+			}
+		}
+
+		private void write(String status, String body, OutputStream out) throws IOException {
+			out.write(("HTTP/1.1 " + status + "\r\nContent-Length: " + body.length() + "\r\n\r\n" + body).getBytes());
+			out.flush();
+		}
+
+		public void revoke(String token) {
+			this.revoked = token;
+		}
+
+		public int getIssued() {
+			return issued.get();
+		}
+
+		public List<String> getAuthorizationRequests() {
+			return authorizationRequests;
+		}
+
+		public List<String> getRevokeRequests() {
+			return revokeRequests;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.Test;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class ContentEncodingTest {
+
+	@Test
+	public void shouldInflateGzipResponse() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake serverFake = new KeepAliveHttpServerFake().setContentEncoding(ContentEncoding.GZIP);
+		serverFake.start();
+		PooledHttpClient httpClient = (PooledHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setConnectionPooling(true)
+				.client();
+		try {
+			// operation
+			String response = httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+			httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(response).startsWith("GET / HTTP/1.1")
+					.contains("Accept-Encoding: " + ContentEncoding.ACCEPTED_ENCODINGS);
+			assertThat(serverFake.getConnections()).isEqualTo(1);
+			CompressionStatistics statistics = httpClient.getCompressionStatistics();
+			assertThat(statistics.getCompressedResponses()).isEqualTo(2);
+			assertThat(statistics.getUncompressedBytes()).isEqualTo(2 * response.length());
+			assertThat(statistics.getCompressedBytes()).isGreaterThan(0);
+			assertThat(statistics.getIdentityBytes()).isEqualTo(0);
+		} finally {
+			httpClient.getConnectionPool().shutdown();
+			serverFake.stop();
+		}
+	}
+
+	@Test
+	public void shouldInflateDeflateResponse() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake serverFake = new KeepAliveHttpServerFake().setContentEncoding(ContentEncoding.DEFLATE);
+		serverFake.start();
+		UrlConnectionHttpClient httpClient = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client();
+		try {
+			// operation
+			String response = httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(response).startsWith("GET / HTTP/1.1");
+			assertThat(httpClient.getCompressionStatistics().getCompressedResponses()).isEqualTo(1);
+			assertThat(httpClient.getCompressionStatistics().getUncompressedBytes())
+					.isEqualTo(response.length());
+		} finally {
+			serverFake.stop();
+		}
+	}
+
+	@Test
+	public void shouldNotAcceptEncodingIfCompressionDisabled() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake serverFake = new KeepAliveHttpServerFake().setContentEncoding(ContentEncoding.GZIP);
+		serverFake.start();
+		PooledHttpClient httpClient = (PooledHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setConnectionPooling(true)
+				.setCompression(false)
+				.client();
+		try {
+			// operation
+			String response = httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(response).doesNotContain("Accept-Encoding");
+			CompressionStatistics statistics = httpClient.getCompressionStatistics();
+			assertThat(statistics.getCompressedResponses()).isEqualTo(0);
+			assertThat(statistics.getIdentityBytes()).isEqualTo(response.length());
+		} finally {
+			httpClient.getConnectionPool().shutdown();
+			serverFake.stop();
+		}
+	}
+
+	@Test
+	public void shouldInflateRawDeflate() throws Throwable {
+		// pre-conditions
+		String content = "{\"links\":{}, \"links\":{}, \"links\":{}}\n";
+		byte[] compressed = compress(content.getBytes(), new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+		ContentEncoding encoding = new ContentEncoding();
+
+		// operation
+		String inflated = StreamUtils.readToString(
+				encoding.decode(new ByteArrayInputStream(compressed), ContentEncoding.DEFLATE));
+
+		// verification
+		assertThat(inflated).isEqualTo(content);
+		assertThat(encoding.getStatistics().getCompressedBytes()).isEqualTo(compressed.length);
+	}
+
+	@Test
+	public void shouldReturnEmptyStreamForEmptyCompressedBody() throws Throwable {
+		// pre-conditions
+		ContentEncoding encoding = new ContentEncoding();
+
+		// operation
+		int read = encoding.decode(new ByteArrayInputStream(new byte[0]), ContentEncoding.GZIP).read();
+
+		// verification
+		assertThat(read).isEqualTo(-1);
+		assertThat(encoding.getStatistics().getCompressedResponses()).isEqualTo(0);
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldThrowOnUnsupportedEncoding() throws Throwable {
+		// operation
+		new ContentEncoding().decode(new ByteArrayInputStream(new byte[] { 1 }), "br");
+	}
+
+	private byte[] compress(byte[] data, Deflater deflater) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DeflaterOutputStream compressor = new DeflaterOutputStream(out, deflater);
+		compressor.write(data);
+		compressor.close();
+		deflater.end();
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.IHttpResponseHandler;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+import com.openshift.client.utils.Base64Coder;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class HttpClientSessionTest {
+
+	private KeepAliveHttpServerFake serverFake;
+	private PooledHttpClient transport;
+
+	@Before
+	public void setUp() throws IOException {
+		this.serverFake = new KeepAliveHttpServerFake();
+		serverFake.start();
+		this.transport = (PooledHttpClient) new UrlConnectionHttpClientBuilder()
+				.setConnectionPooling(true)
+				.client();
+	}
+
+	@After
+	public void tearDown() {
+		transport.getConnectionPool().shutdown();
+		serverFake.stop();
+	}
+
+	@Test
+	public void shouldSendCredentialsOfSession() throws Throwable {
+		// pre-conditions
+		HttpClientSession session1 = createSession("adietish", "redhat");
+		HttpClientSession session2 = createSession("xcoulon", "jboss");
+
+		// operation
+		String response1 = session1.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		String response2 = session2.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response1).contains("Authorization: " + createBasicAuthorization("adietish", "redhat"));
+		assertThat(response2).contains("Authorization: " + createBasicAuthorization("xcoulon", "jboss"));
+		assertThat(response2).doesNotContain(createBasicAuthorization("adietish", "redhat"));
+	}
+
+	@Test
+	public void shouldShareConnectionsAmongSessions() throws Throwable {
+		// operation
+		for (int i = 0; i < 10; i++) {
+			createSession("user" + i, "password" + i).get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		}
+
+		// verification
+		assertThat(serverFake.getConnections()).isEqualTo(1);
+		assertThat(transport.getStatistics().getCreated()).isEqualTo(1);
+		assertThat(transport.getStatistics().getReused()).isEqualTo(9);
+	}
+
+	@Test
+	public void shouldSendUserAgentAndVersionOfSession() throws Throwable {
+		// pre-conditions
+		HttpClientSession session1 = createSession("adietish", "redhat");
+		session1.setUserAgent("session1");
+		session1.setAcceptVersion("1.2");
+		HttpClientSession session2 = createSession("xcoulon", "jboss");
+		session2.setUserAgent("session2");
+
+		// operation
+		String response1 = session1.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		String response2 = session2.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response1).contains("User-Agent: session1")
+				.contains("Accept: " + IHttpClient.MEDIATYPE_APPLICATION_JSON + "; version=1.2");
+		assertThat(response2).contains("User-Agent: session2")
+				.contains("Accept: " + IHttpClient.MEDIATYPE_APPLICATION_JSON + "\n");
+	}
+
+	@Test
+	public void shouldSendAuthKeyInsteadOfPassword() throws Throwable {
+		// pre-conditions
+		HttpClientSession session = transport.createSession(null, null, "authkey", "authiv");
+		session.setAcceptedMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON);
+
+		// operation
+		String response = session.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response).contains(IHttpClient.PROPERTY_AUTHKEY + ": authkey")
+				.contains(IHttpClient.PROPERTY_AUTHIV + ": authiv")
+				.doesNotContain("Authorization: ");
+	}
+
+	@Test
+	public void shouldRequestAsynchronouslyWithCredentialsOfSession() throws Throwable {
+		// pre-conditions
+		NioHttpClient asyncTransport = (NioHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAsynchronous(true)
+				.client();
+		AsyncHttpClientSession session = asyncTransport.createSession("adietish", "redhat", null, null);
+		session.setAcceptedMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON);
+
+		try {
+			// operation
+			Future<String> response = session.requestAsync(HttpMethod.GET, serverFake.getUrl(), null,
+					IHttpClient.NO_TIMEOUT, Collections.<String, String> emptyMap(),
+					new IHttpResponseHandler<String>() {
+
+						@Override
+						public String handle(int statusCode, Map<String, String> headers, InputStream response)
+								throws IOException {
+							return StreamUtils.readToString(response);
+						}
+					}, null);
+
+			// verification
+			assertThat(response.get(10, TimeUnit.SECONDS))
+					.contains("Authorization: " + createBasicAuthorization("adietish", "redhat"));
+		} finally {
+			asyncTransport.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldConnectThroughProxyOfSession() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake proxyFake = new KeepAliveHttpServerFake();
+		proxyFake.start();
+		HttpClientSession proxiedSession = createSession("adietish", "redhat");
+		proxiedSession.setProxy(
+				new Proxy(Proxy.Type.HTTP, new InetSocketAddress("localhost", proxyFake.getUrl().getPort())));
+		HttpClientSession directSession = createSession("xcoulon", "jboss");
+
+		try {
+			// operation
+			String proxiedResponse = proxiedSession.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+			String directResponse = directSession.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+			proxiedSession.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(proxiedResponse).startsWith("GET " + serverFake.getUrl().toExternalForm() + " HTTP/1.1");
+			assertThat(directResponse).startsWith("GET / HTTP/1.1");
+			assertThat(proxyFake.getConnections()).isEqualTo(1);
+			assertThat(serverFake.getConnections()).isEqualTo(1);
+			assertThat(transport.getStatistics().getCreated()).isEqualTo(2);
+			assertThat(transport.getStatistics().getReused()).isEqualTo(1);
+		} finally {
+			proxyFake.stop();
+		}
+	}
+
+	private HttpClientSession createSession(String username, String password) {
+		HttpClientSession session = transport.createSession(username, password);
+		session.setAcceptedMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON);
+		return session;
+	}
+
+	private String createBasicAuthorization(String username, String password) {
+		return IHttpClient.AUTHORIZATION_BASIC + " " + Base64Coder.encode((username + ":" + password).getBytes());
+	}
+}
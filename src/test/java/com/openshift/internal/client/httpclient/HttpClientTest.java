@@ -16,10 +16,14 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.DataInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.util.Random;
@@ -43,7 +47,11 @@ import com.openshift.client.fakes.PayLoadReturningHttpClientFake;
 import com.openshift.client.fakes.WaitingHttpServerFake;
 import com.openshift.client.utils.Base64Coder;
 import com.openshift.internal.client.httpclient.request.FormUrlEncodedMediaType;
+import com.openshift.internal.client.httpclient.request.JsonMediaType;
 import com.openshift.internal.client.httpclient.request.StringParameter;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+import com.openshift.internal.client.response.RestResponse;
+import com.openshift.internal.client.utils.StringUtils;
 
 /**
  * @author Andre Dietisheim
@@ -183,6 +191,42 @@ public class HttpClientTest {
 		assertThat(clientFake.getAcceptHeader(connection)).endsWith("; version=" + version);
 	}
 
+	@Test
+	public void shouldReuseRequestTemplate() {
+		// pre-conditions
+		UrlConnectionHttpClient client = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(ACCEPT_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.setCredentials("adietish", "redhat")
+				.client();
+
+		// operation
+		RequestTemplate template = client.getRequestTemplate();
+
+		// verification
+		assertThat(client.getRequestTemplate()).isSameAs(template);
+		assertThat(template.getHeader(IHttpClient.PROPERTY_USER_AGENT)).isEqualTo("com.openshift.client.test");
+		assertThat(template.getHeader(IHttpClient.PROPERTY_AUTHORIZATION))
+				.isEqualTo("Basic " + Base64Coder.encode("adietish:redhat".getBytes()));
+	}
+
+	@Test
+	public void shouldRecreateRequestTemplateIfAcceptVersionChanged() {
+		// pre-conditions
+		UrlConnectionHttpClient client = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(ACCEPT_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.client();
+		RequestTemplate template = client.getRequestTemplate();
+
+		// operation
+		client.setAcceptVersion("42.0");
+
+		// verification
+		assertThat(client.getRequestTemplate()).isNotSameAs(template);
+		assertThat(client.getRequestTemplate().getHeader(IHttpClient.PROPERTY_ACCEPT)).endsWith("; version=42.0");
+	}
+
 	@Test(expected = NotFoundException.class)
 	public void shouldThrowNotFoundException() throws IOException {
 		HttpServerFake server = null;
@@ -242,6 +286,60 @@ public class HttpClientTest {
 		}
 	}
 
+	@Test
+	public void shouldReadErrorMessageOfUnauthorizedPost() throws Throwable {
+		// pre-conditions
+		final String errorMessage = "{\"data\":null,\"type\":null,\"status\":\"unauthorized\",\"version\":\"1.0\","
+				+ "\"messages\":[{\"severity\":\"error\",\"exit_code\":0,\"field\":null,"
+				+ "\"text\":\"Your credentials are not authorized to access this resource\"}]}";
+		final ServerSocket server = new ServerSocket(0);
+		Thread serverThread = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Socket socket = server.accept();
+					DataInputStream in = new DataInputStream(socket.getInputStream());
+					int contentLength = 0;
+					String line = null;
+					while (!StringUtils.isEmpty(line = readLine(in))) {
+						if (line.toLowerCase().startsWith("content-length:")) {
+							contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+						}
+					}
+					in.readFully(new byte[contentLength]);
+					OutputStream out = socket.getOutputStream();
+					out.write(("HTTP/1.1 401 Unauthorized\r\n"
+							+ "WWW-Authenticate: Basic realm=\"broker\"\r\n"
+							+ "Content-Type: application/json\r\n"
+							+ "Content-Length: " + errorMessage.length() + "\r\n"
+							+ "Connection: close\r\n\r\n"
+							+ errorMessage).getBytes());
+					out.flush();
+					socket.close();
+				} catch (IOException e) {
+					// test fails
+				}
+			}
+		};
+		serverThread.start();
+
+		try {
+			// operation
+			httpClient.post(new URL("http://localhost:" + server.getLocalPort() + "/"), new JsonMediaType(),
+					IHttpClient.NO_TIMEOUT, new StringParameter("name", "foobarz"));
+			fail("UnauthorizedException expected");
+		} catch (UnauthorizedException e) {
+			// verification
+			RestResponse response = new OpenShiftJsonDTOFactory().get(e.getMessage());
+			assertThat(response.getMessages().getAll()).hasSize(1);
+			assertThat(response.getMessages().getAll().get(0).getText())
+					.isEqualTo("Your credentials are not authorized to access this resource");
+		} finally {
+			server.close();
+		}
+	}
+
 	@Test
 	public void shouldRespectGivenTimeoutPOST() throws Throwable {
 		// pre-conditions
@@ -471,6 +569,18 @@ public class HttpClientTest {
 		}
 	};
 
+	private static String readLine(DataInputStream in) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		int character = -1;
+		while ((character = in.read()) != -1
+				&& character != '\n') {
+			if (character != '\r') {
+				builder.append((char) character);
+			}
+		}
+		return builder.toString();
+	}
+
 	private void restoreSystemProperty(String property, String value) {
 		if (value == null) {
 			System.clearProperty(property);
@@ -0,0 +1,306 @@
+/******************************************************************************* 
+ * Copyright (c) 2013 Red Hat, Inc. 
+ * Distributed under license by Red Hat, Inc. All rights reserved. 
+ * This program is made available under the terms of the 
+ * Eclipse Public License v1.0 which accompanies this distribution, 
+ * and is available at http://www.eclipse.org/legal/epl-v10.html 
+ * 
+ * Contributors: 
+ * Red Hat, Inc. - initial API and implementation 
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.IHttpResponseHandler;
+import com.openshift.client.IRequestCallback;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+import com.openshift.internal.client.httpclient.request.FormUrlEncodedMediaType;
+import com.openshift.internal.client.httpclient.request.StringParameter;
+import com.openshift.internal.client.utils.StreamUtils;
+import com.openshift.internal.client.utils.StringUtils;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class NioHttpClientTest {
+
+	private static final IHttpResponseHandler<String> STRING_RESPONSE = new IHttpResponseHandler<String>() {
+
+		@Override
+		public String handle(int statusCode, Map<String, String> headers, InputStream response)
+				throws IOException {
+			return StreamUtils.readToString(response);
+		}
+	};
+
+	private static final Map<String, String> NO_HEADERS = Collections.<String, String> emptyMap();
+
+	private KeepAliveHttpServerFake serverFake;
+	private NioHttpClient httpClient;
+
+	@Before
+	public void setUp() throws IOException {
+		this.serverFake = new KeepAliveHttpServerFake();
+		serverFake.start();
+		this.httpClient = (NioHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.setAsynchronous(true)
+				.client();
+	}
+
+	@After
+	public void tearDown() {
+		httpClient.shutdown();
+		serverFake.stop();
+	}
+
+	@Test
+	public void shouldKeepManyRequestsInFlight() throws Throwable {
+		// pre-conditions
+		int numOfRequests = 100;
+		final CountDownLatch callbacks = new CountDownLatch(numOfRequests);
+		IRequestCallback<String> callback = new IRequestCallback<String>() {
+
+			@Override
+			public void completed(String result) {
+				callbacks.countDown();
+			}
+
+			@Override
+			public void failed(Throwable e) {
+			}
+		};
+
+		// operation
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		for (int i = 0; i < numOfRequests; i++) {
+			futures.add(httpClient.requestAsync(HttpMethod.GET, serverFake.getUrl(), null, IHttpClient.NO_TIMEOUT,
+					NO_HEADERS, STRING_RESPONSE, callback));
+		}
+
+		// verification
+		for (Future<String> future : futures) {
+			assertThat(future.get(10, TimeUnit.SECONDS)).startsWith("GET / HTTP/1.1")
+					.contains("Connection: close");
+		}
+		assertThat(callbacks.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(serverFake.getRequests()).isEqualTo(numOfRequests);
+	}
+
+	@Test
+	public void canPostParameters() throws Throwable {
+		// operation
+		Future<String> response = httpClient.requestAsync(HttpMethod.POST, serverFake.getUrl(),
+				new FormUrlEncodedMediaType(), IHttpClient.NO_TIMEOUT, NO_HEADERS, STRING_RESPONSE, null,
+				new StringParameter("adietish", "redhat"));
+
+		// verification
+		assertThat(response.get(10, TimeUnit.SECONDS)).startsWith("POST")
+				.contains("Content-Type: " + IHttpClient.MEDIATYPE_APPLICATION_FORMURLENCODED)
+				.contains("adietish=redhat");
+	}
+
+	@Test
+	public void canReadChunkedGzipResponse() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake chunkedServer =
+				new KeepAliveHttpServerFake("HTTP/1.1 200 OK", true).setContentEncoding(ContentEncoding.GZIP);
+		chunkedServer.start();
+		try {
+			// operation
+			Future<String> response = httpClient.requestAsync(HttpMethod.GET, chunkedServer.getUrl(), null,
+					IHttpClient.NO_TIMEOUT, NO_HEADERS, STRING_RESPONSE, null);
+
+			// verification
+			assertThat(response.get(10, TimeUnit.SECONDS)).startsWith("GET / HTTP/1.1");
+			assertThat(httpClient.getCompressionStatistics().getCompressedResponses()).isEqualTo(1);
+		} finally {
+			chunkedServer.stop();
+		}
+	}
+
+	@Test
+	public void canRequestOverTls() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake secureServer = new KeepAliveHttpServerFake().setSecure();
+		secureServer.start();
+		try {
+			// operation
+			Future<String> response = httpClient.requestAsync(HttpMethod.GET, secureServer.getUrl(), null,
+					IHttpClient.NO_TIMEOUT, NO_HEADERS, STRING_RESPONSE, null);
+
+			// verification
+			assertThat(response.get(10, TimeUnit.SECONDS)).startsWith("GET / HTTP/1.1");
+		} finally {
+			secureServer.stop();
+		}
+	}
+
+	@Test
+	public void shouldReportNotFoundException() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake notFoundServer = new KeepAliveHttpServerFake("HTTP/1.1 404 Not Found", false);
+		notFoundServer.start();
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final CountDownLatch notified = new CountDownLatch(1);
+		try {
+			// operation
+			Future<String> response = httpClient.requestAsync(HttpMethod.GET, notFoundServer.getUrl(), null,
+					IHttpClient.NO_TIMEOUT, NO_HEADERS, STRING_RESPONSE, new IRequestCallback<String>() {
+
+						@Override
+						public void completed(String result) {
+						}
+
+						@Override
+						public void failed(Throwable e) {
+							error.set(e);
+							notified.countDown();
+						}
+					});
+			response.get(10, TimeUnit.SECONDS);
+			fail("NotFoundException expected");
+		} catch (ExecutionException e) {
+			// verification
+			assertThat(e.getCause()).isInstanceOf(NotFoundException.class);
+			// callback is notified after waiting threads are released
+			assertThat(notified.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(error.get()).isSameAs(e.getCause());
+		} finally {
+			notFoundServer.stop();
+		}
+	}
+
+	@Test
+	public void shouldTimeoutIfServerDoesNotRespond() throws Throwable {
+		// pre-conditions
+		ServerSocket silentServer = new ServerSocket(0);
+		try {
+			// operation
+			Future<String> response = httpClient.requestAsync(HttpMethod.GET,
+					new URL("http://localhost:" + silentServer.getLocalPort() + "/"), null, 200,
+					NO_HEADERS, STRING_RESPONSE, null);
+			Socket socket = silentServer.accept();
+			try {
+				response.get(10, TimeUnit.SECONDS);
+				fail("SocketTimeoutException expected");
+			} catch (ExecutionException e) {
+				// verification
+				assertThat(e.getCause()).isInstanceOf(SocketTimeoutException.class);
+			} finally {
+				socket.close();
+			}
+		} finally {
+			silentServer.close();
+		}
+	}
+
+	@Test
+	public void canCancelRequest() throws Throwable {
+		// pre-conditions
+		ServerSocket silentServer = new ServerSocket(0);
+		try {
+			Future<String> response = httpClient.requestAsync(HttpMethod.GET,
+					new URL("http://localhost:" + silentServer.getLocalPort() + "/"), null, IHttpClient.NO_TIMEOUT,
+					NO_HEADERS, STRING_RESPONSE, null);
+			Socket socket = silentServer.accept();
+
+			// operation
+			boolean cancelled = response.cancel(true);
+
+			// verification
+			assertThat(cancelled).isTrue();
+			assertThat(response.isCancelled()).isTrue();
+			assertThat(response.isDone()).isTrue();
+			// server sees the connection closed
+			socket.setSoTimeout(5 * 1000);
+			InputStream in = socket.getInputStream();
+			while (in.read() != -1) {
+				// request
+			}
+			socket.close();
+		} finally {
+			silentServer.close();
+		}
+	}
+
+	@Test
+	public void shouldTryOtherAddressesOfHost() throws Throwable {
+		// pre-conditions
+		final InetAddress loopback = InetAddress.getByName("127.0.0.1");
+		final ServerSocket server = new ServerSocket(0, 1, loopback);
+		Thread serverThread = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Socket socket = server.accept();
+					BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+					while (!StringUtils.isEmpty(reader.readLine())) {
+						// request head
+					}
+					OutputStream out = socket.getOutputStream();
+					out.write("HTTP/1.1 200 OK\r\nContent-Length: 2\r\nConnection: close\r\n\r\nok".getBytes());
+					out.flush();
+					socket.close();
+				} catch (IOException e) {
+					// test fails
+				}
+			}
+		};
+		serverThread.start();
+		// dont let the proxy settings of the vm resolve the host
+		httpClient.setProxy(Proxy.NO_PROXY);
+		httpClient.setDnsCache(new DnsCache() {
+
+			@Override
+			protected InetAddress[] lookup(String host) throws UnknownHostException {
+				// nothing listens on 127.0.0.2
+				return new InetAddress[] { InetAddress.getByName("127.0.0.2"), loopback };
+			}
+		});
+
+		try {
+			// operation
+			Future<String> response = httpClient.requestAsync(HttpMethod.GET,
+					new URL("http://openshift.example.com:" + server.getLocalPort() + "/"), null,
+					IHttpClient.NO_TIMEOUT, NO_HEADERS, STRING_RESPONSE, null);
+
+			// verification
+			assertThat(response.get(10, TimeUnit.SECONDS)).startsWith("ok");
+		} finally {
+			server.close();
+		}
+	}
+}
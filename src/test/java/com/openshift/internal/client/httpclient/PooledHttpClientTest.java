@@ -0,0 +1,488 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+
+import javax.net.SocketFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.client.fakes.HttpProxyFake;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+import com.openshift.internal.client.httpclient.request.FormUrlEncodedMediaType;
+import com.openshift.internal.client.httpclient.request.StringParameter;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class PooledHttpClientTest {
+
+	private KeepAliveHttpServerFake serverFake;
+	private PooledHttpClient httpClient;
+
+	@Before
+	public void setUp() throws IOException {
+		this.serverFake = new KeepAliveHttpServerFake();
+		serverFake.start();
+		this.httpClient = (PooledHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.setConnectionPooling(true)
+				.client();
+	}
+
+	@After
+	public void tearDown() {
+		httpClient.getConnectionPool().shutdown();
+		serverFake.stop();
+	}
+
+	@Test
+	public void shouldReuseConnection() throws Throwable {
+		// operation
+		String response = httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response).startsWith("GET / HTTP/1.1");
+		assertThat(serverFake.getRequests()).isEqualTo(3);
+		assertThat(serverFake.getConnections()).isEqualTo(1);
+		ConnectionPoolStatistics statistics = httpClient.getStatistics();
+		assertThat(statistics.getCreated()).isEqualTo(1);
+		assertThat(statistics.getReused()).isEqualTo(2);
+		assertThat(statistics.getIdle()).isEqualTo(1);
+		assertThat(statistics.getLeased()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldRetryGetOnStaleConnection() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake closingServer = new KeepAliveHttpServerFake().setCloseAfterResponse();
+		closingServer.start();
+		try {
+			httpClient.get(closingServer.getUrl(), IHttpClient.NO_TIMEOUT);
+			waitForClosed(closingServer);
+
+			// operation
+			String response = httpClient.get(closingServer.getUrl(), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(response).startsWith("GET / HTTP/1.1");
+			assertThat(closingServer.getConnections()).isEqualTo(2);
+		} finally {
+			closingServer.stop();
+		}
+	}
+
+	@Test
+	public void shouldNotRetryPostOnStaleConnection() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake closingServer = new KeepAliveHttpServerFake().setCloseAfterResponse();
+		closingServer.start();
+		try {
+			httpClient.get(closingServer.getUrl(), IHttpClient.NO_TIMEOUT);
+			waitForClosed(closingServer);
+
+			// operation
+			try {
+				httpClient.post(closingServer.getUrl(), new FormUrlEncodedMediaType(),
+						IHttpClient.NO_TIMEOUT, new StringParameter("adietish", "redhat"));
+				fail("post was retried on a new connection");
+			} catch (HttpClientException e) {
+				// expected
+			}
+
+			// verification
+			assertThat(closingServer.getConnections()).isEqualTo(1);
+			assertThat(httpClient.getStatistics().getLeased()).isEqualTo(0);
+		} finally {
+			closingServer.stop();
+		}
+	}
+
+	@Test
+	public void canPostParameters() throws Throwable {
+		// operation
+		String response = httpClient.post(serverFake.getUrl(), new FormUrlEncodedMediaType(),
+				IHttpClient.NO_TIMEOUT, new StringParameter("adietish", "redhat"));
+		httpClient.delete(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response).startsWith("POST");
+		assertThat(response).contains("Content-Type: " + IHttpClient.MEDIATYPE_APPLICATION_FORMURLENCODED);
+		assertThat(response).contains("adietish=redhat");
+		assertThat(serverFake.getConnections()).isEqualTo(1);
+	}
+
+	@Test
+	public void canPatch() throws Throwable {
+		// operation
+		String response = httpClient.patch(serverFake.getUrl(), new FormUrlEncodedMediaType(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response).startsWith("POST");
+		assertThat(response).contains("X-Http-Method-Override: PATCH");
+	}
+
+	@Test
+	public void shouldFollowSeeOtherAsGetWithoutBody() throws Throwable {
+		// pre-conditions
+		serverFake.setRedirect("HTTP/1.1 303 See Other", "/other");
+
+		// operation
+		String response = httpClient.put(new URL(serverFake.getUrl(), "/resource"), new FormUrlEncodedMediaType(),
+				IHttpClient.NO_TIMEOUT, new StringParameter("adietish", "redhat"));
+
+		// verification
+		assertThat(response).startsWith("GET /other ");
+		assertThat(response).doesNotContain("Content-Length");
+		assertThat(response).doesNotContain("adietish=redhat");
+		assertThat(serverFake.getRequests()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldFollowFoundForPostAsGetWithoutBody() throws Throwable {
+		// pre-conditions
+		serverFake.setRedirect("HTTP/1.1 302 Found", "/other");
+
+		// operation
+		String response = httpClient.post(new URL(serverFake.getUrl(), "/resource"), new FormUrlEncodedMediaType(),
+				IHttpClient.NO_TIMEOUT, new StringParameter("adietish", "redhat"));
+
+		// verification
+		assertThat(response).startsWith("GET /other ");
+		assertThat(response).doesNotContain("adietish=redhat");
+	}
+
+	@Test
+	public void shouldFollowTemporaryRedirectWithMethodAndBody() throws Throwable {
+		// pre-conditions
+		serverFake.setRedirect("HTTP/1.1 307 Temporary Redirect", "/other");
+
+		// operation
+		String response = httpClient.post(new URL(serverFake.getUrl(), "/resource"), new FormUrlEncodedMediaType(),
+				IHttpClient.NO_TIMEOUT, new StringParameter("adietish", "redhat"));
+
+		// verification
+		assertThat(response).startsWith("POST /other ");
+		assertThat(response).contains("adietish=redhat");
+	}
+
+	@Test
+	public void canReadChunkedResponse() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake chunkedServer = new KeepAliveHttpServerFake("HTTP/1.1 200 OK", true);
+		chunkedServer.start();
+		try {
+			// operation
+			String response = httpClient.get(chunkedServer.getUrl(), IHttpClient.NO_TIMEOUT);
+			httpClient.get(chunkedServer.getUrl(), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(response).startsWith("GET / HTTP/1.1").contains("Accept: application/json");
+			assertThat(chunkedServer.getConnections()).isEqualTo(1);
+		} finally {
+			chunkedServer.stop();
+		}
+	}
+
+	@Test(expected = NotFoundException.class)
+	public void shouldThrowNotFoundException() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake notFoundServer = new KeepAliveHttpServerFake("HTTP/1.1 404 Not Found", false);
+		notFoundServer.start();
+		try {
+			// operation
+			httpClient.get(notFoundServer.getUrl(), IHttpClient.NO_TIMEOUT);
+		} finally {
+			notFoundServer.stop();
+		}
+	}
+
+	@Test
+	public void shouldNotExceedMaxConnectionsPerRoute() throws Throwable {
+		// pre-conditions
+		HttpConnectionPool pool = new HttpConnectionPool(1, HttpConnectionPool.DEFAULT_IDLE_TIMEOUT);
+		HttpRoute route = new HttpRoute(serverFake.getUrl());
+		PooledConnection connection = pool.lease(route, 100, SocketFactory.getDefault(), null);
+
+		// operation
+		try {
+			pool.lease(route, 100, SocketFactory.getDefault(), null);
+			fail("Timeout waiting for connection expected");
+		} catch (HttpClientException e) {
+			// verification
+			assertThat(pool.getStatistics().getLeased()).isEqualTo(1);
+		} finally {
+			pool.release(connection, true);
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldEvictIdleConnections() throws Throwable {
+		// pre-conditions
+		HttpConnectionPool pool = new HttpConnectionPool(1, 1);
+		HttpRoute route = new HttpRoute(serverFake.getUrl());
+		pool.release(pool.lease(route, 100, SocketFactory.getDefault(), null), true);
+		assertThat(pool.getStatistics().getIdle()).isEqualTo(1);
+		Thread.sleep(10);
+
+		// operation
+		pool.closeExpiredConnections();
+
+		// verification
+		assertThat(pool.getStatistics().getIdle()).isEqualTo(0);
+		assertThat(pool.getStatistics().getEvicted()).isEqualTo(1);
+		pool.shutdown();
+	}
+
+	@Test
+	public void shouldWarmUpConnections() throws Throwable {
+		// operation
+		int ready = httpClient.warmUp(serverFake.getUrl(), 3);
+		for (int i = 0; i < 3; i++) {
+			httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		}
+
+		// verification
+		assertThat(ready).isEqualTo(3);
+		assertThat(serverFake.getConnections()).isEqualTo(3);
+		ConnectionPoolStatistics statistics = httpClient.getStatistics();
+		assertThat(statistics.getCreated()).isEqualTo(3);
+		assertThat(statistics.getReused()).isEqualTo(3);
+		assertThat(statistics.getLeased()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldNotWarmUpMoreConnectionsThanAllowedPerRoute() throws Throwable {
+		// operation
+		int ready = httpClient.warmUp(serverFake.getUrl(), HttpConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE + 2);
+
+		// verification
+		assertThat(ready).isEqualTo(HttpConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+		assertThat(httpClient.getStatistics().getIdle()).isEqualTo(HttpConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+	}
+
+	@Test
+	public void shouldNotWarmUpWithoutConnections() throws Throwable {
+		// operation
+		int ready = httpClient.warmUp(serverFake.getUrl(), 0);
+
+		// verification
+		assertThat(ready).isEqualTo(0);
+		assertThat(serverFake.getConnections()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldResolveHostOnceWithDnsCache() throws Throwable {
+		// pre-conditions
+		CountingDnsCache dnsCache = new CountingDnsCache();
+		httpClient.setDnsCache(dnsCache);
+
+		// operation
+		httpClient.warmUp(serverFake.getUrl(), 3);
+		httpClient.getConnectionPool().shutdown();
+		PooledHttpClient httpClient2 = (PooledHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setConnectionPooling(true)
+				.client();
+		httpClient2.setDnsCache(dnsCache);
+		httpClient2.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(dnsCache.lookups).isEqualTo(1);
+		assertThat(dnsCache.getStatistics().getMisses()).isEqualTo(1);
+		assertThat(dnsCache.getStatistics().getHits()).isEqualTo(4);
+		httpClient2.getConnectionPool().shutdown();
+	}
+
+	@Test
+	public void shouldLookupHostAgainOnceExpired() throws Throwable {
+		// pre-conditions
+		CountingDnsCache dnsCache = new CountingDnsCache();
+		dnsCache.resolve("localhost");
+
+		// operation
+		dnsCache.time += DnsCache.DEFAULT_TTL - 1;
+		dnsCache.resolve("localhost");
+		dnsCache.time += 1;
+		dnsCache.resolve("localhost");
+
+		// verification
+		assertThat(dnsCache.lookups).isEqualTo(2);
+		assertThat(dnsCache.getStatistics().getHosts()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldRequestAbsoluteUriThroughHttpProxy() throws Throwable {
+		// pre-conditions
+		httpClient.setProxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress("localhost", serverFake.getUrl().getPort())));
+
+		// operation
+		String response = httpClient.get(new URL("http://openshift.example.com/broker/rest/api"), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(response).startsWith("GET http://openshift.example.com/broker/rest/api HTTP/1.1");
+		assertThat(response).contains("Host: openshift.example.com");
+		assertThat(serverFake.getConnections()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldUseProxyThatTheVmSelects() throws Throwable {
+		// pre-conditions
+		final Proxy proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress("localhost", serverFake.getUrl().getPort()));
+		ProxySelector defaultSelector = ProxySelector.getDefault();
+		ProxySelector.setDefault(new ProxySelector() {
+
+			@Override
+			public List<Proxy> select(URI uri) {
+				if ("openshift.example.com".equals(uri.getHost())) {
+					return Collections.singletonList(proxy);
+				}
+				return Collections.singletonList(Proxy.NO_PROXY);
+			}
+
+			@Override
+			public void connectFailed(URI uri, SocketAddress address, IOException e) {
+			}
+		});
+
+		try {
+			// operation
+			String response = httpClient.get(new URL("http://openshift.example.com/broker/rest/api"), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(response).startsWith("GET http://openshift.example.com/broker/rest/api HTTP/1.1");
+			assertThat(serverFake.getConnections()).isEqualTo(1);
+		} finally {
+			ProxySelector.setDefault(defaultSelector);
+		}
+	}
+
+	@Test
+	public void shouldNotShareConnectionsAmongProxies() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake proxyFake = new KeepAliveHttpServerFake();
+		proxyFake.start();
+		Proxy proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress("localhost", proxyFake.getUrl().getPort()));
+		PooledHttpClient proxiedClient = (PooledHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setConnectionPool(httpClient.getConnectionPool())
+				.setProxy(proxy)
+				.client();
+
+		try {
+			// operation
+			httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+			proxiedClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+			httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+			proxiedClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(new HttpRoute(serverFake.getUrl(), proxy)).isNotEqualTo(new HttpRoute(serverFake.getUrl()));
+			assertThat(new HttpRoute(serverFake.getUrl(), Proxy.NO_PROXY)).isEqualTo(new HttpRoute(serverFake.getUrl()));
+			assertThat(serverFake.getConnections()).isEqualTo(1);
+			assertThat(proxyFake.getConnections()).isEqualTo(1);
+			assertThat(httpClient.getStatistics().getCreated()).isEqualTo(2);
+			assertThat(httpClient.getStatistics().getReused()).isEqualTo(2);
+		} finally {
+			proxyFake.stop();
+		}
+	}
+
+	@Test
+	public void shouldTunnelSecureRequestsThroughHttpProxy() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake secureServer = new KeepAliveHttpServerFake().setSecure();
+		secureServer.start();
+		HttpProxyFake proxyFake = new HttpProxyFake();
+		proxyFake.start();
+		httpClient.setProxy(proxyFake.getProxy());
+
+		try {
+			// operation
+			String response = httpClient.get(secureServer.getUrl(), IHttpClient.NO_TIMEOUT);
+			httpClient.get(secureServer.getUrl(), IHttpClient.NO_TIMEOUT);
+
+			// verification
+			assertThat(response).startsWith("GET / HTTP/1.1");
+			assertThat(proxyFake.getTunnels()).isEqualTo(1);
+			assertThat(secureServer.getRequests()).isEqualTo(2);
+		} finally {
+			proxyFake.stop();
+			secureServer.stop();
+		}
+	}
+
+	@Test
+	public void shouldThrowIfProxyRefusesToTunnel() throws Throwable {
+		// pre-conditions
+		HttpProxyFake proxyFake = new HttpProxyFake().setRefusal("HTTP/1.1 407 Proxy Authentication Required");
+		proxyFake.start();
+		httpClient.setProxy(proxyFake.getProxy());
+
+		try {
+			// operation
+			httpClient.get(new URL("https://openshift.example.com/broker/rest/api"), IHttpClient.NO_TIMEOUT);
+			fail("HttpClientException expected");
+		} catch (HttpClientException e) {
+			// verification
+			assertThat(e.getMessage()).contains("407");
+			assertThat(httpClient.getStatistics().getLeased()).isEqualTo(0);
+		} finally {
+			proxyFake.stop();
+		}
+	}
+
+	/**
+	 * Gives the given server the time to close the connection that it
+	 * answered on.
+	 */
+	private void waitForClosed(KeepAliveHttpServerFake server) throws InterruptedException {
+		Thread.sleep(200);
+	}
+
+	private static class CountingDnsCache extends DnsCache {
+
+		private volatile int lookups;
+		private volatile long time = System.currentTimeMillis();
+
+		@Override
+		protected synchronized InetAddress[] lookup(String host) throws UnknownHostException {
+			lookups++;
+			return super.lookup(host);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return time;
+		}
+	}
+}
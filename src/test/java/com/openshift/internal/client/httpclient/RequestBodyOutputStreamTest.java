@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class RequestBodyOutputStreamTest {
+
+	@Test
+	public void shouldSendSmallBodyWithLength() throws IOException {
+		// pre-conditions
+		RecordingBodyOutputStream body = new RecordingBodyOutputStream(16);
+
+		// operation
+		body.write("0123456789".getBytes());
+		assertThat(body.length).isEqualTo(Long.MIN_VALUE);
+		body.close();
+
+		// verification
+		assertThat(body.length).isEqualTo(10);
+		assertThat(body.out.toString()).isEqualTo("0123456789");
+	}
+
+	@Test
+	public void shouldStreamLargeBody() throws IOException {
+		// pre-conditions
+		RecordingBodyOutputStream body = new RecordingBodyOutputStream(16);
+
+		// operation
+		body.write("0123456789".getBytes());
+		body.write("0123456789".getBytes());
+		assertThat(body.length).isEqualTo(-1);
+		body.write('!');
+		body.close();
+
+		// verification
+		assertThat(body.out.toString()).isEqualTo("01234567890123456789!");
+	}
+
+	@Test
+	public void shouldSendEmptyBodyWithLength() throws IOException {
+		// pre-conditions
+		RecordingBodyOutputStream body = new RecordingBodyOutputStream(16);
+
+		// operation
+		body.close();
+
+		// verification
+		assertThat(body.length).isEqualTo(0);
+		assertThat(body.out.size()).isEqualTo(0);
+	}
+
+	private static class RecordingBodyOutputStream extends RequestBodyOutputStream {
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private long length = Long.MIN_VALUE;
+
+		private RecordingBodyOutputStream(int maxBufferSize) {
+			super(maxBufferSize);
+		}
+
+		@Override
+		protected OutputStream open(long length) throws IOException {
+			this.length = length;
+			return out;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.text.MessageFormat;
+
+import com.openshift.client.IHttpClient;
+
+/**
+ * Measures the time it takes to create (not connect) a connection when the
+ * headers are computed for each request (as the client did before it cached
+ * them in a request template) and when they are copied from the cached
+ * template. Also measures the lookup of the timeouts in the system properties
+ * (4 per request) when missing properties throw (as they did) and when they
+ * dont. Not part of the test suite, run it with
+ * <code>java RequestTemplateBenchmark [iterations]</code>.
+ * 
+ * @author Andre Dietisheim
+ */
+public class RequestTemplateBenchmark {
+
+	private static final int DEFAULT_ITERATIONS = 200 * 1000;
+	private static final int WARMUP_ITERATIONS = 50 * 1000;
+	private static final int RUNS = 5;
+
+	private static final String[] TIMEOUT_PROPERTIES = {
+			IHttpClient.SYSPROP_OPENSHIFT_CONNECT_TIMEOUT, IHttpClient.SYSPROP_DEFAULT_CONNECT_TIMEOUT,
+			IHttpClient.SYSPROP_OPENSHIFT_READ_TIMEOUT, IHttpClient.SYSPROP_DEFAULT_READ_TIMEOUT };
+
+	private static int sink;
+
+	public static void main(String[] args) throws Exception {
+		int iterations = DEFAULT_ITERATIONS;
+		if (args.length > 0) {
+			iterations = Integer.parseInt(args[0]);
+		}
+		BenchmarkClient client = new BenchmarkClient();
+		URL url = new URL("https://openshift.redhat.com/broker/rest/api");
+		for (int run = 0; run < RUNS; run++) {
+			boolean warmup = run == 0;
+			int count = warmup ? WARMUP_ITERATIONS : iterations;
+			report(warmup, "headers per request", measureHeadersPerRequest(count, url, client), count);
+			report(warmup, "cached template", measureCachedTemplate(count, url, client), count);
+			report(warmup, "timeouts, throwing lookup", measureThrowingLookup(count), count);
+			report(warmup, "timeouts, null checked lookup", measureTimeouts(count, client), count);
+		}
+		System.out.println(sink);
+	}
+
+	private static long measureHeadersPerRequest(int iterations, URL url, BenchmarkClient client)
+			throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += client.createConnectionPerRequest(url).hashCode();
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static long measureCachedTemplate(int iterations, URL url, BenchmarkClient client) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += client.createConnection(url, client.getRequestTemplate(), IHttpClient.NO_TIMEOUT).hashCode();
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static long measureThrowingLookup(int iterations) {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			for (String property : TIMEOUT_PROPERTIES) {
+				try {
+					sink += Integer.parseInt(System.getProperty(property));
+				} catch (NumberFormatException e) {
+					sink++;
+				}
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static long measureTimeouts(int iterations, BenchmarkClient client) {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += client.getConnectTimeout(IHttpClient.NO_TIMEOUT) + client.getReadTimeout(IHttpClient.NO_TIMEOUT);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static void report(boolean warmup, String name, long duration, int iterations) {
+		if (warmup) {
+			return;
+		}
+		System.out.println(MessageFormat.format("{0}: {1} ns/request",
+				name, String.valueOf(duration / iterations)));
+	}
+
+	private static class BenchmarkClient extends UrlConnectionHttpClient {
+
+		private BenchmarkClient() {
+			super("adietish@redhat.com", "secret", "openshift-java-client 2.5", true,
+					IHttpClient.MEDIATYPE_APPLICATION_JSON, "1.5");
+		}
+
+		private HttpURLConnection createConnectionPerRequest(URL url) throws Exception {
+			return createConnection(url, username, password, authKey, authIV, userAgent, acceptedVersion,
+					acceptedMediaType, IHttpClient.NO_TIMEOUT);
+		}
+	}
+}
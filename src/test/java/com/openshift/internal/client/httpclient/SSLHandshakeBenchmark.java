@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.text.MessageFormat;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+
+/**
+ * Measures the tls handshakes and the latency of https requests when each
+ * request uses an ssl context of its own (as the client did before it cached
+ * its context) and when all requests share the context of their client and
+ * may thus resume its sessions. Not part of the test suite, run it with
+ * <code>java SSLHandshakeBenchmark [requests]</code>.
+ * 
+ * @author Andre Dietisheim
+ */
+public class SSLHandshakeBenchmark {
+
+	private static final int DEFAULT_REQUESTS = 200;
+	private static final int WARMUP_REQUESTS = 20;
+
+	public static void main(String[] args) throws Exception {
+		int requests = DEFAULT_REQUESTS;
+		if (args.length > 0) {
+			requests = Integer.parseInt(args[0]);
+		}
+		KeepAliveHttpServerFake server = new KeepAliveHttpServerFake().setSecure();
+		server.start();
+		try {
+			run("warmup", WARMUP_REQUESTS, true, server);
+			run("context per request", requests, true, server);
+			run("shared context", requests, false, server);
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static void run(String name, int requests, boolean contextPerRequest, KeepAliveHttpServerFake server)
+			throws Exception {
+		long handshakes = 0;
+		long resumedSessions = 0;
+		long duration = 0;
+		UrlConnectionHttpClient client = createClient();
+		for (int i = 0; i < requests; i++) {
+			if (contextPerRequest) {
+				client = createClient();
+			}
+			long start = System.nanoTime();
+			client.get(server.getUrl(), IHttpClient.NO_TIMEOUT);
+			duration += System.nanoTime() - start;
+			if (contextPerRequest) {
+				handshakes += waitForHandshake(client).getHandshakes();
+				resumedSessions += client.getSSLStatistics().getResumedSessions();
+			}
+		}
+		if (!contextPerRequest) {
+			SSLStatistics statistics = waitForHandshakes(requests, client);
+			handshakes = statistics.getHandshakes();
+			resumedSessions = statistics.getResumedSessions();
+		}
+		System.out.println(MessageFormat.format(
+				"{0}: {1} requests, {2} handshakes ({3} full, {4} resumed), {5} ms per request",
+				name, requests, handshakes, handshakes - resumedSessions, resumedSessions,
+				String.format("%.2f", duration / 1000000d / requests)));
+	}
+
+	private static UrlConnectionHttpClient createClient() {
+		return (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				// sessions that TLS 1.3 resumes get new ids and cannot be told apart
+				.setSSLProtocols("TLSv1.2")
+				.client();
+	}
+
+	private static SSLStatistics waitForHandshake(UrlConnectionHttpClient client) throws InterruptedException {
+		return waitForHandshakes(1, client);
+	}
+
+	/**
+	 * Sockets notify their handshake listeners in a separate thread.
+	 */
+	private static SSLStatistics waitForHandshakes(int handshakes, UrlConnectionHttpClient client)
+			throws InterruptedException {
+		SSLStatistics statistics = client.getSSLStatistics();
+		for (int i = 0; i < 100 && statistics.getHandshakes() < handshakes; i++) {
+			Thread.sleep(10);
+			statistics = client.getSSLStatistics();
+		}
+		return statistics;
+	}
+}
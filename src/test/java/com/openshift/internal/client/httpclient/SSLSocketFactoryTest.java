@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class SSLSocketFactoryTest {
+
+	private static final String TLS_1_2 = "TLSv1.2";
+	private static final String KEY_STORE = "javax.net.ssl.keyStore";
+	private static final String KEY_STORE_TYPE = "javax.net.ssl.keyStoreType";
+	private static final String KEY_STORE_PASSWORD = "javax.net.ssl.keyStorePassword";
+
+	private KeepAliveHttpServerFake serverFake;
+
+	@Before
+	public void setUp() throws IOException, GeneralSecurityException {
+		this.serverFake = new KeepAliveHttpServerFake().setSecure();
+		serverFake.start();
+	}
+
+	@After
+	public void tearDown() {
+		serverFake.stop();
+	}
+
+	@Test
+	public void shouldShareSocketFactoryAmongRequests() throws Throwable {
+		// pre-conditions
+		UrlConnectionHttpClient httpClient = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client();
+
+		// operation
+		SSLSocketFactory socketFactory = httpClient.getSSLSocketFactory();
+
+		// verification
+		assertThat(httpClient.getSSLSocketFactory()).isSameAs(socketFactory);
+	}
+
+	@Test
+	public void shouldResumeSessionsOfHttpsConnections() throws Throwable {
+		// pre-conditions
+		UrlConnectionHttpClient httpClient = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setSSLProtocols(TLS_1_2)
+				.client();
+
+		// operation
+		httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+
+		// verification
+		assertThat(serverFake.getConnections()).isEqualTo(2);
+		SSLStatistics statistics = waitForHandshakes(2, httpClient);
+		assertThat(statistics.getHandshakes()).isEqualTo(2);
+		assertThat(statistics.getResumedSessions()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldResumeSessions() throws Throwable {
+		// pre-conditions
+		NioHttpClient httpClient = (NioHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setAsynchronous(true)
+				.setSSLProtocols(TLS_1_2)
+				.client();
+		try {
+			// operation
+			for (int i = 0; i < 3; i++) {
+				// async requests close their connections
+				httpClient.requestAsync(HttpMethod.GET, serverFake.getUrl(), null, IHttpClient.NO_TIMEOUT,
+						Collections.<String, String> emptyMap(), UrlConnectionHttpClient.STRING_RESPONSE, null)
+						.get(10, TimeUnit.SECONDS);
+			}
+
+			// verification
+			assertThat(serverFake.getConnections()).isEqualTo(3);
+			SSLStatistics statistics = httpClient.getSSLStatistics();
+			assertThat(statistics.getHandshakes()).isEqualTo(3);
+			assertThat(statistics.getResumedSessions()).isEqualTo(2);
+			assertThat(statistics.getFullHandshakes()).isEqualTo(1);
+		} finally {
+			httpClient.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldEnablePreferredProtocolsAndCipherSuites() throws Throwable {
+		// pre-conditions
+		UrlConnectionHttpClient httpClient = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client();
+		String cipherSuite = httpClient.getSSLSocketFactory().getDefaultCipherSuites()[0];
+		httpClient.setSSLProtocols("SSLv1", TLS_1_2);
+		httpClient.setSSLCipherSuites("FOO_CIPHER", cipherSuite);
+
+		// operation
+		SSLSocket socket = (SSLSocket) httpClient.getSSLSocketFactory().createSocket();
+
+		// verification
+		try {
+			assertThat(socket.getEnabledProtocols()).containsOnly(TLS_1_2);
+			assertThat(socket.getEnabledCipherSuites()).containsOnly(cipherSuite);
+		} finally {
+			socket.close();
+		}
+	}
+
+	@Test(expected = HttpClientException.class)
+	public void shouldThrowIfNoPreferredProtocolIsSupported() throws Throwable {
+		// pre-conditions
+		UrlConnectionHttpClient httpClient = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setSSLProtocols("SSLv1")
+				.client();
+
+		// operation
+		httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+	}
+
+	@Test
+	public void shouldUseKeyStoreOfVm() throws Throwable {
+		// pre-conditions
+		File keyStoreFile = File.createTempFile("keystore", ".jks");
+		keyStoreFile.deleteOnExit();
+		KeyStore keyStore = KeyStore.getInstance("JKS");
+		keyStore.load(null, null);
+		FileOutputStream out = new FileOutputStream(keyStoreFile);
+		try {
+			keyStore.store(out, "secret".toCharArray());
+		} finally {
+			out.close();
+		}
+		UrlConnectionHttpClient httpClient = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setSSLChecks(true)
+				.client();
+		assertThat(httpClient.createDefaultKeyManagers()).isNull();
+		String previousKeyStore = setProperty(KEY_STORE, keyStoreFile.getAbsolutePath());
+		String previousType = setProperty(KEY_STORE_TYPE, "JKS");
+		String previousPassword = setProperty(KEY_STORE_PASSWORD, "secret");
+
+		try {
+			// operation
+			KeyManager[] keyManagers = httpClient.createDefaultKeyManagers();
+
+			// verification
+			assertThat(keyManagers).isNotEmpty();
+			assertThat(httpClient.getSSLSocketFactory()).isNotNull();
+		} finally {
+			setProperty(KEY_STORE, previousKeyStore);
+			setProperty(KEY_STORE_TYPE, previousType);
+			setProperty(KEY_STORE_PASSWORD, previousPassword);
+		}
+	}
+
+	@Test
+	public void shouldThrowIfKeyStoreOfVmIsMissing() throws Throwable {
+		// pre-conditions
+		UrlConnectionHttpClient httpClient = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setSSLChecks(true)
+				.client();
+		String previousKeyStore = setProperty(KEY_STORE, "/does/not/exist.jks");
+
+		try {
+			// operation
+			httpClient.getSSLSocketFactory();
+			fail("HttpClientException expected");
+		} catch (HttpClientException e) {
+			// verification
+			assertThat(e.getMessage()).contains("key store");
+		} finally {
+			setProperty(KEY_STORE, previousKeyStore);
+		}
+	}
+
+	/**
+	 * Sets the given system property, clears it if the value is
+	 * <code>null</code>. Returns the previous value.
+	 */
+	private String setProperty(String name, String value) {
+		if (value == null) {
+			return System.clearProperty(name);
+		}
+		return System.setProperty(name, value);
+	}
+
+	/**
+	 * Waits for the given number of handshakes, sockets notify their
+	 * listeners in a separate thread.
+	 */
+	private SSLStatistics waitForHandshakes(int handshakes, UrlConnectionHttpClient httpClient)
+			throws InterruptedException {
+		SSLStatistics statistics = httpClient.getSSLStatistics();
+		for (int i = 0; i < 100 && statistics.getHandshakes() < handshakes; i++) {
+			Thread.sleep(50);
+			statistics = httpClient.getSSLStatistics();
+		}
+		return statistics;
+	}
+}
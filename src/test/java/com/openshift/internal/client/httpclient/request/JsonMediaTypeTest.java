@@ -15,6 +15,7 @@ import static org.fest.assertions.Assertions.assertThat;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
+import org.jboss.dmr.ModelNode;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -112,4 +113,63 @@ public class JsonMediaTypeTest {
 		assertThat(out.toString()).isEqualTo(
 				"{\"thirst\" : [{\"name\" : \"adietish\", \"company\" : \"jboss\"},{\"name\" : \"xcoulon\", \"company\" : \"redhat\"}]}");
 	}
+
+	@Test
+	public void shouldEscapeLikeDmr() throws IOException {
+		// pre-condition
+		String value = "q\"b\\s/\b\f\n\r\t\u0001\u001f\u007f\u009f\u00a0\u00e9\u1fff\u2000\u20ac\u2100\ud83d\ude00<>&'";
+		ParameterValueMap parameters = new ParameterValueMap()
+				.add(new StringParameter("name", value));
+		ModelNode node = new ModelNode();
+		node.get("name").set(value);
+
+		// operation
+		jsonEncoder.writeTo(parameters, out);
+
+		// verification
+		assertThat(out.toString("UTF-8")).isEqualTo(node.toJSONString(true));
+	}
+
+	@Test
+	public void shouldEncodeEmptyValuesLikeDmr() throws IOException {
+		// pre-condition
+		ParameterValueMap parameters = new ParameterValueMap()
+				.add(new Parameter("map", new ParameterValueMap()))
+				.add(new Parameter("array", new ParameterValueArray()))
+				.add(new StringParameter("string", ""));
+		ModelNode node = new ModelNode();
+		node.get("map");
+		node.get("array");
+		node.get("string").set("");
+
+		// operation
+		jsonEncoder.writeTo(parameters, out);
+
+		// verification
+		assertThat(out.toString("UTF-8")).isEqualTo(node.toJSONString(true));
+	}
+
+	@Test
+	public void shouldEncodeBodyLargerThanBuffer() throws IOException {
+		// pre-condition
+		ParameterValueArray variables = new ParameterValueArray();
+		ModelNode node = new ModelNode();
+		for (int i = 0; i < 1000; i++) {
+			variables.add(new ParameterValueMap()
+					.add(new StringParameter("name", "VARIABLE_" + i))
+					.add(new StringParameter("value", "value \u00e9 " + i)));
+			ModelNode variable = new ModelNode();
+			variable.get("name").set("VARIABLE_" + i);
+			variable.get("value").set("value \u00e9 " + i);
+			node.get("environment_variables").add(variable);
+		}
+
+		// operation
+		jsonEncoder.writeTo(new ParameterValueMap()
+				.add(new Parameter("environment_variables", variables)), out);
+
+		// verification
+		assertThat(out.size()).isGreaterThan(8 * 1024);
+		assertThat(out.toString("UTF-8")).isEqualTo(node.toJSONString(true));
+	}
 }
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.openshift.client.utils.Samples;
+
+/**
+ * Measures the heap that the DTOs of synthetic applications retain when
+ * each link has its own copy of its parameters and href, when the links are
+ * created off shared templates and when repeating values are pooled on top. Not part of the test suite, run it with
+ * <code>java LinkTemplatesBenchmark [applications]</code>.
+ * 
+ * @author Andre Dietisheim
+ */
+public class LinkTemplatesBenchmark {
+
+	private static final int DEFAULT_APPLICATIONS = 10 * 1000;
+	private static final String APPLICATION_NAME = "springeap6";
+
+	public static void main(String[] args) throws Exception {
+		int applications = DEFAULT_APPLICATIONS;
+		if (args.length > 0) {
+			applications = Integer.parseInt(args[0]);
+		}
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_1EMBEDDED.getContentAsString();
+		report("own links", applications, measure(new OpenShiftJsonDTOFactory(), content, applications));
+		LinkTemplates linkTemplates = new LinkTemplates();
+		report("link templates", applications,
+				measure(new OpenShiftJsonDTOFactory(linkTemplates), content, applications));
+		System.out.println(linkTemplates);
+		StringPool stringPool = new StringPool();
+		report("link templates, string pool", applications,
+				measure(new OpenShiftJsonDTOFactory(new LinkTemplates(), stringPool), content, applications));
+		System.out.println(stringPool.getStatistics());
+	}
+
+	private static long measure(IRestResponseFactory factory, String content, int applications) {
+		long before = getUsedHeap();
+		List<Object> dtos = new ArrayList<Object>(applications);
+		for (int i = 0; i < applications; i++) {
+			dtos.add(factory.get(content.replace(APPLICATION_NAME, APPLICATION_NAME + i)).getData());
+		}
+		long used = getUsedHeap() - before;
+		if (dtos.size() != applications) {
+			throw new IllegalStateException();
+		}
+		return used;
+	}
+
+	private static long getUsedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void report(String name, int applications, long heap) {
+		System.out.println(MessageFormat.format("{0}: {1} KB retained, {2} bytes/application",
+				name, String.valueOf(heap / 1024), String.valueOf(heap / applications)));
+	}
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.utils.Samples;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class LinkTemplatesTest {
+
+	private static final String LINK_START = "START";
+
+	private LinkTemplates linkTemplates;
+	private IRestResponseFactory factory;
+
+	@Before
+	public void setUp() {
+		this.linkTemplates = new LinkTemplates();
+		this.factory = new OpenShiftJsonDTOFactory(linkTemplates);
+	}
+
+	@Test
+	public void shouldShareTemplateAmongLinksOfTheSameKind() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_1EMBEDDED.getContentAsString();
+		// operation
+		ApplicationResourceDTO springeap6 = factory.get(content).getData();
+		ApplicationResourceDTO jbosseap = factory.get(content.replace("springeap6", "jbosseap")).getData();
+		// verification
+		Link springeap6Start = springeap6.getLinks().get(LINK_START);
+		Link jbosseapStart = jbosseap.getLinks().get(LINK_START);
+		assertThat(springeap6Start).isNotSameAs(jbosseapStart);
+		assertThat(springeap6Start.getHref())
+				.isEqualTo("https://openshift.redhat.com/broker/rest/domains/foobarz/applications/springeap6/events");
+		assertThat(jbosseapStart.getHref())
+				.isEqualTo("https://openshift.redhat.com/broker/rest/domains/foobarz/applications/jbosseap/events");
+		assertThat(jbosseapStart.getRel()).isSameAs(springeap6Start.getRel());
+		assertThat(jbosseapStart.getHttpMethod()).isEqualTo(HttpMethod.POST);
+		assertThat(jbosseapStart.getRequiredParams()).isSameAs(springeap6Start.getRequiredParams());
+		assertThat(jbosseapStart.getOptionalParams()).isSameAs(springeap6Start.getOptionalParams());
+	}
+
+	@Test
+	public void shouldNotRegisterTemplatesTwice() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_1EMBEDDED.getContentAsString();
+		factory.get(content);
+		int templates = linkTemplates.getTemplateCount();
+		int parameters = linkTemplates.getParameterCount();
+		assertThat(templates).isGreaterThan(0);
+		assertThat(parameters).isGreaterThan(0);
+		// operation
+		factory.get(content.replace("springeap6", "jbosseap"));
+		// verification
+		assertThat(linkTemplates.getTemplateCount()).isEqualTo(templates);
+		assertThat(linkTemplates.getParameterCount()).isEqualTo(parameters);
+	}
+
+	@Test
+	public void shouldCreateSameLinksAsWithoutTemplates() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_1EMBEDDED.getContentAsString();
+		ApplicationResourceDTO expected = new OpenShiftJsonDTOFactory().get(content).getData();
+		// operation
+		ApplicationResourceDTO application = factory.get(content).getData();
+		// verification
+		Map<String, Link> links = application.getLinks();
+		assertThat(links.keySet()).isEqualTo(expected.getLinks().keySet());
+		for (Link expectedLink : expected.getLinks().values()) {
+			Link link = links.get(expectedLink.getName());
+			assertThat(link.getName()).isEqualTo(expectedLink.getName());
+			assertThat(link.getRel()).isEqualTo(expectedLink.getRel());
+			assertThat(link.getHref()).isEqualTo(expectedLink.getHref());
+			assertThat(link.getHttpMethod()).isEqualTo(expectedLink.getHttpMethod());
+			assertThat(link.getRequiredParams()).isEqualTo(expectedLink.getRequiredParams());
+			assertThat(link.getOptionalParams()).isEqualTo(expectedLink.getOptionalParams());
+		}
+	}
+
+	@Test
+	public void shouldSplitAndRestoreHref() throws Throwable {
+		// pre-conditions
+		String href = "https://openshift.redhat.com/broker/rest/domains/foobarz/";
+		// operation
+		String[] segments = linkTemplates.getSegments(href);
+		// verification
+		assertThat(segments).isEqualTo(
+				new String[] { "https:", "", "openshift.redhat.com", "broker", "rest", "domains", "foobarz", "" });
+		assertThat(LinkTemplates.toHref(segments)).isEqualTo(href);
+		assertThat(LinkTemplates.toHref(linkTemplates.getSegments(""))).isEqualTo("");
+	}
+
+	@Test
+	public void shouldShareHrefSegments() throws Throwable {
+		// pre-conditions
+		String[] segments = linkTemplates.getSegments(
+				new String("https://openshift.redhat.com/broker/rest/domains/foobarz/applications/springeap6"));
+		// operation
+		String[] otherSegments = linkTemplates.getSegments(
+				new String("https://openshift.redhat.com/broker/rest/domains/foobarz/applications/jbosseap"));
+		// verification
+		for (int i = 0; i < segments.length - 1; i++) {
+			assertThat(otherSegments[i]).isSameAs(segments[i]);
+		}
+	}
+
+	@Test
+	public void shouldNotRegisterMoreThanMaxTemplates() throws Throwable {
+		// pre-conditions
+		LinkTemplates linkTemplates = new LinkTemplates(1);
+		List<LinkParameter> noParameters = Collections.emptyList();
+		List<LinkParameter> parameters = new ArrayList<LinkParameter>();
+		parameters.add(new LinkParameter("name", LinkParameterType.STRING, null, "the name", Arrays.asList("a", "b")));
+		// operation
+		Link get = linkTemplates.createLink(
+				"GET", "Get application", "https://openshift.redhat.com/broker/rest/applications/1", "GET",
+				noParameters, noParameters);
+		Link update = linkTemplates.createLink(
+				"UPDATE", "Update application", "https://openshift.redhat.com/broker/rest/applications/1", "PUT",
+				parameters, noParameters);
+		// verification
+		assertThat(linkTemplates.getTemplateCount()).isEqualTo(1);
+		assertThat(get.getHttpMethod()).isEqualTo(HttpMethod.GET);
+		assertThat(update.getHttpMethod()).isEqualTo(HttpMethod.PUT);
+		assertThat(update.getRequiredParams()).isEqualTo(parameters);
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.httpclient.request.ParameterValueArray;
+import com.openshift.internal.client.httpclient.request.StringValue;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class LinkTest {
+
+	private static final String SERVER = "https://openshift.redhat.com";
+	private static final String SERVICE_PATH = "/broker/rest/";
+
+	@Test
+	public void shouldReuseUrlOfParameterlessLink() throws Throwable {
+		// pre-conditions
+		Link link = new Link("domains/foobarz", HttpMethod.GET);
+
+		// operation
+		URL url = link.getUrl(SERVER, SERVICE_PATH, Collections.<Parameter> emptyList());
+		URL url2 = link.getUrl(SERVER, SERVICE_PATH, null);
+
+		// verification
+		assertThat(url.toString()).isEqualTo("https://openshift.redhat.com/broker/rest/domains/foobarz");
+		assertThat(url2).isSameAs(url);
+	}
+
+	@Test
+	public void shouldReuseUrlWithIncludeQuery() throws Throwable {
+		// pre-conditions
+		Link link = new Link("/broker/rest/domains/foobarz/applications", HttpMethod.GET);
+		List<Parameter> include = Arrays.asList(new Parameter("include", "cartridges"));
+
+		// operation
+		URL url = link.getUrl(SERVER, SERVICE_PATH, include);
+		URL url2 = link.getUrl(SERVER, SERVICE_PATH, Arrays.asList(new Parameter("include", "cartridges")));
+
+		// verification
+		assertThat(url.toString())
+				.isEqualTo("https://openshift.redhat.com/broker/rest/domains/foobarz/applications?include=cartridges")
+				.isEqualTo(link.getHref(SERVER, SERVICE_PATH, include));
+		assertThat(url2).isSameAs(url);
+	}
+
+	@Test
+	public void shouldEncodeParametersThatNeedIt() throws Throwable {
+		// pre-conditions
+		Link link = new Link("domains", HttpMethod.GET);
+		List<Parameter> parameters = Arrays.asList(
+				new Parameter("name", "foo bar&baz"),
+				new Parameter("tags", new ParameterValueArray().add(new StringValue("a"))));
+
+		// operation
+		URL url = link.getUrl(SERVER, SERVICE_PATH, parameters);
+
+		// verification
+		assertThat(url.toString())
+				.isEqualTo("https://openshift.redhat.com/broker/rest/domains?name=foo+bar%26baz&tags[]=a")
+				.isEqualTo(link.getHref(SERVER, SERVICE_PATH, parameters));
+	}
+
+	@Test
+	public void shouldResolveAgainstNewServer() throws Throwable {
+		// pre-conditions
+		Link link = new Link("domains", HttpMethod.GET);
+		URL url = link.getUrl(SERVER, SERVICE_PATH, null);
+
+		// operation
+		URL url2 = link.getUrl("http://localhost:8080", SERVICE_PATH, null);
+
+		// verification
+		assertThat(url.toString()).isEqualTo("https://openshift.redhat.com/broker/rest/domains");
+		assertThat(url2.toString()).isEqualTo("http://localhost:8080/broker/rest/domains");
+		assertThat(link.getHref("http://localhost:8080", SERVICE_PATH)).isEqualTo(url2.toString());
+	}
+
+	@Test
+	public void shouldNotPrefixAbsoluteHref() throws Throwable {
+		// pre-conditions
+		Link link = new Link("https://foo.rhcloud.com/broker/rest/api", HttpMethod.GET);
+
+		// operation
+		URL url = link.getUrl(SERVER, SERVICE_PATH, null);
+
+		// verification
+		assertThat(url.toString()).isEqualTo("https://foo.rhcloud.com/broker/rest/api");
+	}
+}
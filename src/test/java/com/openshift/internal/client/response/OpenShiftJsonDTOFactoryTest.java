@@ -13,6 +13,8 @@ package com.openshift.internal.client.response;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -150,6 +152,7 @@ public class OpenShiftJsonDTOFactoryTest {
 		final Link link = domainDTO.getLink(LINK_ADD_APPLICATION);
 		assertThat(link).isNotNull();
 		assertThat(link.getHref()).isEqualTo("https://openshift.redhat.com/broker/rest/domains/foobarz/applications");
+		assertThat(link.getName()).isEqualTo(LINK_ADD_APPLICATION);
 		assertThat(link.getRel()).isEqualTo("Create new application");
 		assertThat(link.getHttpMethod()).isEqualTo(HttpMethod.POST);
 		final List<LinkParameter> requiredParams = link.getRequiredParams();
@@ -241,6 +244,38 @@ public class OpenShiftJsonDTOFactoryTest {
 				"username", "password", "database_name", "connection_url");
 	}
 
+	@Test
+	public void shouldUnmarshallGetApplicationsWith2AppsResponseStream() throws Throwable {
+		// pre-conditions
+		RestResponse expected = factory.get(Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString());
+		// operation
+		RestResponse response = factory.get(Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsStream());
+		// verifications
+		assertThat(response.getDataType()).isEqualTo(expected.getDataType());
+		assertThat(response.getStatus()).isEqualTo(expected.getStatus());
+		List<ApplicationResourceDTO> expectedApplications = expected.getData();
+		List<ApplicationResourceDTO> applications = response.getData();
+		assertThat(applications).hasSize(expectedApplications.size());
+		for (int i = 0; i < applications.size(); i++) {
+			assertThat(applications.get(i).getName()).isEqualTo(expectedApplications.get(i).getName());
+			assertThat(applications.get(i).getUuid()).isEqualTo(expectedApplications.get(i).getUuid());
+			assertThat(applications.get(i).getLinks().keySet())
+					.isEqualTo(expectedApplications.get(i).getLinks().keySet());
+			assertThat(applications.get(i).getCartridges().keySet())
+					.isEqualTo(expectedApplications.get(i).getCartridges().keySet());
+		}
+	}
+
+	@Test
+	public void shouldReturnNullForEmptyResponseStream() throws Throwable {
+		// pre-conditions
+		InputStream content = new ByteArrayInputStream(" \n".getBytes());
+		// operation
+		RestResponse response = factory.get(content);
+		// verifications
+		assertThat(response).isNull();
+	}
+
 	/**
 	 * Should unmarshall get application response body.
 	 * 
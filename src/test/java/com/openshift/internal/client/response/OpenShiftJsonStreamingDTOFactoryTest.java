@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.openshift.client.OpenShiftException;
+import com.openshift.client.utils.Samples;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class OpenShiftJsonStreamingDTOFactoryTest {
+
+	private static final String SAMPLES_FOLDER = "/samples/";
+
+	private IRestResponseFactory factory = new OpenShiftJsonStreamingDTOFactory();
+	private IRestResponseFactory eagerLinksFactory = new OpenShiftJsonStreamingDTOFactory(false);
+	private IRestResponseFactory treeFactory = new OpenShiftJsonDTOFactory();
+	private IRestResponseFactory templatesFactory =
+			new OpenShiftJsonStreamingDTOFactory(true, new LinkTemplates(), new StringPool());
+	private IRestResponseFactory treeTemplatesFactory =
+			new OpenShiftJsonDTOFactory(new LinkTemplates(), new StringPool());
+
+	@Test
+	public void shouldCreateSameDTOsAsTreeFactoryForAllSamples() throws Throwable {
+		// pre-conditions
+		File[] samples = getSamples();
+		assertThat(samples).isNotEmpty();
+
+		for (File sample : samples) {
+			String content = IOUtils.toString(new FileInputStream(sample), "UTF-8");
+			// operation
+			Object expected = unmarshall(treeFactory, content);
+			Object actual = unmarshall(factory, content);
+			Object actualFromStream = unmarshall(factory, new ByteArrayInputStream(content.getBytes("UTF-8")));
+			Object actualEagerLinks = unmarshall(eagerLinksFactory, content);
+			// verification
+			assertDeepEquals(sample.getName(), expected, actual);
+			assertDeepEquals(sample.getName() + " (stream)", expected, actualFromStream);
+			assertDeepEquals(sample.getName() + " (eager links)", expected, actualEagerLinks);
+			assertDeepEquals(sample.getName() + " (templates, string pool)",
+					unmarshall(treeTemplatesFactory, content), unmarshall(templatesFactory, content));
+		}
+	}
+
+	@Test
+	public void shouldReturnNullForEmptyResponse() throws Throwable {
+		// pre-conditions
+		// operation
+		RestResponse response = factory.get("");
+		RestResponse streamResponse = factory.get(new ByteArrayInputStream(" \n ".getBytes()));
+		// verification
+		assertNull(response);
+		assertNull(streamResponse);
+	}
+
+	@Test
+	public void shouldSkipUnknownProperties() throws Throwable {
+		// pre-conditions
+		String content = "{\"data\":{\"login\":\"foo@redhat.com\",\"unknown\":[{\"a\":[1,2.5,true,null]},\"]}\\\"\"],"
+				+ "\"max_gears\":10,\"consumed_gears\":\"3\",\"links\":{}},\"type\":\"user\",\"status\":\"ok\"}";
+		// operation
+		RestResponse response = factory.get(content);
+		// verification
+		assertThat(response.getDataType()).isEqualTo(EnumDataType.user);
+		UserResourceDTO user = response.getData();
+		assertThat(user.getRhLogin()).isEqualTo("foo@redhat.com");
+		assertThat(user.getMaxGears()).isEqualTo(10);
+		assertThat(user.getConsumedGears()).isEqualTo(3);
+		assertDeepEquals(content, treeFactory.get(content), response);
+	}
+
+	@Test
+	public void shouldUnescapeStrings() throws Throwable {
+		// pre-conditions
+		String content = "{\"data\":{\"id\":\"foo\\\"bar\\\\\\/\\u00e9\\n\",\"suffix\":\"rhcloud.com\"},"
+				+ "\"type\":\"domain\",\"status\":\"ok\"}";
+		// operation
+		RestResponse response = factory.get(content);
+		// verification
+		DomainResourceDTO domain = response.getData();
+		assertThat(domain.getId()).isEqualTo("foo\"bar\\/\u00e9\n");
+		assertThat(domain.getSuffix()).isEqualTo("rhcloud.com");
+	}
+
+	@Test
+	public void shouldReadResponseWithoutData() throws Throwable {
+		// pre-conditions
+		String content = Samples.DELETE_DOMAINS_FOOBARZ.getContentAsString();
+		assertNotNull(content);
+		// operation
+		RestResponse response = factory.get(content);
+		// verification
+		assertDeepEquals(Samples.DELETE_DOMAINS_FOOBARZ.name(), treeFactory.get(content), response);
+	}
+
+	@Test
+	public void shouldCreateLinkOnlyOnceItIsAskedFor() throws Throwable {
+		// pre-conditions
+		String content = "{\"data\":{\"id\":\"foobarz\",\"links\":{"
+				+ "\"GET\":{\"href\":\"https://openshift.redhat.com/broker/rest/domains/foobarz\",\"method\":\"GET\","
+				+ "\"rel\":\"Get domain\",\"optional_params\":[],\"required_params\":[]},"
+				+ "\"BROKEN\":{\"href\":\"https://openshift.redhat.com\",\"method\":\"FOO\"}}},"
+				+ "\"type\":\"domain\",\"status\":\"ok\"}";
+		// operation
+		RestResponse response = factory.get(content);
+		// verification
+		DomainResourceDTO domain = response.getData();
+		Map<String, Link> links = domain.getLinks();
+		assertThat(links).hasSize(2);
+		assertThat(links.containsKey("BROKEN")).isTrue();
+		Link link = links.get("GET");
+		assertThat(link.getHref()).isEqualTo("https://openshift.redhat.com/broker/rest/domains/foobarz");
+		assertThat(link.getRel()).isEqualTo("Get domain");
+		assertThat(links.get("GET")).isSameAs(link);
+		try {
+			links.get("BROKEN");
+			fail("link with unknown http method was created");
+		} catch (OpenShiftException e) {
+			// expected
+			assertThat(e.getMessage()).contains("BROKEN");
+		}
+	}
+
+	@Test
+	public void shouldOnlyParseProjectedApplicationProperties() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString();
+		List<ApplicationResourceDTO> applications = factory.get(content).getData();
+		// operation
+		RestResponse response = new OpenShiftJsonStreamingDTOFactory()
+				.project(ResponseProjection.APPLICATION_SUMMARY)
+				.get(content);
+		// verification
+		List<ApplicationResourceDTO> summaries = response.getData();
+		assertThat(summaries).hasSize(applications.size());
+		for (int i = 0; i < summaries.size(); i++) {
+			ApplicationResourceDTO summary = summaries.get(i);
+			ApplicationResourceDTO application = applications.get(i);
+			assertThat(summary.getName()).isEqualTo(application.getName());
+			assertThat(summary.getUuid()).isEqualTo(application.getUuid());
+			assertThat(summary.getFramework()).isEqualTo(application.getFramework());
+			assertThat(summary.getApplicationScale()).isEqualTo(application.getApplicationScale());
+			assertThat(summary.getGitUrl()).isNull();
+			assertThat(summary.getLinks()).isEmpty();
+			assertThat(summary.getCartridges()).isEmpty();
+			assertThat(summary.getAliases()).isEmpty();
+		}
+	}
+
+	@Test
+	public void shouldOnlyParseProjectedGearProperties() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_GEARGROUPS.getContentAsString();
+		// operation
+		RestResponse response = new OpenShiftJsonStreamingDTOFactory()
+				.project(new ResponseProjection("gears", "id", "state"))
+				.get(content);
+		// verification
+		Collection<GearGroupResourceDTO> gearGroups = response.getData();
+		assertThat(gearGroups).hasSize(2);
+		GearGroupResourceDTO gearGroup = gearGroups.iterator().next();
+		assertThat(gearGroup.getUuid()).isNull();
+		assertThat(gearGroup.getCartridges()).isEmpty();
+		assertThat(gearGroup.getGears()).hasSize(2);
+		GearResourceDTO gear = gearGroup.getGears().iterator().next();
+		assertThat(gear.getUuid()).isEqualTo("514207b84382ec1fef000098");
+		assertThat(gear.getState()).isEqualTo("idle");
+		assertThat(gear.getSshUrl()).isNull();
+	}
+
+	@Test
+	public void shouldParseAllPropertiesWithoutProjection() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString();
+		// operation
+		RestResponse response = new OpenShiftJsonStreamingDTOFactory().project(null).get(content);
+		// verification
+		assertDeepEquals(content, treeFactory.get(content), response);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void shouldNotModifyLazyLinks() throws Throwable {
+		// pre-conditions
+		RestResponse response = factory.get(Samples.GET_DOMAINS_FOOBARZ.getContentAsString());
+		DomainResourceDTO domain = response.getData();
+		// operation
+		domain.getLinks().clear();
+		// verification
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void shouldThrowOnTruncatedResponse() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_USER.getContentAsString();
+		// operation
+		factory.get(content.substring(0, content.length() / 2));
+		// verification
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void shouldThrowOnNullResponse() throws Throwable {
+		// pre-conditions
+		// operation
+		factory.get("null");
+		// verification
+	}
+
+	private File[] getSamples() throws URISyntaxException {
+		URL samples = getClass().getResource(SAMPLES_FOLDER);
+		File[] files = new File(samples.toURI()).listFiles();
+		Arrays.sort(files);
+		return files;
+	}
+
+	/**
+	 * Returns the response or the class of the exception that unmarshalling
+	 * fails with.
+	 */
+	private Object unmarshall(IRestResponseFactory factory, String content) {
+		try {
+			return factory.get(content);
+		} catch (RuntimeException e) {
+			return e.getClass();
+		}
+	}
+
+	private Object unmarshall(IRestResponseFactory factory, InputStream content) throws IOException {
+		try {
+			return factory.get(content);
+		} catch (RuntimeException e) {
+			return e.getClass();
+		}
+	}
+
+	/**
+	 * Compares the given objects field by field, the DTOs don't implement
+	 * equals.
+	 */
+	private void assertDeepEquals(String path, Object expected, Object actual) throws IllegalAccessException {
+		if (expected == null
+				|| actual == null) {
+			assertEquals(path, expected, actual);
+			return;
+		}
+		if (expected instanceof Map) {
+			// lazy links aren't a HashMap
+			assertTrue(path, actual instanceof Map);
+			Map<?, ?> expectedMap = (Map<?, ?>) expected;
+			Map<?, ?> actualMap = (Map<?, ?>) actual;
+			assertEquals(path, expectedMap.keySet(), actualMap.keySet());
+			for (Object key : expectedMap.keySet()) {
+				assertDeepEquals(path + "[" + key + "]", expectedMap.get(key), actualMap.get(key));
+			}
+			return;
+		}
+		assertEquals(path, expected.getClass(), actual.getClass());
+		if (expected instanceof String
+				|| expected instanceof Number
+				|| expected instanceof Boolean
+				|| expected instanceof Enum
+				|| expected instanceof Class
+				|| expected instanceof URL) {
+			assertEquals(path, expected, actual);
+		} else if (expected instanceof Object[]) {
+			assertIteratorEquals(path,
+					Arrays.asList((Object[]) expected).iterator(), Arrays.asList((Object[]) actual).iterator());
+		} else if (expected instanceof List) {
+			assertIteratorEquals(path, ((List<?>) expected).iterator(), ((List<?>) actual).iterator());
+		} else if (expected instanceof Collection) {
+			assertEquals(path, ((Collection<?>) expected).size(), ((Collection<?>) actual).size());
+			assertIteratorEquals(path, ((Collection<?>) expected).iterator(), ((Collection<?>) actual).iterator());
+		} else {
+			for (Class<?> clazz = expected.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+				for (Field field : clazz.getDeclaredFields()) {
+					if (Modifier.isStatic(field.getModifiers())) {
+						continue;
+					}
+					field.setAccessible(true);
+					assertDeepEquals(path + "." + field.getName(), field.get(expected), field.get(actual));
+				}
+			}
+		}
+	}
+
+	private void assertIteratorEquals(String path, Iterator<?> expected, Iterator<?> actual)
+			throws IllegalAccessException {
+		for (int i = 0; expected.hasNext(); i++) {
+			if (!actual.hasNext()) {
+				fail(path + " has less elements than expected");
+			}
+			assertDeepEquals(path + "[" + i + "]", expected.next(), actual.next());
+		}
+		assertTrue(path + " has more elements than expected", !actual.hasNext());
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import java.text.MessageFormat;
+import java.util.List;
+
+import org.jboss.dmr.ModelNode;
+
+import com.openshift.client.utils.Samples;
+
+/**
+ * Measures how many applications per second get listed off a synthetic
+ * domain with the tree factory, the streaming factory and the streaming
+ * factory restricted to application summaries. Not part of the test suite,
+ * run it with <code>java ResponseProjectionBenchmark [applications]</code>.
+ * 
+ * @author Andre Dietisheim
+ */
+public class ResponseProjectionBenchmark {
+
+	private static final int DEFAULT_APPLICATIONS = 5 * 1000;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		int applications = DEFAULT_APPLICATIONS;
+		if (args.length > 0) {
+			applications = Integer.parseInt(args[0]);
+		}
+		String content = createApplications(applications);
+		report("tree", applications, measure(new OpenShiftJsonDTOFactory(), content, applications));
+		report("streaming", applications, measure(new OpenShiftJsonStreamingDTOFactory(), content, applications));
+		report("streaming, application summary", applications, measure(
+				new OpenShiftJsonStreamingDTOFactory().project(ResponseProjection.APPLICATION_SUMMARY),
+				content, applications));
+	}
+
+	/**
+	 * Returns a list response with the given number of applications, copies
+	 * of the applications in the sample.
+	 */
+	private static String createApplications(int applications) {
+		ModelNode response = ModelNode.fromJSONString(
+				Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString());
+		List<ModelNode> sample = response.get("data").asList();
+		StringBuilder builder = new StringBuilder("{\"data\":[");
+		for (int i = 0; i < applications; i++) {
+			ModelNode application = sample.get(i % sample.size()).clone();
+			application.get("name").set(application.get("name").asString() + i);
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append(application.toJSONString(true));
+		}
+		return builder.append("],\"type\":\"applications\",\"status\":\"ok\"}").toString();
+	}
+
+	/**
+	 * Returns the best time (in nanoseconds) that the given factory took to
+	 * parse the given content.
+	 */
+	private static long measure(IRestResponseFactory factory, String content, int applications) {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			List<?> dtos = factory.get(content).getData();
+			best = Math.min(best, System.nanoTime() - start);
+			if (dtos.size() != applications) {
+				throw new IllegalStateException();
+			}
+		}
+		return best;
+	}
+
+	private static void report(String name, int applications, long nanos) {
+		System.out.println(MessageFormat.format("{0}: {1} ms, {2} applications/s",
+				name, String.valueOf(nanos / 1000 / 1000), String.valueOf(applications * 1000L * 1000 * 1000 / nanos)));
+	}
+}
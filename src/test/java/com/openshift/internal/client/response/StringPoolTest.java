@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.openshift.client.utils.Samples;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class StringPoolTest {
+
+	@Test
+	public void shouldReturnPooledString() throws Throwable {
+		// pre-conditions
+		StringPool pool = new StringPool();
+		String jbosseap = new String("jbosseap-6");
+		// operation
+		String pooled = pool.intern(jbosseap);
+		String otherPooled = pool.intern(new String("jbosseap-6"));
+		// verification
+		assertThat(pooled).isSameAs(jbosseap);
+		assertThat(otherPooled).isSameAs(jbosseap);
+	}
+
+	@Test
+	public void shouldReportHitsAndBytesSaved() throws Throwable {
+		// pre-conditions
+		StringPool pool = new StringPool();
+		// operation
+		pool.intern(new String("jbosseap-6"));
+		pool.intern(new String("jbosseap-6"));
+		pool.intern(new String("jbosseap-6"));
+		pool.intern(new String("mysql-5.1"));
+		pool.intern(null);
+		// verification
+		StringPoolStatistics statistics = pool.getStatistics();
+		assertThat(statistics.getSize()).isEqualTo(2);
+		assertThat(statistics.getHits()).isEqualTo(2);
+		assertThat(statistics.getMisses()).isEqualTo(2);
+		assertThat(statistics.getHitRate()).isEqualTo(0.5d);
+		// 40 bytes overhead + 10 chars (20 bytes, aligned to 24)
+		assertThat(statistics.getBytesSaved()).isEqualTo(2 * 64);
+	}
+
+	@Test
+	public void shouldNotPoolMoreThanMaxSize() throws Throwable {
+		// pre-conditions
+		StringPool pool = new StringPool(2, 1024);
+		pool.intern("jbosseap-6");
+		pool.intern("mysql-5.1");
+		String mongodb = new String("mongodb-2.2");
+		// operation
+		String pooled = pool.intern(mongodb);
+		String otherPooled = pool.intern(new String("mongodb-2.2"));
+		// verification
+		assertThat(pooled).isSameAs(mongodb);
+		assertThat(otherPooled).isNotSameAs(mongodb);
+		assertThat(pool.getStatistics().getSize()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldNotPoolLongStrings() throws Throwable {
+		// pre-conditions
+		StringPool pool = new StringPool(10, 5);
+		String jbosseap = new String("jbosseap-6");
+		// operation
+		pool.intern(jbosseap);
+		String pooled = pool.intern(new String("jbosseap-6"));
+		// verification
+		assertThat(pooled).isNotSameAs(jbosseap);
+		assertThat(pool.getStatistics().getSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldReturnSameStringToConcurrentCallers() throws Throwable {
+		// pre-conditions
+		final StringPool pool = new StringPool();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		try {
+			// operation
+			for (int i = 0; i < 100; i++) {
+				results.add(executor.submit(new Callable<String>() {
+
+					@Override
+					public String call() throws Exception {
+						return pool.intern(new String("jbosseap-6"));
+					}
+				}));
+			}
+			// verification
+			String pooled = results.get(0).get();
+			for (Future<String> result : results) {
+				assertThat(result.get()).isSameAs(pooled);
+			}
+			assertThat(pool.getStatistics().getMisses()).isEqualTo(1);
+			assertThat(pool.getStatistics().getHits()).isEqualTo(99);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldShareCartridgeNamesAmongApplications() throws Throwable {
+		// pre-conditions
+		StringPool pool = new StringPool();
+		IRestResponseFactory factory = new OpenShiftJsonDTOFactory(null, pool);
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_1EMBEDDED.getContentAsString();
+		// operation
+		ApplicationResourceDTO springeap6 = factory.get(content).getData();
+		ApplicationResourceDTO jbosseap = factory.get(content.replace("springeap6", "jbosseap")).getData();
+		// verification
+		CartridgeResourceDTO springeap6Cartridge = springeap6.getCartridges().get("jbosseap-6");
+		CartridgeResourceDTO jbosseapCartridge = jbosseap.getCartridges().get("jbosseap-6");
+		assertThat(jbosseapCartridge.getName()).isSameAs(springeap6Cartridge.getName());
+		assertThat(jbosseapCartridge.getDisplayName()).isSameAs(springeap6Cartridge.getDisplayName());
+		assertThat(jbosseapCartridge.getDescription()).isSameAs(springeap6Cartridge.getDescription());
+		assertThat(jbosseap.getName()).isNotSameAs(springeap6.getName());
+		assertThat(pool.getStatistics().getHitRate()).isGreaterThan(0.5d);
+		assertThat(pool.getStatistics().getBytesSaved()).isGreaterThan(0);
+	}
+}